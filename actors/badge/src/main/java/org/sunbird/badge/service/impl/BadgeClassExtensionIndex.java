@@ -0,0 +1,241 @@
+package org.sunbird.badge.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.badge.model.BadgeClassExtension;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+
+/**
+ * In memory copy of the badge class extension table, indexed by root org, type, subtype, issuer and
+ * role, so badge searches are answered by set intersections without reading Cassandra. The index
+ * is loaded on the first search, updated on every save or delete through this node, and reloaded
+ * at a fixed interval to pick up the writes of the other nodes.
+ */
+public class BadgeClassExtensionIndex {
+
+  private static final String REFRESH_INTERVAL_KEY = "sunbird_badge_class_index_refresh";
+  /** Interval between reloads of the shared index in seconds. */
+  private static final int DEFAULT_REFRESH_INTERVAL = 300;
+
+  private static BadgeClassExtensionIndex sharedIndex;
+
+  private final CassandraOperation cassandraOperation;
+  private volatile Snapshot snapshot;
+
+  public BadgeClassExtensionIndex(CassandraOperation cassandraOperation) {
+    this.cassandraOperation = cassandraOperation;
+  }
+
+  /**
+   * Returns the index shared by all the badge class extension services of this node, which is
+   * reloaded at a fixed interval.
+   *
+   * @return Shared index
+   */
+  public static synchronized BadgeClassExtensionIndex getSharedIndex() {
+    if (null == sharedIndex) {
+      BadgeClassExtensionIndex index = new BadgeClassExtensionIndex(ServiceFactory.getInstance());
+      ScheduledExecutorService refresher =
+          Executors.newSingleThreadScheduledExecutor(
+              ExecutorManager.newDaemonThreadFactory("badge-class-index"));
+      int interval = ConfigUtil.getInt(REFRESH_INTERVAL_KEY, DEFAULT_REFRESH_INTERVAL);
+      refresher.scheduleWithFixedDelay(
+          () -> {
+            try {
+              index.reload();
+            } catch (Exception e) {
+              ProjectLogger.log(
+                  "BadgeClassExtensionIndex:refresh: Failed to reload badge class extensions "
+                      + e.getMessage(),
+                  e);
+            }
+          },
+          interval,
+          interval,
+          TimeUnit.SECONDS);
+      sharedIndex = index;
+    }
+    return sharedIndex;
+  }
+
+  /**
+   * Searches the badge class extensions. Null or empty filters match every extension, and an
+   * extension without roles matches any roles.
+   *
+   * @return Matching extensions
+   */
+  public List<BadgeClassExtension> search(
+      List<String> issuerList,
+      List<String> badgeList,
+      String rootOrgId,
+      String type,
+      String subtype,
+      List<String> roles) {
+    Snapshot current = getSnapshot();
+    Set<String> ids = null;
+    if (rootOrgId != null) {
+      ids = intersect(ids, current.byRootOrgId.get(rootOrgId));
+    }
+    if (type != null) {
+      ids = intersect(ids, current.byType.get(type));
+    }
+    if (subtype != null) {
+      ids = intersect(ids, current.bySubtype.get(subtype));
+    }
+    if (CollectionUtils.isNotEmpty(issuerList)) {
+      ids = intersect(ids, union(current.byIssuerId, issuerList, null));
+    }
+    if (CollectionUtils.isNotEmpty(badgeList)) {
+      ids = intersect(ids, new HashSet<>(badgeList));
+    }
+    if (roles != null) {
+      ids = intersect(ids, union(current.byRole, roles, current.withoutRoles));
+    }
+    List<BadgeClassExtension> result = new ArrayList<>();
+    for (Map.Entry<String, BadgeClassExtension> entry : current.byBadgeId.entrySet()) {
+      if (null == ids || ids.contains(entry.getKey())) {
+        result.add(entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds or replaces a badge class extension, if the index is loaded.
+   *
+   * @param badgeClassExtension Saved extension
+   */
+  public synchronized void put(BadgeClassExtension badgeClassExtension) {
+    if (null != snapshot) {
+      Map<String, BadgeClassExtension> byBadgeId = new LinkedHashMap<>(snapshot.byBadgeId);
+      byBadgeId.put(badgeClassExtension.getBadgeId(), badgeClassExtension);
+      snapshot = new Snapshot(byBadgeId.values());
+    }
+  }
+
+  /**
+   * Removes a badge class extension, if the index is loaded.
+   *
+   * @param badgeId Id of the deleted extension
+   */
+  public synchronized void remove(String badgeId) {
+    if (null != snapshot) {
+      Map<String, BadgeClassExtension> byBadgeId = new LinkedHashMap<>(snapshot.byBadgeId);
+      byBadgeId.remove(badgeId);
+      snapshot = new Snapshot(byBadgeId.values());
+    }
+  }
+
+  /** Reloads the index from Cassandra. */
+  @SuppressWarnings("unchecked")
+  public synchronized void reload() {
+    Response response =
+        cassandraOperation.getAllRecords(
+            Util.KEY_SPACE_NAME, BadgeClassExtensionServiceImpl.BADGE_CLASS_EXT_TABLE_NAME);
+    List<Map<String, Object>> records = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    List<BadgeClassExtension> badgeClassExtList = new ArrayList<>();
+    if (null != records) {
+      for (Map<String, Object> record : records) {
+        badgeClassExtList.add(new BadgeClassExtension(record));
+      }
+    }
+    snapshot = new Snapshot(badgeClassExtList);
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (null == current) {
+      synchronized (this) {
+        if (null == snapshot) {
+          reload();
+        }
+        current = snapshot;
+      }
+    }
+    return current;
+  }
+
+  /** Intersection of the ids with the matching ids, null ids meaning all. */
+  private static Set<String> intersect(Set<String> ids, Set<String> matchingIds) {
+    if (null == matchingIds) {
+      return Collections.emptySet();
+    }
+    if (null == ids) {
+      return matchingIds;
+    }
+    Set<String> smaller = ids.size() <= matchingIds.size() ? ids : matchingIds;
+    Set<String> larger = smaller == ids ? matchingIds : ids;
+    Set<String> result = new HashSet<>();
+    for (String id : smaller) {
+      if (larger.contains(id)) {
+        result.add(id);
+      }
+    }
+    return result;
+  }
+
+  private static Set<String> union(
+      Map<String, Set<String>> index, Collection<String> keys, Set<String> initial) {
+    Set<String> ids = null == initial ? new HashSet<>() : new HashSet<>(initial);
+    for (String key : keys) {
+      Set<String> keyIds = index.get(key);
+      if (null != keyIds) {
+        ids.addAll(keyIds);
+      }
+    }
+    return ids;
+  }
+
+  /** Immutable state of the index, replaced as a whole on every change. */
+  private static class Snapshot {
+    private final Map<String, BadgeClassExtension> byBadgeId = new LinkedHashMap<>();
+    private final Map<String, Set<String>> byRootOrgId = new HashMap<>();
+    private final Map<String, Set<String>> byType = new HashMap<>();
+    private final Map<String, Set<String>> bySubtype = new HashMap<>();
+    private final Map<String, Set<String>> byIssuerId = new HashMap<>();
+    private final Map<String, Set<String>> byRole = new HashMap<>();
+    private final Set<String> withoutRoles = new HashSet<>();
+
+    private Snapshot(Collection<BadgeClassExtension> badgeClassExtList) {
+      for (BadgeClassExtension badgeClassExt : badgeClassExtList) {
+        String badgeId = badgeClassExt.getBadgeId();
+        byBadgeId.put(badgeId, badgeClassExt);
+        add(byRootOrgId, badgeClassExt.getRootOrgId(), badgeId);
+        add(byType, badgeClassExt.getType(), badgeId);
+        add(bySubtype, badgeClassExt.getSubtype(), badgeId);
+        add(byIssuerId, badgeClassExt.getIssuerId(), badgeId);
+        if (CollectionUtils.isEmpty(badgeClassExt.getRoles())) {
+          withoutRoles.add(badgeId);
+        } else {
+          for (String role : badgeClassExt.getRoles()) {
+            add(byRole, role, badgeId);
+          }
+        }
+      }
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String badgeId) {
+      if (null != key) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(badgeId);
+      }
+    }
+  }
+}
@@ -1,11 +1,8 @@
 package org.sunbird.badge.service.impl;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import org.apache.commons.collections.CollectionUtils;
 import org.sunbird.badge.model.BadgeClassExtension;
 import org.sunbird.badge.service.BadgeClassExtensionService;
 import org.sunbird.cassandra.CassandraOperation;
@@ -21,14 +18,17 @@ import org.sunbird.learner.util.Util;
 
 public class BadgeClassExtensionServiceImpl implements BadgeClassExtensionService {
   private CassandraOperation cassandraOperation;
+  private BadgeClassExtensionIndex index;
   public static final String BADGE_CLASS_EXT_TABLE_NAME = "badge_class_extension";
 
   public BadgeClassExtensionServiceImpl() {
     this.cassandraOperation = ServiceFactory.getInstance();
+    this.index = BadgeClassExtensionIndex.getSharedIndex();
   }
 
   public BadgeClassExtensionServiceImpl(CassandraOperation cassandraOperation) {
     this.cassandraOperation = cassandraOperation;
+    this.index = new BadgeClassExtensionIndex(cassandraOperation);
   }
 
   @Override
@@ -44,6 +44,7 @@ public class BadgeClassExtensionServiceImpl implements BadgeClassExtensionServic
     request.put(JsonKey.ROLES, badgeClassExtension.getRoles());
 
     cassandraOperation.upsertRecord(Util.KEY_SPACE_NAME, BADGE_CLASS_EXT_TABLE_NAME, request);
+    index.put(badgeClassExtension);
   }
 
   @Override
@@ -54,43 +55,7 @@ public class BadgeClassExtensionServiceImpl implements BadgeClassExtensionServic
       String type,
       String subtype,
       List<String> roles) {
-    Map<String, Object> propertyMap = new HashMap<>();
-
-    if (rootOrgId != null) {
-      propertyMap.put(JsonKey.ROOT_ORG_ID, rootOrgId);
-    }
-
-    if (type != null) {
-      propertyMap.put(JsonKey.TYPE, type);
-    }
-
-    if (subtype != null) {
-      propertyMap.put(JsonKey.SUBTYPE, subtype);
-    }
-
-    Response response =
-        cassandraOperation.getRecordsByProperties(
-            Util.KEY_SPACE_NAME, BADGE_CLASS_EXT_TABLE_NAME, propertyMap);
-    List<Map<String, Object>> badgeClassExtList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-
-    return badgeClassExtList
-        .stream()
-        .map(badgeClassExtMap -> new BadgeClassExtension(badgeClassExtMap))
-        .filter(
-            badgeClassExt ->
-                roles == null
-                    || CollectionUtils.isEmpty(badgeClassExt.getRoles())
-                    || !Collections.disjoint(roles, badgeClassExt.getRoles()))
-        .filter(
-            badgeClassExt ->
-                CollectionUtils.isEmpty(issuerList)
-                    || issuerList.contains(badgeClassExt.getIssuerId()))
-        .filter(
-            badgeClassExt ->
-                CollectionUtils.isEmpty(badgeList)
-                    || badgeList.contains(badgeClassExt.getBadgeId()))
-        .collect(Collectors.toList());
+    return index.search(issuerList, badgeList, rootOrgId, type, subtype, roles);
   }
 
   @Override
@@ -116,5 +81,6 @@ public class BadgeClassExtensionServiceImpl implements BadgeClassExtensionServic
   @Override
   public void delete(String badgeId) {
     cassandraOperation.deleteRecord(Util.KEY_SPACE_NAME, BADGE_CLASS_EXT_TABLE_NAME, badgeId);
+    index.remove(badgeId);
   }
 }
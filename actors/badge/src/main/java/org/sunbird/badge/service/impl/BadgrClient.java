@@ -0,0 +1,162 @@
+package org.sunbird.badge.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.sunbird.badge.util.BadgingUtil;
+import org.sunbird.common.models.response.HttpUtilResponse;
+import org.sunbird.common.models.util.HttpUtil;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Reads from Badgr. Independent reads are sent concurrently on a bounded pool shared by all
+ * requests, and the successful responses of reads of issuers and badge classes are cached for a
+ * limited time by url. Writes to Badgr must invalidate the cached urls they change.
+ *
+ * <p>The cache is local to the node. A write invalidates the cache of the node which made it only,
+ * other nodes serve their cached response until it expires, so the time to live is kept short.
+ */
+public class BadgrClient {
+
+  private static final String POOL_SIZE_KEY = "sunbird_badgr_pool_size";
+  private static final String CACHE_TTL_KEY = "sunbird_badgr_cache_ttl";
+  private static final String CACHE_SIZE_KEY = "sunbird_badgr_cache_size";
+  private static final int DEFAULT_POOL_SIZE = 8;
+  /** Time to live of cached responses in seconds, also how stale a read on another node can be. */
+  private static final int DEFAULT_CACHE_TTL = 30;
+  private static final int DEFAULT_CACHE_SIZE = 1000;
+  private static final int QUEUE_CAPACITY = 1000;
+
+  private static final ExecutorService executor =
+      ExecutorManager.newBoundedExecutor(
+          "badgr-client", ConfigUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE), QUEUE_CAPACITY);
+
+  private final long ttl =
+      TimeUnit.SECONDS.toMillis(ConfigUtil.getInt(CACHE_TTL_KEY, DEFAULT_CACHE_TTL));
+  private final int maxSize = ConfigUtil.getInt(CACHE_SIZE_KEY, DEFAULT_CACHE_SIZE);
+  private final Map<String, CachedResponse> cache =
+      new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+          return size() > maxSize;
+        }
+      };
+
+  /**
+   * Sends a GET request to Badgr.
+   *
+   * @param url Url to read
+   * @param cacheable Whether the response may be served from, and saved in, the cache
+   * @return Response
+   * @throws IOException If the request fails
+   */
+  public HttpUtilResponse get(String url, boolean cacheable) throws IOException {
+    if (cacheable) {
+      synchronized (cache) {
+        CachedResponse cachedResponse = cache.get(url);
+        if (null != cachedResponse && cachedResponse.expiryTime > System.currentTimeMillis()) {
+          return cachedResponse.response;
+        }
+      }
+    }
+    HttpUtilResponse response = HttpUtil.doGetRequest(url, BadgingUtil.getBadgrHeaders());
+    if (cacheable && null != response && response.getStatusCode() == 200) {
+      synchronized (cache) {
+        cache.put(url, new CachedResponse(response, System.currentTimeMillis() + ttl));
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Sends GET requests to Badgr concurrently.
+   *
+   * @param urls Urls to read
+   * @param cacheable Whether the responses may be served from, and saved in, the cache
+   * @return Responses, in the order of the urls
+   * @throws IOException If any request fails
+   */
+  public List<HttpUtilResponse> getAll(List<String> urls, boolean cacheable) throws IOException {
+    List<HttpUtilResponse> responses = new ArrayList<>();
+    if (urls.size() == 1) {
+      // no need to hand a single request over to the pool
+      responses.add(get(urls.get(0), cacheable));
+      return responses;
+    }
+    List<CompletableFuture<HttpUtilResponse>> futures = new ArrayList<>();
+    for (String url : urls) {
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return get(url, cacheable);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              },
+              executor));
+    }
+    try {
+      for (CompletableFuture<HttpUtilResponse> future : futures) {
+        responses.add(future.join());
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return responses;
+  }
+
+  /**
+   * Removes the cached response of a url.
+   *
+   * @param url Url changed by a write
+   */
+  public void invalidate(String url) {
+    synchronized (cache) {
+      cache.remove(url);
+    }
+  }
+
+  /**
+   * Removes the cached responses of all urls starting with the given prefix.
+   *
+   * @param prefix Prefix of the urls changed by a write
+   */
+  public void invalidateAll(String prefix) {
+    synchronized (cache) {
+      Iterator<String> urls = cache.keySet().iterator();
+      while (urls.hasNext()) {
+        if (urls.next().startsWith(prefix)) {
+          urls.remove();
+        }
+      }
+    }
+  }
+
+  private static class CachedResponse {
+    private final HttpUtilResponse response;
+    private final long expiryTime;
+
+    private CachedResponse(HttpUtilResponse response, long expiryTime) {
+      this.response = response;
+      this.expiryTime = expiryTime;
+    }
+  }
+}
@@ -5,10 +5,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
-import java.util.stream.Collectors;
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -37,6 +38,7 @@ import org.sunbird.telemetry.util.TelemetryUtil;
 /** @author Manzarul */
 public class BadgrServiceImpl implements BadgingService {
   private BadgeClassExtensionService badgeClassExtensionService;
+  private BadgrClient badgrClient = new BadgrClient();
   private ObjectMapper mapper = new ObjectMapper();
   private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   public static Map<String, String> headerMap = new HashMap<>();
@@ -91,6 +93,7 @@ public class BadgrServiceImpl implements BadgingService {
 
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
+    badgrClient.invalidate(BadgingUtil.getBadgeIssuerUrl());
     Response response = new Response();
     BadgingUtil.prepareBadgeIssuerResponse(httpResponse.getBody(), response.getResult());
 
@@ -109,8 +112,7 @@ public class BadgrServiceImpl implements BadgingService {
   public Response getIssuerDetails(Request request) throws IOException {
     Map<String, Object> req = request.getRequest();
     String slug = (String) req.get(JsonKey.SLUG);
-    HttpUtilResponse httpResponse =
-        HttpUtil.doGetRequest(BadgingUtil.getBadgeIssuerUrl(slug), BadgingUtil.getBadgrHeaders());
+    HttpUtilResponse httpResponse = badgrClient.get(BadgingUtil.getBadgeIssuerUrl(slug), true);
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
     Response response = new Response();
@@ -120,8 +122,7 @@ public class BadgrServiceImpl implements BadgingService {
 
   @Override
   public Response getIssuerList(Request request) throws IOException {
-    HttpUtilResponse httpResponse =
-        HttpUtil.doGetRequest(BadgingUtil.getBadgeIssuerUrl(), BadgingUtil.getBadgrHeaders());
+    HttpUtilResponse httpResponse = badgrClient.get(BadgingUtil.getBadgeIssuerUrl(), true);
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
     Response response = new Response();
@@ -199,6 +200,7 @@ public class BadgrServiceImpl implements BadgingService {
 
       BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
           httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
+      badgrClient.invalidate(BadgingUtil.getBadgeClassUrl(issuerId));
 
       Map<String, Object> badgrResponseMap = mapper.readValue(badgrResponseStr, HashMap.class);
       String badgeId = (String) badgrResponseMap.get(BadgingJsonKey.SLUG);
@@ -237,10 +239,9 @@ public class BadgrServiceImpl implements BadgingService {
 
       String badgeId = (String) requestData.get(BadgingJsonKey.BADGE_ID);
 
-      Map<String, String> headers = BadgingUtil.getBadgrHeaders();
       String badgrUrl = BadgingUtil.getBadgeClassUrl(BadgingJsonKey.ISSUER_ID, badgeId);
 
-      HttpUtilResponse httpUtilResponse = HttpUtil.doGetRequest(badgrUrl, headers);
+      HttpUtilResponse httpUtilResponse = badgrClient.get(badgrUrl, true);
       String badgrResponseStr = httpUtilResponse.getBody();
 
       BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
@@ -283,17 +284,29 @@ public class BadgrServiceImpl implements BadgingService {
     List<BadgeClassExtension> badgeClassExtList =
         badgeClassExtensionService.search(
             issuerList, badgeList, rootOrgId, type, subtype, allowedRoles);
-    List<String> filteredIssuerList =
-        badgeClassExtList
-            .stream()
-            .map(badge -> badge.getIssuerId())
-            .distinct()
-            .collect(Collectors.toList());
+    Map<String, BadgeClassExtension> badgeClassExtMap = new HashMap<>();
+    Set<String> badgrUrls = new LinkedHashSet<>();
+    for (BadgeClassExtension badgeClassExt : badgeClassExtList) {
+      badgeClassExtMap.putIfAbsent(badgeClassExt.getBadgeId(), badgeClassExt);
+      badgrUrls.add(BadgingUtil.getBadgeClassUrl(badgeClassExt.getIssuerId()));
+    }
 
     List<Object> badges = new ArrayList<>();
 
-    for (String issuerSlug : filteredIssuerList) {
-      badges.addAll(listBadgeClassForIssuer(issuerSlug, badgeClassExtList));
+    if (!badgrUrls.isEmpty()) {
+      try {
+        // badge classes of all the issuers are read concurrently
+        List<HttpUtilResponse> httpUtilResponses =
+            badgrClient.getAll(new ArrayList<>(badgrUrls), true);
+        for (HttpUtilResponse httpUtilResponse : httpUtilResponses) {
+          badges.addAll(listBadgeClassForIssuer(httpUtilResponse, badgeClassExtMap));
+        }
+      } catch (IOException e) {
+        BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
+            ResponseCode.SERVER_ERROR.getResponseCode(),
+            e.getMessage(),
+            BadgingJsonKey.BADGE_CLASS);
+      }
     }
 
     response.put(BadgingJsonKey.BADGES, badges);
@@ -302,39 +315,26 @@ public class BadgrServiceImpl implements BadgingService {
   }
 
   private List<Object> listBadgeClassForIssuer(
-      String issuerSlug, List<BadgeClassExtension> badgeClassExtensionList)
-      throws ProjectCommonException {
+      HttpUtilResponse httpUtilResponse, Map<String, BadgeClassExtension> badgeClassExtMap)
+      throws IOException {
     List<Object> filteredBadges = new ArrayList<>();
 
-    try {
-      Map<String, String> headers = BadgingUtil.getBadgrHeaders();
-      String badgrUrl = BadgingUtil.getBadgeClassUrl(issuerSlug);
-
-      HttpUtilResponse httpUtilResponse = HttpUtil.doGetRequest(badgrUrl, headers);
-      String badgrResponseStr = httpUtilResponse.getBody();
+    String badgrResponseStr = httpUtilResponse.getBody();
 
-      BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
-          httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
+    BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
+        httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
 
-      List<Map<String, Object>> badges = mapper.readValue(badgrResponseStr, ArrayList.class);
+    List<Map<String, Object>> badges = mapper.readValue(badgrResponseStr, ArrayList.class);
 
-      for (Map<String, Object> badge : badges) {
-        BadgeClassExtension matchedBadgeClassExt =
-            badgeClassExtensionList
-                .stream()
-                .filter(x -> x.getBadgeId().equals(badge.get(BadgingJsonKey.SLUG)))
-                .findFirst()
-                .orElse(null);
+    for (Map<String, Object> badge : badges) {
+      BadgeClassExtension matchedBadgeClassExt =
+          badgeClassExtMap.get(badge.get(BadgingJsonKey.SLUG));
 
-        if (matchedBadgeClassExt != null) {
-          Map<String, Object> mappedBadge = new HashMap<>();
-          BadgingUtil.prepareBadgeClassResponse(badge, matchedBadgeClassExt, mappedBadge);
-          filteredBadges.add(mappedBadge);
-        }
+      if (matchedBadgeClassExt != null) {
+        Map<String, Object> mappedBadge = new HashMap<>();
+        BadgingUtil.prepareBadgeClassResponse(badge, matchedBadgeClassExt, mappedBadge);
+        filteredBadges.add(mappedBadge);
       }
-    } catch (IOException e) {
-      BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
-          ResponseCode.SERVER_ERROR.getResponseCode(), e.getMessage(), BadgingJsonKey.BADGE_CLASS);
     }
 
     return filteredBadges;
@@ -362,6 +362,8 @@ public class BadgrServiceImpl implements BadgingService {
           httpUtilResponse.getStatusCode(), badgrResponseStr, BadgingJsonKey.BADGE_CLASS);
 
       badgeClassExtensionService.delete(badgeId);
+      // the issuer of the badge is not known here, so the badge classes of all issuers are dropped
+      badgrClient.invalidateAll(BadgingUtil.getBadgeIssuerUrl());
       response.put(JsonKey.MESSAGE, badgrResponseStr.replaceAll("^\"|\"$", ""));
       targetObject =
           TelemetryUtil.generateTargetObject(
@@ -460,12 +462,15 @@ public class BadgrServiceImpl implements BadgingService {
   public Response getAssertionList(Request request) throws IOException {
     Map<String, Object> filterMap = (Map<String, Object>) request.getRequest().get(JsonKey.FILTERS);
     List<String> requestData = (List) filterMap.get(BadgingJsonKey.ASSERTIONS);
-    List<Map<String, Object>> responseList = new ArrayList<>();
+    List<String> urls = new ArrayList<>();
     for (String assertionId : requestData) {
       WeakHashMap<String, Object> map = new WeakHashMap<>();
       map.put(BadgingJsonKey.ASSERTION_ID, assertionId);
-      String url = BadgingUtil.createBadgerUrl(map, BadgingUtil.SUNBIRD_BADGER_GETASSERTION_URL, 3);
-      HttpUtilResponse httpResponse = HttpUtil.doGetRequest(url, BadgingUtil.getBadgrHeaders());
+      urls.add(BadgingUtil.createBadgerUrl(map, BadgingUtil.SUNBIRD_BADGER_GETASSERTION_URL, 3));
+    }
+    List<Map<String, Object>> responseList = new ArrayList<>();
+    // assertions can be revoked, so they are read concurrently but never cached
+    for (HttpUtilResponse httpResponse : badgrClient.getAll(urls, false)) {
       if (httpResponse.getStatusCode() == 200) {
         Map<String, Object> res = mapper.readValue(httpResponse.getBody(), HashMap.class);
         // calling to create response as per sunbird
@@ -527,6 +532,9 @@ public class BadgrServiceImpl implements BadgingService {
             BadgingUtil.getBadgrHeaders(), BadgingUtil.getBadgeIssuerUrl(slug));
     BadgingUtil.throwBadgeClassExceptionOnErrorStatus(
         httpResponse.getStatusCode(), null, BadgingJsonKey.ISSUER);
+    badgrClient.invalidate(BadgingUtil.getBadgeIssuerUrl());
+    badgrClient.invalidate(BadgingUtil.getBadgeIssuerUrl(slug));
+    badgrClient.invalidateAll(BadgingUtil.getBadgeIssuerUrl(slug) + "/");
     Response response = new Response();
     // since the response from badger service contains " at beging and end so remove that from
     // response string
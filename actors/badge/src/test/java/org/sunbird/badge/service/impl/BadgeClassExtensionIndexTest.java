@@ -0,0 +1,71 @@
+package org.sunbird.badge.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sunbird.badge.model.BadgeClassExtension;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+
+public class BadgeClassExtensionIndexTest {
+
+  private BadgeClassExtensionIndex index;
+
+  @Before
+  public void setUp() {
+    CassandraOperation cassandraOperation = Mockito.mock(CassandraOperation.class);
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, new ArrayList<>());
+    Mockito.when(cassandraOperation.getAllRecords(Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(response);
+    index = new BadgeClassExtensionIndex(cassandraOperation);
+    index.reload();
+    index.put(
+        new BadgeClassExtension(
+            "badge1", "issuer1", "org1", "user", "award", Arrays.asList("TEACHER")));
+    index.put(new BadgeClassExtension("badge2", "issuer1", "org1", "user", "award", null));
+    index.put(new BadgeClassExtension("badge3", "issuer2", "org2", "content", "award", null));
+  }
+
+  @Test
+  public void testSearchByRootOrgAndType() {
+    Assert.assertEquals(
+        Arrays.asList("badge1", "badge2"),
+        getBadgeIds(index.search(null, null, "org1", "user", null, null)));
+  }
+
+  @Test
+  public void testBadgeWithoutRolesMatchesAnyRole() {
+    Assert.assertEquals(
+        Collections.singletonList("badge2"),
+        getBadgeIds(
+            index.search(
+                Collections.singletonList("issuer1"),
+                null,
+                null,
+                null,
+                null,
+                Collections.singletonList("ADMIN"))));
+  }
+
+  @Test
+  public void testRemovedBadgeIsNotFound() {
+    index.remove("badge3");
+
+    Assert.assertTrue(index.search(null, null, "org2", null, null, null).isEmpty());
+  }
+
+  private static List<String> getBadgeIds(List<BadgeClassExtension> badgeClassExtList) {
+    List<String> badgeIds = new ArrayList<>();
+    for (BadgeClassExtension badgeClassExt : badgeClassExtList) {
+      badgeIds.add(badgeClassExt.getBadgeId());
+    }
+    return badgeIds;
+  }
+}
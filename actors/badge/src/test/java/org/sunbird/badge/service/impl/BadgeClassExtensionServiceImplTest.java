@@ -97,8 +97,7 @@ public class BadgeClassExtensionServiceImplTest {
     Response response = new Response();
     response.put(JsonKey.RESPONSE, new ArrayList<Map<String, Object>>(Arrays.asList(badgeMap)));
 
-    PowerMockito.when(
-            mockDBService.getRecordsByProperties(Mockito.any(), Mockito.any(), Mockito.anyMap()))
+    PowerMockito.when(mockDBService.getAllRecords(Mockito.any(), Mockito.any()))
         .thenReturn(response);
 
     List<BadgeClassExtension> badgeClassExtList =
@@ -124,8 +123,7 @@ public class BadgeClassExtensionServiceImplTest {
     Response response = new Response();
     response.put(JsonKey.RESPONSE, new ArrayList<Map<String, Object>>());
 
-    PowerMockito.when(
-            mockDBService.getRecordsByProperties(Mockito.any(), Mockito.any(), Mockito.anyMap()))
+    PowerMockito.when(mockDBService.getAllRecords(Mockito.any(), Mockito.any()))
         .thenReturn(response);
 
     List<BadgeClassExtension> badgeClassExtList =
@@ -141,6 +139,106 @@ public class BadgeClassExtensionServiceImplTest {
     Assert.assertEquals(0, badgeClassExtList.size());
   }
 
+  @Test
+  public void testSearchSuccessFiltered() {
+    HashMap<String, Object> badgeMap = new HashMap<>();
+    badgeMap.put(JsonKey.ID, VALUE_BADGE_ID);
+    badgeMap.put(BadgingJsonKey.ISSUER_ID, VALUE_ISSUER_ID);
+    badgeMap.put(JsonKey.ROOT_ORG_ID, VALUE_ROOT_ORG_ID);
+    badgeMap.put(JsonKey.TYPE, VALUE_TYPE);
+    badgeMap.put(JsonKey.SUBTYPE, VALUE_SUBTYPE);
+    badgeMap.put(JsonKey.ROLES, VALUE_ROLES_LIST);
+
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, new ArrayList<Map<String, Object>>(Arrays.asList(badgeMap)));
+
+    PowerMockito.when(mockDBService.getAllRecords(Mockito.any(), Mockito.any()))
+        .thenReturn(response);
+
+    Assert.assertEquals(
+        0,
+        badgeClassExtensionServiceImpl
+            .search(null, null, "invalid", VALUE_TYPE, VALUE_SUBTYPE, VALUE_ROLES_LIST)
+            .size());
+    Assert.assertEquals(
+        0,
+        badgeClassExtensionServiceImpl
+            .search(
+                Arrays.asList("invalid"),
+                null,
+                VALUE_ROOT_ORG_ID,
+                VALUE_TYPE,
+                VALUE_SUBTYPE,
+                VALUE_ROLES_LIST)
+            .size());
+    Assert.assertEquals(
+        0,
+        badgeClassExtensionServiceImpl
+            .search(
+                null,
+                null,
+                VALUE_ROOT_ORG_ID,
+                VALUE_TYPE,
+                VALUE_SUBTYPE,
+                new ArrayList<>(Arrays.asList("roleId2")))
+            .size());
+    Assert.assertEquals(
+        1,
+        badgeClassExtensionServiceImpl
+            .search(
+                Arrays.asList(VALUE_ISSUER_ID),
+                Arrays.asList(VALUE_BADGE_ID),
+                VALUE_ROOT_ORG_ID,
+                null,
+                null,
+                null)
+            .size());
+    Mockito.verify(mockDBService, Mockito.times(1)).getAllRecords(Mockito.any(), Mockito.any());
+  }
+
+  @Test
+  public void testSearchSuccessAfterSaveAndDelete() {
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, new ArrayList<Map<String, Object>>());
+
+    PowerMockito.when(mockDBService.getAllRecords(Mockito.any(), Mockito.any()))
+        .thenReturn(response);
+    PowerMockito.when(mockDBService.upsertRecord(Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenReturn(new Response());
+    PowerMockito.when(
+            mockDBService.deleteRecord(
+                Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(new Response());
+
+    Assert.assertEquals(
+        0,
+        badgeClassExtensionServiceImpl
+            .search(null, null, VALUE_ROOT_ORG_ID, VALUE_TYPE, VALUE_SUBTYPE, VALUE_ROLES_LIST)
+            .size());
+
+    badgeClassExtensionServiceImpl.save(
+        new BadgeClassExtension(
+            VALUE_BADGE_ID,
+            VALUE_ISSUER_ID,
+            VALUE_ROOT_ORG_ID,
+            VALUE_TYPE,
+            VALUE_SUBTYPE,
+            VALUE_ROLES_LIST));
+    List<BadgeClassExtension> badgeClassExtList =
+        badgeClassExtensionServiceImpl.search(
+            null, null, VALUE_ROOT_ORG_ID, VALUE_TYPE, VALUE_SUBTYPE, VALUE_ROLES_LIST);
+    Assert.assertEquals(1, badgeClassExtList.size());
+    Assert.assertEquals(VALUE_BADGE_ID, badgeClassExtList.get(0).getBadgeId());
+
+    badgeClassExtensionServiceImpl.delete(VALUE_BADGE_ID);
+    Assert.assertEquals(
+        0,
+        badgeClassExtensionServiceImpl
+            .search(null, null, VALUE_ROOT_ORG_ID, VALUE_TYPE, VALUE_SUBTYPE, VALUE_ROLES_LIST)
+            .size());
+    Mockito.verify(mockDBService, Mockito.times(1)).getAllRecords(Mockito.any(), Mockito.any());
+  }
+
   @Test
   public void testGetFailureBadgeListNull() {
     Response response = new Response();
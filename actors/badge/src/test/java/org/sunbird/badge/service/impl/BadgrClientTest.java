@@ -0,0 +1,63 @@
+package org.sunbird.badge.service.impl;
+
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.common.models.response.HttpUtilResponse;
+import org.sunbird.common.models.util.HttpUtil;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HttpUtil.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class BadgrClientTest {
+
+  private static final String URL = "http://localhost:8000/v1/issuer/issuers";
+
+  private BadgrClient badgrClient;
+
+  @Before
+  public void setUp() throws IOException {
+    PowerMockito.mockStatic(HttpUtil.class);
+    PowerMockito.when(HttpUtil.doGetRequest(Mockito.any(), Mockito.any()))
+        .thenReturn(new HttpUtilResponse("[]", 200));
+    badgrClient = new BadgrClient();
+  }
+
+  @Test
+  public void testResponseIsCached() throws IOException {
+    badgrClient.get(URL, true);
+    badgrClient.get(URL, true);
+
+    verifyRequests(1);
+  }
+
+  @Test
+  public void testInvalidatedResponseIsReadAgain() throws IOException {
+    badgrClient.get(URL, true);
+    badgrClient.invalidate(URL);
+    badgrClient.get(URL, true);
+
+    verifyRequests(2);
+  }
+
+  @Test
+  public void testExpiredResponseIsReadAgain() throws IOException {
+    Whitebox.setInternalState(badgrClient, "ttl", 0L);
+    badgrClient.get(URL, true);
+    badgrClient.get(URL, true);
+
+    verifyRequests(2);
+  }
+
+  private static void verifyRequests(int count) throws IOException {
+    PowerMockito.verifyStatic(Mockito.times(count));
+    HttpUtil.doGetRequest(Mockito.any(), Mockito.any());
+  }
+}
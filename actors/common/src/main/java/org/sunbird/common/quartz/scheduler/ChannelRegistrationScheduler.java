@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.sunbird.actor.background.BackgroundOperations;
@@ -19,6 +20,7 @@ import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryEvents;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
+@DisallowConcurrentExecution
 public class ChannelRegistrationScheduler extends BaseJob {
 
   @Override
@@ -5,23 +5,29 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.lang3.StringUtils;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.models.response.Response;
-import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.datasecurity.OneWayHashing;
-import org.sunbird.common.request.Request;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.CourseBatchSchedulerUtil;
 import org.sunbird.learner.util.EkStepRequestUtil;
+import org.sunbird.learner.util.EsWriteBehindQueue;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryEvents;
 import org.sunbird.telemetry.util.TelemetryUtil;
@@ -32,13 +38,30 @@ import org.sunbird.telemetry.util.TelemetryUtil;
  * all participant from course-batch table and register all those participant under user_course
  * table and push the data to ES.
  *
+ * <p>Batches of the published courses are enrolled concurrently. A course is marked live only once
+ * all its batches are enrolled, so a run which failed for a course is resumed by the next run.
+ *
  * @author Manzarul
  */
+@DisallowConcurrentExecution
 public class CoursePublishedUpdate extends BaseJob {
 
+  private static final String POOL_SIZE_KEY = "sunbird_course_publish_pool_size";
+  private static final int DEFAULT_POOL_SIZE = 8;
+  private static final int QUEUE_CAPACITY = 1000;
+  /** Number of participants enrolled before the participant map of the batch is saved. */
+  private static final int WRITE_BATCH_SIZE = 100;
+  // when the queue is full the job thread enrols the batch itself
+  private static final ExecutorService executor =
+      ExecutorManager.newBoundedExecutor(
+          "course-publish",
+          ConfigUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE),
+          QUEUE_CAPACITY);
+
   private static Util.DbInfo coursePublishDBInfo =
       Util.dbInfoMap.get(JsonKey.COURSE_PUBLISHED_STATUS);
   private Util.DbInfo courseBatchDBInfo = Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
+  private Util.DbInfo courseEnrollmentdbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
   private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
 
   private static String requestData =
@@ -48,8 +71,8 @@ public class CoursePublishedUpdate extends BaseJob {
   public void execute(JobExecutionContext ctx) throws JobExecutionException {
     ProjectLogger.log("Fetching All unpublished course status.", LoggerEnum.INFO.name());
 
-    Util.initializeContextForSchedulerJob(
-        JsonKey.SYSTEM, ctx.getFireInstanceId(), JsonKey.SCHEDULER_JOB);
+    String fireInstanceId = ctx.getFireInstanceId();
+    Util.initializeContextForSchedulerJob(JsonKey.SYSTEM, fireInstanceId, JsonKey.SCHEDULER_JOB);
     Map<String, Object> logInfo =
         genarateLogInfo(JsonKey.SYSTEM, ctx.getJobDetail().getDescription());
     logInfo.put(JsonKey.LOG_LEVEL, JsonKey.INFO);
@@ -59,30 +82,50 @@ public class CoursePublishedUpdate extends BaseJob {
       ProjectLogger.log("Fetching All course details from ekstep.", LoggerEnum.INFO.name());
       List<String> ekStepResult = getAllPublishedCourseListFromEKStep(courseListWithStatusAsDraft);
       if (null != ekStepResult && !ekStepResult.isEmpty()) {
-        ProjectLogger.log("update course status table.", LoggerEnum.INFO.name());
-        updateCourseStatusTable(ekStepResult);
+        ProjectLogger.log("Fetching participants list from Db", LoggerEnum.INFO.name());
+        Map<String, CompletableFuture<List<Map<String, Object>>>> batchLists =
+            new LinkedHashMap<>();
         for (String courseId : ekStepResult) {
+          batchLists.put(
+              courseId, CompletableFuture.supplyAsync(() -> getBatches(courseId), executor));
+        }
+        ProjectLogger.log("Add participants to user course table", LoggerEnum.INFO.name());
+        Map<String, List<CompletableFuture<Void>>> enrolments = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<Map<String, Object>>>> entry :
+            batchLists.entrySet()) {
+          List<CompletableFuture<Void>> batchEnrolments = new ArrayList<>();
+          try {
+            for (Map<String, Object> batch : entry.getValue().join()) {
+              batchEnrolments.add(
+                  CompletableFuture.runAsync(
+                      () -> {
+                        Util.initializeContextForSchedulerJob(
+                            JsonKey.SYSTEM, fireInstanceId, JsonKey.SCHEDULER_JOB);
+                        addUserToUserCourseTable(batch);
+                      },
+                      executor));
+            }
+          } catch (Exception ex) {
+            batchEnrolments.add(failedFuture(ex));
+          }
+          enrolments.put(entry.getKey(), batchEnrolments);
+        }
+        List<String> enrolledCourseIds = new ArrayList<>();
+        for (Map.Entry<String, List<CompletableFuture<Void>>> entry : enrolments.entrySet()) {
           try {
-            Map<String, Object> map = new HashMap<>();
-            map.put(JsonKey.COURSE_ID, courseId);
-            map.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
-            ProjectLogger.log("Fetching participants list from Db", LoggerEnum.INFO.name());
-            Response response =
-                cassandraOperation.getRecordsByProperty(
-                    courseBatchDBInfo.getKeySpace(),
-                    courseBatchDBInfo.getTableName(),
-                    JsonKey.COURSE_ID,
-                    courseId);
-            List<Map<String, Object>> batchList =
-                (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-            ProjectLogger.log("Add participants to user course table", LoggerEnum.INFO.name());
-            addUserToUserCourseTable(batchList);
+            for (CompletableFuture<Void> batchEnrolment : entry.getValue()) {
+              batchEnrolment.join();
+            }
+            enrolledCourseIds.add(entry.getKey());
           } catch (Exception ex) {
+            // the course stays unpublished, so the next run resumes its enrolments
             ProjectLogger.log(
                 ex.getMessage(), ex, genarateTelemetryInfoForError(JsonKey.SCHEDULER_JOB));
             logInfo.put(JsonKey.LOG_LEVEL, "error");
           }
         }
+        ProjectLogger.log("update course status table.", LoggerEnum.INFO.name());
+        updateCourseStatusTable(enrolledCourseIds);
       }
     }
 
@@ -90,90 +133,135 @@ public class CoursePublishedUpdate extends BaseJob {
   }
 
   @SuppressWarnings("unchecked")
-  private void addUserToUserCourseTable(List<Map<String, Object>> batchList) {
-    ProjectLogger.log("Adding participants to user course table started", LoggerEnum.INFO.name());
-    Util.DbInfo courseEnrollmentdbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
-    for (Map<String, Object> batch : batchList) {
-      Map<String, String> additionalCourseInfo =
-          (Map<String, String>) batch.get(JsonKey.COURSE_ADDITIONAL_INFO);
-      if ((int) batch.get(JsonKey.STATUS) != ProjectUtil.ProgressStatus.COMPLETED.getValue()) {
-        Map<String, Boolean> participants = (Map<String, Boolean>) batch.get(JsonKey.PARTICIPANT);
-        if (participants == null) {
-          participants = new HashMap<>();
-        }
-        for (Map.Entry<String, Boolean> entry : participants.entrySet()) {
-          if (!entry.getValue()) {
-            Timestamp ts = new Timestamp(new Date().getTime());
-            Map<String, Object> userCourses = new HashMap<>();
-            userCourses.put(JsonKey.USER_ID, entry.getKey());
-            userCourses.put(JsonKey.BATCH_ID, batch.get(JsonKey.ID));
-            userCourses.put(JsonKey.COURSE_ID, batch.get(JsonKey.COURSE_ID));
-            userCourses.put(JsonKey.ID, generatePrimaryKey(userCourses));
-            userCourses.put(JsonKey.CONTENT_ID, batch.get(JsonKey.COURSE_ID));
-            userCourses.put(JsonKey.COURSE_ENROLL_DATE, ProjectUtil.getFormattedDate());
-            userCourses.put(JsonKey.ACTIVE, ProjectUtil.ActiveStatus.ACTIVE.getValue());
-            userCourses.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
-            userCourses.put(JsonKey.DATE_TIME, ts);
-            userCourses.put(JsonKey.COURSE_PROGRESS, 0);
-            userCourses.put(
-                JsonKey.COURSE_LOGO_URL, additionalCourseInfo.get(JsonKey.COURSE_LOGO_URL));
-            userCourses.put(JsonKey.COURSE_NAME, additionalCourseInfo.get(JsonKey.COURSE_NAME));
-            userCourses.put(JsonKey.DESCRIPTION, additionalCourseInfo.get(JsonKey.DESCRIPTION));
-            if (!StringUtils.isBlank(additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT))) {
-              userCourses.put(
-                  JsonKey.LEAF_NODE_COUNT,
-                  Integer.parseInt("" + additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT)));
-            }
-            userCourses.put(JsonKey.TOC_URL, additionalCourseInfo.get(JsonKey.TOC_URL));
-            try {
-              cassandraOperation.insertRecord(
-                  courseEnrollmentdbInfo.getKeySpace(),
-                  courseEnrollmentdbInfo.getTableName(),
-                  userCourses);
-              // TODO: for some reason, ES indexing is failing with Timestamp value. need to
-              // check
-              // and correct it.
+  private List<Map<String, Object>> getBatches(String courseId) {
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            courseBatchDBInfo.getKeySpace(),
+            courseBatchDBInfo.getTableName(),
+            JsonKey.COURSE_ID,
+            courseId);
+    return (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+  }
 
-              // put logic here to generate the telemetry event for user update as batch ...
+  /**
+   * Enrols the participants of a batch which are not enrolled yet. Participants are enrolled in
+   * groups, one write per participant, and the participant map of the batch is saved after every
+   * group with the participants which were enrolled. A batch with failed participants fails once
+   * all groups are done, so the next run enrols the participants which are still not enrolled.
+   *
+   * @param batch Course batch
+   */
+  @SuppressWarnings("unchecked")
+  private void addUserToUserCourseTable(Map<String, Object> batch) {
+    ProjectLogger.log("Adding participants to user course table started", LoggerEnum.INFO.name());
+    if ((int) batch.get(JsonKey.STATUS) == ProjectUtil.ProgressStatus.COMPLETED.getValue()) {
+      return;
+    }
+    Map<String, String> additionalCourseInfo =
+        (Map<String, String>) batch.get(JsonKey.COURSE_ADDITIONAL_INFO);
+    Map<String, Boolean> participants = (Map<String, Boolean>) batch.get(JsonKey.PARTICIPANT);
+    if (participants == null) {
+      participants = new HashMap<>();
+    }
+    List<String> userIds = new ArrayList<>();
+    for (Map.Entry<String, Boolean> entry : participants.entrySet()) {
+      if (!entry.getValue()) {
+        userIds.add(entry.getKey());
+      }
+    }
+    int failedCount = 0;
+    for (int i = 0; i < userIds.size(); i += WRITE_BATCH_SIZE) {
+      List<String> group = userIds.subList(i, Math.min(i + WRITE_BATCH_SIZE, userIds.size()));
+      Timestamp ts = new Timestamp(new Date().getTime());
+      List<Map<String, Object>> userCoursesList = new ArrayList<>();
+      for (String userId : group) {
+        userCoursesList.add(createUserCourses(userId, batch, additionalCourseInfo, ts));
+      }
+      // every user course is a partition of its own, so they are written one by one, not batched
+      List<Map<String, Object>> failed =
+          CassandraAsyncWriter.upsert(
+              courseEnrollmentdbInfo.getKeySpace(),
+              courseEnrollmentdbInfo.getTableName(),
+              userCoursesList);
+      failedCount += failed.size();
+      userCoursesList.removeAll(failed);
+      for (Map<String, Object> userCourses : userCoursesList) {
+        generateTelemetry(userCourses, batch);
+        // dateTime is a timestamp in Cassandra but is mapped as a formatted date in ES
+        userCourses.put(JsonKey.DATE_TIME, ProjectUtil.formatDate(ts));
+        userCourses.put(JsonKey.IDENTIFIER, userCourses.get(JsonKey.ID));
+        EsWriteBehindQueue.index(
+            ProjectUtil.EsIndex.sunbird.getIndexName(),
+            ProjectUtil.EsType.usercourses.getTypeName(),
+            (String) userCourses.get(JsonKey.ID),
+            userCourses);
+        // update participant map value as true
+        participants.put((String) userCourses.get(JsonKey.USER_ID), true);
+      }
+      Map<String, Object> updatedBatch = new HashMap<>();
+      updatedBatch.put(JsonKey.ID, batch.get(JsonKey.ID));
+      updatedBatch.put(JsonKey.PARTICIPANT, participants);
+      cassandraOperation.updateRecord(
+          courseBatchDBInfo.getKeySpace(), courseBatchDBInfo.getTableName(), updatedBatch);
+    }
+    if (failedCount > 0) {
+      throw new IllegalStateException(
+          "Unable to enrol " + failedCount + " participants of batch " + batch.get(JsonKey.ID));
+    }
+    ProjectLogger.log(
+        "Adding participants to user course table completed for batch "
+            + batch.get(JsonKey.ID)
+            + ", enrolled "
+            + userIds.size(),
+        LoggerEnum.INFO.name());
+  }
 
-              // object of telemetry event...
-              Map<String, Object> targetObject = new HashMap<>();
-              List<Map<String, Object>> correlatedObject = new ArrayList<>();
+  private Map<String, Object> createUserCourses(
+      String userId,
+      Map<String, Object> batch,
+      Map<String, String> additionalCourseInfo,
+      Timestamp ts) {
+    Map<String, Object> userCourses = new HashMap<>();
+    userCourses.put(JsonKey.USER_ID, userId);
+    userCourses.put(JsonKey.BATCH_ID, batch.get(JsonKey.ID));
+    userCourses.put(JsonKey.COURSE_ID, batch.get(JsonKey.COURSE_ID));
+    userCourses.put(JsonKey.ID, generatePrimaryKey(userCourses));
+    userCourses.put(JsonKey.CONTENT_ID, batch.get(JsonKey.COURSE_ID));
+    userCourses.put(JsonKey.COURSE_ENROLL_DATE, ProjectUtil.getFormattedDate());
+    userCourses.put(JsonKey.ACTIVE, ProjectUtil.ActiveStatus.ACTIVE.getValue());
+    userCourses.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
+    userCourses.put(JsonKey.DATE_TIME, ts);
+    userCourses.put(JsonKey.COURSE_PROGRESS, 0);
+    userCourses.put(JsonKey.COURSE_LOGO_URL, additionalCourseInfo.get(JsonKey.COURSE_LOGO_URL));
+    userCourses.put(JsonKey.COURSE_NAME, additionalCourseInfo.get(JsonKey.COURSE_NAME));
+    userCourses.put(JsonKey.DESCRIPTION, additionalCourseInfo.get(JsonKey.DESCRIPTION));
+    if (!StringUtils.isBlank(additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT))) {
+      userCourses.put(
+          JsonKey.LEAF_NODE_COUNT,
+          Integer.parseInt("" + additionalCourseInfo.get(JsonKey.LEAF_NODE_COUNT)));
+    }
+    userCourses.put(JsonKey.TOC_URL, additionalCourseInfo.get(JsonKey.TOC_URL));
+    return userCourses;
+  }
 
-              targetObject =
-                  TelemetryUtil.generateTargetObject(
-                      entry.getKey(), JsonKey.USER, JsonKey.CREATE, null);
-              TelemetryUtil.generateCorrelatedObject(
-                  entry.getKey(), JsonKey.USER, null, correlatedObject);
-              TelemetryUtil.generateCorrelatedObject(
-                  (String) batch.get(JsonKey.ID), JsonKey.BATCH, null, correlatedObject);
-              TelemetryUtil.generateCorrelatedObject(
-                  (String) batch.get(JsonKey.COURSE_ID), JsonKey.COURSE, null, correlatedObject);
-              TelemetryUtil.telemetryProcessingCall(
-                  userCourses, targetObject, correlatedObject, "AUDIT");
+  private void generateTelemetry(Map<String, Object> userCourses, Map<String, Object> batch) {
+    // put logic here to generate the telemetry event for user update as batch ...
+    String userId = (String) userCourses.get(JsonKey.USER_ID);
+    List<Map<String, Object>> correlatedObject = new ArrayList<>();
+    Map<String, Object> targetObject =
+        TelemetryUtil.generateTargetObject(userId, JsonKey.USER, JsonKey.CREATE, null);
+    TelemetryUtil.generateCorrelatedObject(userId, JsonKey.USER, null, correlatedObject);
+    TelemetryUtil.generateCorrelatedObject(
+        (String) batch.get(JsonKey.ID), JsonKey.BATCH, null, correlatedObject);
+    TelemetryUtil.generateCorrelatedObject(
+        (String) batch.get(JsonKey.COURSE_ID), JsonKey.COURSE, null, correlatedObject);
+    TelemetryUtil.telemetryProcessingCall(userCourses, targetObject, correlatedObject, "AUDIT");
+  }
 
-              userCourses.put(JsonKey.DATE_TIME, ProjectUtil.formatDate(ts));
-              insertUserCoursesToES(userCourses);
-              // update participant map value as true
-              entry.setValue(true);
-            } catch (Exception ex) {
-              ProjectLogger.log("INSERT RECORD TO USER COURSES EXCEPTION ", ex);
-            }
-          }
-        }
-        ProjectLogger.log(
-            "Adding participants to user course table completed", LoggerEnum.INFO.name());
-        Map<String, Object> updatedBatch = new HashMap<>();
-        updatedBatch.put(JsonKey.ID, batch.get(JsonKey.ID));
-        updatedBatch.put(JsonKey.PARTICIPANT, participants);
-        ProjectLogger.log(
-            "Updating participants to batch course table started", LoggerEnum.INFO.name());
-        cassandraOperation.updateRecord(
-            courseBatchDBInfo.getKeySpace(), courseBatchDBInfo.getTableName(), updatedBatch);
-        ProjectLogger.log(
-            "Updating participants to batch course table completed", LoggerEnum.INFO.name());
-      }
-    }
+  private static CompletableFuture<Void> failedFuture(Throwable ex) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    future.completeExceptionally(ex);
+    return future;
   }
 
   private String generatePrimaryKey(Map<String, Object> req) {
@@ -274,13 +362,6 @@ public class CoursePublishedUpdate extends BaseJob {
     return liveCourseIds;
   }
 
-  private void insertUserCoursesToES(Map<String, Object> courseMap) {
-    Request request = new Request();
-    request.setOperation(ActorOperations.INSERT_USR_COURSES_INFO_ELASTIC.getValue());
-    request.getRequest().put(JsonKey.USER_COURSES, courseMap);
-    tellToBGRouter(request);
-  }
-
   public static void main(String[] args) {
     CoursePublishedUpdate coursePublishedUpdate = new CoursePublishedUpdate();
     try {
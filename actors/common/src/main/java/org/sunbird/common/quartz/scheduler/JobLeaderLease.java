@@ -0,0 +1,143 @@
+package org.sunbird.common.quartz.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.actors.syncjobmanager.EsStreamingSync;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Lets the Quartz jobs run on a single node when the scheduler runs in embedded mode, where every
+ * node has a scheduler of its own. The nodes compete for a lease kept as a row of the ES sync
+ * checkpoint table, which is taken and renewed with the lightweight transaction of {@link
+ * SyncCheckpointDao#claim(SyncCheckpoint, String, int)}. Triggers fired on a node which does not
+ * hold the lease are vetoed.
+ */
+public class JobLeaderLease implements TriggerListener {
+
+  private static final String NAME = "jobLeaderLease";
+  private static final String LEASE_ID = "quartzJobLeader";
+  private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName();
+
+  private final SyncCheckpointDao checkpointDao;
+  private final long leaseTimeout;
+  private final String nodeId;
+  /** Time until which this node may consider itself the leader, 0 if it does not hold the lease. */
+  private volatile long leaseExpiry;
+
+  private ScheduledExecutorService renewer;
+
+  /**
+   * @param checkpointDao Dao of the table the lease is kept in
+   * @param leaseTimeout Time in milliseconds after which a lease not renewed is taken over
+   */
+  public JobLeaderLease(SyncCheckpointDao checkpointDao, long leaseTimeout) {
+    this(checkpointDao, leaseTimeout, NODE_ID);
+  }
+
+  JobLeaderLease(SyncCheckpointDao checkpointDao, long leaseTimeout, String nodeId) {
+    this.checkpointDao = checkpointDao;
+    this.leaseTimeout = leaseTimeout;
+    this.nodeId = nodeId;
+  }
+
+  /**
+   * Tries to take the lease before returning, so that jobs fired right after the scheduler starts
+   * are not vetoed on the leader, and then renews it at a third of the lease timeout.
+   */
+  public void start() {
+    renew();
+    renewer =
+        Executors.newSingleThreadScheduledExecutor(
+            ExecutorManager.newDaemonThreadFactory("quartz-leader-lease"));
+    long interval = leaseTimeout / 3;
+    renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns whether this node holds the lease. The lease is only trusted for two thirds of the
+   * timeout after it was last renewed, so that it ends here before another node may take it over.
+   *
+   * @return true if this node is the leader
+   */
+  public boolean isLeader() {
+    return System.currentTimeMillis() < leaseExpiry;
+  }
+
+  /** Renews the lease if this node holds it, or takes it over if nobody renewed it in time. */
+  void renew() {
+    try {
+      long now = System.currentTimeMillis();
+      SyncCheckpoint lease = readLease();
+      boolean held = nodeId.equals(lease.getOwner());
+      if (!held
+          && null != lease.getOwner()
+          && null != lease.getLastUpdatedTime()
+          && now - lease.getLastUpdatedTime() <= leaseTimeout) {
+        leaseExpiry = 0;
+        return;
+      }
+      if (checkpointDao.claim(lease, nodeId, 0)) {
+        if (!held) {
+          ProjectLogger.log(
+              "JobLeaderLease:renew: Node " + nodeId + " took the Quartz leader lease",
+              LoggerEnum.INFO.name());
+        }
+        leaseExpiry = now + leaseTimeout * 2 / 3;
+      } else {
+        if (held) {
+          ProjectLogger.log(
+              "JobLeaderLease:renew: Node " + nodeId + " lost the Quartz leader lease",
+              LoggerEnum.INFO.name());
+        }
+        leaseExpiry = 0;
+      }
+    } catch (Exception e) {
+      // the lease held so far runs out on its own if it cannot be renewed
+      ProjectLogger.log("JobLeaderLease:renew: Failed to renew the Quartz leader lease", e);
+    }
+  }
+
+  private SyncCheckpoint readLease() {
+    SyncCheckpoint lease = checkpointDao.read(LEASE_ID);
+    if (null == lease) {
+      // nodes starting together race to create the lease, the insert of all but one does not apply
+      SyncCheckpoint newLease = EsStreamingSync.newCheckpoint(LEASE_ID, NAME, 0L, 0L);
+      newLease.setStatus(SyncCheckpoint.STATUS_PENDING);
+      checkpointDao.insertIfNotExists(newLease);
+      lease = checkpointDao.read(LEASE_ID);
+    }
+    return lease;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void triggerFired(Trigger trigger, JobExecutionContext context) {}
+
+  @Override
+  public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+    return !isLeader();
+  }
+
+  @Override
+  public void triggerMisfired(Trigger trigger) {}
+
+  @Override
+  public void triggerComplete(
+      Trigger trigger,
+      JobExecutionContext context,
+      CompletedExecutionInstruction triggerInstructionCode) {}
+}
@@ -0,0 +1,118 @@
+package org.sunbird.common.quartz.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.util.LatencyRecorder;
+
+/**
+ * Records the runs of the Quartz jobs of this node: run durations, failures, runs which started
+ * while a previous run of the job was still in progress, and misfired triggers.
+ */
+public class JobMetricsListener implements JobListener, TriggerListener {
+
+  private static final String NAME = "jobMetricsListener";
+
+  private final Map<String, JobMetrics> metricsByJob = new ConcurrentHashMap<>();
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void jobToBeExecuted(JobExecutionContext context) {
+    JobMetrics metrics = getJobMetrics(context.getJobDetail().getKey().getName());
+    if (metrics.running.getAndIncrement() > 0) {
+      metrics.overlaps.incrementAndGet();
+      ProjectLogger.log(
+          "JobMetricsListener:jobToBeExecuted: Job "
+              + context.getJobDetail().getKey()
+              + " started while a previous run is in progress",
+          LoggerEnum.INFO.name());
+    }
+  }
+
+  @Override
+  public void jobExecutionVetoed(JobExecutionContext context) {}
+
+  @Override
+  public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+    JobMetrics metrics = getJobMetrics(context.getJobDetail().getKey().getName());
+    metrics.running.decrementAndGet();
+    metrics.runs.incrementAndGet();
+    if (null != jobException) {
+      metrics.failures.incrementAndGet();
+    }
+    metrics.durations.record(context.getJobRunTime());
+    metrics.lastRunTime = context.getFireTime().getTime();
+  }
+
+  @Override
+  public void triggerFired(Trigger trigger, JobExecutionContext context) {}
+
+  @Override
+  public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+    return false;
+  }
+
+  @Override
+  public void triggerMisfired(Trigger trigger) {
+    getJobMetrics(trigger.getJobKey().getName()).misfires.incrementAndGet();
+    ProjectLogger.log(
+        "JobMetricsListener:triggerMisfired: Trigger " + trigger.getKey() + " misfired",
+        LoggerEnum.INFO.name());
+  }
+
+  @Override
+  public void triggerComplete(
+      Trigger trigger,
+      JobExecutionContext context,
+      CompletedExecutionInstruction triggerInstructionCode) {}
+
+  /**
+   * Returns the metrics of every job which ran or misfired on this node, by job name.
+   *
+   * @return Metrics
+   */
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    for (Map.Entry<String, JobMetrics> entry : metricsByJob.entrySet()) {
+      JobMetrics jobMetrics = entry.getValue();
+      Map<String, Object> map = new HashMap<>();
+      map.put("running", jobMetrics.running.get());
+      map.put("runs", jobMetrics.runs.get());
+      map.put("failures", jobMetrics.failures.get());
+      map.put("overlaps", jobMetrics.overlaps.get());
+      map.put("misfires", jobMetrics.misfires.get());
+      map.put("lastRunTime", jobMetrics.lastRunTime);
+      map.put("duration", jobMetrics.durations.getMetrics());
+      metrics.put(entry.getKey(), map);
+    }
+    return metrics;
+  }
+
+  private JobMetrics getJobMetrics(String jobName) {
+    return metricsByJob.computeIfAbsent(jobName, name -> new JobMetrics());
+  }
+
+  private static class JobMetrics {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong overlaps = new AtomicLong();
+    private final AtomicLong misfires = new AtomicLong();
+    private final LatencyRecorder durations = new LatencyRecorder(128);
+    private volatile long lastRunTime;
+  }
+}
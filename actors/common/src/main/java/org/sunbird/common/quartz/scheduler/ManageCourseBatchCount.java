@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
@@ -23,6 +24,7 @@ import org.sunbird.telemetry.util.TelemetryUtil;
  *
  * @author Manzarul
  */
+@DisallowConcurrentExecution
 public class ManageCourseBatchCount implements Job {
 
   public void execute(JobExecutionContext ctx) throws JobExecutionException {
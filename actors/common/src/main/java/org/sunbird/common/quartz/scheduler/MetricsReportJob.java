@@ -10,12 +10,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.ProjectUtil.ReportTrackingStatus;
@@ -26,11 +29,20 @@ import org.sunbird.telemetry.util.TelemetryEvents;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
 /** Created by arvind on 30/8/17. */
+@DisallowConcurrentExecution
 public class MetricsReportJob extends BaseJob {
 
   private Util.DbInfo reportTrackingdbInfo = Util.dbInfoMap.get(JsonKey.REPORT_TRACKING_DB);
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private int time = -30;
+  /** Report requested for processing, by the type saved in report tracking. */
+  private static final Map<String, String> REPORT_BY_TYPE = new HashMap<>();
+
+  static {
+    REPORT_BY_TYPE.put("Course Progress Report", JsonKey.CourseProgress);
+    REPORT_BY_TYPE.put("Creation Report", JsonKey.OrgCreation);
+    REPORT_BY_TYPE.put("Consumption Report", JsonKey.OrgConsumption);
+  }
 
   @Override
   public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
@@ -66,6 +78,11 @@ public class MetricsReportJob extends BaseJob {
         try {
           if (thirtyMinutesBefore.compareTo(simpleDateFormat.parse(updatedDate)) >= 0) {
             String jsonString = (String) map.get(JsonKey.DATA);
+            if (StringUtils.isBlank(jsonString)) {
+              // report is streamed to a file while it is generated, so it is generated again
+              regenerateReport(map);
+              continue;
+            }
             // convert that string to List<List<Object>>
             TypeReference<List<List<Object>>> typeReference =
                 new TypeReference<List<List<Object>>>() {};
@@ -122,6 +139,24 @@ public class MetricsReportJob extends BaseJob {
     }
   }
 
+  private void regenerateReport(Map<String, Object> reportDbInfo) {
+    String report = REPORT_BY_TYPE.get(reportDbInfo.get(JsonKey.TYPE));
+    if (null == report) {
+      ProjectLogger.log(
+          "MetricsReportJob:regenerateReport: Unknown report type "
+              + reportDbInfo.get(JsonKey.TYPE)
+              + " of "
+              + reportDbInfo.get(JsonKey.ID),
+          LoggerEnum.ERROR.name());
+      return;
+    }
+    Request backGroundRequest = new Request();
+    backGroundRequest.setOperation(ActorOperations.PROCESS_DATA.getValue());
+    backGroundRequest.getRequest().put(JsonKey.REQUEST_ID, reportDbInfo.get(JsonKey.ID));
+    backGroundRequest.getRequest().put(JsonKey.REQUEST, report);
+    tellToBGRouter(backGroundRequest);
+  }
+
   private Map<String, Object> genarateLogInfo(String logType, String message) {
 
     Map<String, Object> info = new HashMap<>();
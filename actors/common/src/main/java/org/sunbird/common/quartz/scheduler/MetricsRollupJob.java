@@ -0,0 +1,65 @@
+package org.sunbird.common.quartz.scheduler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.Util;
+import org.sunbird.metrics.actors.MetricsRollup;
+import org.sunbird.telemetry.util.TelemetryEvents;
+import org.sunbird.telemetry.util.TelemetryUtil;
+
+/**
+ * Computes the daily metrics rollup counters. Today and yesterday are computed on every run to
+ * count late updates, and past days which were never computed are backfilled.
+ */
+@DisallowConcurrentExecution
+public class MetricsRollupJob extends BaseJob {
+
+  private static final String BACKFILL_DAYS_KEY = "sunbird_metrics_rollup_backfill_days";
+  /** Enough for the longest dashboard period, 5 calendar weeks. */
+  private static final int DEFAULT_BACKFILL_DAYS = 42;
+
+  @Override
+  public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+    ProjectLogger.log("MetricsRollupJob:execute: Metrics rollup job triggered.");
+    Util.initializeContextForSchedulerJob(
+        JsonKey.SYSTEM, jobExecutionContext.getFireInstanceId(), JsonKey.SCHEDULER_JOB);
+    Map<String, Object> logInfo =
+        genarateLogInfo(JsonKey.SYSTEM, jobExecutionContext.getJobDetail().getDescription());
+    String today = MetricsRollup.today();
+    rollupDay(today);
+    rollupDay(MetricsRollup.previousDay(today));
+    List<String> missingDays =
+        MetricsRollup.getMissingDays(ConfigUtil.getInt(BACKFILL_DAYS_KEY, DEFAULT_BACKFILL_DAYS));
+    for (String day : missingDays) {
+      rollupDay(day);
+    }
+    TelemetryUtil.telemetryProcessingCall(logInfo, null, null, TelemetryEvents.LOG.getName());
+  }
+
+  private void rollupDay(String day) {
+    try {
+      MetricsRollup.rollupDay(day);
+    } catch (Exception e) {
+      ProjectLogger.log("MetricsRollupJob:rollupDay: Failed to compute metrics for " + day, e);
+    }
+  }
+
+  private Map<String, Object> genarateLogInfo(String logType, String message) {
+
+    Map<String, Object> info = new HashMap<>();
+    info.put(JsonKey.LOG_TYPE, logType);
+    long startTime = System.currentTimeMillis();
+    info.put(JsonKey.START_TIME, startTime);
+    info.put(JsonKey.MESSAGE, message);
+    info.put(JsonKey.LOG_LEVEL, JsonKey.INFO);
+
+    return info;
+  }
+}
@@ -3,7 +3,12 @@ package org.sunbird.common.quartz.scheduler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.quartz.CronScheduleBuilder;
 import org.quartz.JobBuilder;
@@ -17,7 +22,13 @@ import org.quartz.impl.StdSchedulerFactory;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.learner.actors.health.HealthMonitor;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.MetricsRegistry;
 
 /**
  * This class will manage all the Quartz scheduler. We need to call the schedule method at one time.
@@ -28,11 +39,69 @@ import org.sunbird.common.models.util.PropertiesCache;
 public final class SchedulerManager {
 
   private static final String FILE = "quartz.properties";
+  private static final String METRICS_ROLLUP_TIMER = "sunbird_metrics_rollup_timer";
+  private static final String DEFAULT_METRICS_ROLLUP_TIMER = "0 15 * * * ?";
   private static Scheduler scheduler = null;
   private static SchedulerManager schedulerManager = null;
+  private static final JobMetricsListener jobMetricsListener = new JobMetricsListener();
+  /** Maximum time to wait for Cassandra and ES before registering the jobs anyway. */
+  private static final String MAX_WAIT_KEY = "sunbird_quartz_dependency_max_wait";
+  private static final int DEFAULT_MAX_WAIT = 240;
+  /** Time in seconds after which a leader lease which was not renewed is taken over. */
+  private static final String LEADER_LEASE_TIMEOUT_KEY = "sunbird_quartz_leader_lease_timeout";
+  private static final int DEFAULT_LEADER_LEASE_TIMEOUT = 60;
+  /** Interval between checks of Cassandra and ES in seconds. */
+  private static final long READY_CHECK_INTERVAL = 5;
+
+  private final ScheduledExecutorService bootstrap;
+
+  static {
+    MetricsRegistry.register("quartzJobs", SchedulerManager::getMetrics);
+  }
 
   private SchedulerManager() {
-    schedule();
+    bootstrap =
+        Executors.newSingleThreadScheduledExecutor(
+            ExecutorManager.newDaemonThreadFactory("quartz-bootstrap"));
+    long maxWait = TimeUnit.SECONDS.toMillis(ConfigUtil.getInt(MAX_WAIT_KEY, DEFAULT_MAX_WAIT));
+    bootstrap.execute(() -> scheduleWhenReady(System.currentTimeMillis() + maxWait));
+  }
+
+  /**
+   * Registers the jobs once Cassandra and ES are reachable, checking them again at an interval
+   * until they are. Jobs are registered anyway once the given time has passed.
+   *
+   * @param deadline Time in milliseconds to stop waiting at
+   */
+  private void scheduleWhenReady(long deadline) {
+    if (isDependencyReady() || System.currentTimeMillis() >= deadline) {
+      schedule();
+      bootstrap.shutdown();
+    } else {
+      bootstrap.schedule(
+          () -> scheduleWhenReady(deadline), READY_CHECK_INTERVAL, TimeUnit.SECONDS);
+    }
+  }
+
+  private boolean isDependencyReady() {
+    for (String service : Arrays.asList(JsonKey.CASSANDRA_SERVICE, JsonKey.ES_SERVICE)) {
+      if (!HealthMonitor.getResult(service).isHealthy()) {
+        ProjectLogger.log(
+            "SchedulerManager:isDependencyReady: " + service + " is not ready",
+            LoggerEnum.INFO.name());
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the metrics of the jobs run on this node, by job name.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    return jobMetricsListener.getMetrics();
   }
 
   /** This method will register the quartz scheduler job. */
@@ -41,7 +110,6 @@ public final class SchedulerManager {
         "Call to start scheduler jobs - org.sunbird.common.quartz.scheduler.SchedulerManager");
 
     try {
-      Thread.sleep(240000);
       boolean isEmbedded = false;
       Properties configProp = null;
       String embeddVal = System.getenv(JsonKey.SUNBIRD_QUARTZ_MODE);
@@ -54,14 +122,27 @@ public final class SchedulerManager {
         ProjectLogger.log("Quartz scheduler is running in cluster mode.");
         scheduler = new StdSchedulerFactory(configProp).getScheduler();
       } else {
-        ProjectLogger.log("Quartz scheduler is running in embedded mode.");
+        // every node has its own scheduler, only the node holding the leader lease runs the jobs
+        ProjectLogger.log(
+            "Quartz scheduler is running in embedded mode, jobs run on the leader node.",
+            LoggerEnum.INFO.name());
         scheduler = new StdSchedulerFactory().getScheduler();
+        JobLeaderLease leaderLease =
+            new JobLeaderLease(
+                new SyncCheckpointDaoImpl(),
+                TimeUnit.SECONDS.toMillis(
+                    ConfigUtil.getInt(LEADER_LEASE_TIMEOUT_KEY, DEFAULT_LEADER_LEASE_TIMEOUT)));
+        leaderLease.start();
+        scheduler.getListenerManager().addTriggerListener(leaderLease);
       }
+      scheduler.getListenerManager().addJobListener(jobMetricsListener);
+      scheduler.getListenerManager().addTriggerListener(jobMetricsListener);
       String identifier = "NetOps-PC1502295457753";
       scheduleCourseBatchCount(identifier);
       scheduleBulkUploadJob(identifier);
       // scheduleCoursePublishJob(identifier);
       scheduleMetricsReportJob(identifier);
+      scheduleMetricsRollupJob(identifier);
       scheduleUpdateUserCountJob(identifier);
       scheduleChannelReg(identifier);
     } catch (Exception e) {
@@ -169,6 +250,40 @@ public final class SchedulerManager {
     }
   }
 
+  private void scheduleMetricsRollupJob(String identifier) {
+    // add another job for computing the daily metrics rollup counters.
+    // 1- create a job and bind with class which is implementing Job
+    // interface.
+    JobDetail metricsRollupJob =
+        JobBuilder.newJob(MetricsRollupJob.class)
+            .requestRecovery(true)
+            .withDescription("Scheduler for computing the daily metrics rollup counters")
+            .withIdentity("metricsRollupJob", identifier)
+            .build();
+
+    // 2- Create a trigger object that will define frequency of run.
+    // This job will run every hour unless configured otherwise.
+    String cronExpression = ProjectUtil.getConfigValue(METRICS_ROLLUP_TIMER);
+    if (StringUtils.isBlank(cronExpression)) {
+      cronExpression = DEFAULT_METRICS_ROLLUP_TIMER;
+    }
+    Trigger metricsRollupTrigger =
+        TriggerBuilder.newTrigger()
+            .withIdentity("metricsRollupTrigger", identifier)
+            .withSchedule(CronScheduleBuilder.cronSchedule(cronExpression))
+            .build();
+    try {
+      if (scheduler.checkExists(metricsRollupJob.getKey())) {
+        scheduler.deleteJob(metricsRollupJob.getKey());
+      }
+      scheduler.scheduleJob(metricsRollupJob, metricsRollupTrigger);
+      scheduler.start();
+      ProjectLogger.log("MetricsRollupJob schedular started", LoggerEnum.INFO.name());
+    } catch (Exception e) {
+      ProjectLogger.log(e.getMessage(), e);
+    }
+  }
+
   private void scheduleCoursePublishJob(String identifier) {
     // add another job for verifying the course published details from EKStep.
     // 1- create a job and bind with class which is implementing Job
@@ -319,7 +434,7 @@ public final class SchedulerManager {
     return configProp;
   }
 
-  public static SchedulerManager getInstance() {
+  public static synchronized SchedulerManager getInstance() {
     if (schedulerManager != null) {
       return schedulerManager;
     } else {
@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.sunbird.cassandra.CassandraOperation;
@@ -30,6 +31,7 @@ import org.sunbird.telemetry.util.TelemetryUtil;
  *
  * @author Manzarul
  */
+@DisallowConcurrentExecution
 public class UploadLookUpScheduler extends BaseJob {
   private SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSSZ");
 
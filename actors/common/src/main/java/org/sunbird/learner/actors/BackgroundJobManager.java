@@ -1,5 +1,7 @@
 package org.sunbird.learner.actors;
 
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.OnComplete;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -7,13 +9,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
@@ -26,7 +30,10 @@ import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.AsyncHttpUtil;
 import org.sunbird.learner.util.CourseBatchSchedulerUtil;
+import org.sunbird.learner.util.EsWriteBehindQueue;
+import org.sunbird.learner.util.UserProfileAssembler;
 import org.sunbird.learner.util.Util;
 import org.sunbird.learner.util.Util.DbInfo;
 
@@ -59,6 +66,9 @@ import org.sunbird.learner.util.Util.DbInfo;
 public class BackgroundJobManager extends BaseActor {
 
   private static Map<String, String> headerMap = new HashMap<>();
+  /** Last pending ES update of every user, the next update of the user runs after it. */
+  private static final Map<String, CompletableFuture<Void>> pendingUserUpdates =
+      new ConcurrentHashMap<>();
   private static Util.DbInfo dbInfo = null;
   private ObjectMapper mapper = new ObjectMapper();
 
@@ -172,7 +182,7 @@ public class BackgroundJobManager extends BaseActor {
     String type = (String) actorMessage.get(JsonKey.TYPE);
     String orgId = (String) actorMessage.get(JsonKey.ORGANISATION_ID);
     Map<String, Object> result =
-        ElasticSearchUtil.getDataByIdentifier(
+        EsWriteBehindQueue.read(
             ProjectUtil.EsIndex.sunbird.getIndexName(),
             ProjectUtil.EsType.user.getTypeName(),
             (String) actorMessage.get(JsonKey.USER_ID));
@@ -224,7 +234,7 @@ public class BackgroundJobManager extends BaseActor {
   private void removeUserOrgInfoToEs(Request actorMessage) {
     Map<String, Object> orgMap = (Map<String, Object>) actorMessage.getRequest().get(JsonKey.USER);
     Map<String, Object> result =
-        ElasticSearchUtil.getDataByIdentifier(
+        EsWriteBehindQueue.read(
             ProjectUtil.EsIndex.sunbird.getIndexName(),
             ProjectUtil.EsType.user.getTypeName(),
             (String) orgMap.get(JsonKey.USER_ID));
@@ -255,7 +265,7 @@ public class BackgroundJobManager extends BaseActor {
   private void updateUserOrgInfoToEs(Request actorMessage) {
     Map<String, Object> orgMap = (Map<String, Object>) actorMessage.getRequest().get(JsonKey.USER);
     Map<String, Object> result =
-        ElasticSearchUtil.getDataByIdentifier(
+        EsWriteBehindQueue.read(
             ProjectUtil.EsIndex.sunbird.getIndexName(),
             ProjectUtil.EsType.user.getTypeName(),
             (String) orgMap.get(JsonKey.USER_ID));
@@ -359,8 +369,7 @@ public class BackgroundJobManager extends BaseActor {
 
   private boolean updateDataToElastic(
       String indexName, String typeName, String identifier, Map<String, Object> data) {
-    boolean response = ElasticSearchUtil.updateData(indexName, typeName, identifier, data);
-    if (response) {
+    if (EsWriteBehindQueue.update(indexName, typeName, identifier, data)) {
       return true;
     }
     ProjectLogger.log(
@@ -368,14 +377,41 @@ public class BackgroundJobManager extends BaseActor {
     return false;
   }
 
+  /**
+   * Reads the user details concurrently and writes the user document once they are read. The
+   * updates of a user are chained, so that the document read for an older update cannot be written
+   * after the one read for a newer update.
+   */
   private void updateUserInfoToEs(Request actorMessage) {
     String userId = (String) actorMessage.getRequest().get(JsonKey.ID);
-    Map<String, Object> userDetails = Util.getUserDetails(userId);
-    insertDataToElastic(
-        ProjectUtil.EsIndex.sunbird.getIndexName(),
-        ProjectUtil.EsType.user.getTypeName(),
-        userId,
-        userDetails);
+    CompletableFuture<Void> update =
+        pendingUserUpdates.compute(
+            userId,
+            (id, previous) ->
+                (null == previous ? CompletableFuture.<Void>completedFuture(null) : previous)
+                    .thenCompose(v -> UserProfileAssembler.getUserDetails(userId))
+                    .thenAccept(
+                        userDetails -> {
+                          if (userDetails != null) {
+                            insertDataToElastic(
+                                ProjectUtil.EsIndex.sunbird.getIndexName(),
+                                ProjectUtil.EsType.user.getTypeName(),
+                                userId,
+                                userDetails);
+                          }
+                        })
+                    .exceptionally(
+                        e -> {
+                          Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                          ProjectLogger.log(
+                              "BackgroundJobManager:updateUserInfoToEs: Failed to update user "
+                                  + userId
+                                  + " "
+                                  + cause.getMessage(),
+                              cause);
+                          return null;
+                        }));
+    update.whenComplete((v, e) -> pendingUserUpdates.remove(userId, update));
   }
 
   /** Method to update the user count . */
@@ -532,7 +568,8 @@ public class BackgroundJobManager extends BaseActor {
   }
 
   /**
-   * Method to cache the course data .
+   * Method to cache the course data . The document is queued and written to ES in the background
+   * by {@link EsWriteBehindQueue}, failures of the background write are logged by the queue.
    *
    * @param index String
    * @param type String
@@ -551,16 +588,7 @@ public class BackgroundJobManager extends BaseActor {
      * ProfileCompletenessFactory.getInstance(); Map<String, Object> responsemap =
      * service.computeProfile(data); data.putAll(responsemap); }
      */
-    String response = ElasticSearchUtil.createData(index, type, identifier, data);
-    ProjectLogger.log(
-        "Getting ES save response for type , identiofier=="
-            + type
-            + "  "
-            + identifier
-            + "  "
-            + response);
-    if (!StringUtils.isBlank(response)) {
-      ProjectLogger.log("User Data is saved successfully ES ." + type + "  " + identifier);
+    if (EsWriteBehindQueue.index(index, type, identifier, data)) {
       return true;
     }
     ProjectLogger.log(
@@ -569,33 +597,39 @@ public class BackgroundJobManager extends BaseActor {
   }
 
   /**
-   * This method will make EkStep api call register the tag.
+   * This method will make EkStep api call register the tag. The call is made on the shared HTTP
+   * thread pool, so the actor does not wait for it.
    *
    * @param tagId String unique tag id.
    * @param body String requested body
    * @param header Map<String,String>
-   * @return String
    */
-  private String registertag(String tagId, String body, Map<String, String> header) {
-    String tagStatus = "";
-    try {
-      ProjectLogger.log(
-          "BackgroundJobManager:registertag register tag call started with tagid = " + tagId,
-          LoggerEnum.INFO.name());
-      tagStatus = ProjectUtil.registertag(tagId, body, header);
-      ProjectLogger.log(
-          "BackgroundJobManager:registertag  register tag call end with id and status = "
-              + tagId
-              + ", "
-              + tagStatus,
-          LoggerEnum.INFO.name());
-    } catch (Exception e) {
-      ProjectLogger.log(
-          "BackgroundJobManager:registertag register tag call failure with error message = "
-              + e.getMessage(),
-          e);
-    }
-    return tagStatus;
+  private void registertag(String tagId, String body, Map<String, String> header) {
+    ProjectLogger.log(
+        "BackgroundJobManager:registertag register tag call started with tagid = " + tagId,
+        LoggerEnum.INFO.name());
+    AsyncHttpUtil.callBlocking(() -> ProjectUtil.registertag(tagId, body, header))
+        .onComplete(
+            new OnComplete<String>() {
+              @Override
+              public void onComplete(Throwable failure, String tagStatus) {
+                if (null == failure) {
+                  ProjectLogger.log(
+                      "BackgroundJobManager:registertag register tag call end with id and status = "
+                          + tagId
+                          + ", "
+                          + tagStatus,
+                      LoggerEnum.INFO.name());
+                } else {
+                  ProjectLogger.log(
+                      "BackgroundJobManager:registertag register tag call failure with error "
+                          + "message = "
+                          + failure.getMessage(),
+                      failure);
+                }
+              }
+            },
+            ExecutionContexts.global());
   }
 
   @SuppressWarnings("unchecked")
@@ -1,26 +1,16 @@
 package org.sunbird.learner.actors;
 
-import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
-import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.models.response.Response;
-import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
-import org.sunbird.common.models.util.ProjectUtil;
-import org.sunbird.common.models.util.ProjectUtil.ProgressStatus;
 import org.sunbird.common.models.util.datasecurity.OneWayHashing;
 import org.sunbird.common.request.Request;
-import org.sunbird.helper.ServiceFactory;
-import org.sunbird.learner.util.Util;
+import org.sunbird.learner.util.CourseProgressAggregator;
 
 /**
  * This will updated user learner state activity. example what was the last accessed content. how
@@ -34,7 +24,6 @@ import org.sunbird.learner.util.Util;
 )
 public class LeanerStateUpdateBackGroundActor extends BaseActor {
 
-  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private static final String CONTENT_STATE_INFO = "contentStateInfo";
 
   @Override
@@ -69,7 +58,7 @@ public class LeanerStateUpdateBackGroundActor extends BaseActor {
             Map<String, Object> innerMap = (Map<String, Object>) temp.get(primary);
             innerMap.put(
                 JsonKey.CONTENT,
-                getLatestContent(
+                CourseProgressAggregator.getLatestContent(
                     (Map<String, Object>)
                         ((Map<String, Object>) temp.get(primary)).get(JsonKey.CONTENT),
                     map));
@@ -96,97 +85,25 @@ public class LeanerStateUpdateBackGroundActor extends BaseActor {
   }
 
   /**
-   * Method to update the course_enrollment with the latest content information
+   * Method to update the course_enrollment with the latest content information. The updates are
+   * coalesced per user course by {@link CourseProgressAggregator}.
    *
    * @param temp Map<String, Object>
    * @param contentStateInfo Map<String, Integer>
    */
   @SuppressWarnings("unchecked")
   private void updateCourse(Map<String, Object> temp, Map<String, Integer> contentStateInfo) {
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
     for (Map.Entry<String, Object> entry : temp.entrySet()) {
-      String key = entry.getKey();
       Map<String, Object> value = (Map<String, Object>) entry.getValue();
-      Response response =
-          cassandraOperation.getRecordById(dbInfo.getKeySpace(), dbInfo.getTableName(), key);
-      List<Map<String, Object>> courseList =
-          (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
-      Map<String, Object> course = null;
-      if (null != courseList && !courseList.isEmpty()) {
-        Map<String, Object> updateDb = new HashMap<>();
-        course = courseList.get(0);
-        Integer courseProgress = 0;
-        if (ProjectUtil.isNotNull(course.get(JsonKey.COURSE_PROGRESS))) {
-          courseProgress = (Integer) course.get(JsonKey.COURSE_PROGRESS);
-        }
-        courseProgress = courseProgress + (Integer) value.get("progress");
-        // update status on basis of leaf node count and progress ---
-        if (course.containsKey(JsonKey.LEAF_NODE_COUNT)
-            && ProjectUtil.isNotNull(course.get(JsonKey.LEAF_NODE_COUNT))) {
-          Integer leafNodeCount = (Integer) course.get(JsonKey.LEAF_NODE_COUNT);
-          if (0 == leafNodeCount) {
-            updateDb.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.STARTED.getValue());
-          } else {
-            if (leafNodeCount > courseProgress) {
-              updateDb.put(JsonKey.STATUS, ProgressStatus.STARTED.getValue());
-            } else {
-              updateDb.put(JsonKey.STATUS, ProgressStatus.COMPLETED.getValue());
-            }
-          }
-        } else if (ProjectUtil.isNull(course.get(JsonKey.LEAF_NODE_COUNT))) {
-          updateDb.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.STARTED.getValue());
-        }
-        Timestamp ts = new Timestamp(new Date().getTime());
-        updateDb.put(JsonKey.ID, course.get(JsonKey.ID));
-        updateDb.put(JsonKey.COURSE_PROGRESS, courseProgress);
-        updateDb.put(JsonKey.DATE_TIME, ts);
-        updateDb.put(
-            JsonKey.LAST_READ_CONTENTID,
-            ((Map<String, Object>) value.get("content")).get(JsonKey.CONTENT_ID));
-        updateDb.put(
-            JsonKey.LAST_READ_CONTENT_STATUS,
-            (contentStateInfo.get(((Map<String, Object>) value.get("content")).get(JsonKey.ID))));
-        try {
-          cassandraOperation.upsertRecord(dbInfo.getKeySpace(), dbInfo.getTableName(), updateDb);
-          // TODO: for some reason, ES indexing is failing with Timestamp value. need to
-          // check and
-          // correct it.
-          updateDb.put(JsonKey.DATE_TIME, ProjectUtil.formatDate(ts));
-          updateUserCoursesToES(updateDb);
-        } catch (Exception ex) {
-          ProjectLogger.log(ex.getMessage(), ex);
-        }
-      }
+      Map<String, Object> content = (Map<String, Object>) value.get(JsonKey.CONTENT);
+      CourseProgressAggregator.add(
+          entry.getKey(),
+          (Integer) value.get(JsonKey.PROGRESS),
+          content,
+          contentStateInfo.get(content.get(JsonKey.ID)));
     }
   }
 
-  private Map<String, Object> getLatestContent(
-      Map<String, Object> current, Map<String, Object> next) {
-    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
-    simpleDateFormat.setLenient(false);
-    if (current.get(JsonKey.LAST_ACCESS_TIME) == null
-        && next.get(JsonKey.LAST_ACCESS_TIME) == null) {
-      return next;
-    } else if (current.get(JsonKey.LAST_ACCESS_TIME) == null) {
-      return next;
-    } else if (next.get(JsonKey.LAST_ACCESS_TIME) == null) {
-      return current;
-    }
-    try {
-      Date currentUpdatedTime =
-          simpleDateFormat.parse((String) current.get(JsonKey.LAST_ACCESS_TIME));
-      Date nextUpdatedTime = simpleDateFormat.parse((String) next.get(JsonKey.LAST_ACCESS_TIME));
-      if (currentUpdatedTime.after(nextUpdatedTime)) {
-        return current;
-      } else {
-        return next;
-      }
-    } catch (ParseException e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
-    return null;
-  }
-
   /**
    * This method will combined map values with delimiter and create an encrypted key.
    *
@@ -204,15 +121,4 @@ public class LeanerStateUpdateBackGroundActor extends BaseActor {
             + JsonKey.PRIMARY_KEY_DELIMETER
             + batchId);
   }
-
-  private void updateUserCoursesToES(Map<String, Object> courseMap) {
-    Request request = new Request();
-    request.setOperation(ActorOperations.UPDATE_USR_COURSES_INFO_ELASTIC.getValue());
-    request.getRequest().put(JsonKey.USER_COURSES, courseMap);
-    try {
-      tellToAnother(request);
-    } catch (Exception ex) {
-      ProjectLogger.log("Exception Occurred during saving user count to Es : ", ex);
-    }
-  }
 }
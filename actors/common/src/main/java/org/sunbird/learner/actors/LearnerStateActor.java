@@ -2,9 +2,15 @@ package org.sunbird.learner.actors;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.core.BaseActor;
@@ -23,6 +29,10 @@ import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.LatencyRecorder;
+import org.sunbird.learner.util.MetricsRegistry;
 import org.sunbird.learner.util.Util;
 
 /**
@@ -37,8 +47,32 @@ import org.sunbird.learner.util.Util;
 )
 public class LearnerStateActor extends BaseActor {
 
+  private static final String POOL_SIZE_KEY = "sunbird_content_state_read_pool_size";
+  private static final int DEFAULT_POOL_SIZE = 16;
+  private static final int QUEUE_CAPACITY = 1000;
+  // when the queue is full the actor runs the query itself instead of queueing more queries
+  private static final ExecutorService executor =
+      ExecutorManager.newBoundedExecutor(
+          "content-state-read",
+          ConfigUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE),
+          QUEUE_CAPACITY);
+  private static final LatencyRecorder contentStateLatency = new LatencyRecorder();
+
+  static {
+    MetricsRegistry.register("contentState", LearnerStateActor::getMetrics);
+  }
+
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
 
+  /**
+   * Returns the latency percentiles of the get content state operation.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    return contentStateLatency.getMetrics();
+  }
+
   /**
    * Receives the actor message and perform the operation like get course , get content etc.
    *
@@ -67,11 +101,16 @@ public class LearnerStateActor extends BaseActor {
 
     } else if (request.getOperation().equalsIgnoreCase(ActorOperations.GET_CONTENT.getValue())) {
 
+      long startTime = System.currentTimeMillis();
       Response res = new Response();
       Map<String, Object> requestMap = request.getRequest();
       String userId = (String) request.getRequest().get(JsonKey.USER_ID);
 
-      res = getCourseContentState(userId, requestMap);
+      try {
+        res = getCourseContentState(userId, requestMap);
+      } finally {
+        contentStateLatency.recordSince(startTime);
+      }
       removeUnwantedProperties(res);
       sender().tell(res, self());
     } else {
@@ -134,18 +173,14 @@ public class LearnerStateActor extends BaseActor {
   private List<Map<String, Object>> filterForMatchingContentIds(
       List<Map<String, Object>> contentList, Map<String, Object> requestMap) {
 
-    List<String> contentIds =
-        new ArrayList<String>((List<String>) requestMap.get(JsonKey.CONTENT_IDS));
+    Set<String> contentIds =
+        new HashSet<String>((List<String>) requestMap.get(JsonKey.CONTENT_IDS));
     List<Map<String, Object>> matchedContentList = new ArrayList<>();
 
     if (CollectionUtils.isNotEmpty(contentIds)) {
       for (Map<String, Object> content : contentList) {
-        for (int i = 0; i < contentIds.size(); i++) {
-          String contentId = contentIds.get(i);
-          if (contentId.equals((String) content.get(JsonKey.CONTENT_ID))) {
-            matchedContentList.add(content);
-            break;
-          }
+        if (contentIds.contains(content.get(JsonKey.CONTENT_ID))) {
+          matchedContentList.add(content);
         }
       }
     }
@@ -181,43 +216,59 @@ public class LearnerStateActor extends BaseActor {
   @SuppressWarnings("unchecked")
   private List<Map<String, Object>> getContentByCourses(
       String userId, Map<String, Object> request) {
-
-    Response response = new Response();
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-    List<String> courseIds = new ArrayList<String>((List<String>) request.get(JsonKey.COURSE_IDS));
-    List<Map<String, Object>> contentList = new ArrayList<Map<String, Object>>();
-    Map<String, Object> queryMap = new HashMap<String, Object>();
-    queryMap.put(JsonKey.USER_ID, userId);
-
-    for (String courseId : courseIds) {
-      queryMap.put(JsonKey.COURSE_ID, courseId);
-      response =
-          cassandraOperation.getRecordsByProperties(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), queryMap);
-      contentList.addAll((List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE));
-    }
-    return contentList;
+    return getContentByProperty(
+        userId, JsonKey.COURSE_ID, (List<String>) request.get(JsonKey.COURSE_IDS));
   }
 
   @SuppressWarnings("unchecked")
   private List<Map<String, Object>> getContentByContentIds(
       String userId, Map<String, Object> request) {
-    Response response = null;
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-    List<String> contentIds =
-        new ArrayList<String>((List<String>) request.get(JsonKey.CONTENT_IDS));
-
-    LinkedHashMap<String, Object> queryMap = new LinkedHashMap<String, Object>();
-    queryMap.put(JsonKey.USER_ID, userId);
-
-    List<Map<String, Object>> contentList = new ArrayList<Map<String, Object>>();
+    return getContentByProperty(
+        userId, JsonKey.CONTENT_ID, (List<String>) request.get(JsonKey.CONTENT_IDS));
+  }
 
-    for (String contentId : contentIds) {
-      queryMap.put(JsonKey.CONTENT_ID, contentId);
-      response =
-          cassandraOperation.getRecordsByProperties(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), queryMap);
-      contentList.addAll((List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE));
+  /**
+   * Reads the content states of a user for every value of a property. The primary key can not be
+   * derived from these values, so one query is issued per value; the queries are issued
+   * concurrently and their results are merged in the order of the values.
+   *
+   * @param userId User id
+   * @param property Property name
+   * @param values Property values
+   * @return Content states
+   */
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> getContentByProperty(
+      String userId, String property, List<String> values) {
+    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
+    List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>();
+    for (String value : new LinkedHashSet<>(values)) {
+      Map<String, Object> queryMap = new LinkedHashMap<>();
+      queryMap.put(JsonKey.USER_ID, userId);
+      queryMap.put(property, value);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                Response response =
+                    cassandraOperation.getRecordsByProperties(
+                        dbInfo.getKeySpace(), dbInfo.getTableName(), queryMap);
+                return (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+              },
+              executor));
+    }
+    List<Map<String, Object>> contentList = new ArrayList<>();
+    try {
+      for (CompletableFuture<List<Map<String, Object>>> future : futures) {
+        List<Map<String, Object>> result = future.join();
+        if (null != result) {
+          contentList.addAll(result);
+        }
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
     }
     return contentList;
   }
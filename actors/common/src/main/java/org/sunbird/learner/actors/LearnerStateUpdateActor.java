@@ -9,8 +9,11 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.core.BaseActor;
@@ -27,6 +30,7 @@ import org.sunbird.common.request.ExecutionContext;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CassandraAsyncWriter;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryUtil;
 
@@ -61,10 +65,6 @@ public class LearnerStateUpdateActor extends BaseActor {
     Response response = new Response();
     if (request.getOperation().equalsIgnoreCase(ActorOperations.ADD_CONTENT.getValue())) {
       Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-      Util.DbInfo batchdbInfo = Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
-      // objects of telemetry event...
-      Map<String, Object> targetObject = null;
-      List<Map<String, Object>> correlatedObject = null;
 
       String userId = (String) request.getRequest().get(JsonKey.USER_ID);
       List<Map<String, Object>> requestedcontentList =
@@ -76,70 +76,42 @@ public class LearnerStateUpdateActor extends BaseActor {
       Map<String, Integer> contentStatusHolder = new HashMap<>();
 
       if (!(contentList.isEmpty())) {
+        // validate every batch of the request once
+        Map<String, Boolean> batchValidity = getBatchValidity(contentList);
+        List<Map<String, Object>> validContentList = new ArrayList<>();
         for (Map<String, Object> map : contentList) {
+          String batchId = (String) map.get(JsonKey.BATCH_ID);
+          if (!(StringUtils.isBlank(batchId)) && !batchValidity.get(batchId)) {
+            response
+                .getResult()
+                .put((String) map.get(JsonKey.CONTENT_ID), "BATCH NOT STARTED OR BATCH CLOSED");
+            contentList.remove(map);
+            continue;
+          }
+          map.putIfAbsent(JsonKey.COURSE_ID, JsonKey.NOT_AVAILABLE);
           // replace the course id (equivalent to Ekstep content id) with One way hashing
           // of
           // userId#courseId , bcoz in cassndra we are saving course id as userId#courseId
+          map.put(JsonKey.ID, generatePrimaryKey(map, userId));
+          validContentList.add(map);
+        }
 
-          String batchId = (String) map.get(JsonKey.BATCH_ID);
-          boolean flag = true;
-
-          // code to validate the whether request for valid batch range(start and end
-          // date)
-          if (!(StringUtils.isBlank(batchId))) {
-            Response batchResponse =
-                cassandraOperation.getRecordById(
-                    batchdbInfo.getKeySpace(), batchdbInfo.getTableName(), batchId);
-            List<Map<String, Object>> batches =
-                (List<Map<String, Object>>) batchResponse.getResult().get(JsonKey.RESPONSE);
-            if (batches.isEmpty()) {
-              flag = false;
-            } else {
-              Map<String, Object> batchInfo = batches.get(0);
-              flag = validateBatchRange(batchInfo);
-            }
-
-            if (!flag) {
-              response
-                  .getResult()
-                  .put((String) map.get(JsonKey.CONTENT_ID), "BATCH NOT STARTED OR BATCH CLOSED");
-              contentList.remove(map);
-              continue;
-            }
-          }
-          map.putIfAbsent(JsonKey.COURSE_ID, JsonKey.NOT_AVAILABLE);
-          preOperation(map, userId, contentStatusHolder);
+        Map<String, Map<String, Object>> contentStates = getContentStates(validContentList);
+        // a content requested more than once is written once, with its last state
+        Map<String, Map<String, Object>> updatedContentStates = new LinkedHashMap<>();
+        for (Map<String, Object> map : validContentList) {
+          String id = (String) map.get(JsonKey.ID);
+          preOperation(map, contentStatusHolder, contentStates.get(id));
           map.put(JsonKey.USER_ID, userId);
           map.put(JsonKey.DATE_TIME, new Timestamp(new Date().getTime()));
+          contentStates.put(id, new HashMap<>(map));
+          updatedContentStates.put(id, map);
+        }
+        saveContentStates(
+            dbInfo, new ArrayList<>(updatedContentStates.values()), contentList, response);
 
-          try {
-            cassandraOperation.upsertRecord(dbInfo.getKeySpace(), dbInfo.getTableName(), map);
-            response.getResult().put((String) map.get(JsonKey.CONTENT_ID), JsonKey.SUCCESS);
-            // create telemetry for user for each content ...
-            targetObject =
-                TelemetryUtil.generateTargetObject(
-                    (String) map.get(JsonKey.BATCH_ID), JsonKey.BATCH, JsonKey.CREATE, null);
-            // since this event will generate multiple times so nedd to recreate correlated
-            // objects every time ...
-            correlatedObject = new ArrayList<>();
-            TelemetryUtil.generateCorrelatedObject(
-                (String) map.get(JsonKey.CONTENT_ID), JsonKey.CONTENT, null, correlatedObject);
-            TelemetryUtil.generateCorrelatedObject(
-                (String) map.get(JsonKey.COURSE_ID), JsonKey.COURSE, null, correlatedObject);
-            TelemetryUtil.generateCorrelatedObject(
-                (String) map.get(JsonKey.BATCH_ID), JsonKey.BATCH, null, correlatedObject);
-            TelemetryUtil.telemetryProcessingCall(
-                request.getRequest(), targetObject, correlatedObject);
-
-            Map<String, String> rollUp = new HashMap<>();
-            rollUp.put("l1", (String) map.get(JsonKey.COURSE_ID));
-            rollUp.put("l2", (String) map.get(JsonKey.CONTENT_ID));
-            TelemetryUtil.addTargetObjectRollUp(rollUp, targetObject);
-
-          } catch (Exception ex) {
-            response.getResult().put((String) map.get(JsonKey.CONTENT_ID), JsonKey.FAILED);
-            contentList.remove(map);
-          }
+        for (Map<String, Object> map : contentList) {
+          generateTelemetry(request, map);
         }
       }
       sender().tell(response, self());
@@ -153,6 +125,110 @@ public class LearnerStateUpdateActor extends BaseActor {
     }
   }
 
+  /**
+   * Reads the batches of the given contents with one query and returns whether each of them is in
+   * its date range.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Boolean> getBatchValidity(List<Map<String, Object>> contentList) {
+    Util.DbInfo batchdbInfo = Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
+    Map<String, Boolean> batchValidity = new HashMap<>();
+    for (Map<String, Object> map : contentList) {
+      String batchId = (String) map.get(JsonKey.BATCH_ID);
+      if (!(StringUtils.isBlank(batchId))) {
+        batchValidity.put(batchId, false);
+      }
+    }
+    if (batchValidity.isEmpty()) {
+      return batchValidity;
+    }
+    Response batchResponse =
+        cassandraOperation.getRecordsByPrimaryKeys(
+            batchdbInfo.getKeySpace(),
+            batchdbInfo.getTableName(),
+            new ArrayList<>(batchValidity.keySet()),
+            JsonKey.ID);
+    List<Map<String, Object>> batches =
+        (List<Map<String, Object>>) batchResponse.getResult().get(JsonKey.RESPONSE);
+    if (null != batches) {
+      for (Map<String, Object> batchInfo : batches) {
+        batchValidity.put((String) batchInfo.get(JsonKey.ID), validateBatchRange(batchInfo));
+      }
+    }
+    return batchValidity;
+  }
+
+  /** Reads the current states of the given contents with one query. */
+  @SuppressWarnings("unchecked")
+  private Map<String, Map<String, Object>> getContentStates(
+      List<Map<String, Object>> contentList) {
+    Map<String, Map<String, Object>> contentStates = new HashMap<>();
+    if (contentList.isEmpty()) {
+      return contentStates;
+    }
+    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
+    Set<String> ids = new LinkedHashSet<>();
+    for (Map<String, Object> map : contentList) {
+      ids.add((String) map.get(JsonKey.ID));
+    }
+    Response response =
+        cassandraOperation.getRecordsByPrimaryKeys(
+            dbInfo.getKeySpace(), dbInfo.getTableName(), new ArrayList<>(ids), JsonKey.ID);
+    List<Map<String, Object>> resultList =
+        (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+    if (null != resultList) {
+      for (Map<String, Object> result : resultList) {
+        contentStates.put((String) result.get(JsonKey.ID), result);
+      }
+    }
+    return contentStates;
+  }
+
+  /**
+   * Writes the content states, one statement per content. Each content id is a separate
+   * partition, so the statements are not batched; the status of each content is reported.
+   */
+  private void saveContentStates(
+      Util.DbInfo dbInfo,
+      List<Map<String, Object>> contentStates,
+      List<Map<String, Object>> contentList,
+      Response response) {
+    if (contentStates.isEmpty()) {
+      return;
+    }
+    List<Map<String, Object>> failed =
+        CassandraAsyncWriter.upsert(dbInfo.getKeySpace(), dbInfo.getTableName(), contentStates);
+    for (Map<String, Object> map : contentStates) {
+      response.getResult().put((String) map.get(JsonKey.CONTENT_ID), JsonKey.SUCCESS);
+    }
+    for (Map<String, Object> map : failed) {
+      response.getResult().put((String) map.get(JsonKey.CONTENT_ID), JsonKey.FAILED);
+      contentList.removeIf(content -> map.get(JsonKey.ID).equals(content.get(JsonKey.ID)));
+    }
+  }
+
+  private void generateTelemetry(Request request, Map<String, Object> map) {
+    // create telemetry for user for each content ...
+    Map<String, Object> targetObject =
+        TelemetryUtil.generateTargetObject(
+            (String) map.get(JsonKey.BATCH_ID), JsonKey.BATCH, JsonKey.CREATE, null);
+    // since this event will generate multiple times so nedd to recreate correlated
+    // objects every time ...
+    List<Map<String, Object>> correlatedObject = new ArrayList<>();
+    TelemetryUtil.generateCorrelatedObject(
+        (String) map.get(JsonKey.CONTENT_ID), JsonKey.CONTENT, null, correlatedObject);
+    TelemetryUtil.generateCorrelatedObject(
+        (String) map.get(JsonKey.COURSE_ID), JsonKey.COURSE, null, correlatedObject);
+    TelemetryUtil.generateCorrelatedObject(
+        (String) map.get(JsonKey.BATCH_ID), JsonKey.BATCH, null, correlatedObject);
+    TelemetryUtil.telemetryProcessingCall(request.getRequest(), targetObject, correlatedObject);
+
+    Map<String, String> rollUp = new HashMap<>();
+    rollUp.put("l1", (String) map.get(JsonKey.COURSE_ID));
+    rollUp.put("l2", (String) map.get(JsonKey.CONTENT_ID));
+    TelemetryUtil.addTargetObjectRollUp(rollUp, targetObject);
+  }
+
   private boolean validateBatchRange(Map<String, Object> batchInfo) {
 
     String start = (String) batchInfo.get(JsonKey.START_DATE);
@@ -185,28 +261,20 @@ public class LearnerStateUpdateActor extends BaseActor {
   /**
    * Method te perform the per operation on contents like setting the status , last completed and
    * access time etc.
+   *
+   * @param result Current state of the content, null if it is a new content
    */
-  @SuppressWarnings("unchecked")
   private void preOperation(
-      Map<String, Object> req, String userId, Map<String, Integer> contentStateHolder)
+      Map<String, Object> req, Map<String, Integer> contentStateHolder, Map<String, Object> result)
       throws ParseException {
 
     SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
     simpleDateFormat.setLenient(false);
 
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_CONTENT_DB);
-    req.put(JsonKey.ID, generatePrimaryKey(req, userId));
     contentStateHolder.put(
         (String) req.get(JsonKey.ID), ((BigInteger) req.get(JsonKey.STATUS)).intValue());
-    Response response =
-        cassandraOperation.getRecordById(
-            dbInfo.getKeySpace(), dbInfo.getTableName(), (String) req.get(JsonKey.ID));
-
-    List<Map<String, Object>> resultList =
-        (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
 
-    if (!(resultList.isEmpty())) {
-      Map<String, Object> result = resultList.get(0);
+    if (null != result) {
       int currentStatus = (int) result.get(JsonKey.STATUS);
       int requestedStatus = ((BigInteger) req.get(JsonKey.STATUS)).intValue();
 
@@ -36,6 +36,7 @@ import org.sunbird.common.responsecode.ResponseMessage;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.OrgCache;
 import org.sunbird.learner.util.Util;
 import org.sunbird.models.organization.Organization;
 import org.sunbird.telemetry.util.TelemetryUtil;
@@ -443,6 +444,7 @@ public class OrganisationManagementActor extends BaseActor {
       Response result =
           cassandraOperation.insertRecord(orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), req);
       ProjectLogger.log("Org data saved into cassandra.");
+      OrgCache.invalidate(uniqueId, (String) req.get(JsonKey.CHANNEL));
       // create org_map if parentOrgId is present in request
       if (isValidParent) {
         upsertOrgMap(
@@ -636,6 +638,7 @@ public class OrganisationManagementActor extends BaseActor {
           cassandraOperation.updateRecord(
               orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), updateOrgDBO);
       response.getResult().put(JsonKey.ORGANISATION_ID, orgDBO.get(JsonKey.ID));
+      OrgCache.invalidate((String) orgDBO.get(JsonKey.ID), (String) orgDBO.get(JsonKey.CHANNEL));
       sender().tell(response, self());
 
       // update the ES --
@@ -920,6 +923,8 @@ public class OrganisationManagementActor extends BaseActor {
           cassandraOperation.updateRecord(
               orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), updateOrgDBO);
       response.getResult().put(JsonKey.ORGANISATION_ID, orgDBO.get(JsonKey.ID));
+      OrgCache.invalidate((String) orgDBO.get(JsonKey.ID), (String) orgDBO.get(JsonKey.CHANNEL));
+      OrgCache.invalidate(null, (String) updateOrgDBO.get(JsonKey.CHANNEL));
       sender().tell(response, self());
 
       targetObject =
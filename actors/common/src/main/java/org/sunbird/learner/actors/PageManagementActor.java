@@ -30,8 +30,8 @@ import org.sunbird.common.request.ExecutionContext;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
-import org.sunbird.learner.util.ContentSearchUtil;
 import org.sunbird.learner.util.DataCacheHandler;
+import org.sunbird.learner.util.PageSectionCache;
 import org.sunbird.learner.util.Util;
 import org.sunbird.telemetry.util.TelemetryUtil;
 import scala.concurrent.Future;
@@ -217,14 +217,10 @@ public class PageManagementActor extends BaseActor {
   }
 
   private void updateSectionDataCache(Response response, Map<String, Object> sectionMap) {
-    new Thread(
-            () -> {
-              if ((JsonKey.SUCCESS).equalsIgnoreCase((String) response.get(JsonKey.RESPONSE))) {
-                DataCacheHandler.getSectionMap()
-                    .put((String) sectionMap.get(JsonKey.ID), sectionMap);
-              }
-            })
-        .start();
+    if ((JsonKey.SUCCESS).equalsIgnoreCase((String) response.get(JsonKey.RESPONSE))) {
+      DataCacheHandler.updateSection(sectionMap);
+      PageSectionCache.clear();
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -468,18 +464,10 @@ public class PageManagementActor extends BaseActor {
 
   private void updatePageDataCacheHandler(Response response, Map<String, Object> pageMap) {
     // update DataCacheHandler page map with new page data
-    new Thread(
-            () -> {
-              if (JsonKey.SUCCESS.equalsIgnoreCase((String) response.get(JsonKey.RESPONSE))) {
-                String orgId = "NA";
-                if (pageMap.containsKey(JsonKey.ORGANISATION_ID)) {
-                  orgId = (String) pageMap.get(JsonKey.ORGANISATION_ID);
-                }
-                DataCacheHandler.getPageMap()
-                    .put(orgId + ":" + (String) pageMap.get(JsonKey.PAGE_NAME), pageMap);
-              }
-            })
-        .start();
+    if (JsonKey.SUCCESS.equalsIgnoreCase((String) response.get(JsonKey.RESPONSE))) {
+      DataCacheHandler.updatePage(pageMap);
+      PageSectionCache.clear();
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -516,7 +504,7 @@ public class PageManagementActor extends BaseActor {
         "PageManagementActor:getContentData: Page assemble final search query: " + query,
         LoggerEnum.INFO.name());
 
-    Future<Map<String, Object>> result = ContentSearchUtil.searchContent(query, headers);
+    Future<Map<String, Object>> result = PageSectionCache.searchContent(query, headers);
 
     return result.map(
         new Mapper<Map<String, Object>, Map<String, Object>>() {
@@ -7,7 +7,10 @@ import com.opencsv.RFC4180Parser;
 import com.opencsv.RFC4180ParserBuilder;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -17,7 +20,9 @@ import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.sunbird.actor.core.BaseActor;
+import org.sunbird.common.Constants;
 import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.BulkUploadJsonKey;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
@@ -125,12 +130,19 @@ public abstract class BaseBulkUploadActor extends BaseActor {
    * @return CsvReader.
    */
   public CSVReader getCsvReader(byte[] byteArray, char seperator, char quoteChar, int lineNum) {
+    return getCsvReader(Channels.newChannel(new ByteArrayInputStream(byteArray)));
+  }
 
-    InputStreamReader inputStreamReader =
-        new InputStreamReader(new ByteArrayInputStream(byteArray));
+  /**
+   * Method to get CsvReader which reads the file incrementally from the given channel.
+   *
+   * @param channel Channel to read the content of file from.
+   * @return CsvReader.
+   */
+  public CSVReader getCsvReader(ReadableByteChannel channel) {
+    Reader reader = Channels.newReader(channel, Charset.defaultCharset().name());
     RFC4180Parser rfc4180Parser = new RFC4180ParserBuilder().build();
-    CSVReaderBuilder csvReaderBuilder =
-        new CSVReaderBuilder(inputStreamReader).withCSVParser(rfc4180Parser);
+    CSVReaderBuilder csvReaderBuilder = new CSVReaderBuilder(reader).withCSVParser(rfc4180Parser);
     CSVReader csvReader = csvReaderBuilder.build();
     return csvReader;
   }
@@ -222,60 +234,165 @@ public abstract class BaseBulkUploadActor extends BaseActor {
   protected Integer validateAndParseRecords(
       byte[] fileByteArray, String processId, Map<String, Object> additionalRowFields)
       throws IOException {
+    try {
+      return streamCsvToTasks(
+          Channels.newChannel(new ByteArrayInputStream(fileByteArray)),
+          processId,
+          additionalRowFields,
+          null,
+          null);
+    } catch (Exception ex) {
+      BulkUploadProcess bulkUploadProcess =
+          getBulkUploadProcessForFailedStatus(processId, BulkProcessStatus.FAILED.getValue(), ex);
+      bulkUploadDao.update(bulkUploadProcess);
+      throw ex;
+    }
+  }
 
+  /**
+   * Method to read the rows of a csv file one at a time and save them as bulk upload process task
+   * records. Rows are written in batches of CASSANDRA_BATCH_SIZE, so only one batch is held in
+   * memory irrespective of the size of the file. The header is validated before any row is
+   * written, and if a later row fails the tasks already written for the process are deleted.
+   *
+   * @param channel Channel to read the content of file from.
+   * @param processId Bulk upload process id.
+   * @param additionalRowFields Fields to be added to every row.
+   * @param allowedFields Allowed header fields, header is not validated if null.
+   * @param maxLines Max allowed lines in the file including the header line, not validated if
+   *     null.
+   * @return Number of rows saved, excluding the header line.
+   */
+  protected Integer streamCsvToTasks(
+      ReadableByteChannel channel,
+      String processId,
+      Map<String, Object> additionalRowFields,
+      String[] allowedFields,
+      Integer maxLines)
+      throws IOException {
     Integer sequence = 0;
-    Integer count = 0;
     CSVReader csvReader = null;
-    String[] csvLine;
-    String[] header = null;
-    Map<String, Object> record = new HashMap<>();
+    String[] header;
+    boolean written = false;
     List<BulkUploadProcessTask> records = new ArrayList<>();
     try {
-      csvReader = getCsvReader(fileByteArray, ',', '"', 0);
-      while ((csvLine = csvReader.readNext()) != null) {
-        if (ProjectUtil.isNotEmptyStringArray(csvLine)) {
-          continue;
-        }
-        if (sequence == 0) {
-          header = trimColumnAttributes(csvLine);
-        } else {
-          for (int j = 0; j < header.length; j++) {
-            String value = (csvLine[j].trim().length() == 0 ? null : csvLine[j].trim());
-            record.put(header[j], value);
+      csvReader = getCsvReader(channel);
+      header = readHeader(csvReader);
+      if (null == header) {
+        return 0;
+      }
+      if (null != allowedFields) {
+        validateBulkUploadFields(header, allowedFields, false);
+      }
+      try {
+        String[] csvLine;
+        while ((csvLine = csvReader.readNext()) != null) {
+          if (ProjectUtil.isNotEmptyStringArray(csvLine)) {
+            continue;
           }
-          record.putAll(additionalRowFields);
-          BulkUploadProcessTask tasks = new BulkUploadProcessTask();
-          tasks.setStatus(ProjectUtil.BulkProcessStatus.NEW.getValue());
-          tasks.setSequenceId(sequence);
-          tasks.setProcessId(processId);
-          tasks.setData(mapper.writeValueAsString(record));
-          tasks.setCreatedOn(new Timestamp(System.currentTimeMillis()));
-          records.add(tasks);
-          count++;
-          if (count >= CASSANDRA_BATCH_SIZE) {
+          sequence++;
+          if (null != maxLines) {
+            validateFileSizeAgainstLineNumbers(maxLines, sequence + 1);
+          }
+          records.add(
+              getBulkUploadProcessTask(processId, sequence, header, csvLine, additionalRowFields));
+          if (records.size() >= CASSANDRA_BATCH_SIZE) {
+            written = true;
             performBatchInsert(records);
             records.clear();
-            count = 0;
           }
-          record.clear();
         }
-        sequence++;
-      }
-      if (count != 0) {
-        performBatchInsert(records);
-        count = 0;
-        records.clear();
+        if (!records.isEmpty()) {
+          written = true;
+          performBatchInsert(records);
+          records.clear();
+        }
+      } catch (IOException | RuntimeException e) {
+        if (written) {
+          deleteTasks(processId);
+        }
+        throw e;
       }
-    } catch (Exception ex) {
-      BulkUploadProcess bulkUploadProcess =
-          getBulkUploadProcessForFailedStatus(processId, BulkProcessStatus.FAILED.getValue(), ex);
-      bulkUploadDao.update(bulkUploadProcess);
-      throw ex;
     } finally {
       IOUtils.closeQuietly(csvReader);
     }
-    // since one record represents the header
-    return sequence - 1;
+    return sequence;
+  }
+
+  /** Returns the trimmed first non empty line of the file, null if the file is empty. */
+  private String[] readHeader(CSVReader csvReader) throws IOException {
+    String[] csvLine;
+    while ((csvLine = csvReader.readNext()) != null) {
+      if (!ProjectUtil.isNotEmptyStringArray(csvLine)) {
+        return trimColumnAttributes(csvLine);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Deletes the tasks written for a bulk upload process which could not be created.
+   *
+   * @param processId Bulk upload process id.
+   */
+  protected void deleteTasks(String processId) {
+    try {
+      bulkUploadProcessTaskDao.deleteByProcessId(processId);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "BaseBulkUploadActor:deleteTasks: Failed to delete tasks of process " + processId, e);
+    }
+  }
+
+  private BulkUploadProcessTask getBulkUploadProcessTask(
+      String processId,
+      Integer sequence,
+      String[] header,
+      String[] csvLine,
+      Map<String, Object> additionalRowFields)
+      throws IOException {
+    if (csvLine.length > header.length) {
+      throw new ProjectCommonException(
+          ResponseCode.csvError.getErrorCode(),
+          ResponseCode.csvError.getErrorMessage(),
+          ResponseCode.CLIENT_ERROR.getResponseCode());
+    }
+    Map<String, Object> record = new HashMap<>();
+    for (int j = 0; j < csvLine.length; j++) {
+      String value = (csvLine[j].trim().length() == 0 ? null : csvLine[j].trim());
+      record.put(header[j], value);
+    }
+    if (null != additionalRowFields) {
+      record.putAll(additionalRowFields);
+    }
+    BulkUploadProcessTask task = new BulkUploadProcessTask();
+    task.setStatus(ProjectUtil.BulkProcessStatus.NEW.getValue());
+    task.setSequenceId(sequence);
+    task.setProcessId(processId);
+    task.setData(mapper.writeValueAsString(record));
+    task.setCreatedOn(new Timestamp(System.currentTimeMillis()));
+    return task;
+  }
+
+  /**
+   * Method to read the bulk upload process tasks of a process with sequence id in the given
+   * range.
+   *
+   * @param processId Bulk upload process id.
+   * @param fromSequence Sequence id after which to read (exclusive).
+   * @param toSequence Sequence id up to which to read (inclusive).
+   * @return List of tasks, empty if there are none in the range.
+   */
+  protected List<BulkUploadProcessTask> readTasks(
+      String processId, Integer fromSequence, Integer toSequence) {
+    Map<String, Object> queryMap = new HashMap<>();
+    queryMap.put(JsonKey.PROCESS_ID, processId);
+    Map<String, Object> sequenceRange = new HashMap<>();
+    sequenceRange.put(Constants.GT, fromSequence);
+    sequenceRange.put(Constants.LTE, toSequence);
+    queryMap.put(BulkUploadJsonKey.SEQUENCE_ID, sequenceRange);
+    List<BulkUploadProcessTask> tasks = bulkUploadProcessTaskDao.readByPrimaryKeys(queryMap);
+    return null == tasks ? new ArrayList<>() : tasks;
   }
 
   protected void performBatchInsert(List<BulkUploadProcessTask> records) {
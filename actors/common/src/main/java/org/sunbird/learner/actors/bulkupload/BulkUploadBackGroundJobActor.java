@@ -9,15 +9,17 @@ import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.ElasticSearchUtil;
@@ -45,7 +47,9 @@ import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.common.responsecode.ResponseMessage;
 import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcessTask;
 import org.sunbird.learner.util.AuditOperation;
+import org.sunbird.learner.util.ConfigUtil;
 import org.sunbird.learner.util.DataCacheHandler;
 import org.sunbird.learner.util.UserUtility;
 import org.sunbird.learner.util.Util;
@@ -65,8 +69,15 @@ import org.sunbird.validator.location.LocationRequestValidator;
   tasks = {},
   asyncTasks = {"processBulkUpload"}
 )
-public class BulkUploadBackGroundJobActor extends BaseActor {
-
+public class BulkUploadBackGroundJobActor extends BaseBulkUploadActor {
+
+  private static final String TASK_COUNT = "taskCount";
+  private static final String WORKER_COUNT_KEY = "sunbird_bulk_upload_worker_count";
+  private static final String RESULT_UPDATE_INTERVAL_KEY =
+      "sunbird_bulk_upload_result_update_interval";
+  private static final int DEFAULT_WORKER_COUNT = 8;
+  /** Interval in seconds at which the results of an in progress user upload are saved. */
+  private static final int DEFAULT_RESULT_UPDATE_INTERVAL = 60;
   private String processId = "";
   private final Util.DbInfo bulkDb = Util.dbInfoMap.get(JsonKey.BULK_OP_DB);
   private final EncryptionService encryptionService =
@@ -81,6 +92,11 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
   private final SSOManager ssoManager = SSOServiceFactory.getInstance();
   private ObjectMapper mapper = new ObjectMapper();
   private static final LocationRequestValidator validator = new LocationRequestValidator();
+  /**
+   * Messages and telemetry of the rows being processed on the partition threads, which are sent
+   * from the actor thread once the rows of a chunk are processed. Null outside of a user upload.
+   */
+  private volatile Queue<Runnable> outbox;
 
   @Override
   public void onReceive(Request request) throws Throwable {
@@ -99,22 +115,12 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     int status = (int) dataMap.get(JsonKey.STATUS);
     if (!(status == (ProjectUtil.BulkProcessStatus.COMPLETED.getValue())
         || status == (ProjectUtil.BulkProcessStatus.INTERRUPT.getValue()))) {
-      TypeReference<List<Map<String, Object>>> mapType =
-          new TypeReference<List<Map<String, Object>>>() {};
-      List<Map<String, Object>> jsonList = null;
-      try {
-        jsonList = mapper.readValue((String) dataMap.get(JsonKey.DATA), mapType);
-      } catch (IOException e) {
-        ProjectLogger.log(
-            "Exception occurred while converting json String to List in BulkUploadBackGroundJobActor : ",
-            e);
-      }
       if (((String) dataMap.get(JsonKey.OBJECT_TYPE)).equalsIgnoreCase(JsonKey.USER)) {
         long startTime = System.currentTimeMillis();
         ProjectLogger.log(
             "BulkUploadBackGroundJobActor:processUserInfo start at : " + startTime,
             LoggerEnum.INFO.name());
-        processUserInfo(jsonList, processId, (String) dataMap.get(JsonKey.UPLOADED_BY));
+        processUserInfo(dataMap, processId, (String) dataMap.get(JsonKey.UPLOADED_BY));
         ProjectLogger.log(
             "BulkUploadBackGroundJobActor:processUserInfo Total time taken : for processId  : "
                 + processId
@@ -123,14 +129,37 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
             LoggerEnum.INFO.name());
       } else if (((String) dataMap.get(JsonKey.OBJECT_TYPE))
           .equalsIgnoreCase(JsonKey.ORGANISATION)) {
-        CopyOnWriteArrayList<Map<String, Object>> orgList = new CopyOnWriteArrayList<>(jsonList);
+        CopyOnWriteArrayList<Map<String, Object>> orgList =
+            new CopyOnWriteArrayList<>(getRows(dataMap));
         processOrgInfo(orgList, dataMap);
       } else if (((String) dataMap.get(JsonKey.OBJECT_TYPE)).equalsIgnoreCase(JsonKey.BATCH)) {
-        processBatchEnrollment(jsonList, processId);
+        processBatchEnrollment(getRows(dataMap), processId);
       }
     }
   }
 
+  /**
+   * Reads the rows of a process, either from the data of the process (processes created before the
+   * rows were saved as tasks) or from its bulk_upload_process_task records.
+   */
+  private List<Map<String, Object>> getRows(Map<String, Object> dataMap) {
+    TypeReference<List<Map<String, Object>>> mapType =
+        new TypeReference<List<Map<String, Object>>>() {};
+    List<Map<String, Object>> jsonList = null;
+    try {
+      if (StringUtils.isNotBlank((String) dataMap.get(JsonKey.DATA))) {
+        jsonList = mapper.readValue((String) dataMap.get(JsonKey.DATA), mapType);
+      } else {
+        jsonList = getTaskData(processId, (Integer) dataMap.get(TASK_COUNT));
+      }
+    } catch (IOException e) {
+      ProjectLogger.log(
+          "Exception occurred while converting json String to List in BulkUploadBackGroundJobActor : ",
+          e);
+    }
+    return jsonList;
+  }
+
   @SuppressWarnings("unchecked")
   private void processBatchEnrollment(List<Map<String, Object>> jsonList, String processId) {
     // update status from NEW to INProgress
@@ -952,221 +981,449 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     return ElasticSearchUtil.complexSearch(searchDTO, index, type);
   }
 
-  private void processUserInfo(
-      List<Map<String, Object>> dataMapList, String processId, String updatedBy) {
+  private void processUserInfo(Map<String, Object> dataMap, String processId, String updatedBy) {
     // update status from NEW to INProgress
     updateStatusForProcessing(processId);
-    Util.DbInfo usrDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
-    List<Map<String, Object>> failureUserReq = new ArrayList<>();
-    List<Map<String, Object>> successUserReq = new ArrayList<>();
-    Map<String, Object> userMap = null;
+    List<Map<String, Object>> failureUserReq = Collections.synchronizedList(new ArrayList<>());
+    List<Map<String, Object>> successUserReq = Collections.synchronizedList(new ArrayList<>());
+    Integer taskCount = (Integer) dataMap.get(TASK_COUNT);
+    if (StringUtils.isNotBlank((String) dataMap.get(JsonKey.DATA))) {
+      taskCount = saveRowsAsTasks(getRows(dataMap), processId);
+    }
     /*
      * To store hashTagId inside user_org table, first we need to get hashTagId from
      * provided organisation ID. Currently in bulk user upload, we are passing only
-     * one organisation, so we can get the details before for loop and reuse it.
+     * one organisation, so we can get the details from the first row and reuse it.
      */
     String hashTagId = null;
-    if (dataMapList != null && dataMapList.size() > 0) {
-      String orgId = (String) dataMapList.get(0).get(JsonKey.ORGANISATION_ID);
-      hashTagId = Util.getHashTagIdFromOrgId(orgId);
-    }
-    for (int i = 0; i < dataMapList.size(); i++) {
-      userMap = dataMapList.get(i);
-      Map<String, Object> welcomeMailTemplateMap = new HashMap<>();
-      if (StringUtils.isBlank((String) userMap.get(JsonKey.PASSWORD))) {
-        String randomPassword = ProjectUtil.generateRandomPassword();
-        userMap.put(JsonKey.PASSWORD, randomPassword);
-        welcomeMailTemplateMap.put(JsonKey.TEMPORARY_PASSWORD, randomPassword);
-      } else {
-        welcomeMailTemplateMap.put(JsonKey.TEMPORARY_PASSWORD, userMap.get(JsonKey.PASSWORD));
+    PartitionedTaskExecutor executor =
+        new PartitionedTaskExecutor(ConfigUtil.getInt(WORKER_COUNT_KEY, DEFAULT_WORKER_COUNT));
+    long resultUpdateInterval =
+        ConfigUtil.getInt(RESULT_UPDATE_INTERVAL_KEY, DEFAULT_RESULT_UPDATE_INTERVAL) * 1000L;
+    long lastResultUpdate = System.currentTimeMillis();
+    outbox = new ConcurrentLinkedQueue<>();
+    try {
+      // rows are processed a chunk at a time, the tasks of a chunk are saved once it is processed
+      // so that an interrupted process resumes from the first chunk which was not completed.
+      int count = null == taskCount ? 0 : taskCount;
+      for (int sequence = 0; sequence < count; sequence += CASSANDRA_BATCH_SIZE) {
+        List<BulkUploadProcessTask> tasks =
+            readTasks(processId, sequence, sequence + CASSANDRA_BATCH_SIZE);
+        List<BulkUploadProcessTask> pendingTasks = new ArrayList<>();
+        Map<BulkUploadProcessTask, Map<String, Object>> rows = new HashMap<>();
+        for (BulkUploadProcessTask task : tasks) {
+          if (isTaskProcessed(task)) {
+            addTaskResult(task, successUserReq, failureUserReq);
+            continue;
+          }
+          try {
+            rows.put(task, mapper.readValue(task.getData(), Map.class));
+            pendingTasks.add(task);
+          } catch (IOException e) {
+            ProjectLogger.log(
+                "BulkUploadBackGroundJobActor:processUserInfo: Invalid data for task "
+                    + task.getSequenceId(),
+                e);
+          }
+        }
+        if (null == hashTagId && !rows.isEmpty()) {
+          String orgId = (String) rows.values().iterator().next().get(JsonKey.ORGANISATION_ID);
+          hashTagId = Util.getHashTagIdFromOrgId(orgId);
+        }
+        String orgHashTagId = hashTagId;
+        Map<BulkUploadProcessTask, String> conflictKeys =
+            PartitionedTaskExecutor.getConflictKeys(
+                pendingTasks, task -> getIdentities(rows.get(task)));
+        executor.execute(
+            pendingTasks,
+            conflictKeys::get,
+            task -> {
+              Map<String, Object> userMap = rows.get(task);
+              Map<String, Object> successMap = processUser(userMap, updatedBy, orgHashTagId);
+              if (null != successMap) {
+                successUserReq.add(successMap);
+                setTaskResult(task, BulkProcessStatus.COMPLETED.getValue(), successMap);
+              } else {
+                failureUserReq.add(userMap);
+                setTaskResult(task, BulkProcessStatus.FAILED.getValue(), userMap);
+              }
+            });
+        if (!pendingTasks.isEmpty()) {
+          performBatchUpdate(pendingTasks);
+        }
+        sendPendingRequests();
+        if (System.currentTimeMillis() - lastResultUpdate > resultUpdateInterval) {
+          updateUserResult(processId, successUserReq, failureUserReq, false);
+          lastResultUpdate = System.currentTimeMillis();
+        }
       }
-      String errMsg = validateUser(userMap);
-      if (errMsg.equalsIgnoreCase(JsonKey.SUCCESS)) {
-        try {
+    } finally {
+      executor.shutdown();
+      sendPendingRequests();
+      outbox = null;
+    }
+    updateUserResult(processId, successUserReq, failureUserReq, true);
+  }
 
-          // convert userName,provide,loginId,externalId.. value to lowercase
-          updateMapSomeValueTOLowerCase(userMap);
-          Map<String, Object> foundUserMap = findUser(userMap);
-          foundUserMap = insertRecordToKeyCloak(userMap, foundUserMap, updatedBy);
-          Map<String, Object> tempMap = new HashMap<>();
-          tempMap.putAll(userMap);
-          tempMap.remove(JsonKey.EMAIL_VERIFIED);
-          tempMap.remove(JsonKey.POSITION);
-          // remove externalID and Provider as we are not saving these to user table
-          tempMap.remove(JsonKey.EXTERNAL_ID);
-          tempMap.remove(JsonKey.EXTERNAL_ID_PROVIDER);
-          tempMap.remove(JsonKey.EXTERNAL_ID_TYPE);
-          tempMap.remove(JsonKey.ORGANISATION_ID);
-          tempMap.put(JsonKey.EMAIL_VERIFIED, false);
-          Response response = null;
-          if (null == tempMap.get(JsonKey.OPERATION)) {
-            // will allowing only PUBLIC role at user level.
-            tempMap.remove(JsonKey.ROLES);
-            // insert user record
-            // Add only PUBLIC role to user
-            List<String> list = new ArrayList<>();
-            list.add(ProjectUtil.UserRole.PUBLIC.getValue());
-            tempMap.put(JsonKey.ROLES, list);
-            try {
-              UserUtility.encryptUserData(tempMap);
-            } catch (Exception ex) {
-              ProjectLogger.log(
-                  "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor during data encryption :",
-                  ex);
-              throw new ProjectCommonException(
-                  ResponseCode.userDataEncryptionError.getErrorCode(),
-                  ResponseCode.userDataEncryptionError.getErrorMessage(),
-                  ResponseCode.SERVER_ERROR.getResponseCode());
-            }
-            tempMap.put(JsonKey.CREATED_BY, updatedBy);
-            tempMap.put(JsonKey.IS_DELETED, false);
-            tempMap.remove(JsonKey.EXTERNAL_IDS);
-            try {
-              response =
-                  cassandraOperation.insertRecord(
-                      usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), tempMap);
-              // insert details to user_org table
-
-              userMap.put(JsonKey.HASHTAGID, hashTagId);
-              registerUserToOrg(userMap, JsonKey.CREATE);
-              // removing added hashTagId
-              userMap.remove(JsonKey.HASHTAGID);
-            } catch (Exception ex) {
-              // incase of exception also removing added hashTagId
-              userMap.remove(JsonKey.HASHTAGID);
-              ProjectLogger.log(
-                  "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
-              userMap.remove(JsonKey.ID);
-              userMap.remove(JsonKey.PASSWORD);
-              userMap.put(JsonKey.ERROR_MSG, ex.getMessage() + " ,user insertion failed.");
-              removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-              failureUserReq.add(userMap);
-              continue;
-            } finally {
-              if (null == response) {
-                ssoManager.removeUser(userMap);
-              }
-            }
-            // send the welcome mail to user
-            welcomeMailTemplateMap.putAll(userMap);
-            // the loginid will become user id for logon purpose .
-            welcomeMailTemplateMap.put(JsonKey.USERNAME, userMap.get(JsonKey.LOGIN_ID));
-            Request welcomeMailReqObj = Util.sendOnboardingMail(welcomeMailTemplateMap);
-            if (null != welcomeMailReqObj) {
-              tellToAnother(welcomeMailReqObj);
-            }
+  /**
+   * Processes one row of a bulk user upload.
+   *
+   * @return Success result of the row, null if the row failed in which case the error is set in
+   *     the given user map.
+   */
+  private Map<String, Object> processUser(
+      Map<String, Object> userMap, String updatedBy, String hashTagId) {
+    Util.DbInfo usrDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
+    Map<String, Object> welcomeMailTemplateMap = new HashMap<>();
+    if (StringUtils.isBlank((String) userMap.get(JsonKey.PASSWORD))) {
+      String randomPassword = ProjectUtil.generateRandomPassword();
+      userMap.put(JsonKey.PASSWORD, randomPassword);
+      welcomeMailTemplateMap.put(JsonKey.TEMPORARY_PASSWORD, randomPassword);
+    } else {
+      welcomeMailTemplateMap.put(JsonKey.TEMPORARY_PASSWORD, userMap.get(JsonKey.PASSWORD));
+    }
+    String errMsg = validateUser(userMap);
+    if (errMsg.equalsIgnoreCase(JsonKey.SUCCESS)) {
+      try {
 
-            if (StringUtils.isNotBlank((String) userMap.get(JsonKey.PHONE))) {
-              Util.sendSMS(userMap);
-            }
-            // process Audit Log
-            processAuditLog(
-                userMap, ActorOperations.CREATE_USER.getValue(), updatedBy, JsonKey.USER);
-            // generate telemetry for new user creation
-            // object of telemetry event...
-            Map<String, Object> targetObject = null;
-            List<Map<String, Object>> correlatedObject = new ArrayList<>();
-
-            targetObject =
-                TelemetryUtil.generateTargetObject(
-                    (String) userMap.get(JsonKey.ID), JsonKey.USER, JsonKey.CREATE, null);
-            TelemetryUtil.telemetryProcessingCall(userMap, targetObject, correlatedObject);
-          } else {
-            // update user record
-            tempMap.put(JsonKey.UPDATED_BY, updatedBy);
-            tempMap.put(JsonKey.UPDATED_DATE, ProjectUtil.getFormattedDate());
-            try {
-              UserUtility.encryptUserData(tempMap);
-            } catch (Exception ex) {
-              ProjectLogger.log(
-                  "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor during data encryption :",
-                  ex);
-              throw new ProjectCommonException(
-                  ResponseCode.userDataEncryptionError.getErrorCode(),
-                  ResponseCode.userDataEncryptionError.getErrorMessage(),
-                  ResponseCode.SERVER_ERROR.getResponseCode());
-            }
-            try {
-              removeFieldsFrmUpdateReq(tempMap);
-              response =
-                  cassandraOperation.updateRecord(
-                      usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), tempMap);
-              // update user-org table(role update)
-              userMap.put(JsonKey.UPDATED_BY, updatedBy);
-              userMap.put(JsonKey.HASHTAGID, hashTagId);
-              registerUserToOrg(userMap, JsonKey.UPDATE);
-              userMap.remove(JsonKey.HASHTAGID);
-            } catch (Exception ex) {
-              userMap.remove(JsonKey.HASHTAGID);
-              ProjectLogger.log(
-                  "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
-              userMap.remove(JsonKey.ID);
-              userMap.remove(JsonKey.PASSWORD);
-              userMap.put(JsonKey.ERROR_MSG, ex.getMessage() + " ,user updation failed.");
-              removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-              failureUserReq.add(userMap);
-              continue;
-            }
-            // Process Audit Log
-            processAuditLog(
-                userMap, ActorOperations.UPDATE_USER.getValue(), updatedBy, JsonKey.USER);
+        // convert userName,provide,loginId,externalId.. value to lowercase
+        updateMapSomeValueTOLowerCase(userMap);
+        Map<String, Object> foundUserMap = findUser(userMap);
+        PartitionedTaskExecutor.acquire(PartitionedTaskExecutor.KEYCLOAK);
+        foundUserMap = insertRecordToKeyCloak(userMap, foundUserMap, updatedBy);
+        Map<String, Object> tempMap = new HashMap<>();
+        tempMap.putAll(userMap);
+        tempMap.remove(JsonKey.EMAIL_VERIFIED);
+        tempMap.remove(JsonKey.POSITION);
+        // remove externalID and Provider as we are not saving these to user table
+        tempMap.remove(JsonKey.EXTERNAL_ID);
+        tempMap.remove(JsonKey.EXTERNAL_ID_PROVIDER);
+        tempMap.remove(JsonKey.EXTERNAL_ID_TYPE);
+        tempMap.remove(JsonKey.ORGANISATION_ID);
+        tempMap.put(JsonKey.EMAIL_VERIFIED, false);
+        Response response = null;
+        if (null == tempMap.get(JsonKey.OPERATION)) {
+          // will allowing only PUBLIC role at user level.
+          tempMap.remove(JsonKey.ROLES);
+          // insert user record
+          // Add only PUBLIC role to user
+          List<String> list = new ArrayList<>();
+          list.add(ProjectUtil.UserRole.PUBLIC.getValue());
+          tempMap.put(JsonKey.ROLES, list);
+          try {
+            UserUtility.encryptUserData(tempMap);
+          } catch (Exception ex) {
+            ProjectLogger.log(
+                "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor during data encryption :",
+                ex);
+            throw new ProjectCommonException(
+                ResponseCode.userDataEncryptionError.getErrorCode(),
+                ResponseCode.userDataEncryptionError.getErrorMessage(),
+                ResponseCode.SERVER_ERROR.getResponseCode());
           }
-
-          // update the user external identity data
+          tempMap.put(JsonKey.CREATED_BY, updatedBy);
+          tempMap.put(JsonKey.IS_DELETED, false);
+          tempMap.remove(JsonKey.EXTERNAL_IDS);
           try {
-            if (null != userMap.get(JsonKey.EXTERNAL_IDS)) {
-              Util.updateUserExtId(userMap);
-              removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-            }
+            PartitionedTaskExecutor.acquire(PartitionedTaskExecutor.CASSANDRA);
+            response =
+                cassandraOperation.insertRecord(
+                    usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), tempMap);
+            // insert details to user_org table
+
+            userMap.put(JsonKey.HASHTAGID, hashTagId);
+            registerUserToOrg(userMap, JsonKey.CREATE);
+            // removing added hashTagId
+            userMap.remove(JsonKey.HASHTAGID);
           } catch (Exception ex) {
+            // incase of exception also removing added hashTagId
+            userMap.remove(JsonKey.HASHTAGID);
+            ProjectLogger.log(
+                "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
+            userMap.remove(JsonKey.ID);
+            userMap.remove(JsonKey.PASSWORD);
+            userMap.put(JsonKey.ERROR_MSG, ex.getMessage() + " ,user insertion failed.");
             removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-            userMap.put(
-                JsonKey.ERROR_MSG, "Update of user external IDs failed. " + ex.getMessage());
+            return null;
+          } finally {
+            if (null == response) {
+              ssoManager.removeUser(userMap);
+            }
           }
-          // save successfully created user data
-          tempMap.putAll(userMap);
-          tempMap.remove(JsonKey.STATUS);
-          tempMap.remove(JsonKey.CREATED_DATE);
-          tempMap.remove(JsonKey.CREATED_BY);
-          tempMap.remove(JsonKey.ID);
-          tempMap.remove(JsonKey.LOGIN_ID);
-          tempMap.put(JsonKey.PASSWORD, "*****");
-          successUserReq.add(tempMap);
-
-          // update elastic search
-          ProjectLogger.log(
-              "making a call to save user data to ES in BulkUploadBackGroundJobActor");
-          Request request = new Request();
-          request.setOperation(ActorOperations.UPDATE_USER_INFO_ELASTIC.getValue());
-          request.getRequest().put(JsonKey.ID, userMap.get(JsonKey.ID));
-          tellToAnother(request);
-          // generate telemetry for update user
+          // send the welcome mail to user
+          welcomeMailTemplateMap.putAll(userMap);
+          // the loginid will become user id for logon purpose .
+          welcomeMailTemplateMap.put(JsonKey.USERNAME, userMap.get(JsonKey.LOGIN_ID));
+          Request welcomeMailReqObj = Util.sendOnboardingMail(welcomeMailTemplateMap);
+          if (null != welcomeMailReqObj) {
+            send(welcomeMailReqObj);
+          }
+
+          if (StringUtils.isNotBlank((String) userMap.get(JsonKey.PHONE))) {
+            Util.sendSMS(userMap);
+          }
+          // process Audit Log
+          processAuditLog(
+              userMap, ActorOperations.CREATE_USER.getValue(), updatedBy, JsonKey.USER);
+          // generate telemetry for new user creation
           // object of telemetry event...
           Map<String, Object> targetObject = null;
           List<Map<String, Object>> correlatedObject = new ArrayList<>();
+
           targetObject =
               TelemetryUtil.generateTargetObject(
-                  (String) userMap.get(JsonKey.ID), JsonKey.USER, JsonKey.UPDATE, null);
-          TelemetryUtil.telemetryProcessingCall(userMap, targetObject, correlatedObject);
+                  (String) userMap.get(JsonKey.ID), JsonKey.USER, JsonKey.CREATE, null);
+          generateTelemetry(userMap, targetObject, correlatedObject);
+        } else {
+          // update user record
+          tempMap.put(JsonKey.UPDATED_BY, updatedBy);
+          tempMap.put(JsonKey.UPDATED_DATE, ProjectUtil.getFormattedDate());
+          try {
+            UserUtility.encryptUserData(tempMap);
+          } catch (Exception ex) {
+            ProjectLogger.log(
+                "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor during data encryption :",
+                ex);
+            throw new ProjectCommonException(
+                ResponseCode.userDataEncryptionError.getErrorCode(),
+                ResponseCode.userDataEncryptionError.getErrorMessage(),
+                ResponseCode.SERVER_ERROR.getResponseCode());
+          }
+          try {
+            removeFieldsFrmUpdateReq(tempMap);
+            PartitionedTaskExecutor.acquire(PartitionedTaskExecutor.CASSANDRA);
+            response =
+                cassandraOperation.updateRecord(
+                    usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), tempMap);
+            // update user-org table(role update)
+            userMap.put(JsonKey.UPDATED_BY, updatedBy);
+            userMap.put(JsonKey.HASHTAGID, hashTagId);
+            registerUserToOrg(userMap, JsonKey.UPDATE);
+            userMap.remove(JsonKey.HASHTAGID);
+          } catch (Exception ex) {
+            userMap.remove(JsonKey.HASHTAGID);
+            ProjectLogger.log(
+                "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
+            userMap.remove(JsonKey.ID);
+            userMap.remove(JsonKey.PASSWORD);
+            userMap.put(JsonKey.ERROR_MSG, ex.getMessage() + " ,user updation failed.");
+            removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
+            return null;
+          }
+          // Process Audit Log
+          processAuditLog(
+              userMap, ActorOperations.UPDATE_USER.getValue(), updatedBy, JsonKey.USER);
+        }
+
+        // update the user external identity data
+        try {
+          if (null != userMap.get(JsonKey.EXTERNAL_IDS)) {
+            Util.updateUserExtId(userMap);
+            removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
+          }
         } catch (Exception ex) {
-          ProjectLogger.log(
-              "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
-          userMap.remove(JsonKey.ID);
-          userMap.remove(JsonKey.PASSWORD);
-          userMap.put(JsonKey.ERROR_MSG, ex.getMessage());
           removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-          failureUserReq.add(userMap);
+          userMap.put(
+              JsonKey.ERROR_MSG, "Update of user external IDs failed. " + ex.getMessage());
         }
-      } else {
-        userMap.put(JsonKey.ERROR_MSG, errMsg);
+        // save successfully created user data
+        tempMap.putAll(userMap);
+        tempMap.remove(JsonKey.STATUS);
+        tempMap.remove(JsonKey.CREATED_DATE);
+        tempMap.remove(JsonKey.CREATED_BY);
+        tempMap.remove(JsonKey.ID);
+        tempMap.remove(JsonKey.LOGIN_ID);
+        tempMap.put(JsonKey.PASSWORD, "*****");
+
+        // update elastic search
+        ProjectLogger.log("making a call to save user data to ES in BulkUploadBackGroundJobActor");
+        Request request = new Request();
+        request.setOperation(ActorOperations.UPDATE_USER_INFO_ELASTIC.getValue());
+        request.getRequest().put(JsonKey.ID, userMap.get(JsonKey.ID));
+        send(request);
+        // generate telemetry for update user
+        // object of telemetry event...
+        Map<String, Object> targetObject = null;
+        List<Map<String, Object>> correlatedObject = new ArrayList<>();
+        targetObject =
+            TelemetryUtil.generateTargetObject(
+                (String) userMap.get(JsonKey.ID), JsonKey.USER, JsonKey.UPDATE, null);
+        generateTelemetry(userMap, targetObject, correlatedObject);
+        return tempMap;
+      } catch (Exception ex) {
+        ProjectLogger.log(
+            "Exception occurred while bulk user upload in BulkUploadBackGroundJobActor:", ex);
+        userMap.remove(JsonKey.ID);
+        userMap.remove(JsonKey.PASSWORD);
+        userMap.put(JsonKey.ERROR_MSG, ex.getMessage());
         removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
-        failureUserReq.add(userMap);
+        return null;
       }
+    } else {
+      userMap.put(JsonKey.ERROR_MSG, errMsg);
+      removeOriginalExternalIds(userMap.get(JsonKey.EXTERNAL_IDS));
+      return null;
     }
-    // Insert record to BulkDb table
-    // After Successful completion of bulk upload process , encrypt the success and
-    // failure result
-    // and delete the user data(csv file data)
+  }
+
+  /**
+   * Returns the attributes identifying the user of a row. Rows sharing any of them, directly or
+   * through other rows of the chunk, are processed in file order in a single partition, and rows
+   * without any of them are processed one after the other in a single partition.
+   */
+  private List<String> getIdentities(Map<String, Object> userMap) {
+    List<String> identities = new ArrayList<>();
+    addIdentity(identities, JsonKey.USER_ID, (String) userMap.get(JsonKey.USER_ID));
+    addIdentity(
+        identities,
+        JsonKey.USERNAME,
+        StringUtils.lowerCase((String) userMap.get(JsonKey.USERNAME)));
+    if (StringUtils.isNotBlank((String) userMap.get(JsonKey.EXTERNAL_ID))) {
+      addIdentity(
+          identities,
+          JsonKey.EXTERNAL_ID,
+          ((String) userMap.get(JsonKey.EXTERNAL_ID)).toLowerCase()
+              + "@"
+              + StringUtils.lowerCase((String) userMap.get(JsonKey.EXTERNAL_ID_PROVIDER)));
+    }
+    addIdentity(
+        identities, JsonKey.EMAIL, StringUtils.lowerCase((String) userMap.get(JsonKey.EMAIL)));
+    addIdentity(identities, JsonKey.PHONE, (String) userMap.get(JsonKey.PHONE));
+    return identities;
+  }
+
+  private void addIdentity(List<String> identities, String attribute, String value) {
+    if (StringUtils.isNotBlank(value)) {
+      identities.add(attribute + ":" + value.trim());
+    }
+  }
+
+  /** Saves the rows of a process created before rows were saved as tasks and returns the count. */
+  private Integer saveRowsAsTasks(List<Map<String, Object>> rows, String processId) {
+    if (null == rows) {
+      return 0;
+    }
+    List<BulkUploadProcessTask> tasks = new ArrayList<>();
+    for (int i = 0; i < rows.size(); i++) {
+      BulkUploadProcessTask task = new BulkUploadProcessTask();
+      task.setStatus(BulkProcessStatus.NEW.getValue());
+      task.setSequenceId(i + 1);
+      task.setProcessId(processId);
+      try {
+        task.setData(mapper.writeValueAsString(rows.get(i)));
+      } catch (IOException e) {
+        ProjectLogger.log(
+            "BulkUploadBackGroundJobActor:saveRowsAsTasks: Invalid data in row " + (i + 1), e);
+      }
+      task.setCreatedOn(new Timestamp(System.currentTimeMillis()));
+      tasks.add(task);
+      if (tasks.size() >= CASSANDRA_BATCH_SIZE || i == rows.size() - 1) {
+        performBatchInsert(tasks);
+        tasks.clear();
+      }
+    }
+    Map<String, Object> map = new HashMap<>();
+    map.put(JsonKey.ID, processId);
+    map.put(TASK_COUNT, rows.size());
+    map.put(JsonKey.DATA, "");
+    cassandraOperation.updateRecord(bulkDb.getKeySpace(), bulkDb.getTableName(), map);
+    return rows.size();
+  }
+
+  private boolean isTaskProcessed(BulkUploadProcessTask task) {
+    return null != task.getStatus()
+        && (task.getStatus() == BulkProcessStatus.COMPLETED.getValue()
+            || task.getStatus() == BulkProcessStatus.FAILED.getValue());
+  }
+
+  /**
+   * Saves the result of a row in its task. The result is encrypted and the row data is removed, as
+   * is done for the process once it completes.
+   */
+  private void setTaskResult(BulkUploadProcessTask task, int status, Map<String, Object> result) {
+    try {
+      String encryptedResult = UserUtility.encryptData(mapper.writeValueAsString(result));
+      if (status == BulkProcessStatus.COMPLETED.getValue()) {
+        task.setSuccessResult(encryptedResult);
+      } else {
+        task.setFailureResult(encryptedResult);
+      }
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "BulkUploadBackGroundJobActor:setTaskResult: Exception occurred while encrypting result",
+          e);
+    }
+    task.setStatus(status);
+    task.setData("");
+    task.setIterationId(task.getIterationId() + 1);
+    task.setLastUpdatedOn(new Timestamp(System.currentTimeMillis()));
+  }
+
+  /** Adds the result of a task processed before the process was interrupted to the result lists. */
+  private void addTaskResult(
+      BulkUploadProcessTask task,
+      List<Map<String, Object>> successList,
+      List<Map<String, Object>> failureList) {
+    boolean completed = task.getStatus() == BulkProcessStatus.COMPLETED.getValue();
+    String result = completed ? task.getSuccessResult() : task.getFailureResult();
+    if (StringUtils.isBlank(result)) {
+      return;
+    }
+    try {
+      Map<String, Object> resultMap =
+          mapper.readValue(decryptionService.decryptData(result), Map.class);
+      if (completed) {
+        successList.add(resultMap);
+      } else {
+        failureList.add(resultMap);
+      }
+    } catch (IOException e) {
+      ProjectLogger.log(
+          "BulkUploadBackGroundJobActor:addTaskResult: Exception occurred while reading result", e);
+    }
+  }
+
+  /**
+   * Sends a request to another actor. While rows are processed concurrently the requests are queued
+   * and sent from the actor thread after every chunk.
+   */
+  private void send(Request request) {
+    runOnActorThread(() -> tellToAnother(request));
+  }
+
+  private void generateTelemetry(
+      Map<String, Object> data,
+      Map<String, Object> targetObject,
+      List<Map<String, Object>> correlatedObject) {
+    Map<String, Object> telemetryData = new HashMap<>(data);
+    runOnActorThread(
+        () -> TelemetryUtil.telemetryProcessingCall(telemetryData, targetObject, correlatedObject));
+  }
+
+  private void runOnActorThread(Runnable action) {
+    Queue<Runnable> pendingActions = outbox;
+    if (null != pendingActions) {
+      pendingActions.add(action);
+    } else {
+      action.run();
+    }
+  }
+
+  private void sendPendingRequests() {
+    Runnable action;
+    while (null != outbox && null != (action = outbox.poll())) {
+      action.run();
+    }
+  }
+
+  private void updateUserResult(
+      String processId,
+      List<Map<String, Object>> successUserReq,
+      List<Map<String, Object>> failureUserReq,
+      boolean completed) {
+    // Update record in BulkDb table with the encrypted success and failure result. After
+    // completion of bulk upload process also update the status and delete the user data(csv
+    // file data)
     Map<String, Object> map = new HashMap<>();
     map.put(JsonKey.ID, processId);
     try {
@@ -1181,9 +1438,11 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
           "Exception occurred while encrypting success and failure result in bulk upload process : ",
           e1);
     }
-    map.put(JsonKey.PROCESS_END_TIME, ProjectUtil.getFormattedDate());
-    map.put(JsonKey.STATUS, ProjectUtil.BulkProcessStatus.COMPLETED.getValue());
-    map.put(JsonKey.DATA, "");
+    if (completed) {
+      map.put(JsonKey.PROCESS_END_TIME, ProjectUtil.getFormattedDate());
+      map.put(JsonKey.STATUS, ProjectUtil.BulkProcessStatus.COMPLETED.getValue());
+      map.put(JsonKey.DATA, "");
+    }
     try {
       cassandraOperation.updateRecord(bulkDb.getKeySpace(), bulkDb.getTableName(), map);
     } catch (Exception e) {
@@ -1300,6 +1559,26 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     }
   }
 
+  /**
+   * Reads the rows of a process saved as bulk_upload_process_task records, a batch of sequence ids
+   * at a time.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> getTaskData(String processId, Integer taskCount)
+      throws IOException {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    if (null == taskCount) {
+      return rows;
+    }
+    for (int sequence = 0; sequence < taskCount; sequence += CASSANDRA_BATCH_SIZE) {
+      for (BulkUploadProcessTask task :
+          readTasks(processId, sequence, sequence + CASSANDRA_BATCH_SIZE)) {
+        rows.add(mapper.readValue(task.getData(), Map.class));
+      }
+    }
+    return rows;
+  }
+
   @SuppressWarnings("unchecked")
   private Map<String, Object> getBulkData(String processId) {
     try {
@@ -1659,7 +1938,7 @@ public class BulkUploadBackGroundJobActor extends BaseActor {
     Request request = new Request();
     request.setOperation(ActorOperations.PROCESS_AUDIT_LOG.getValue());
     request.setRequest(map);
-    tellToAnother(request);
+    send(request);
   }
 
   /**
@@ -1,7 +1,9 @@
 package org.sunbird.learner.actors.bulkupload;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,6 +30,7 @@ import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.actors.bulkupload.dao.BulkUploadProcessTaskDao;
 import org.sunbird.learner.actors.bulkupload.dao.impl.BulkUploadProcessTaskDaoImpl;
+import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcess;
 import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcessTask;
 import org.sunbird.learner.util.Util;
 import org.sunbird.learner.util.Util.DbInfo;
@@ -223,7 +226,7 @@ public class BulkUploadManagementActor extends BaseBulkUploadActor {
   }
 
   @SuppressWarnings("unchecked")
-  private void upload(Request actorMessage) throws IOException {
+  private void upload(Request actorMessage) {
     String processId = ProjectUtil.getUniqueIdFromTimestamp(1);
     Map<String, Object> req = (Map<String, Object>) actorMessage.getRequest().get(JsonKey.DATA);
     req.put(JsonKey.CREATED_BY, req.get(JsonKey.CREATED_BY));
@@ -236,69 +239,44 @@ public class BulkUploadManagementActor extends BaseBulkUploadActor {
     }
   }
 
-  private void processBulkBatchEnrollment(Map<String, Object> req, String processId)
-      throws IOException {
-    List<String[]> batchList = parseCsvFile((byte[]) req.get(JsonKey.FILE), processId);
-    if (null != batchList) {
-
-      if (null != PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_BATCH_DATA_SIZE)) {
-        batchDataSize =
-            (Integer.parseInt(
-                PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_BATCH_DATA_SIZE)));
-        ProjectLogger.log("bulk upload batch data size read from config file " + batchDataSize);
-      }
-      validateFileSizeAgainstLineNumbers(batchDataSize, batchList.size());
-      if (!batchList.isEmpty()) {
-        String[] columns = batchList.get(0);
-        validateBulkUploadFields(columns, bulkBatchAllowedFields, false);
-      } else {
-        throw new ProjectCommonException(
-            ResponseCode.csvError.getErrorCode(),
-            ResponseCode.csvError.getErrorMessage(),
-            ResponseCode.CLIENT_ERROR.getResponseCode());
-      }
-    } else {
-      throw new ProjectCommonException(
-          ResponseCode.csvError.getErrorCode(),
-          ResponseCode.csvError.getErrorMessage(),
-          ResponseCode.CLIENT_ERROR.getResponseCode());
+  private void processBulkBatchEnrollment(Map<String, Object> req, String processId) {
+    if (null != PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_BATCH_DATA_SIZE)) {
+      batchDataSize =
+          (Integer.parseInt(
+              PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_BATCH_DATA_SIZE)));
+      ProjectLogger.log("bulk upload batch data size read from config file " + batchDataSize);
     }
     // save csv file to db
     uploadCsvToDB(
-        batchList, processId, null, JsonKey.BATCH, (String) req.get(JsonKey.CREATED_BY), null);
+        (byte[]) req.get(JsonKey.FILE),
+        processId,
+        null,
+        JsonKey.BATCH,
+        (String) req.get(JsonKey.CREATED_BY),
+        null,
+        bulkBatchAllowedFields,
+        batchDataSize);
   }
 
-  private void processBulkOrgUpload(Map<String, Object> req, String processId) throws IOException {
+  private void processBulkOrgUpload(Map<String, Object> req, String processId) {
 
     ProjectLogger.log("BulkUploadManagementActor: processBulkOrgUpload called.", LoggerEnum.INFO);
-    List<String[]> orgList = null;
-    orgList = parseCsvFile((byte[]) req.get(JsonKey.FILE), processId);
-    if (null != orgList) {
-      if (null != PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_ORG_DATA_SIZE)) {
-        orgDataSize =
-            (Integer.parseInt(
-                PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_ORG_DATA_SIZE)));
-        ProjectLogger.log("bulk upload org data size read from config file " + orgDataSize);
-      }
-      validateFileSizeAgainstLineNumbers(orgDataSize, orgList.size());
-      if (!orgList.isEmpty()) {
-        String[] columns = orgList.get(0);
-        validateBulkUploadFields(columns, bulkOrgAllowedFields, false);
-      } else {
-        throw new ProjectCommonException(
-            ResponseCode.dataSizeError.getErrorCode(),
-            ProjectUtil.formatMessage(ResponseCode.dataSizeError.getErrorMessage(), orgDataSize),
-            ResponseCode.CLIENT_ERROR.getResponseCode());
-      }
-    } else {
-      throw new ProjectCommonException(
-          ResponseCode.dataSizeError.getErrorCode(),
-          ProjectUtil.formatMessage(ResponseCode.dataSizeError.getErrorMessage(), orgDataSize),
-          ResponseCode.CLIENT_ERROR.getResponseCode());
+    if (null != PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_ORG_DATA_SIZE)) {
+      orgDataSize =
+          (Integer.parseInt(
+              PropertiesCache.getInstance().getProperty(JsonKey.BULK_UPLOAD_ORG_DATA_SIZE)));
+      ProjectLogger.log("bulk upload org data size read from config file " + orgDataSize);
     }
     // save csv file to db
     uploadCsvToDB(
-        orgList, processId, null, JsonKey.ORGANISATION, (String) req.get(JsonKey.CREATED_BY), null);
+        (byte[]) req.get(JsonKey.FILE),
+        processId,
+        null,
+        JsonKey.ORGANISATION,
+        (String) req.get(JsonKey.CREATED_BY),
+        null,
+        bulkOrgAllowedFields,
+        orgDataSize);
   }
 
   private void processBulkUserUpload(Map<String, Object> req, String processId) {
@@ -357,123 +335,101 @@ public class BulkUploadManagementActor extends BaseBulkUploadActor {
             ResponseCode.CLIENT_ERROR.getResponseCode());
       }
     }
-    List<String[]> userList = null;
-    try {
-      userList = parseCsvFile((byte[]) req.get(JsonKey.FILE), processId);
-    } catch (IOException e) {
-      throw new ProjectCommonException(
-          ResponseCode.csvError.getErrorCode(),
-          ResponseCode.csvError.getErrorMessage(),
-          ResponseCode.CLIENT_ERROR.getResponseCode());
-    }
-    if (null != userList) {
-      if (StringUtils.isNotBlank(ProjectUtil.getConfigValue(JsonKey.BULK_UPLOAD_USER_DATA_SIZE))) {
-        userDataSize =
-            (Integer.parseInt(
-                ProjectUtil.getConfigValue(JsonKey.BULK_UPLOAD_USER_DATA_SIZE).trim()));
+    if (StringUtils.isNotBlank(ProjectUtil.getConfigValue(JsonKey.BULK_UPLOAD_USER_DATA_SIZE))) {
+      userDataSize =
+          (Integer.parseInt(ProjectUtil.getConfigValue(JsonKey.BULK_UPLOAD_USER_DATA_SIZE).trim()));
 
-        ProjectLogger.log(
-            "BulkUploadManagementActor:processBulkUserUpload : bulk upload user data size"
-                + userDataSize,
-            LoggerEnum.INFO.name());
-      }
-      validateFileSizeAgainstLineNumbers(userDataSize, userList.size());
-      if (!userList.isEmpty()) {
-        String[] columns = userList.get(0);
-        validateBulkUploadFields(columns, bulkUserAllowedFields, false);
-      } else {
-        throw new ProjectCommonException(
-            ResponseCode.csvError.getErrorCode(),
-            ResponseCode.csvError.getErrorMessage(),
-            ResponseCode.CLIENT_ERROR.getResponseCode());
-      }
-    } else {
-      throw new ProjectCommonException(
-          ResponseCode.csvError.getErrorCode(),
-          ResponseCode.csvError.getErrorMessage(),
-          ResponseCode.CLIENT_ERROR.getResponseCode());
+      ProjectLogger.log(
+          "BulkUploadManagementActor:processBulkUserUpload : bulk upload user data size"
+              + userDataSize,
+          LoggerEnum.INFO.name());
     }
     // save csv file to db
     uploadCsvToDB(
-        userList, processId, orgId, JsonKey.USER, (String) req.get(JsonKey.CREATED_BY), rootOrgId);
+        (byte[]) req.get(JsonKey.FILE),
+        processId,
+        orgId,
+        JsonKey.USER,
+        (String) req.get(JsonKey.CREATED_BY),
+        rootOrgId,
+        bulkUserAllowedFields,
+        userDataSize);
   }
 
+  /**
+   * Streams the rows of the file into bulk_upload_process_task records, validating the header and
+   * every row as it is read, then creates the bulk_upload_process record with the task count and
+   * hands the process over to the background job. The tasks are deleted if the file is rejected
+   * after some of them were written, or if the process record cannot be created.
+   */
   private void uploadCsvToDB(
-      List<String[]> dataList,
+      byte[] file,
       String processId,
       String orgId,
       String objectType,
       String requestedBy,
-      String rootOrgId) {
+      String rootOrgId,
+      String[] allowedFields,
+      Integer maxLines) {
     ProjectLogger.log("BulkUploadManagementActor: uploadCsvToDB called.", LoggerEnum.INFO);
-    List<Map<String, Object>> dataMapList = new ArrayList<>();
-    if (dataList.size() > 1) {
-      try {
-        String[] columnArr = dataList.get(0);
-        columnArr = trimColumnAttributes(columnArr);
-        Map<String, Object> dataMap = null;
-        String channel = null;
-        // channel is required only in case of the user type bulk upload.
-        if (StringUtils.isNotBlank(objectType) && objectType.equalsIgnoreCase(JsonKey.USER)) {
-          channel = Util.getChannel(rootOrgId);
-        }
-        for (int i = 1; i < dataList.size(); i++) {
-          dataMap = new HashMap<>();
-          String[] valueArr = dataList.get(i);
-          for (int j = 0; j < valueArr.length; j++) {
-            String value = (valueArr[j].trim().length() == 0 ? null : valueArr[j].trim());
-            dataMap.put(columnArr[j], value);
-          }
-          if (!StringUtils.isBlank(objectType) && objectType.equalsIgnoreCase(JsonKey.USER)) {
-            dataMap.put(JsonKey.ROOT_ORG_ID, rootOrgId);
-            dataMap.put(JsonKey.ORGANISATION_ID, orgId);
-            dataMap.put(JsonKey.CHANNEL, channel);
-          }
-          dataMapList.add(dataMap);
-        }
-      } catch (Exception e) {
-        ProjectLogger.log(e.getMessage(), e);
-        throw new ProjectCommonException(
-            ResponseCode.csvError.getErrorCode(),
-            ResponseCode.csvError.getErrorMessage(),
-            ResponseCode.CLIENT_ERROR.getResponseCode());
-      }
-    } else {
+    Map<String, Object> additionalRowFields = new HashMap<>();
+    // channel is required only in case of the user type bulk upload.
+    if (StringUtils.isNotBlank(objectType) && objectType.equalsIgnoreCase(JsonKey.USER)) {
+      additionalRowFields.put(JsonKey.ROOT_ORG_ID, rootOrgId);
+      additionalRowFields.put(JsonKey.ORGANISATION_ID, orgId);
+      additionalRowFields.put(JsonKey.CHANNEL, Util.getChannel(rootOrgId));
+    }
+    Integer taskCount = 0;
+    try {
+      taskCount =
+          streamCsvToTasks(
+              Channels.newChannel(new ByteArrayInputStream(file)),
+              processId,
+              additionalRowFields,
+              allowedFields,
+              maxLines);
+    } catch (ProjectCommonException e) {
+      throw e;
+    } catch (Exception e) {
+      ProjectLogger.log(e.getMessage(), e);
+      throw new ProjectCommonException(
+          ResponseCode.csvError.getErrorCode(),
+          ResponseCode.csvError.getErrorMessage(),
+          ResponseCode.CLIENT_ERROR.getResponseCode());
+    }
+    if (taskCount == 0) {
       // tell sender that csv file is empty
       throw new ProjectCommonException(
           ResponseCode.csvError.getErrorCode(),
           ResponseCode.csvError.getErrorMessage(),
           ResponseCode.CLIENT_ERROR.getResponseCode());
     }
-    // convert userMapList to json string
-    Map<String, Object> map = new HashMap<>();
 
+    BulkUploadProcess bulkUploadProcess = new BulkUploadProcess();
+    bulkUploadProcess.setId(processId);
+    bulkUploadProcess.setObjectType(objectType);
+    bulkUploadProcess.setUploadedBy(requestedBy);
+    bulkUploadProcess.setUploadedDate(ProjectUtil.getFormattedDate());
+    bulkUploadProcess.setProcessStartTime(ProjectUtil.getFormattedDate());
+    bulkUploadProcess.setStatus(ProjectUtil.BulkProcessStatus.NEW.getValue());
+    bulkUploadProcess.setTaskCount(taskCount);
+    Response res;
     try {
-      map.put(JsonKey.DATA, mapper.writeValueAsString(dataMapList));
-    } catch (IOException e) {
-      ProjectLogger.log(
-          "BulkUploadManagementActor:uploadCsvToDB: Exception while converting map to string: "
-              + e.getMessage(),
-          e);
-      throw new ProjectCommonException(
-          ResponseCode.internalError.getErrorCode(),
-          ResponseCode.internalError.getErrorMessage(),
-          ResponseCode.SERVER_ERROR.getResponseCode());
+      res = bulkUploadDao.create(bulkUploadProcess);
+    } catch (RuntimeException e) {
+      deleteTasks(processId);
+      throw e;
     }
-
-    map.put(JsonKey.ID, processId);
-    map.put(JsonKey.OBJECT_TYPE, objectType);
-    map.put(JsonKey.UPLOADED_BY, requestedBy);
-    map.put(JsonKey.UPLOADED_DATE, ProjectUtil.getFormattedDate());
-    map.put(JsonKey.PROCESS_START_TIME, ProjectUtil.getFormattedDate());
-    map.put(JsonKey.STATUS, ProjectUtil.BulkProcessStatus.NEW.getValue());
-    Response res =
-        cassandraOperation.insertRecord(bulkDb.getKeySpace(), bulkDb.getTableName(), map);
-    res.put(JsonKey.PROCESS_ID, processId);
+    if (!JsonKey.SUCCESS.equalsIgnoreCase((String) res.get(JsonKey.RESPONSE))) {
+      deleteTasks(processId);
+    }
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, res.get(JsonKey.RESPONSE));
+    response.put(JsonKey.PROCESS_ID, processId);
     ProjectLogger.log(
         "BulkUploadManagementActor: uploadCsvToDB returned response for processId: " + processId,
         LoggerEnum.INFO);
-    sender().tell(res, self());
+    sender().tell(response, self());
     if (((String) res.get(JsonKey.RESPONSE)).equalsIgnoreCase(JsonKey.SUCCESS)) {
       // send processId for data processing to background job
       Request request = new Request();
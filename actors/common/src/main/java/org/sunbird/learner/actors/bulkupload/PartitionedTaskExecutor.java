@@ -0,0 +1,170 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Processes the rows of a bulk upload concurrently. Every row is assigned to a partition by its
+ * conflict key (e.g. user name, external id or organisation id) and every partition is processed
+ * by a single thread, so rows having the same key are processed one after the other in file order
+ * while rows of different keys are processed in parallel.
+ *
+ * <p>Calls to a downstream service can be throttled with {@link #acquire(String)}, the allowed
+ * rate is read from the {@code sunbird_bulk_upload_<downstream>_rate_limit} configuration (calls
+ * per second, not throttled if not configured).
+ */
+public class PartitionedTaskExecutor {
+
+  public static final String KEYCLOAK = "keycloak";
+  public static final String CASSANDRA = "cassandra";
+
+  private static final String RATE_LIMIT_KEY = "sunbird_bulk_upload_%s_rate_limit";
+  private static final Map<String, Optional<RateLimiter>> rateLimiters =
+      new ConcurrentHashMap<>();
+
+  private final List<ExecutorService> partitions = new ArrayList<>();
+
+  /** @param workerCount Number of partitions, each processed by one thread. */
+  public PartitionedTaskExecutor(int workerCount) {
+    for (int i = 0; i < Math.max(workerCount, 1); i++) {
+      partitions.add(
+          Executors.newSingleThreadExecutor(
+              ExecutorManager.newDaemonThreadFactory("bulk-upload-partition")));
+    }
+  }
+
+  /**
+   * Processes the given rows and waits till all of them are processed. The processor is expected
+   * to handle the failure of a row, exceptions thrown by it are only logged.
+   *
+   * @param rows Rows to process.
+   * @param conflictKey Function returning the conflict key of a row, rows with a blank key are
+   *     all processed in the same partition.
+   * @param processor Function processing one row.
+   */
+  public <T> void execute(List<T> rows, Function<T, String> conflictKey, Consumer<T> processor) {
+    List<Future<?>> futures = new ArrayList<>();
+    for (T row : rows) {
+      futures.add(getPartition(conflictKey.apply(row)).submit(() -> processor.accept(row)));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        ProjectLogger.log("PartitionedTaskExecutor:execute: Interrupted", e);
+        return;
+      } catch (ExecutionException e) {
+        ProjectLogger.log("PartitionedTaskExecutor:execute: Row processing failed", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Computes the conflict keys of rows which may conflict through any of several attributes. Rows
+   * sharing an attribute, directly or through other rows, are grouped with a union-find and get the
+   * same key, so that e.g. two rows of the same email are processed in one partition even if their
+   * user names differ.
+   *
+   * @param rows Rows to compute the keys of.
+   * @param identities Function returning the identifying attributes of a row, blank ones are
+   *     ignored.
+   * @return Conflict key of every row, null for a row without any identifying attribute.
+   */
+  public static <T> Map<T, String> getConflictKeys(
+      List<T> rows, Function<T, List<String>> identities) {
+    int[] parents = new int[rows.size()];
+    boolean[] identified = new boolean[rows.size()];
+    Map<String, Integer> firstRows = new HashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      parents[i] = i;
+      for (String identity : identities.apply(rows.get(i))) {
+        if (StringUtils.isBlank(identity)) {
+          continue;
+        }
+        identified[i] = true;
+        Integer first = firstRows.putIfAbsent(identity, i);
+        if (null != first) {
+          union(parents, first, i);
+        }
+      }
+    }
+    Map<T, String> keys = new HashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      keys.put(rows.get(i), identified[i] ? String.valueOf(find(parents, i)) : null);
+    }
+    return keys;
+  }
+
+  private static void union(int[] parents, int a, int b) {
+    int rootA = find(parents, a);
+    int rootB = find(parents, b);
+    // the earlier row stays the root, so the keys do not depend on the order of the unions
+    parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+  }
+
+  private static int find(int[] parents, int i) {
+    while (parents[i] != i) {
+      parents[i] = parents[parents[i]];
+      i = parents[i];
+    }
+    return i;
+  }
+
+  private ExecutorService getPartition(String key) {
+    if (StringUtils.isBlank(key)) {
+      // a row without a key may still be the same user as another row without a key
+      return partitions.get(0);
+    }
+    return partitions.get(Math.floorMod(key.hashCode(), partitions.size()));
+  }
+
+  /** Stops the partition threads once the rows being processed are done. */
+  public void shutdown() {
+    partitions.forEach(ExecutorService::shutdown);
+  }
+
+  /**
+   * Blocks till a call to the given downstream service is allowed by its rate limit.
+   *
+   * @param downstream Name of the downstream service.
+   */
+  public static void acquire(String downstream) {
+    rateLimiters
+        .computeIfAbsent(downstream, PartitionedTaskExecutor::createRateLimiter)
+        .ifPresent(RateLimiter::acquire);
+  }
+
+  private static Optional<RateLimiter> createRateLimiter(String downstream) {
+    String value = ProjectUtil.getConfigValue(String.format(RATE_LIMIT_KEY, downstream));
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        double permitsPerSecond = Double.parseDouble(value.trim());
+        if (permitsPerSecond > 0) {
+          return Optional.of(RateLimiter.create(permitsPerSecond));
+        }
+      } catch (NumberFormatException e) {
+        ProjectLogger.log(
+            "PartitionedTaskExecutor:createRateLimiter: Invalid rate limit " + value,
+            LoggerEnum.ERROR.name());
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -2,28 +2,37 @@ package org.sunbird.learner.actors.bulkupload;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
-import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
-import org.sunbird.helper.ServiceFactory;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.actors.syncjobmanager.CheckpointedScan;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.learner.util.UserUtility;
-import org.sunbird.learner.util.Util;
 
+/**
+ * Encrypts or decrypts the personal data of all users. The migration runs in the background and
+ * resumes from its checkpoints if it was interrupted, see {@link UserDataMigration}. A request
+ * made while a migration is running on the node is rejected. The response carries the job id to
+ * read the progress with through the sync status request.
+ */
 @ActorConfig(
   tasks = {"encryptUserData", "decryptUserData"},
   asyncTasks = {}
 )
 public class UserDataEncryptionDecryptionServiceActor extends BaseActor {
 
-  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
-  private Util.DbInfo usrDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
-  private Util.DbInfo addrDbInfo = Util.dbInfoMap.get(JsonKey.ADDRESS_DB);
+  private static final String JOB_ID = "jobId";
+  private static final ExecutorService migrationExecutor =
+      Executors.newSingleThreadExecutor(ExecutorManager.newDaemonThreadFactory("user-migration"));
 
   @Override
   public void onReceive(Request actorMessage) throws Throwable {
@@ -43,102 +52,75 @@ public class UserDataEncryptionDecryptionServiceActor extends BaseActor {
   private void decryptUserData(Request actorMessage) {
     ProjectLogger.log(
         "DecryptUserData API called by " + actorMessage.getRequest().get(JsonKey.REQUESTED_BY));
-    long start = System.currentTimeMillis();
-    Response resp = new Response();
-    resp.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
-    sender().tell(resp, self());
-    Response response =
-        cassandraOperation.getAllRecords(usrDbInfo.getKeySpace(), usrDbInfo.getTableName());
-    List<Map<String, Object>> userList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    int i = 0;
-    for (Map<String, Object> userMap : userList) {
-      if (!ProjectUtil.isEmailvalid((String) userMap.get(JsonKey.EMAIL))) {
-        decryptUserDataAndUpdateDb(userMap);
-        i++;
-      }
-    }
-    ProjectLogger.log("Total No. of user data to decrypt ::: " + i);
-    long end = System.currentTimeMillis();
-    ProjectLogger.log("total time taken by application to decrypt user data:::: " + (end - start));
-  }
+    // encrypted users do not have a valid email
+    startMigration(
+        ActorOperations.DECRYPT_USER_DATA.getValue(),
+        new UserDataMigration(
+            ActorOperations.DECRYPT_USER_DATA.getValue(),
+            userMap -> !ProjectUtil.isEmailvalid((String) userMap.get(JsonKey.EMAIL)),
+            new UserDataMigration.UserTransformer() {
+              @Override
+              public void transformUser(Map<String, Object> user) {
+                UserUtility.decryptUserData(user);
+              }
 
-  private void decryptUserDataAndUpdateDb(Map<String, Object> userMap) {
-    try {
-      UserUtility.decryptUserData(userMap);
-      cassandraOperation.updateRecord(usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), userMap);
-      getUserAddressDataDecryptAndUpdateDb((String) userMap.get(JsonKey.ID));
-    } catch (Exception e) {
-      ProjectLogger.log(
-          "Exception Occurred while decrypting user data for userId "
-              + ((String) userMap.get(JsonKey.ID)),
-          e);
-    }
-  }
-
-  private void getUserAddressDataDecryptAndUpdateDb(String userId) {
-    Response response =
-        cassandraOperation.getRecordsByProperty(
-            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), JsonKey.USER_ID, userId);
-    List<Map<String, Object>> addressList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    try {
-      UserUtility.decryptUserAddressData(addressList);
-      for (Map<String, Object> address : addressList) {
-        cassandraOperation.updateRecord(
-            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), address);
-      }
-    } catch (Exception e) {
-      ProjectLogger.log(
-          "Exception Occurred while decrypting user address data for userId " + (userId), e);
-    }
+              @Override
+              public void transformAddresses(List<Map<String, Object>> addresses) {
+                UserUtility.decryptUserAddressData(addresses);
+              }
+            }));
   }
 
   private void encryptUserData(Request actorMessage) {
     ProjectLogger.log(
         "EncryptUserData API called by " + actorMessage.getRequest().get(JsonKey.REQUESTED_BY));
-    long start = System.currentTimeMillis();
-    Response resp = new Response();
-    resp.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
-    sender().tell(resp, self());
-    Response response =
-        cassandraOperation.getAllRecords(usrDbInfo.getKeySpace(), usrDbInfo.getTableName());
-    List<Map<String, Object>> userList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-    int i = 0;
-    for (Map<String, Object> userMap : userList) {
-      if (ProjectUtil.isEmailvalid((String) userMap.get(JsonKey.EMAIL))) {
-        encryptUserDataAndUpdateDb(userMap);
-        i++;
-      }
-    }
-    ProjectLogger.log("Total No. of user data to encrypt ::: " + i);
-    long end = System.currentTimeMillis();
-    ProjectLogger.log("total time taken by application to encrypt user data:::: " + (end - start));
-  }
+    startMigration(
+        ActorOperations.ENCRYPT_USER_DATA.getValue(),
+        new UserDataMigration(
+            ActorOperations.ENCRYPT_USER_DATA.getValue(),
+            userMap -> ProjectUtil.isEmailvalid((String) userMap.get(JsonKey.EMAIL)),
+            new UserDataMigration.UserTransformer() {
+              @Override
+              public void transformUser(Map<String, Object> user) throws Exception {
+                UserUtility.encryptUserData(user);
+              }
 
-  private void encryptUserDataAndUpdateDb(Map<String, Object> userMap) {
-    try {
-      UserUtility.encryptUserData(userMap);
-      cassandraOperation.updateRecord(usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), userMap);
-      getUserAddressDataEncryptAndUpdateDb((String) userMap.get(JsonKey.ID));
-    } catch (Exception e) {
-      ProjectLogger.log("Exception Occurred while encrypting user data ", e);
-    }
+              @Override
+              public void transformAddresses(List<Map<String, Object>> addresses)
+                  throws Exception {
+                UserUtility.encryptUserAddressData(addresses);
+              }
+            }));
   }
 
-  private void getUserAddressDataEncryptAndUpdateDb(String userId) {
-    Response response =
-        cassandraOperation.getRecordsByProperty(
-            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), JsonKey.USER_ID, userId);
-    List<Map<String, Object>> addressList =
-        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+  private void startMigration(String operation, UserDataMigration migration) {
+    if (!CheckpointedScan.tryStart(UserDataMigration.SCAN_ID)) {
+      throw new ProjectCommonException(
+          ResponseCode.invalidRequestData.getErrorCode(),
+          "A user data migration is already running",
+          ResponseCode.CLIENT_ERROR.getResponseCode());
+    }
     try {
-      UserUtility.encryptUserAddressData(addressList);
-      for (Map<String, Object> address : addressList) {
-        cassandraOperation.updateRecord(
-            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), address);
-      }
-    } catch (Exception e) {
-      ProjectLogger.log("Exception Occurred while encrypting user data ", e);
+      migrationExecutor.execute(
+          () -> {
+            try {
+              migration.run();
+            } catch (Exception e) {
+              ProjectLogger.log(
+                  "UserDataEncryptionDecryptionServiceActor:startMigration: Migration failed "
+                      + e.getMessage(),
+                  e);
+            } finally {
+              CheckpointedScan.finish(UserDataMigration.SCAN_ID);
+            }
+          });
+    } catch (RuntimeException e) {
+      CheckpointedScan.finish(UserDataMigration.SCAN_ID);
+      throw e;
     }
+    Response resp = new Response();
+    resp.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
+    resp.put(JOB_ID, operation);
+    sender().tell(resp, self());
   }
 }
@@ -0,0 +1,297 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.CheckpointedScan;
+import org.sunbird.learner.actors.syncjobmanager.EsStreamingSync;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.CassandraPagedReader;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.UserUtility;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Encrypts or decrypts the personal data of all users, along with their addresses. The user table
+ * is split into token ranges which are scanned concurrently with {@link CheckpointedScan}, and
+ * only the encrypted columns of the users of a page are updated, one statement per row, at a
+ * limited rate. Every range has its own checkpoint, saved after every page, so a migration which
+ * was interrupted resumes where it stopped.
+ *
+ * <p>The progress of a migration is saved as a checkpoint whose id is the operation, and the
+ * ranges carry the operation as their job id, so it is read through the sync status request with
+ * the operation as the job id. Only one migration runs at a time on a node, see {@link #SCAN_ID}.
+ */
+public class UserDataMigration {
+
+  /** Id the migrations are guarded with through {@link CheckpointedScan#tryStart(String)}. */
+  public static final String SCAN_ID = "userDataMigration";
+
+  private static final String PAGE_SIZE_KEY = "sunbird_user_migration_page_size";
+  private static final String PARALLELISM_KEY = "sunbird_user_migration_parallelism";
+  private static final String BATCH_SIZE_KEY = "sunbird_user_migration_batch_size";
+  private static final String RATE_KEY = "sunbird_user_migration_rate";
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int DEFAULT_PARALLELISM = 4;
+  private static final int DEFAULT_BATCH_SIZE = 50;
+  /** Maximum number of users written per second by all the ranges together. */
+  private static final int DEFAULT_RATE = 500;
+  private static final Set<String> KEY_COLUMNS = Collections.singleton(JsonKey.ID);
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private SyncCheckpointDao checkpointDao = new SyncCheckpointDaoImpl();
+  private Util.DbInfo usrDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
+  private Util.DbInfo addrDbInfo = Util.dbInfoMap.get(JsonKey.ADDRESS_DB);
+  private final int pageSize = ConfigUtil.getInt(PAGE_SIZE_KEY, DEFAULT_PAGE_SIZE);
+  private final int parallelism = ConfigUtil.getInt(PARALLELISM_KEY, DEFAULT_PARALLELISM);
+  private final int batchSize = ConfigUtil.getInt(BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE);
+  private final RateLimiter rateLimiter =
+      RateLimiter.create(ConfigUtil.getInt(RATE_KEY, DEFAULT_RATE));
+
+  private final String operation;
+  private final Predicate<Map<String, Object>> filter;
+  private final UserTransformer transformer;
+  private final AtomicLong processedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+
+  /**
+   * @param operation Operation name, also the id of the migration checkpoint
+   * @param filter Selects the users to migrate
+   * @param transformer Migrates the user and address records in place
+   */
+  public UserDataMigration(
+      String operation, Predicate<Map<String, Object>> filter, UserTransformer transformer) {
+    this.operation = operation;
+    this.filter = filter;
+    this.transformer = transformer;
+  }
+
+  /**
+   * Runs the migration, resuming the ranges of a previous run which did not complete. The caller
+   * guards the run with {@link CheckpointedScan#tryStart(String)} on {@link #SCAN_ID}.
+   *
+   * @return The final migration checkpoint
+   */
+  public SyncCheckpoint run() {
+    long start = System.currentTimeMillis();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism, ExecutorManager.newDaemonThreadFactory("user-migration-" + operation));
+    try {
+      SyncCheckpoint job =
+          CheckpointedScan.resumeOrCreate(checkpointDao, operation, operation, false);
+      List<SyncCheckpoint> ranges = getRanges(job);
+      for (SyncCheckpoint range : ranges) {
+        processedCount.addAndGet(range.getProcessedCount());
+        failedCount.addAndGet(range.getFailedCount());
+      }
+      job.setStatus(SyncCheckpoint.STATUS_IN_PROGRESS);
+      saveProgress(job);
+      List<CompletableFuture<SyncCheckpoint>> futures = new ArrayList<>();
+      for (SyncCheckpoint range : ranges) {
+        if (!SyncCheckpoint.STATUS_COMPLETED.equals(range.getStatus())) {
+          futures.add(CompletableFuture.supplyAsync(() -> migrate(range, job), executor));
+        }
+      }
+      boolean completed = true;
+      for (CompletableFuture<SyncCheckpoint> future : futures) {
+        completed &= SyncCheckpoint.STATUS_COMPLETED.equals(future.join().getStatus());
+      }
+      job.setStatus(completed ? SyncCheckpoint.STATUS_COMPLETED : SyncCheckpoint.STATUS_FAILED);
+      saveProgress(job);
+      ProjectLogger.log(
+          "UserDataMigration:run: "
+              + operation
+              + " "
+              + job.getStatus()
+              + ", users migrated "
+              + processedCount.get()
+              + " failed "
+              + failedCount.get()
+              + " in "
+              + (System.currentTimeMillis() - start)
+              + " ms",
+          LoggerEnum.INFO.name());
+      return job;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Returns the ranges of the previous run if the given job checkpoint is the one of that run,
+   * else the ranges of a new run. A new job checkpoint has no status yet.
+   */
+  private List<SyncCheckpoint> getRanges(SyncCheckpoint job) {
+    if (null != job.getStatus()) {
+      List<SyncCheckpoint> ranges = checkpointDao.readByJobId(operation);
+      if (!ranges.isEmpty()) {
+        return ranges;
+      }
+    }
+    List<SyncCheckpoint> ranges = new ArrayList<>();
+    List<long[]> tokenRanges =
+        CassandraPagedReader.splitRange(
+            CassandraPagedReader.MIN_TOKEN, CassandraPagedReader.MAX_TOKEN, parallelism);
+    for (int i = 0; i < tokenRanges.size(); i++) {
+      SyncCheckpoint range =
+          EsStreamingSync.newCheckpoint(
+              operation + "_" + i, operation, tokenRanges.get(i)[0], tokenRanges.get(i)[1]);
+      range.setJobId(operation);
+      range.setStatus(SyncCheckpoint.STATUS_PENDING);
+      checkpointDao.upsert(range);
+      ranges.add(range);
+    }
+    return ranges;
+  }
+
+  private SyncCheckpoint migrate(SyncCheckpoint range, SyncCheckpoint job) {
+    return new CheckpointedScan(new CassandraPagedReader(usrDbInfo, pageSize), checkpointDao)
+        .run(
+            range,
+            records -> {
+              CheckpointedScan.PageResult result = migratePage(records);
+              processedCount.addAndGet(result.getProcessed());
+              failedCount.addAndGet(result.getFailed());
+              saveProgress(job);
+              return result;
+            });
+  }
+
+  /**
+   * Migrates the selected users of a page and their addresses.
+   *
+   * @param records Users of the page
+   * @return Counts of the migrated users and of the users which failed
+   */
+  CheckpointedScan.PageResult migratePage(List<Map<String, Object>> records) {
+    List<Map<String, Object>> users = new ArrayList<>();
+    Map<Object, List<Map<String, Object>>> addressesByUser = new HashMap<>();
+    int failed = 0;
+    for (Map<String, Object> user : records) {
+      if (filter.test(user)) {
+        try {
+          transformer.transformUser(user);
+          addressesByUser.put(user.get(JsonKey.ID), getAddresses((String) user.get(JsonKey.ID)));
+          users.add(user);
+        } catch (Exception e) {
+          failed++;
+          ProjectLogger.log(
+              "UserDataMigration:migratePage: Failed to migrate user " + user.get(JsonKey.ID), e);
+        }
+      }
+    }
+    failed += write(users, addressesByUser);
+    return new CheckpointedScan.PageResult(users.size(), failed);
+  }
+
+  /**
+   * Updates the encrypted columns of the users, in groups of batchSize, then those of the addresses
+   * of the users whose user row was written, and returns the count of users whose user or address
+   * rows could not be written.
+   */
+  private int write(
+      List<Map<String, Object>> users, Map<Object, List<Map<String, Object>>> addressesByUser) {
+    Set<Object> failedUsers = new HashSet<>();
+    for (int i = 0; i < users.size(); i += batchSize) {
+      List<Map<String, Object>> group = users.subList(i, Math.min(i + batchSize, users.size()));
+      rateLimiter.acquire(group.size());
+      List<Map<String, Object>> userRecords = new ArrayList<>();
+      for (Map<String, Object> user : group) {
+        userRecords.add(getEncryptedColumns(user, UserUtility.getUserKeysToEncrypt()));
+      }
+      for (Map<String, Object> record :
+          CassandraAsyncWriter.update(
+              usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), userRecords, KEY_COLUMNS)) {
+        failedUsers.add(record.get(JsonKey.ID));
+      }
+      // user id of every address record, the writer returns the failed records themselves
+      Map<Map<String, Object>, Object> addressUsers = new IdentityHashMap<>();
+      for (Map<String, Object> user : group) {
+        Object userId = user.get(JsonKey.ID);
+        if (!failedUsers.contains(userId)) {
+          for (Map<String, Object> address : addressesByUser.get(userId)) {
+            addressUsers.put(
+                getEncryptedColumns(address, UserUtility.getAddressKeysToEncrypt()), userId);
+          }
+        }
+      }
+      if (!addressUsers.isEmpty()) {
+        for (Map<String, Object> record :
+            CassandraAsyncWriter.update(
+                addrDbInfo.getKeySpace(),
+                addrDbInfo.getTableName(),
+                new ArrayList<>(addressUsers.keySet()),
+                KEY_COLUMNS)) {
+          failedUsers.add(addressUsers.get(record));
+        }
+      }
+    }
+    return failedUsers.size();
+  }
+
+  /** Returns the id of the record along with those of the given columns which it has. */
+  private static Map<String, Object> getEncryptedColumns(
+      Map<String, Object> record, List<String> columns) {
+    Map<String, Object> encrypted = new HashMap<>();
+    encrypted.put(JsonKey.ID, record.get(JsonKey.ID));
+    for (String column : columns) {
+      if (record.containsKey(column)) {
+        encrypted.put(column, record.get(column));
+      }
+    }
+    return encrypted;
+  }
+
+  /** Returns the migrated addresses of the user, failing if they could not be migrated. */
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> getAddresses(String userId) throws Exception {
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), JsonKey.USER_ID, userId);
+    List<Map<String, Object>> addressList =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (null == addressList || addressList.isEmpty()) {
+      return new ArrayList<>();
+    }
+    transformer.transformAddresses(addressList);
+    return addressList;
+  }
+
+  private void saveProgress(SyncCheckpoint job) {
+    synchronized (job) {
+      job.setProcessedCount(processedCount.get());
+      job.setFailedCount(failedCount.get());
+      checkpointDao.upsert(job);
+    }
+  }
+
+  /** Migrates user and address records in place. */
+  public interface UserTransformer {
+
+    void transformUser(Map<String, Object> user) throws Exception;
+
+    void transformAddresses(List<Map<String, Object>> addresses) throws Exception;
+  }
+}
@@ -64,4 +64,11 @@ public interface BulkUploadProcessTaskDao {
    *     database implementation layer.
    */
   String updateBatchRecord(List<BulkUploadProcessTask> records);
+
+  /**
+   * Method to delete all the tasks of a bulk upload process.
+   *
+   * @param processId Bulk upload process id.
+   */
+  void deleteByProcessId(String processId);
 }
@@ -1,5 +1,7 @@
 package org.sunbird.learner.actors.bulkupload.dao.impl;
 
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
@@ -12,6 +14,8 @@ import org.sunbird.common.CassandraUtil;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.actors.bulkupload.dao.BulkUploadProcessTaskDao;
 import org.sunbird.learner.actors.bulkupload.model.BulkUploadProcessTask;
@@ -27,6 +31,7 @@ public class BulkUploadProcessTaskDaoImpl implements BulkUploadProcessTaskDao {
   private ObjectMapper mapper = new ObjectMapper();
   private static final String KEYSPACE_NAME = "sunbird";
   private static final String TABLE_NAME = "bulk_upload_process_task";
+  private static final String DELETE_BY_PROCESS_ID_QUERY = "DELETE FROM %s.%s WHERE processId = ?";
 
   @Override
   public String create(BulkUploadProcessTask bulkUploadProcessTask) {
@@ -96,4 +101,16 @@ public class BulkUploadProcessTaskDaoImpl implements BulkUploadProcessTaskDao {
     Response response = cassandraOperation.batchUpdate(KEYSPACE_NAME, TABLE_NAME, list);
     return (String) response.get(JsonKey.RESPONSE);
   }
+
+  @Override
+  public void deleteByProcessId(String processId) {
+    // the tasks of a process form one partition, which CassandraOperation cannot delete
+    Session session =
+        CassandraConnectionMngrFactory.getObject(
+                PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+            .getSession(KEYSPACE_NAME);
+    session.execute(
+        new SimpleStatement(
+            String.format(DELETE_BY_PROCESS_ID_QUERY, KEYSPACE_NAME, TABLE_NAME), processId));
+  }
 }
@@ -5,23 +5,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
-import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
-import org.sunbird.common.models.util.HttpUtil;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
-import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.request.ExecutionContext;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
-import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.MetricsRegistry;
 import org.sunbird.learner.util.Util;
 
 /** @author Manzarul */
@@ -31,8 +26,10 @@ import org.sunbird.learner.util.Util;
 )
 public class HealthActor extends BaseActor {
 
-  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
-  private Util.DbInfo badgesDbInfo = Util.dbInfoMap.get(JsonKey.BADGES_DB);
+  /** Time of the probe a check response is taken from. */
+  private static final String CHECKED_AT = "checkedAt";
+  /** Latency histograms of the probes and the metrics of the other components of the node. */
+  private static final String METRICS = "metrics";
 
   @Override
   public void onReceive(Request message) throws Throwable {
@@ -81,26 +78,13 @@ public class HealthActor extends BaseActor {
   /** */
   private void esHealthCheck() {
     // check the elastic search
-    boolean isallHealthy = true;
     Map<String, Object> finalResponseMap = new HashMap<>();
     List<Map<String, Object>> responseList = new ArrayList<>();
     responseList.add(ProjectUtil.createCheckResponse(JsonKey.ACTOR_SERVICE, false, null));
-    try {
-      boolean esResponse = ElasticSearchUtil.healthCheck();
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.ES_SERVICE, esResponse, null));
-      isallHealthy = esResponse;
-    } catch (Exception e) {
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.ES_SERVICE, true, e));
-      isallHealthy = false;
-      ProjectLogger.log("Elastic search health Error == ", e);
-    }
+    boolean isallHealthy = addCheckResponse(responseList, JsonKey.ES_SERVICE);
     finalResponseMap.put(JsonKey.CHECKS, responseList);
     finalResponseMap.put(JsonKey.NAME, "ES health check api");
-    if (isallHealthy) {
-      finalResponseMap.put(JsonKey.Healthy, true);
-    } else {
-      finalResponseMap.put(JsonKey.Healthy, false);
-    }
+    finalResponseMap.put(JsonKey.Healthy, isallHealthy);
     Response response = new Response();
     response.getResult().put(JsonKey.RESPONSE, finalResponseMap);
     sender().tell(response, self());
@@ -110,23 +94,12 @@ public class HealthActor extends BaseActor {
   private void cassandraHealthCheck() {
     Map<String, Object> finalResponseMap = new HashMap<>();
     List<Map<String, Object>> responseList = new ArrayList<>();
-    boolean isallHealthy = false;
     responseList.add(ProjectUtil.createCheckResponse(JsonKey.LEARNER_SERVICE, false, null));
     responseList.add(ProjectUtil.createCheckResponse(JsonKey.ACTOR_SERVICE, false, null));
-    try {
-      cassandraOperation.getAllRecords(badgesDbInfo.getKeySpace(), badgesDbInfo.getTableName());
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.CASSANDRA_SERVICE, false, null));
-    } catch (Exception e) {
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.CASSANDRA_SERVICE, true, e));
-      isallHealthy = false;
-    }
+    boolean isallHealthy = addCheckResponse(responseList, JsonKey.CASSANDRA_SERVICE);
     finalResponseMap.put(JsonKey.CHECKS, responseList);
     finalResponseMap.put(JsonKey.NAME, "cassandra health check api");
-    if (isallHealthy) {
-      finalResponseMap.put(JsonKey.Healthy, true);
-    } else {
-      finalResponseMap.put(JsonKey.Healthy, false);
-    }
+    finalResponseMap.put(JsonKey.Healthy, isallHealthy);
     Response response = new Response();
     response.getResult().put(JsonKey.RESPONSE, finalResponseMap);
     sender().tell(response, self());
@@ -148,65 +121,35 @@ public class HealthActor extends BaseActor {
 
   /** */
   private void checkAllComponentHealth() {
-    boolean isallHealthy = true;
     Map<String, Object> finalResponseMap = new HashMap<>();
     List<Map<String, Object>> responseList = new ArrayList<>();
     responseList.add(ProjectUtil.createCheckResponse(JsonKey.LEARNER_SERVICE, false, null));
     responseList.add(ProjectUtil.createCheckResponse(JsonKey.ACTOR_SERVICE, false, null));
-    try {
-      cassandraOperation.getAllRecords(badgesDbInfo.getKeySpace(), badgesDbInfo.getTableName());
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.CASSANDRA_SERVICE, false, null));
-    } catch (Exception e) {
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.CASSANDRA_SERVICE, true, e));
-      isallHealthy = false;
-    }
-    // check the elastic search
-    try {
-      boolean response = ElasticSearchUtil.healthCheck();
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.ES_SERVICE, !response, null));
-      isallHealthy = response;
-    } catch (Exception e) {
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.ES_SERVICE, true, e));
-      isallHealthy = false;
-    }
-    // check EKStep Util.
-    try {
-      String body = "{\"request\":{\"filters\":{\"identifier\":\"test\"}}}";
-      Map<String, String> headers = new HashMap<>();
-      headers.put(
-          JsonKey.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.EKSTEP_AUTHORIZATION));
-      if (StringUtils.isBlank(headers.get(JsonKey.AUTHORIZATION))) {
-        headers.put(
-            JsonKey.AUTHORIZATION,
-            PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_AUTHORIZATION));
-        headers.put("Content_Type", "application/json; charset=utf-8");
-      }
-      String searchBaseUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
-      String response =
-          HttpUtil.sendPostRequest(
-              searchBaseUrl
-                  + PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_CONTENT_SEARCH_URL),
-              body,
-              headers);
-      if (response.contains("OK")) {
-        responseList.add(ProjectUtil.createCheckResponse(JsonKey.EKSTEP_SERVICE, false, null));
-      } else {
-        responseList.add(ProjectUtil.createCheckResponse(JsonKey.EKSTEP_SERVICE, true, null));
-      }
-    } catch (Exception e) {
-      responseList.add(ProjectUtil.createCheckResponse(JsonKey.EKSTEP_SERVICE, true, null));
-      isallHealthy = false;
-    }
-
+    boolean isallHealthy = addCheckResponse(responseList, JsonKey.CASSANDRA_SERVICE);
+    isallHealthy &= addCheckResponse(responseList, JsonKey.ES_SERVICE);
+    isallHealthy &= addCheckResponse(responseList, JsonKey.EKSTEP_SERVICE);
     finalResponseMap.put(JsonKey.CHECKS, responseList);
     finalResponseMap.put(JsonKey.NAME, "Complete health check api");
-    if (isallHealthy) {
-      finalResponseMap.put(JsonKey.Healthy, true);
-    } else {
-      finalResponseMap.put(JsonKey.Healthy, false);
-    }
+    finalResponseMap.put(JsonKey.Healthy, isallHealthy);
+    finalResponseMap.put(METRICS, MetricsRegistry.getMetrics());
     Response response = new Response();
     response.getResult().put(JsonKey.RESPONSE, finalResponseMap);
     sender().tell(response, self());
   }
+
+  /**
+   * Adds the check response of a service from its latest probe.
+   *
+   * @param responseList Check responses
+   * @param service Service name
+   * @return true if the service is healthy
+   */
+  private boolean addCheckResponse(List<Map<String, Object>> responseList, String service) {
+    HealthMonitor.ProbeResult result = HealthMonitor.getResult(service);
+    Map<String, Object> checkResponse =
+        ProjectUtil.createCheckResponse(service, !result.isHealthy(), result.getError());
+    checkResponse.put(CHECKED_AT, result.getCheckedAt());
+    responseList.add(checkResponse);
+    return result.isHealthy();
+  }
 }
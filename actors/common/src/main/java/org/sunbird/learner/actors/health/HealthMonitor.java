@@ -0,0 +1,220 @@
+package org.sunbird.learner.actors.health;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.util.HttpUtil;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.LatencyRecorder;
+import org.sunbird.learner.util.MetricsRegistry;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Probes the health of the services the learner service depends on at a fixed interval, and keeps
+ * the latest result of every probe, so health requests are answered without calling the services.
+ *
+ * <p>Every probe is scheduled on its own and runs with a timeout, so a service which hangs does
+ * not delay the probes of the others. A result older than a few probe intervals is reported as
+ * unhealthy, as it means the probe itself is stuck.
+ */
+public final class HealthMonitor {
+
+  private static final String INTERVAL_KEY = "sunbird_health_probe_interval";
+  private static final String TIMEOUT_KEY = "sunbird_health_probe_timeout";
+  private static final String MAX_AGE_KEY = "sunbird_health_probe_max_age";
+  /** Interval between probes in seconds. */
+  private static final int DEFAULT_INTERVAL = 10;
+  /** Time a probe may take before it is reported unhealthy, in seconds. */
+  private static final int DEFAULT_TIMEOUT = 5;
+  /** Number of probe intervals after which a result is stale. */
+  private static final int DEFAULT_MAX_AGE = 3;
+  /** Id of the row read by the Cassandra probe, the row need not exist. */
+  private static final String PROBE_ID = "healthCheck";
+
+  private static final Map<String, Probe> probes = new LinkedHashMap<>();
+  private static final long timeout =
+      TimeUnit.SECONDS.toMillis(ConfigUtil.getInt(TIMEOUT_KEY, DEFAULT_TIMEOUT));
+  private static final long maxAge;
+  private static final ExecutorService checkExecutor =
+      Executors.newCachedThreadPool(ExecutorManager.newDaemonThreadFactory("health-check"));
+
+  static {
+    probes.put(JsonKey.CASSANDRA_SERVICE, new Probe(HealthMonitor::probeCassandra));
+    probes.put(JsonKey.ES_SERVICE, new Probe(ElasticSearchUtil::healthCheck));
+    probes.put(JsonKey.EKSTEP_SERVICE, new Probe(HealthMonitor::probeEkStep));
+    int interval = ConfigUtil.getInt(INTERVAL_KEY, DEFAULT_INTERVAL);
+    maxAge = TimeUnit.SECONDS.toMillis(interval) * ConfigUtil.getInt(MAX_AGE_KEY, DEFAULT_MAX_AGE);
+    ScheduledExecutorService prober =
+        Executors.newScheduledThreadPool(
+            probes.size(), ExecutorManager.newDaemonThreadFactory("health-probe"));
+    for (Probe probe : probes.values()) {
+      prober.scheduleWithFixedDelay(probe::run, 0, interval, TimeUnit.SECONDS);
+    }
+    MetricsRegistry.register("healthProbes", HealthMonitor::getMetrics);
+  }
+
+  private HealthMonitor() {}
+
+  /**
+   * Returns the latest result of a probe. A service which was not probed yet is probed first, and
+   * a result older than the maximum age is returned as unhealthy.
+   *
+   * @param service Service name, one of JsonKey.CASSANDRA_SERVICE, ES_SERVICE or EKSTEP_SERVICE
+   * @return Probe result
+   */
+  public static ProbeResult getResult(String service) {
+    Probe probe = probes.get(service);
+    ProbeResult result = probe.result;
+    if (null == result) {
+      return probe.run();
+    }
+    long age = System.currentTimeMillis() - result.getCheckedAt();
+    if (age > maxAge) {
+      return new ProbeResult(
+          false,
+          new TimeoutException("Health probe result is " + age + " ms old"),
+          result.getCheckedAt());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the latency percentiles and the latest result of every probe, by service name.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    for (Map.Entry<String, Probe> entry : probes.entrySet()) {
+      Map<String, Object> probeMetrics = entry.getValue().latency.getMetrics();
+      ProbeResult result = entry.getValue().result;
+      if (null != result) {
+        probeMetrics.put("healthy", result.isHealthy());
+        probeMetrics.put("checkedAt", result.getCheckedAt());
+      }
+      metrics.put(entry.getKey(), probeMetrics);
+    }
+    return metrics;
+  }
+
+  private static boolean probeCassandra() {
+    Util.DbInfo badgesDbInfo = Util.dbInfoMap.get(JsonKey.BADGES_DB);
+    CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+    // a single partition read instead of reading the whole table
+    cassandraOperation.getRecordById(
+        badgesDbInfo.getKeySpace(), badgesDbInfo.getTableName(), PROBE_ID);
+    return true;
+  }
+
+  private static boolean probeEkStep() throws Exception {
+    String body = "{\"request\":{\"filters\":{\"identifier\":\"test\"}}}";
+    Map<String, String> headers = new HashMap<>();
+    headers.put(
+        JsonKey.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.EKSTEP_AUTHORIZATION));
+    if (StringUtils.isBlank(headers.get(JsonKey.AUTHORIZATION))) {
+      headers.put(
+          JsonKey.AUTHORIZATION,
+          PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_AUTHORIZATION));
+      headers.put("Content_Type", "application/json; charset=utf-8");
+    }
+    String searchBaseUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
+    String response =
+        HttpUtil.sendPostRequest(
+            searchBaseUrl
+                + PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_CONTENT_SEARCH_URL),
+            body,
+            headers);
+    return response.contains("OK");
+  }
+
+  /** Check of a service. */
+  private interface Check {
+    /** @return true if the service is healthy */
+    boolean check() throws Exception;
+  }
+
+  private static class Probe {
+    private final Check check;
+    private final LatencyRecorder latency = new LatencyRecorder(256);
+    private volatile ProbeResult result;
+    /** Check still running, a new check is not started until it returns. */
+    private Future<Boolean> pending;
+
+    private Probe(Check check) {
+      this.check = check;
+    }
+
+    private synchronized ProbeResult run() {
+      long startTime = System.currentTimeMillis();
+      ProbeResult probeResult;
+      try {
+        if (null == pending || pending.isDone()) {
+          pending = checkExecutor.submit(check::check);
+        }
+        probeResult = new ProbeResult(pending.get(timeout, TimeUnit.MILLISECONDS), null, startTime);
+      } catch (TimeoutException e) {
+        ProjectLogger.log(
+            "HealthMonitor:run: Health probe timed out after " + timeout + " ms",
+            LoggerEnum.ERROR.name());
+        probeResult = new ProbeResult(false, e, startTime);
+      } catch (ExecutionException e) {
+        Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        ProjectLogger.log("HealthMonitor:run: Health probe failed " + cause.getMessage(), cause);
+        probeResult = new ProbeResult(false, cause, startTime);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        probeResult = new ProbeResult(false, e, startTime);
+      } catch (Exception e) {
+        ProjectLogger.log("HealthMonitor:run: Health probe failed " + e.getMessage(), e);
+        probeResult = new ProbeResult(false, e, startTime);
+      }
+      latency.recordSince(startTime);
+      result = probeResult;
+      return probeResult;
+    }
+  }
+
+  /** Result of a health probe. */
+  public static class ProbeResult {
+    private final boolean healthy;
+    private final Exception error;
+    private final long checkedAt;
+
+    private ProbeResult(boolean healthy, Exception error, long checkedAt) {
+      this.healthy = healthy;
+      this.error = error;
+      this.checkedAt = checkedAt;
+    }
+
+    public boolean isHealthy() {
+      return healthy;
+    }
+
+    /** @return Exception the probe failed with, null if it did not fail with an exception */
+    public Exception getError() {
+      return error;
+    }
+
+    /** @return Time of the probe in milliseconds */
+    public long getCheckedAt() {
+      return checkedAt;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package org.sunbird.learner.actors.search;
 
+import akka.dispatch.Mapper;
+import akka.pattern.Patterns;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
@@ -15,6 +17,7 @@ import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.learner.util.Util;
+import scala.concurrent.Future;
 
 /**
  * This class will handle search operation for course.
@@ -39,13 +42,19 @@ public class CourseSearchActor extends BaseActor {
       String json;
       try {
         json = new ObjectMapper().writeValueAsString(ekStepSearchQuery);
-        Map<String, Object> query = new HashMap<>();
-        query.put(JsonKey.SEARCH_QUERY, json);
-        Util.getContentData(query);
-        Object ekStepResponse = query.get(JsonKey.CONTENTS);
-        Response response = new Response();
-        response.put(JsonKey.RESPONSE, ekStepResponse);
-        sender().tell(response, self());
+        Future<Response> response =
+            Util.getContentDataAsync(json)
+                .map(
+                    new Mapper<Object[], Response>() {
+                      @Override
+                      public Response apply(Object[] ekStepResponse) {
+                        Response response = new Response();
+                        response.put(JsonKey.RESPONSE, ekStepResponse);
+                        return response;
+                      }
+                    },
+                    getContext().dispatcher());
+        Patterns.pipe(response, getContext().dispatcher()).to(sender());
       } catch (JsonProcessingException e) {
         ProjectCommonException projectCommonException =
             new ProjectCommonException(
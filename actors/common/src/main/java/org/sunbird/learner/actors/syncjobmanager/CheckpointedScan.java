@@ -0,0 +1,198 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraPagedReader;
+
+/**
+ * Scans one token range of a table page by page and hands every page to a {@link PageHandler}.
+ * The checkpoint is saved after every page, so a scan which was interrupted resumes after the last
+ * handled page, and is marked failed if the scan throws. The checkpoint of a range claimed by a
+ * node is only saved while the node still owns the range, and the scan stops as soon as it lost
+ * the range to another node.
+ *
+ * <p>Scans which must not run twice at the same time on a node are guarded with {@link
+ * #tryStart(String)} and {@link #finish(String)}.
+ */
+public class CheckpointedScan {
+
+  private static final Set<String> runningScans = ConcurrentHashMap.newKeySet();
+
+  private final SyncCheckpointDao checkpointDao;
+  private final CassandraPagedReader reader;
+
+  public CheckpointedScan(CassandraPagedReader reader, SyncCheckpointDao checkpointDao) {
+    this.reader = reader;
+    this.checkpointDao = checkpointDao;
+  }
+
+  /**
+   * Marks a scan as running on this node.
+   *
+   * @param id Scan id
+   * @return false if the scan is already running
+   */
+  public static boolean tryStart(String id) {
+    return runningScans.add(id);
+  }
+
+  /**
+   * Marks a scan as no longer running on this node.
+   *
+   * @param id Scan id
+   */
+  public static void finish(String id) {
+    runningScans.remove(id);
+  }
+
+  /**
+   * @param id Scan id
+   * @return true if the scan is running on this node
+   */
+  public static boolean isRunning(String id) {
+    return runningScans.contains(id);
+  }
+
+  /**
+   * Returns the checkpoint to continue from: the saved one if it did not complete, else the
+   * checkpoint of a new scan over the full token range.
+   *
+   * @param checkpointDao Checkpoint store
+   * @param id Checkpoint id
+   * @param objectType Object type being scanned
+   * @param restart Whether to start a new scan even if the saved one did not complete
+   * @return Checkpoint
+   */
+  public static SyncCheckpoint resumeOrCreate(
+      SyncCheckpointDao checkpointDao, String id, String objectType, boolean restart) {
+    SyncCheckpoint checkpoint = checkpointDao.read(id);
+    if (restart
+        || null == checkpoint
+        || SyncCheckpoint.STATUS_COMPLETED.equals(checkpoint.getStatus())) {
+      return EsStreamingSync.newCheckpoint(
+          id, objectType, CassandraPagedReader.MIN_TOKEN, CassandraPagedReader.MAX_TOKEN);
+    }
+    ProjectLogger.log(
+        "CheckpointedScan:resumeOrCreate: Resuming "
+            + id
+            + " after token "
+            + checkpoint.getLastToken(),
+        LoggerEnum.INFO.name());
+    return checkpoint;
+  }
+
+  /**
+   * Scans the range of the given checkpoint, starting after its last token.
+   *
+   * @param checkpoint Checkpoint of the range to scan, updated and saved as the scan progresses
+   * @param handler Handler of every page
+   * @return The final checkpoint
+   */
+  public SyncCheckpoint run(SyncCheckpoint checkpoint, PageHandler handler) {
+    checkpoint.setStatus(SyncCheckpoint.STATUS_IN_PROGRESS);
+    if (!save(checkpointDao, checkpoint)) {
+      return checkpoint;
+    }
+    try {
+      boolean done = false;
+      while (!done) {
+        CassandraPagedReader.Page page =
+            reader.readPage(checkpoint.getLastToken(), checkpoint.getEndToken());
+        PageResult result = handler.handle(page.getRecords());
+        checkpoint.setLastToken(page.getLastToken());
+        checkpoint.setProcessedCount(checkpoint.getProcessedCount() + result.getProcessed());
+        checkpoint.setFailedCount(checkpoint.getFailedCount() + result.getFailed());
+        done = page.isLast();
+        if (done) {
+          checkpoint.setStatus(SyncCheckpoint.STATUS_COMPLETED);
+        }
+        if (!save(checkpointDao, checkpoint)) {
+          return checkpoint;
+        }
+      }
+      ProjectLogger.log(
+          "CheckpointedScan:run: Completed "
+              + checkpoint.getId()
+              + " records "
+              + checkpoint.getProcessedCount()
+              + " failed "
+              + checkpoint.getFailedCount(),
+          LoggerEnum.INFO.name());
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "CheckpointedScan:run: "
+              + checkpoint.getId()
+              + " failed after token "
+              + checkpoint.getLastToken()
+              + " "
+              + e.getMessage(),
+          e);
+      checkpoint.setStatus(SyncCheckpoint.STATUS_FAILED);
+      save(checkpointDao, checkpoint);
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Saves a checkpoint. A checkpoint with an owner is a range claimed by a node, which is only
+   * updated while the node still owns it.
+   *
+   * @param checkpointDao Checkpoint store
+   * @param checkpoint Checkpoint to save
+   * @return false if the range was taken over by another node, the checkpoint is then not saved
+   */
+  static boolean save(SyncCheckpointDao checkpointDao, SyncCheckpoint checkpoint) {
+    if (null == checkpoint.getOwner()) {
+      checkpointDao.upsert(checkpoint);
+      return true;
+    }
+    if (checkpointDao.updateIfOwner(checkpoint)) {
+      return true;
+    }
+    ProjectLogger.log(
+        "CheckpointedScan:save: "
+            + checkpoint.getId()
+            + " is no longer owned by "
+            + checkpoint.getOwner()
+            + ", stopped at token "
+            + checkpoint.getLastToken(),
+        LoggerEnum.INFO.name());
+    return false;
+  }
+
+  /** Processes the records of one page. */
+  public interface PageHandler {
+
+    /**
+     * @param records Records of the page
+     * @return Counts of the processed and failed records
+     * @throws Exception If the page could not be processed, which fails the scan
+     */
+    PageResult handle(List<Map<String, Object>> records) throws Exception;
+  }
+
+  /** Counts of the processed and failed records of a page. */
+  public static class PageResult {
+    private final long processed;
+    private final long failed;
+
+    public PageResult(long processed, long failed) {
+      this.processed = processed;
+      this.failed = failed;
+    }
+
+    public long getProcessed() {
+      return processed;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraPagedReader;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+
+/**
+ * Full ES reindex of a table spread over all the middleware nodes. The token ring is split into
+ * ranges which are recorded as checkpoints of the job. Every node runs this class periodically; it
+ * claims ranges which are pending, failed or whose owner stopped updating the checkpoint for longer
+ * than the lease timeout (i.e. the node died) and streams them with {@link EsStreamingSync},
+ * resuming a reclaimed range after its last synced token.
+ *
+ * <p>Ranges are claimed with a lightweight transaction, so only one node wins a range. A range is
+ * claimed again at most {@code sunbird_es_sync_max_retries} times after a failure or an expired
+ * lease, after which it is aborted, and a job whose ranges are all completed or aborted ends.
+ */
+public class DistributedEsSync implements Runnable {
+
+  private static final String RANGE_COUNT_KEY = "sunbird_es_sync_range_count";
+  private static final String NODE_CONCURRENCY_KEY = "sunbird_es_sync_node_concurrency";
+  private static final String LEASE_TIMEOUT_KEY = "sunbird_es_sync_lease_timeout";
+  private static final String MAX_RETRIES_KEY = "sunbird_es_sync_max_retries";
+  private static final int DEFAULT_RANGE_COUNT = 64;
+  private static final int DEFAULT_NODE_CONCURRENCY = 2;
+  /** Lease timeout in minutes. */
+  private static final int DEFAULT_LEASE_TIMEOUT = 10;
+  private static final int DEFAULT_MAX_RETRIES = 3;
+
+  private static final List<String> OBJECT_TYPES =
+      Arrays.asList(JsonKey.USER, JsonKey.ORGANISATION, JsonKey.BATCH, JsonKey.USER_COURSE);
+  private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName();
+  private static final int nodeConcurrency =
+      ConfigUtil.getInt(NODE_CONCURRENCY_KEY, DEFAULT_NODE_CONCURRENCY);
+  private static final ExecutorService executor =
+      Executors.newFixedThreadPool(
+          nodeConcurrency, ExecutorManager.newDaemonThreadFactory("distributed-es-sync"));
+  private static final AtomicInteger runningRanges = new AtomicInteger();
+
+  private static SyncCheckpointDao checkpointDao = new SyncCheckpointDaoImpl();
+
+  /**
+   * Creates a distributed sync job for the given object type.
+   *
+   * @param objectType Object type to reindex
+   * @return Job id
+   */
+  public static String startJob(String objectType) {
+    String jobId = objectType + "_" + System.currentTimeMillis();
+    int rangeCount = ConfigUtil.getInt(RANGE_COUNT_KEY, DEFAULT_RANGE_COUNT);
+    List<long[]> ranges =
+        CassandraPagedReader.splitRange(
+            CassandraPagedReader.MIN_TOKEN, CassandraPagedReader.MAX_TOKEN, rangeCount);
+    for (int i = 0; i < ranges.size(); i++) {
+      SyncCheckpoint range =
+          EsStreamingSync.newCheckpoint(
+              jobId + "_" + i, objectType, ranges.get(i)[0], ranges.get(i)[1]);
+      range.setJobId(jobId);
+      range.setStatus(SyncCheckpoint.STATUS_PENDING);
+      checkpointDao.upsert(range);
+    }
+    SyncCheckpoint job =
+        EsStreamingSync.newCheckpoint(
+            jobId, objectType, CassandraPagedReader.MIN_TOKEN, CassandraPagedReader.MAX_TOKEN);
+    job.setJobId(jobId);
+    job.setStatus(SyncCheckpoint.STATUS_IN_PROGRESS);
+    checkpointDao.upsert(job);
+    ProjectLogger.log(
+        "DistributedEsSync:startJob: Created job " + jobId + " with " + ranges.size() + " ranges",
+        LoggerEnum.INFO.name());
+    return jobId;
+  }
+
+  /**
+   * Returns the merged progress of a distributed sync job.
+   *
+   * @param jobId Job id
+   * @return Job status, empty if the job does not exist
+   */
+  public static Map<String, Object> getJobStatus(String jobId) {
+    Map<String, Object> status = new HashMap<>();
+    SyncCheckpoint job = checkpointDao.read(jobId);
+    if (null == job) {
+      return status;
+    }
+    List<SyncCheckpoint> ranges = checkpointDao.readByJobId(jobId);
+    Map<String, Integer> rangeStatus = new HashMap<>();
+    long processedCount = 0;
+    long failedCount = 0;
+    long lastUpdatedTime = job.getStartTime();
+    for (SyncCheckpoint range : ranges) {
+      if (jobId.equals(range.getId())) {
+        continue;
+      }
+      rangeStatus.merge(range.getStatus(), 1, Integer::sum);
+      processedCount += range.getProcessedCount();
+      failedCount += range.getFailedCount();
+      lastUpdatedTime = Math.max(lastUpdatedTime, range.getLastUpdatedTime());
+    }
+    long elapsedTime = lastUpdatedTime - job.getStartTime();
+    status.put(JsonKey.ID, jobId);
+    status.put(JsonKey.OBJECT_TYPE, job.getObjectType());
+    status.put(JsonKey.STATUS, job.getStatus());
+    status.put("ranges", rangeStatus);
+    status.put("processedCount", processedCount);
+    status.put("failedCount", failedCount);
+    status.put("startTime", job.getStartTime());
+    status.put("lastUpdatedTime", lastUpdatedTime);
+    status.put("recordsPerSecond", elapsedTime > 0 ? processedCount * 1000 / elapsedTime : 0);
+    return status;
+  }
+
+  /** Claims and starts the ranges this node has capacity for. */
+  @Override
+  public void run() {
+    try {
+      for (String objectType : OBJECT_TYPES) {
+        for (SyncCheckpoint job : checkpointDao.readByObjectType(objectType)) {
+          if (job.getId().equals(job.getJobId())
+              && SyncCheckpoint.STATUS_IN_PROGRESS.equals(job.getStatus())) {
+            claimRanges(job);
+          }
+        }
+      }
+    } catch (Exception e) {
+      ProjectLogger.log("DistributedEsSync:run: Exception occurred " + e.getMessage(), e);
+    }
+  }
+
+  private void claimRanges(SyncCheckpoint job) {
+    long leaseTimeout = ConfigUtil.getInt(LEASE_TIMEOUT_KEY, DEFAULT_LEASE_TIMEOUT) * 60 * 1000L;
+    int maxRetries = ConfigUtil.getInt(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES);
+    for (SyncCheckpoint range : checkpointDao.readByJobId(job.getJobId())) {
+      if (runningRanges.get() >= nodeConcurrency) {
+        return;
+      }
+      if (range.getId().equals(job.getId()) || !isClaimable(range, leaseTimeout)) {
+        continue;
+      }
+      int retryCount = null == range.getRetryCount() ? 0 : range.getRetryCount();
+      if (!SyncCheckpoint.STATUS_PENDING.equals(range.getStatus())) {
+        retryCount++;
+      }
+      if (retryCount > maxRetries) {
+        abort(range);
+        updateJob(job.getJobId());
+        continue;
+      }
+      if (!checkpointDao.claim(range, NODE_ID, retryCount)) {
+        continue;
+      }
+      ProjectLogger.log(
+          "DistributedEsSync:claimRanges: Node "
+              + NODE_ID
+              + " claimed range "
+              + range.getId()
+              + " from token "
+              + range.getLastToken()
+              + " retry "
+              + retryCount,
+          LoggerEnum.INFO.name());
+      runningRanges.incrementAndGet();
+      executor.execute(() -> syncRange(job, range));
+    }
+  }
+
+  static boolean isClaimable(SyncCheckpoint range, long leaseTimeout) {
+    if (SyncCheckpoint.STATUS_PENDING.equals(range.getStatus())
+        || SyncCheckpoint.STATUS_FAILED.equals(range.getStatus())) {
+      return true;
+    }
+    return SyncCheckpoint.STATUS_IN_PROGRESS.equals(range.getStatus())
+        && !NODE_ID.equals(range.getOwner())
+        && System.currentTimeMillis() - range.getLastUpdatedTime() > leaseTimeout;
+  }
+
+  private void abort(SyncCheckpoint range) {
+    ProjectLogger.log(
+        "DistributedEsSync:abort: Range "
+            + range.getId()
+            + " aborted after "
+            + range.getRetryCount()
+            + " retries at token "
+            + range.getLastToken(),
+        LoggerEnum.ERROR.name());
+    range.setStatus(SyncCheckpoint.STATUS_ABORTED);
+    // not applied if another node claimed the range meanwhile
+    CheckpointedScan.save(checkpointDao, range);
+  }
+
+  private void syncRange(SyncCheckpoint job, SyncCheckpoint range) {
+    try {
+      String objectType = job.getObjectType();
+      new EsStreamingSync(
+              EsSyncDocumentBuilder.getDbInfo(objectType),
+              EsSyncDocumentBuilder.getType(objectType),
+              record -> EsSyncDocumentBuilder.isSynced(objectType, record),
+              record -> EsSyncDocumentBuilder.build(objectType, record))
+          .sync(range);
+      updateJob(job.getJobId());
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "DistributedEsSync:syncRange: Exception occurred for range " + range.getId(), e);
+    } finally {
+      runningRanges.decrementAndGet();
+    }
+  }
+
+  /**
+   * Ends the job once all of its ranges are completed or aborted. The job is completed if all the
+   * ranges completed, else failed.
+   */
+  private void updateJob(String jobId) {
+    boolean completed = true;
+    for (SyncCheckpoint range : checkpointDao.readByJobId(jobId)) {
+      if (jobId.equals(range.getId())) {
+        continue;
+      }
+      if (SyncCheckpoint.STATUS_ABORTED.equals(range.getStatus())) {
+        completed = false;
+      } else if (!SyncCheckpoint.STATUS_COMPLETED.equals(range.getStatus())) {
+        return;
+      }
+    }
+    SyncCheckpoint job = checkpointDao.read(jobId);
+    Map<String, Object> status = getJobStatus(jobId);
+    job.setStatus(completed ? SyncCheckpoint.STATUS_COMPLETED : SyncCheckpoint.STATUS_FAILED);
+    job.setProcessedCount((Long) status.get("processedCount"));
+    job.setFailedCount((Long) status.get("failedCount"));
+    checkpointDao.upsert(job);
+    ProjectLogger.log(
+        "DistributedEsSync:updateJob: Job " + jobId + " " + job.getStatus(),
+        LoggerEnum.INFO.name());
+  }
+}
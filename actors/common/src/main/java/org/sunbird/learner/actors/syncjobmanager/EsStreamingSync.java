@@ -0,0 +1,172 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraPagedReader;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Streams one token range of a table to ES. Records are read page by page with a {@link
+ * CheckpointedScan}, enriched concurrently and written to ES in bounded bulk requests. The next
+ * page is read only after the current one is flushed, so at most one page is held in memory, and
+ * the checkpoint is saved after every page so that an interrupted sync resumes where it stopped. A
+ * record whose document cannot be prepared, or is prepared as null, is counted as failed without
+ * failing the page.
+ */
+public class EsStreamingSync {
+
+  private static final String PAGE_SIZE_KEY = "sunbird_es_sync_page_size";
+  private static final String PARALLELISM_KEY = "sunbird_es_sync_parallelism";
+  private static final String BULK_SIZE_KEY = "sunbird_es_sync_bulk_size";
+  private static final int DEFAULT_PAGE_SIZE = 1000;
+  private static final int DEFAULT_PARALLELISM = 8;
+  private static final int DEFAULT_BULK_SIZE = 200;
+
+  private SyncCheckpointDao checkpointDao = new SyncCheckpointDaoImpl();
+  private final Util.DbInfo dbInfo;
+  private final String esType;
+  private final Predicate<Map<String, Object>> filter;
+  private final Function<Map<String, Object>, Map<String, Object>> enricher;
+  private final int pageSize = ConfigUtil.getInt(PAGE_SIZE_KEY, DEFAULT_PAGE_SIZE);
+  private final int parallelism = ConfigUtil.getInt(PARALLELISM_KEY, DEFAULT_PARALLELISM);
+  private final int bulkSize = ConfigUtil.getInt(BULK_SIZE_KEY, DEFAULT_BULK_SIZE);
+
+  /**
+   * @param dbInfo Table to read
+   * @param esType ES type to write into
+   * @param filter Selects the records to sync, the others are skipped
+   * @param enricher Function preparing the ES document of a record
+   */
+  public EsStreamingSync(
+      Util.DbInfo dbInfo,
+      String esType,
+      Predicate<Map<String, Object>> filter,
+      Function<Map<String, Object>, Map<String, Object>> enricher) {
+    this.dbInfo = dbInfo;
+    this.esType = esType;
+    this.filter = filter;
+    this.enricher = enricher;
+  }
+
+  /**
+   * Syncs the range of the given checkpoint, starting after its last token.
+   *
+   * @param checkpoint Checkpoint of the range to sync, updated and saved as the sync progresses
+   * @return The final checkpoint
+   */
+  public SyncCheckpoint sync(SyncCheckpoint checkpoint) {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism, ExecutorManager.newDaemonThreadFactory("es-sync-" + checkpoint.getId()));
+    try {
+      return new CheckpointedScan(new CassandraPagedReader(dbInfo, pageSize), checkpointDao)
+          .run(
+              checkpoint,
+              records -> {
+                List<Map<String, Object>> documents = new ArrayList<>();
+                int failed = enrich(records, documents, executor);
+                failed += flush(documents);
+                return new CheckpointedScan.PageResult(records.size(), failed);
+              });
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Prepares the documents of the records concurrently, and returns the count of records which
+   * could not be prepared.
+   */
+  private int enrich(
+      List<Map<String, Object>> records,
+      List<Map<String, Object>> documents,
+      ExecutorService executor) {
+    List<Map<String, Object>> synced = new ArrayList<>();
+    List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>();
+    for (Map<String, Object> record : records) {
+      if (filter.test(record)) {
+        synced.add(record);
+        futures.add(CompletableFuture.supplyAsync(() -> enricher.apply(record), executor));
+      }
+    }
+    int failed = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      Object id = synced.get(i).get(JsonKey.ID);
+      try {
+        Map<String, Object> document = futures.get(i).join();
+        if (document != null) {
+          documents.add(document);
+        } else {
+          failed++;
+          ProjectLogger.log(
+              "EsStreamingSync:enrich: No document prepared for " + id, LoggerEnum.ERROR.name());
+        }
+      } catch (CompletionException e) {
+        failed++;
+        ProjectLogger.log(
+            "EsStreamingSync:enrich: Failed to prepare document of "
+                + id
+                + " "
+                + e.getCause().getMessage(),
+            e.getCause());
+      }
+    }
+    return failed;
+  }
+
+  /** Writes the documents in bulk requests of bulkSize and returns the count of failed ones. */
+  private int flush(List<Map<String, Object>> documents) {
+    int failed = 0;
+    for (int i = 0; i < documents.size(); i += bulkSize) {
+      List<Map<String, Object>> chunk =
+          documents.subList(i, Math.min(i + bulkSize, documents.size()));
+      boolean response =
+          ElasticSearchUtil.bulkInsertData(
+              ProjectUtil.EsIndex.sunbird.getIndexName(), esType, new ArrayList<>(chunk));
+      if (!response) {
+        failed += chunk.size();
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Creates the checkpoint of a new sync over the given range.
+   *
+   * @param id Checkpoint id
+   * @param objectType Object type being synced
+   * @param startToken Start of the range (exclusive)
+   * @param endToken End of the range (inclusive)
+   * @return Checkpoint
+   */
+  public static SyncCheckpoint newCheckpoint(
+      String id, String objectType, long startToken, long endToken) {
+    SyncCheckpoint checkpoint = new SyncCheckpoint();
+    checkpoint.setId(id);
+    checkpoint.setObjectType(objectType);
+    checkpoint.setStartToken(startToken);
+    checkpoint.setEndToken(endToken);
+    checkpoint.setLastToken(startToken);
+    checkpoint.setProcessedCount(0L);
+    checkpoint.setFailedCount(0L);
+    checkpoint.setStartTime(System.currentTimeMillis());
+    return checkpoint;
+  }
+}
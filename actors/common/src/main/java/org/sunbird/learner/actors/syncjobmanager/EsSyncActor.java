@@ -3,11 +3,10 @@ package org.sunbird.learner.actors.syncjobmanager;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import org.apache.commons.lang3.StringUtils;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
@@ -15,15 +14,17 @@ import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
-import org.sunbird.common.models.util.BadgingJsonKey;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
-import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.ExecutorManager;
 import org.sunbird.learner.util.Util;
 import org.sunbird.learner.util.Util.DbInfo;
 
@@ -38,12 +39,26 @@ import org.sunbird.learner.util.Util.DbInfo;
 )
 public class EsSyncActor extends BaseActor {
 
+  private static final String RESTART = "restart";
+  private static final String DISTRIBUTED = "distributed";
+  private static final String JOB_ID = "jobId";
+  private static final ExecutorService syncExecutor =
+      Executors.newCachedThreadPool(ExecutorManager.newDaemonThreadFactory("es-sync"));
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private SyncCheckpointDao checkpointDao = new SyncCheckpointDaoImpl();
 
   @Override
   public void onReceive(Request request) throws Throwable {
     String requestedOperation = request.getOperation();
     if (requestedOperation.equalsIgnoreCase(ActorOperations.SYNC.getValue())) {
+      if (isStatusRequest(request)) {
+        getSyncStatus(request);
+        return;
+      }
+      if (isDistributed(request)) {
+        startDistributedSync(request);
+        return;
+      }
       // return SUCCESS to controller and run the sync process in background
       Response response = new Response();
       response.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
@@ -67,73 +82,50 @@ public class EsSyncActor extends BaseActor {
     if (dataMap.containsKey(JsonKey.OBJECT_IDS) && null != dataMap.get(JsonKey.OBJECT_IDS)) {
       objectIds = (List<Object>) dataMap.get(JsonKey.OBJECT_IDS);
     }
-    Util.DbInfo dbInfo = getDbInfoObj(objectType);
+    Util.DbInfo dbInfo = EsSyncDocumentBuilder.getDbInfo(objectType);
     if (null == dbInfo) {
       throw new ProjectCommonException(
           ResponseCode.invalidObjectType.getErrorCode(),
           ResponseCode.invalidObjectType.getErrorMessage(),
           ResponseCode.CLIENT_ERROR.getResponseCode());
     }
-    if (null != objectIds && !objectIds.isEmpty()) {
-      ProjectLogger.log(
-          "fetching data for "
-              + objectType
-              + " for these ids "
-              + Arrays.toString(objectIds.toArray())
-              + " started",
-          LoggerEnum.INFO);
-      Response response =
-          cassandraOperation.getRecordsByProperty(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), JsonKey.ID, objectIds);
-      reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-      ProjectLogger.log(
-          "fetching data for "
-              + objectType
-              + " for these ids "
-              + Arrays.toString(objectIds.toArray())
-              + " done",
-          LoggerEnum.INFO);
+    if (null == objectIds || objectIds.isEmpty()) {
+      startStreamingSync(objectType, dbInfo, Boolean.TRUE.equals(dataMap.get(RESTART)));
+      return;
     }
-    if (null != reponseList && !reponseList.isEmpty()) {
+    ProjectLogger.log(
+        "fetching data for "
+            + objectType
+            + " for these ids "
+            + Arrays.toString(objectIds.toArray())
+            + " started",
+        LoggerEnum.INFO);
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            dbInfo.getKeySpace(), dbInfo.getTableName(), JsonKey.ID, objectIds);
+    reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    ProjectLogger.log(
+        "fetching data for "
+            + objectType
+            + " for these ids "
+            + Arrays.toString(objectIds.toArray())
+            + " done",
+        LoggerEnum.INFO);
+    if (null != reponseList) {
       for (Map<String, Object> map : reponseList) {
         responseMap.put((String) map.get(JsonKey.ID), map);
       }
-    } else {
-      ProjectLogger.log("fetching all data for " + objectType + " started", LoggerEnum.INFO);
-      Response response =
-          cassandraOperation.getAllRecords(dbInfo.getKeySpace(), dbInfo.getTableName());
-      reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-      ProjectLogger.log("fetching all data for " + objectType + " done", LoggerEnum.INFO);
-      ProjectLogger.log(
-          "total db data to sync for " + objectType + " to Elastic search " + reponseList.size(),
-          LoggerEnum.INFO);
-      if (null != reponseList) {
-        for (Map<String, Object> map : reponseList) {
-          responseMap.put((String) map.get(JsonKey.ID), map);
-        }
-      }
     }
-    Iterator<Entry<String, Object>> itr = responseMap.entrySet().iterator();
-    while (itr.hasNext()) {
-      if (objectType.equals(JsonKey.USER)) {
-        Entry<String, Object> entry = itr.next();
-        Map<String, Object> userMap = (Map<String, Object>) entry.getValue();
-        Boolean isDeleted = false;
-        if (null != userMap.get(JsonKey.IS_DELETED)) {
-          isDeleted = (Boolean) userMap.get(JsonKey.IS_DELETED);
-        }
-        if (!isDeleted) {
-          result.add(getUserDetails(entry));
-        }
-      } else if (objectType.equals(JsonKey.ORGANISATION)) {
-        result.add(getOrgDetails(itr.next()));
-      } else if (objectType.equals(JsonKey.BATCH) || objectType.equals(JsonKey.USER_COURSE)) {
-        result.add((Map<String, Object>) (itr.next().getValue()));
+    for (Object record : responseMap.values()) {
+      if (EsSyncDocumentBuilder.isSynced(objectType, (Map<String, Object>) record)) {
+        result.add(EsSyncDocumentBuilder.build(objectType, (Map<String, Object>) record));
       }
     }
 
     ElasticSearchUtil.bulkInsertData(
-        ProjectUtil.EsIndex.sunbird.getIndexName(), getType(objectType), result);
+        ProjectUtil.EsIndex.sunbird.getIndexName(),
+        EsSyncDocumentBuilder.getType(objectType),
+        result);
     long stopTime = System.currentTimeMillis();
     long elapsedTime = stopTime - startTime;
     ProjectLogger.log(
@@ -145,91 +137,114 @@ public class EsSyncActor extends BaseActor {
         LoggerEnum.INFO);
   }
 
-  private String getType(String objectType) {
-    String type = "";
-    if (objectType.equals(JsonKey.USER)) {
-      type = ProjectUtil.EsType.user.getTypeName();
-    } else if (objectType.equals(JsonKey.ORGANISATION)) {
-      type = ProjectUtil.EsType.organisation.getTypeName();
-    } else if (objectType.equals(JsonKey.BATCH)) {
-      type = ProjectUtil.EsType.course.getTypeName();
-    } else if (objectType.equals(JsonKey.USER_COURSE)) {
-      type = ProjectUtil.EsType.usercourses.getTypeName();
+  /**
+   * Syncs the complete table in the background. The table is streamed page by page and the
+   * progress is saved in a checkpoint, so a sync which was interrupted resumes from the last synced
+   * page unless a restart is requested.
+   */
+  private void startStreamingSync(String objectType, DbInfo dbInfo, boolean restart) {
+    if (!CheckpointedScan.tryStart(objectType)) {
+      ProjectLogger.log(
+          "EsSyncActor:startStreamingSync: Sync already running for " + objectType,
+          LoggerEnum.INFO.name());
+      return;
+    }
+    try {
+      SyncCheckpoint checkpoint =
+          CheckpointedScan.resumeOrCreate(checkpointDao, objectType, objectType, restart);
+      EsStreamingSync streamingSync =
+          new EsStreamingSync(
+              dbInfo,
+              EsSyncDocumentBuilder.getType(objectType),
+              record -> EsSyncDocumentBuilder.isSynced(objectType, record),
+              record -> EsSyncDocumentBuilder.build(objectType, record));
+      syncExecutor.execute(
+          () -> {
+            try {
+              streamingSync.sync(checkpoint);
+            } finally {
+              CheckpointedScan.finish(objectType);
+            }
+          });
+    } catch (RuntimeException e) {
+      CheckpointedScan.finish(objectType);
+      throw e;
     }
-    return type;
   }
 
-  private Map<String, Object> getOrgDetails(Entry<String, Object> entry) {
-    ProjectLogger.log("fetching org data started", LoggerEnum.INFO);
-    Map<String, Object> orgMap = (Map<String, Object>) entry.getValue();
-    orgMap.remove(JsonKey.ORG_TYPE);
-    if (orgMap.containsKey(JsonKey.ADDRESS_ID)
-        && !StringUtils.isBlank((String) orgMap.get(JsonKey.ADDRESS_ID))) {
-      orgMap.put(
-          JsonKey.ADDRESS,
-          getDetailsById(
-              Util.dbInfoMap.get(JsonKey.ADDRESS_DB), (String) orgMap.get(JsonKey.ADDRESS_ID)));
-    }
-    ProjectLogger.log("fetching org data completed", LoggerEnum.INFO);
-    return orgMap;
+  /**
+   * A sync request whose data has {@code status} set asks for the progress of a sync, see {@link
+   * #getSyncStatus(Request)}.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean isStatusRequest(Request request) {
+    Map<String, Object> dataMap = (Map<String, Object>) request.getRequest().get(JsonKey.DATA);
+    return null != dataMap && Boolean.TRUE.equals(dataMap.get(JsonKey.STATUS));
   }
 
   @SuppressWarnings("unchecked")
-  private Map<String, Object> getUserDetails(Entry<String, Object> entry) {
-    String userId = entry.getKey();
-    ProjectLogger.log("fetching user data started", LoggerEnum.INFO);
-    Map<String, Object> userMap = (Map<String, Object>) entry.getValue();
-    Util.removeAttributes(userMap, Arrays.asList(JsonKey.PASSWORD, JsonKey.UPDATED_BY));
-    if (StringUtils.isBlank((String) userMap.get(JsonKey.COUNTRY_CODE))) {
-      userMap.put(
-          JsonKey.COUNTRY_CODE,
-          PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_DEFAULT_COUNTRY_CODE));
-    }
-    ProjectLogger.log("fetching user address data started", LoggerEnum.INFO);
-    userMap.put(JsonKey.ADDRESS, Util.getAddressDetails(userId, null));
-    ProjectLogger.log("fetching user education data started", LoggerEnum.INFO);
-    userMap.put(JsonKey.EDUCATION, Util.getUserEducationDetails(userId));
-    ProjectLogger.log("fetching user job profile data started", LoggerEnum.INFO);
-    userMap.put(JsonKey.JOB_PROFILE, Util.getJobProfileDetails(userId));
-    ProjectLogger.log("fetching user org data started", LoggerEnum.INFO);
-    userMap.put(JsonKey.ORGANISATIONS, Util.getUserOrgDetails(userId));
-    ProjectLogger.log("fetching user Badge data  started", LoggerEnum.INFO);
-    userMap.put(BadgingJsonKey.BADGE_ASSERTIONS, Util.getUserBadge(userId));
-    // save masked email and phone number
-    Util.addMaskEmailAndPhone(userMap);
-    // add the skills column into ES
-    Util.getUserSkills(userId);
-    // compute profile completeness and error field.
-    Util.checkProfileCompleteness(userMap);
-    userMap = Util.getUserDetailsFromRegistry(userMap);
-    ProjectLogger.log("fetching user data completed", LoggerEnum.INFO);
-    return userMap;
+  private boolean isDistributed(Request request) {
+    Map<String, Object> dataMap = (Map<String, Object>) request.getRequest().get(JsonKey.DATA);
+    return null != dataMap && Boolean.TRUE.equals(dataMap.get(DISTRIBUTED));
   }
 
-  private Map<String, Object> getDetailsById(DbInfo dbInfo, String userId) {
-    try {
-      Response response =
-          cassandraOperation.getRecordById(dbInfo.getKeySpace(), dbInfo.getTableName(), userId);
-      return ((((List<Map<String, Object>>) response.get(JsonKey.RESPONSE)).isEmpty())
-          ? new HashMap<>()
-          : ((List<Map<String, Object>>) response.get(JsonKey.RESPONSE)).get(0));
-    } catch (Exception ex) {
-      ProjectLogger.log(ex.getMessage(), ex);
+  /**
+   * Creates a full sync job whose token ranges are picked up by {@link DistributedEsSync} on all
+   * the nodes, and returns the job id which can be used to query the job status.
+   */
+  @SuppressWarnings("unchecked")
+  private void startDistributedSync(Request request) {
+    Map<String, Object> dataMap = (Map<String, Object>) request.getRequest().get(JsonKey.DATA);
+    String objectType = (String) dataMap.get(JsonKey.OBJECT_TYPE);
+    if (null == EsSyncDocumentBuilder.getDbInfo(objectType)) {
+      throw new ProjectCommonException(
+          ResponseCode.invalidObjectType.getErrorCode(),
+          ResponseCode.invalidObjectType.getErrorMessage(),
+          ResponseCode.CLIENT_ERROR.getResponseCode());
     }
-    return null;
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, JsonKey.SUCCESS);
+    response.put(JOB_ID, DistributedEsSync.startJob(objectType));
+    sender().tell(response, self());
   }
 
-  private DbInfo getDbInfoObj(String objectType) {
-    if (objectType.equals(JsonKey.USER)) {
-      return Util.dbInfoMap.get(JsonKey.USER_DB);
-    } else if (objectType.equals(JsonKey.ORGANISATION)) {
-      return Util.dbInfoMap.get(JsonKey.ORG_DB);
-    } else if (objectType.equals(JsonKey.BATCH)) {
-      return Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
-    } else if (objectType.equals(JsonKey.USER_COURSE)) {
-      return Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
+  /**
+   * Returns the progress of the job with the given {@code jobId}, merged over its ranges, or else
+   * the progress of the full sync of the given {@code objectType}. Jobs without ranges, like the
+   * keycloak sync, report their own checkpoint.
+   */
+  @SuppressWarnings("unchecked")
+  private void getSyncStatus(Request request) {
+    Map<String, Object> dataMap = (Map<String, Object>) request.getRequest().get(JsonKey.DATA);
+    String jobId = (String) dataMap.get(JOB_ID);
+    Response response = new Response();
+    if (null != jobId && !checkpointDao.readByJobId(jobId).isEmpty()) {
+      response.put(JsonKey.RESPONSE, DistributedEsSync.getJobStatus(jobId));
+    } else {
+      String id = null != jobId ? jobId : (String) dataMap.get(JsonKey.OBJECT_TYPE);
+      response.put(JsonKey.RESPONSE, getCheckpointStatus(id));
     }
+    sender().tell(response, self());
+  }
 
-    return null;
+  private Map<String, Object> getCheckpointStatus(String id) {
+    SyncCheckpoint checkpoint = checkpointDao.read(id);
+    Map<String, Object> status = new HashMap<>();
+    if (null != checkpoint) {
+      long elapsedTime = checkpoint.getLastUpdatedTime() - checkpoint.getStartTime();
+      status.put(JsonKey.ID, id);
+      status.put(JsonKey.OBJECT_TYPE, checkpoint.getObjectType());
+      status.put(JsonKey.STATUS, checkpoint.getStatus());
+      status.put("running", CheckpointedScan.isRunning(id));
+      status.put("processedCount", checkpoint.getProcessedCount());
+      status.put("failedCount", checkpoint.getFailedCount());
+      status.put("lastToken", checkpoint.getLastToken());
+      status.put("startTime", checkpoint.getStartTime());
+      status.put("lastUpdatedTime", checkpoint.getLastUpdatedTime());
+      status.put(
+          "recordsPerSecond",
+          elapsedTime > 0 ? checkpoint.getProcessedCount() * 1000 / elapsedTime : 0);
+    }
+    return status;
   }
 }
@@ -0,0 +1,128 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.UserProfileAssembler;
+import org.sunbird.learner.util.Util;
+import org.sunbird.learner.util.Util.DbInfo;
+
+/** Prepares the ES documents of the records synced by {@link EsSyncActor}. */
+final class EsSyncDocumentBuilder {
+
+  private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+
+  private EsSyncDocumentBuilder() {}
+
+  /**
+   * Tells whether a record is synced at all. Deleted users are not.
+   *
+   * @return false if the record should not be synced
+   */
+  static boolean isSynced(String objectType, Map<String, Object> record) {
+    return !(objectType.equals(JsonKey.USER)
+        && Boolean.TRUE.equals(record.get(JsonKey.IS_DELETED)));
+  }
+
+  /**
+   * Prepares the ES document of a record which is synced, see {@link #isSynced(String, Map)}.
+   *
+   * @return ES document
+   * @throws java.util.concurrent.CompletionException If the related records could not be read
+   */
+  static Map<String, Object> build(String objectType, Map<String, Object> record) {
+    if (objectType.equals(JsonKey.USER)) {
+      return getUserDetails(record);
+    } else if (objectType.equals(JsonKey.ORGANISATION)) {
+      return getOrgDetails(record);
+    }
+    return record;
+  }
+
+  static String getType(String objectType) {
+    String type = "";
+    if (objectType.equals(JsonKey.USER)) {
+      type = ProjectUtil.EsType.user.getTypeName();
+    } else if (objectType.equals(JsonKey.ORGANISATION)) {
+      type = ProjectUtil.EsType.organisation.getTypeName();
+    } else if (objectType.equals(JsonKey.BATCH)) {
+      type = ProjectUtil.EsType.course.getTypeName();
+    } else if (objectType.equals(JsonKey.USER_COURSE)) {
+      type = ProjectUtil.EsType.usercourses.getTypeName();
+    }
+    return type;
+  }
+
+  private static Map<String, Object> getOrgDetails(Map<String, Object> orgMap) {
+    ProjectLogger.log("fetching org data started", LoggerEnum.INFO);
+    orgMap.remove(JsonKey.ORG_TYPE);
+    if (orgMap.containsKey(JsonKey.ADDRESS_ID)
+        && !StringUtils.isBlank((String) orgMap.get(JsonKey.ADDRESS_ID))) {
+      orgMap.put(
+          JsonKey.ADDRESS,
+          getDetailsById(
+              Util.dbInfoMap.get(JsonKey.ADDRESS_DB), (String) orgMap.get(JsonKey.ADDRESS_ID)));
+    }
+    ProjectLogger.log("fetching org data completed", LoggerEnum.INFO);
+    return orgMap;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> getUserDetails(Map<String, Object> userMap) {
+    String userId = (String) userMap.get(JsonKey.ID);
+    ProjectLogger.log("fetching user data started", LoggerEnum.INFO);
+    Util.removeAttributes(userMap, Arrays.asList(JsonKey.PASSWORD, JsonKey.UPDATED_BY));
+    if (StringUtils.isBlank((String) userMap.get(JsonKey.COUNTRY_CODE))) {
+      userMap.put(
+          JsonKey.COUNTRY_CODE,
+          PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_DEFAULT_COUNTRY_CODE));
+    }
+    ProjectLogger.log("fetching user related data started", LoggerEnum.INFO);
+    userMap.putAll(UserProfileAssembler.getUserRelatedDetails(userId).toCompletableFuture().join());
+    // save masked email and phone number
+    Util.addMaskEmailAndPhone(userMap);
+    // compute profile completeness and error field.
+    Util.checkProfileCompleteness(userMap);
+    userMap = Util.getUserDetailsFromRegistry(userMap);
+    ProjectLogger.log("fetching user data completed", LoggerEnum.INFO);
+    return userMap;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> getDetailsById(DbInfo dbInfo, String userId) {
+    try {
+      Response response =
+          cassandraOperation.getRecordById(dbInfo.getKeySpace(), dbInfo.getTableName(), userId);
+      return ((((List<Map<String, Object>>) response.get(JsonKey.RESPONSE)).isEmpty())
+          ? new HashMap<>()
+          : ((List<Map<String, Object>>) response.get(JsonKey.RESPONSE)).get(0));
+    } catch (Exception ex) {
+      ProjectLogger.log(ex.getMessage(), ex);
+    }
+    return null;
+  }
+
+  static DbInfo getDbInfo(String objectType) {
+    if (objectType.equals(JsonKey.USER)) {
+      return Util.dbInfoMap.get(JsonKey.USER_DB);
+    } else if (objectType.equals(JsonKey.ORGANISATION)) {
+      return Util.dbInfoMap.get(JsonKey.ORG_DB);
+    } else if (objectType.equals(JsonKey.BATCH)) {
+      return Util.dbInfoMap.get(JsonKey.COURSE_BATCH_DB);
+    } else if (objectType.equals(JsonKey.USER_COURSE)) {
+      return Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
+    }
+
+    return null;
+  }
+}
@@ -1,28 +1,18 @@
 package org.sunbird.learner.actors.syncjobmanager;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import org.apache.commons.lang3.StringUtils;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.sunbird.actor.core.BaseActor;
 import org.sunbird.actor.router.ActorConfig;
-import org.sunbird.cassandra.CassandraOperation;
-import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectLogger;
-import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.PropertiesCache;
 import org.sunbird.common.request.Request;
-import org.sunbird.helper.ServiceFactory;
-import org.sunbird.learner.util.UserUtility;
-import org.sunbird.learner.util.Util;
-import org.sunbird.services.sso.SSOManager;
-import org.sunbird.services.sso.SSOServiceFactory;
+import org.sunbird.learner.util.ExecutorManager;
 
 /** @author Amit Kumar */
 @ActorConfig(
@@ -31,10 +21,13 @@ import org.sunbird.services.sso.SSOServiceFactory;
 )
 public class KeyCloakSyncActor extends BaseActor {
 
-  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static final String RESTART = "restart";
+  // not a single thread, a full sync requested while one runs is skipped rather than queued
+  private static final ExecutorService syncExecutor =
+      Executors.newCachedThreadPool(ExecutorManager.newDaemonThreadFactory("keycloak-sync"));
+
   private boolean isSSOEnabled =
       Boolean.parseBoolean(PropertiesCache.getInstance().getProperty(JsonKey.IS_SSO_ENABLED));
-  private SSOManager ssoManager = SSOServiceFactory.getInstance();
 
   @Override
   public void onReceive(Request actorMessage) throws Throwable {
@@ -51,95 +44,38 @@ public class KeyCloakSyncActor extends BaseActor {
     }
   }
 
+  @SuppressWarnings("unchecked")
   private void syncData(Request message) {
-    ProjectLogger.log("USER DB data sync operation to keycloak started ");
-    long startTime = System.currentTimeMillis();
-    Map<String, Object> req = message.getRequest();
-    Map<String, Object> responseMap = new HashMap<>();
-    List<Map<String, Object>> reponseList = null;
-    Map<String, Object> dataMap = (Map<String, Object>) req.get(JsonKey.DATA);
+    if (!isSSOEnabled) {
+      ProjectLogger.log("SSO is disabled , cann't sync user data to keycloak.");
+      return;
+    }
+    Map<String, Object> dataMap = (Map<String, Object>) message.getRequest().get(JsonKey.DATA);
     List<Object> userIds = null;
     if (dataMap.containsKey(JsonKey.OBJECT_IDS) && null != dataMap.get(JsonKey.OBJECT_IDS)) {
       userIds = (List<Object>) dataMap.get(JsonKey.OBJECT_IDS);
     }
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
-
-    if (null != userIds && !userIds.isEmpty()) {
-      ProjectLogger.log(
-          "fetching data for user for these ids "
-              + Arrays.toString(userIds.toArray())
-              + " started");
-      Response response =
-          cassandraOperation.getRecordsByProperty(
-              dbInfo.getKeySpace(), dbInfo.getTableName(), JsonKey.ID, userIds);
-      reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-      ProjectLogger.log(
-          "fetching data for user for these ids " + Arrays.toString(userIds.toArray()) + " done");
-    }
-    if (null != reponseList && !reponseList.isEmpty()) {
-      for (Map<String, Object> map : reponseList) {
-        responseMap.put((String) map.get(JsonKey.ID), map);
-      }
-    } else {
-      ProjectLogger.log("fetching all data for user started");
-      Response response =
-          cassandraOperation.getAllRecords(dbInfo.getKeySpace(), dbInfo.getTableName());
-      reponseList = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
-      ProjectLogger.log("fetching all data for user done");
-      ProjectLogger.log("total db data to sync for user to keycloak " + reponseList.size());
-      if (null != reponseList) {
-        for (Map<String, Object> map : reponseList) {
-          responseMap.put((String) map.get(JsonKey.ID), map);
-        }
-      }
-    }
-
-    Iterator<Entry<String, Object>> itr = responseMap.entrySet().iterator();
-    while (itr.hasNext()) {
-      updateUserDetails(itr.next());
-    }
-
-    long stopTime = System.currentTimeMillis();
-    long elapsedTime = stopTime - startTime;
-    ProjectLogger.log(
-        "total time taken to sync db data for user to keycloak " + elapsedTime + " ms.");
-  }
-
-  private void updateUserDetails(Entry<String, Object> entry) {
-    String userId = entry.getKey();
-    ProjectLogger.log("updating user data started");
-    Map<String, Object> userMap = (Map<String, Object>) entry.getValue();
-    // Decrypt user data
-    UserUtility.decryptUserData(userMap);
-    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
-    if (isSSOEnabled) {
-      try {
-        String res = ssoManager.syncUserData(userMap);
-        if (!(!StringUtils.isBlank(res) && res.equalsIgnoreCase(JsonKey.SUCCESS))) {
-          if (null == userMap.get(JsonKey.EMAIL_VERIFIED)) {
-            Map<String, Object> map = new HashMap<>();
-            if (SSOServiceFactory.getInstance().isEmailVerified(userId)) {
-              map.put(JsonKey.EMAIL_VERIFIED, true);
-              map.put(JsonKey.ID, userId);
+    List<Object> ids = userIds;
+    boolean restart = Boolean.TRUE.equals(dataMap.get(RESTART));
+    syncExecutor.execute(
+        () -> {
+          long startTime = System.currentTimeMillis();
+          try {
+            if (null != ids && !ids.isEmpty()) {
+              ProjectLogger.log(
+                  "USER DB data sync operation to keycloak started for " + ids.size() + " users");
+              new KeycloakUserSync().sync(ids);
             } else {
-              map.put(JsonKey.EMAIL_VERIFIED, false);
-              map.put(JsonKey.ID, userId);
+              ProjectLogger.log("USER DB data sync operation to keycloak started ");
+              new KeycloakUserSync().syncAll(restart);
             }
-            cassandraOperation.updateRecord(dbInfo.getKeySpace(), dbInfo.getTableName(), map);
-            ElasticSearchUtil.updateData(
-                ProjectUtil.EsIndex.sunbird.getIndexName(),
-                ProjectUtil.EsType.user.getTypeName(),
-                userId,
-                map);
+          } catch (Exception e) {
+            ProjectLogger.log("KeyCloakSyncActor:syncData: " + e.getMessage(), e);
           }
-          ProjectLogger.log("User sync failed in KeyCloakSyncActor for userID : " + userId);
-        }
-      } catch (Exception e) {
-        ProjectLogger.log(e.getMessage(), e);
-        ProjectLogger.log("User sync failed in KeyCloakSyncActor for userID : " + userId);
-      }
-    } else {
-      ProjectLogger.log("SSO is disabled , cann't sync user data to keycloak.");
-    }
+          ProjectLogger.log(
+              "total time taken to sync db data for user to keycloak "
+                  + (System.currentTimeMillis() - startTime)
+                  + " ms.");
+        });
   }
 }
@@ -0,0 +1,233 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.KeycloakSyncStateDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.KeycloakSyncStateDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.dao.impl.SyncCheckpointDaoImpl;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.CassandraPagedReader;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.EsWriteBehindQueue;
+import org.sunbird.learner.util.ExecutorManager;
+import org.sunbird.learner.util.UserUtility;
+import org.sunbird.learner.util.Util;
+import org.sunbird.services.sso.SSOManager;
+import org.sunbird.services.sso.SSOServiceFactory;
+
+/**
+ * Syncs users to Keycloak. Users are read page by page and the users of a page are synced
+ * concurrently through the shared Keycloak client. A hash of the synced attributes is saved for
+ * every user synced, and users whose attributes did not change since their last sync are skipped.
+ * The updates of a page are written to Cassandra and ES together once the page is synced.
+ *
+ * <p>A full sync is a {@link CheckpointedScan} of the user table which saves its checkpoint after
+ * every page, and resumes where it stopped if it was interrupted unless a restart is requested.
+ * Only one full sync runs at a time on a node.
+ */
+public class KeycloakUserSync {
+
+  /** Id and object type of the checkpoint of the full sync. */
+  public static final String CHECKPOINT_ID = "keycloakSync";
+
+  private static final String PAGE_SIZE_KEY = "sunbird_keycloak_sync_page_size";
+  private static final String PARALLELISM_KEY = "sunbird_keycloak_sync_parallelism";
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final int DEFAULT_PARALLELISM = 8;
+  /** Attributes of the user synced to Keycloak. */
+  private static final String[] SYNCED_ATTRIBUTES = {
+    JsonKey.FIRST_NAME,
+    JsonKey.LAST_NAME,
+    JsonKey.EMAIL,
+    JsonKey.EMAIL_VERIFIED,
+    JsonKey.PHONE,
+    JsonKey.COUNTRY_CODE,
+    JsonKey.LOGIN_ID,
+    JsonKey.USERNAME,
+    JsonKey.STATUS
+  };
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private SyncCheckpointDao checkpointDao = new SyncCheckpointDaoImpl();
+  private KeycloakSyncStateDao syncStateDao = new KeycloakSyncStateDaoImpl();
+  private SSOManager ssoManager = SSOServiceFactory.getInstance();
+  private Util.DbInfo usrDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
+  private final int pageSize = ConfigUtil.getInt(PAGE_SIZE_KEY, DEFAULT_PAGE_SIZE);
+  private final int parallelism = ConfigUtil.getInt(PARALLELISM_KEY, DEFAULT_PARALLELISM);
+
+  /**
+   * Syncs all users, resuming the previous full sync if it did not complete.
+   *
+   * @param restart Whether to start a new full sync even if the previous one did not complete
+   * @return Final checkpoint, null if a full sync is already running
+   */
+  public SyncCheckpoint syncAll(boolean restart) {
+    if (!CheckpointedScan.tryStart(CHECKPOINT_ID)) {
+      ProjectLogger.log(
+          "KeycloakUserSync:syncAll: A keycloak sync is already running", LoggerEnum.INFO.name());
+      return null;
+    }
+    ExecutorService executor = newExecutor();
+    try {
+      SyncCheckpoint checkpoint =
+          CheckpointedScan.resumeOrCreate(checkpointDao, CHECKPOINT_ID, CHECKPOINT_ID, restart);
+      return new CheckpointedScan(new CassandraPagedReader(usrDbInfo, pageSize), checkpointDao)
+          .run(checkpoint, records -> syncPage(records, false, executor));
+    } finally {
+      executor.shutdown();
+      CheckpointedScan.finish(CHECKPOINT_ID);
+    }
+  }
+
+  /**
+   * Syncs the given users, whether or not their attributes changed since their last sync.
+   *
+   * @param userIds User ids
+   */
+  @SuppressWarnings("unchecked")
+  public void sync(List<Object> userIds) {
+    ExecutorService executor = newExecutor();
+    try {
+      for (int i = 0; i < userIds.size(); i += pageSize) {
+        Response response =
+            cassandraOperation.getRecordsByProperty(
+                usrDbInfo.getKeySpace(),
+                usrDbInfo.getTableName(),
+                JsonKey.ID,
+                new ArrayList<>(userIds.subList(i, Math.min(i + pageSize, userIds.size()))));
+        List<Map<String, Object>> users =
+            (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+        if (null != users) {
+          syncPage(users, true, executor);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(
+        parallelism, ExecutorManager.newDaemonThreadFactory("keycloak-user-sync"));
+  }
+
+  /**
+   * Syncs the users of a page, skipping the users whose attributes did not change unless forced.
+   *
+   * @return Counts of the synced users and of the users which failed
+   */
+  CheckpointedScan.PageResult syncPage(
+      List<Map<String, Object>> users, boolean force, ExecutorService executor) {
+    Map<String, Map<String, Object>> usersToSync = new HashMap<>();
+    Map<String, String> hashes = new HashMap<>();
+    for (Map<String, Object> user : users) {
+      String userId = (String) user.get(JsonKey.ID);
+      usersToSync.put(userId, user);
+      hashes.put(userId, getHash(user));
+    }
+    if (!force) {
+      Map<String, String> syncedHashes = syncStateDao.readHashes(new ArrayList<>(hashes.keySet()));
+      for (Map.Entry<String, String> synced : syncedHashes.entrySet()) {
+        if (StringUtils.equals(synced.getValue(), hashes.get(synced.getKey()))) {
+          usersToSync.remove(synced.getKey());
+        }
+      }
+    }
+    Map<String, CompletableFuture<SyncResult>> futures = new HashMap<>();
+    for (Map.Entry<String, Map<String, Object>> entry : usersToSync.entrySet()) {
+      futures.put(
+          entry.getKey(),
+          CompletableFuture.supplyAsync(() -> syncUser(entry.getValue()), executor));
+    }
+    long synced = 0;
+    long failed = 0;
+    Map<String, String> syncedHashes = new HashMap<>();
+    List<Map<String, Object>> updates = new ArrayList<>();
+    for (Map.Entry<String, CompletableFuture<SyncResult>> entry : futures.entrySet()) {
+      SyncResult syncResult = entry.getValue().join();
+      if (syncResult.synced) {
+        syncedHashes.put(entry.getKey(), hashes.get(entry.getKey()));
+        synced++;
+      } else {
+        failed++;
+      }
+      if (null != syncResult.update) {
+        updates.add(syncResult.update);
+      }
+    }
+    if (!updates.isEmpty()) {
+      // insert of the id and emailVerified columns only, the other columns are left as they are
+      updates.removeAll(
+          CassandraAsyncWriter.upsert(
+              usrDbInfo.getKeySpace(), usrDbInfo.getTableName(), updates));
+      for (Map<String, Object> update : updates) {
+        EsWriteBehindQueue.update(
+            ProjectUtil.EsIndex.sunbird.getIndexName(),
+            ProjectUtil.EsType.user.getTypeName(),
+            (String) update.get(JsonKey.ID),
+            update);
+      }
+    }
+    if (!syncedHashes.isEmpty()) {
+      // a user whose hash was not saved is synced again by the next full sync
+      syncStateDao.saveHashes(syncedHashes);
+    }
+    return new CheckpointedScan.PageResult(synced, failed);
+  }
+
+  private SyncResult syncUser(Map<String, Object> userMap) {
+    String userId = (String) userMap.get(JsonKey.ID);
+    SyncResult result = new SyncResult();
+    try {
+      UserUtility.decryptUserData(userMap);
+      String res = ssoManager.syncUserData(userMap);
+      if (!StringUtils.isBlank(res) && res.equalsIgnoreCase(JsonKey.SUCCESS)) {
+        result.synced = true;
+      } else {
+        if (null == userMap.get(JsonKey.EMAIL_VERIFIED)) {
+          Map<String, Object> map = new HashMap<>();
+          map.put(JsonKey.EMAIL_VERIFIED, ssoManager.isEmailVerified(userId));
+          map.put(JsonKey.ID, userId);
+          result.update = map;
+        }
+        ProjectLogger.log("User sync failed in KeyCloakSyncActor for userID : " + userId);
+      }
+    } catch (Exception e) {
+      ProjectLogger.log(e.getMessage(), e);
+      ProjectLogger.log("User sync failed in KeyCloakSyncActor for userID : " + userId);
+    }
+    return result;
+  }
+
+  /** Hash of the attributes synced, as stored, so unchanged users need not be decrypted. */
+  private static String getHash(Map<String, Object> user) {
+    StringBuilder builder = new StringBuilder();
+    for (String attribute : SYNCED_ATTRIBUTES) {
+      builder.append(user.get(attribute)).append('\u0000');
+    }
+    return Hashing.sha256().hashString(builder, StandardCharsets.UTF_8).toString();
+  }
+
+  private static class SyncResult {
+    private boolean synced;
+    /** Update of the user record, null if none. */
+    private Map<String, Object> update;
+  }
+}
@@ -0,0 +1,22 @@
+package org.sunbird.learner.actors.syncjobmanager.dao;
+
+import java.util.List;
+import java.util.Map;
+
+/** Data access for the hashes of the user attributes last synced to Keycloak. */
+public interface KeycloakSyncStateDao {
+
+  /**
+   * @param userIds User ids
+   * @return Hash of the attributes last synced, by user id, for the users synced before
+   */
+  Map<String, String> readHashes(List<String> userIds);
+
+  /**
+   * Saves the hashes, one write per user.
+   *
+   * @param hashes Hash of the attributes synced, by user id
+   * @return Rows which could not be saved
+   */
+  List<Map<String, Object>> saveHashes(Map<String, String> hashes);
+}
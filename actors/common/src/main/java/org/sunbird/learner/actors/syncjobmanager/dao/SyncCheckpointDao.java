@@ -0,0 +1,63 @@
+package org.sunbird.learner.actors.syncjobmanager.dao;
+
+import java.util.List;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+
+/** Data access for the checkpoints of streaming ES sync jobs. */
+public interface SyncCheckpointDao {
+
+  /**
+   * @param checkpoint Checkpoint to insert or update
+   * @return response Response
+   */
+  Response upsert(SyncCheckpoint checkpoint);
+
+  /**
+   * Inserts a checkpoint with a lightweight transaction, which only applies if no checkpoint with
+   * the same id exists yet.
+   *
+   * @param checkpoint Checkpoint to insert
+   * @return true if the checkpoint was inserted
+   */
+  boolean insertIfNotExists(SyncCheckpoint checkpoint);
+
+  /**
+   * @param id Checkpoint id
+   * @return Checkpoint, null if not found
+   */
+  SyncCheckpoint read(String id);
+
+  /**
+   * @param objectType Object type being synced
+   * @return All checkpoints of the given object type
+   */
+  List<SyncCheckpoint> readByObjectType(String objectType);
+
+  /**
+   * @param jobId Distributed sync job id
+   * @return Checkpoints of all the ranges of the job
+   */
+  List<SyncCheckpoint> readByJobId(String jobId);
+
+  /**
+   * Takes over a range with a lightweight transaction, which only applies if the owner, status and
+   * last update of the range are still the ones read. At most one node wins a claim.
+   *
+   * @param range Range as read, updated with the claim if the claim applies
+   * @param owner Node claiming the range
+   * @param retryCount Retry count to save with the claim
+   * @return true if the claim applied
+   */
+  boolean claim(SyncCheckpoint range, String owner, int retryCount);
+
+  /**
+   * Saves the progress and status of a claimed range with a lightweight transaction, which only
+   * applies while the range is still owned by the owner of the given checkpoint. A node whose lease
+   * expired can so not overwrite a range another node reclaimed.
+   *
+   * @param range Claimed range, its last update time is set if the update applies
+   * @return true if the update applied
+   */
+  boolean updateIfOwner(SyncCheckpoint range);
+}
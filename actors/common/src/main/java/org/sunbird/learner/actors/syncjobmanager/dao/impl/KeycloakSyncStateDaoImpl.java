@@ -0,0 +1,56 @@
+package org.sunbird.learner.actors.syncjobmanager.dao.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.KeycloakSyncStateDao;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+
+public class KeycloakSyncStateDaoImpl implements KeycloakSyncStateDao {
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static final String KEYSPACE_NAME = "sunbird";
+  private static final String TABLE_NAME = "keycloak_sync_state";
+  public static final String HASH = "hash";
+  public static final String LAST_SYNC_TIME = "lastSyncTime";
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Map<String, String> readHashes(List<String> userIds) {
+    Map<String, String> hashes = new HashMap<>();
+    if (CollectionUtils.isEmpty(userIds)) {
+      return hashes;
+    }
+    Response response =
+        cassandraOperation.getRecordsByProperty(
+            KEYSPACE_NAME, TABLE_NAME, JsonKey.ID, new ArrayList<Object>(userIds));
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isNotEmpty(list)) {
+      for (Map<String, Object> row : list) {
+        hashes.put((String) row.get(JsonKey.ID), (String) row.get(HASH));
+      }
+    }
+    return hashes;
+  }
+
+  @Override
+  public List<Map<String, Object>> saveHashes(Map<String, String> hashes) {
+    long now = System.currentTimeMillis();
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (Map.Entry<String, String> entry : hashes.entrySet()) {
+      Map<String, Object> row = new HashMap<>();
+      row.put(JsonKey.ID, entry.getKey());
+      row.put(HASH, entry.getValue());
+      row.put(LAST_SYNC_TIME, now);
+      rows.add(row);
+    }
+    // every user is a partition of its own, so the rows are written one by one, not batched
+    return CassandraAsyncWriter.upsert(KEYSPACE_NAME, TABLE_NAME, rows);
+  }
+}
@@ -0,0 +1,149 @@
+package org.sunbird.learner.actors.syncjobmanager.dao.impl;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+
+public class SyncCheckpointDaoImpl implements SyncCheckpointDao {
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private ObjectMapper mapper = new ObjectMapper();
+  private static final String KEYSPACE_NAME = "sunbird";
+  private static final String TABLE_NAME = "es_sync_checkpoint";
+  private static final String JOB_ID = "jobId";
+  private static final String CLAIM_QUERY =
+      "UPDATE %s.%s SET owner = ?, status = ?, retryCount = ?, lastUpdatedTime = ? WHERE id = ?"
+          + " IF owner = %s AND status = ? AND lastUpdatedTime = ?";
+  private static final String UPDATE_IF_OWNER_QUERY =
+      "UPDATE %s.%s SET status = ?, lastToken = ?, processedCount = ?, failedCount = ?,"
+          + " lastUpdatedTime = ? WHERE id = ? IF owner = ?";
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Response upsert(SyncCheckpoint checkpoint) {
+    checkpoint.setLastUpdatedTime(System.currentTimeMillis());
+    Map<String, Object> map = mapper.convertValue(checkpoint, Map.class);
+    return cassandraOperation.upsertRecord(KEYSPACE_NAME, TABLE_NAME, map);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public boolean insertIfNotExists(SyncCheckpoint checkpoint) {
+    checkpoint.setLastUpdatedTime(System.currentTimeMillis());
+    Map<String, Object> map = mapper.convertValue(checkpoint, Map.class);
+    Insert insert = QueryBuilder.insertInto(KEYSPACE_NAME, TABLE_NAME).ifNotExists();
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      insert.value(entry.getKey(), entry.getValue());
+    }
+    return getSession().execute(insert).wasApplied();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SyncCheckpoint read(String id) {
+    Response response = cassandraOperation.getRecordById(KEYSPACE_NAME, TABLE_NAME, id);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isEmpty(list)) {
+      return null;
+    }
+    return mapper.convertValue(list.get(0), SyncCheckpoint.class);
+  }
+
+  @Override
+  public List<SyncCheckpoint> readByObjectType(String objectType) {
+    return readByProperty(JsonKey.OBJECT_TYPE, objectType);
+  }
+
+  @Override
+  public List<SyncCheckpoint> readByJobId(String jobId) {
+    return readByProperty(JOB_ID, jobId);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<SyncCheckpoint> readByProperty(String property, String value) {
+    Response response =
+        cassandraOperation.getRecordsByIndexedProperty(KEYSPACE_NAME, TABLE_NAME, property, value);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    List<SyncCheckpoint> checkpoints = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(list)) {
+      for (Map<String, Object> map : list) {
+        checkpoints.add(mapper.convertValue(map, SyncCheckpoint.class));
+      }
+    }
+    return checkpoints;
+  }
+
+  @Override
+  public boolean claim(SyncCheckpoint range, String owner, int retryCount) {
+    Session session = getSession();
+    long now = System.currentTimeMillis();
+    List<Object> values = new ArrayList<>();
+    values.add(owner);
+    values.add(SyncCheckpoint.STATUS_IN_PROGRESS);
+    values.add(retryCount);
+    values.add(now);
+    values.add(range.getId());
+    if (null != range.getOwner()) {
+      values.add(range.getOwner());
+    }
+    values.add(range.getStatus());
+    values.add(range.getLastUpdatedTime());
+    String query =
+        String.format(
+            CLAIM_QUERY, KEYSPACE_NAME, TABLE_NAME, null == range.getOwner() ? "null" : "?");
+    ResultSet resultSet = session.execute(new SimpleStatement(query, values.toArray()));
+    if (!resultSet.wasApplied()) {
+      return false;
+    }
+    range.setOwner(owner);
+    range.setStatus(SyncCheckpoint.STATUS_IN_PROGRESS);
+    range.setRetryCount(retryCount);
+    range.setLastUpdatedTime(now);
+    return true;
+  }
+
+  @Override
+  public boolean updateIfOwner(SyncCheckpoint range) {
+    long now = System.currentTimeMillis();
+    String query = String.format(UPDATE_IF_OWNER_QUERY, KEYSPACE_NAME, TABLE_NAME);
+    ResultSet resultSet =
+        getSession()
+            .execute(
+                new SimpleStatement(
+                    query,
+                    range.getStatus(),
+                    range.getLastToken(),
+                    range.getProcessedCount(),
+                    range.getFailedCount(),
+                    now,
+                    range.getId(),
+                    range.getOwner()));
+    if (!resultSet.wasApplied()) {
+      return false;
+    }
+    range.setLastUpdatedTime(now);
+    return true;
+  }
+
+  private static Session getSession() {
+    // CassandraOperation has no conditional update, so the transactions go through the raw session
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(KEYSPACE_NAME);
+  }
+}
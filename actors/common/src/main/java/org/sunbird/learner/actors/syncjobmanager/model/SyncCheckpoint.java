@@ -0,0 +1,147 @@
+package org.sunbird.learner.actors.syncjobmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.io.Serializable;
+
+/**
+ * Progress of a streaming sync over one token range of a table. The scan resumes after {@code
+ * lastToken} when a sync is restarted.
+ *
+ * <p>For a distributed sync every range of the job has its own checkpoint carrying the {@code
+ * jobId} and the {@code owner} node, and the job itself is recorded as a checkpoint whose id is
+ * the job id. The {@code retryCount} of a range counts how often it was claimed again after a
+ * failure or an expired lease.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(Include.NON_NULL)
+public class SyncCheckpoint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String STATUS_PENDING = "pending";
+  public static final String STATUS_IN_PROGRESS = "inProgress";
+  public static final String STATUS_COMPLETED = "completed";
+  public static final String STATUS_FAILED = "failed";
+  /** A range which failed more than the retry limit, it is not claimed again. */
+  public static final String STATUS_ABORTED = "aborted";
+
+  private String id;
+  private String objectType;
+  private String status;
+  private String jobId;
+  private String owner;
+  private Long startToken;
+  private Long endToken;
+  private Long lastToken;
+  private Long processedCount;
+  private Long failedCount;
+  private Long startTime;
+  private Long lastUpdatedTime;
+  private Integer retryCount;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getObjectType() {
+    return objectType;
+  }
+
+  public void setObjectType(String objectType) {
+    this.objectType = objectType;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(String jobId) {
+    this.jobId = jobId;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public Long getStartToken() {
+    return startToken;
+  }
+
+  public void setStartToken(Long startToken) {
+    this.startToken = startToken;
+  }
+
+  public Long getEndToken() {
+    return endToken;
+  }
+
+  public void setEndToken(Long endToken) {
+    this.endToken = endToken;
+  }
+
+  public Long getLastToken() {
+    return lastToken;
+  }
+
+  public void setLastToken(Long lastToken) {
+    this.lastToken = lastToken;
+  }
+
+  public Long getProcessedCount() {
+    return processedCount;
+  }
+
+  public void setProcessedCount(Long processedCount) {
+    this.processedCount = processedCount;
+  }
+
+  public Long getFailedCount() {
+    return failedCount;
+  }
+
+  public void setFailedCount(Long failedCount) {
+    this.failedCount = failedCount;
+  }
+
+  public Long getStartTime() {
+    return startTime;
+  }
+
+  public void setStartTime(Long startTime) {
+    this.startTime = startTime;
+  }
+
+  public Long getLastUpdatedTime() {
+    return lastUpdatedTime;
+  }
+
+  public void setLastUpdatedTime(Long lastUpdatedTime) {
+    this.lastUpdatedTime = lastUpdatedTime;
+  }
+
+  public Integer getRetryCount() {
+    return retryCount;
+  }
+
+  public void setRetryCount(Integer retryCount) {
+    this.retryCount = retryCount;
+  }
+}
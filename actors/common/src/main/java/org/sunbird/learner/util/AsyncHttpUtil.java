@@ -0,0 +1,405 @@
+package org.sunbird.learner.util;
+
+import akka.dispatch.Futures;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.util.EntityUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.Promise;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Shared non blocking HTTP client for the calls made to the content search and EkStep services.
+ * Requests are sent over a pool of keep alive connections and the returned futures can be piped
+ * back to the sender by actors, so a slow upstream service does not hold dispatcher threads.
+ *
+ * <p>The client has its own connection pool and timeouts, so the global Unirest settings used by
+ * the other HTTP calls are left as they are.
+ *
+ * <p>The number of concurrent requests per host is limited, requests over the limit wait in a
+ * queue without holding a thread. Requests which could not connect and 429 responses are retried
+ * with back off. Other failures and 5xx responses are retried only for GET requests, as a POST may
+ * have been processed already. Latency histograms and request counts are kept per host.
+ */
+public final class AsyncHttpUtil {
+
+  private static final String MAX_CONNECTIONS_KEY = "sunbird_http_max_connections";
+  private static final String MAX_PER_HOST_KEY = "sunbird_http_max_per_host";
+  private static final String CONNECT_TIMEOUT_KEY = "sunbird_http_connect_timeout";
+  private static final String SOCKET_TIMEOUT_KEY = "sunbird_http_socket_timeout";
+  private static final String MAX_RETRIES_KEY = "sunbird_http_max_retries";
+  private static final int DEFAULT_MAX_CONNECTIONS = 200;
+  private static final int DEFAULT_MAX_PER_HOST = 50;
+  /** Timeouts in milliseconds. */
+  private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+  private static final int DEFAULT_SOCKET_TIMEOUT = 30000;
+  private static final int DEFAULT_MAX_RETRIES = 2;
+  /** Back off of the first retry in milliseconds, doubled on every retry. */
+  private static final long RETRY_BACK_OFF = 200L;
+  /** Upper bounds in milliseconds of the latency histogram buckets. */
+  private static final long[] LATENCY_BUCKETS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+  private static final int maxPerHost = ConfigUtil.getInt(MAX_PER_HOST_KEY, DEFAULT_MAX_PER_HOST);
+  private static final int connectTimeout =
+      ConfigUtil.getInt(CONNECT_TIMEOUT_KEY, DEFAULT_CONNECT_TIMEOUT);
+  private static final int socketTimeout =
+      ConfigUtil.getInt(SOCKET_TIMEOUT_KEY, DEFAULT_SOCKET_TIMEOUT);
+  private static final int maxRetries = ConfigUtil.getInt(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES);
+  private static final Map<String, Host> hosts = new ConcurrentHashMap<>();
+  /** Sends the retries and the requests which waited for the limit of their host. */
+  private static final ScheduledExecutorService dispatcher =
+      Executors.newSingleThreadScheduledExecutor(
+          ExecutorManager.newDaemonThreadFactory("http-dispatch"));
+  private static final ExecutorService blockingExecutor =
+      Executors.newFixedThreadPool(
+          maxPerHost, ExecutorManager.newDaemonThreadFactory("http-blocking"));
+  private static final CloseableHttpAsyncClient client =
+      HttpAsyncClients.custom()
+          .setMaxConnTotal(ConfigUtil.getInt(MAX_CONNECTIONS_KEY, DEFAULT_MAX_CONNECTIONS))
+          .setMaxConnPerRoute(maxPerHost)
+          .setDefaultRequestConfig(
+              RequestConfig.custom()
+                  .setConnectTimeout(connectTimeout)
+                  .setConnectionRequestTimeout(connectTimeout)
+                  .setSocketTimeout(socketTimeout)
+                  .build())
+          .setThreadFactory(ExecutorManager.newDaemonThreadFactory("http-io"))
+          .build();
+
+  static {
+    client.start();
+    MetricsRegistry.register("http", AsyncHttpUtil::getMetrics);
+  }
+
+  private AsyncHttpUtil() {}
+
+  /**
+   * Sends a POST request.
+   *
+   * @param url Request url
+   * @param body Request body
+   * @param headers Request headers, not modified
+   * @return Future of the response body, failed if the response status is not 2xx after retries
+   */
+  public static Future<String> post(String url, String body, Map<String, String> headers) {
+    Map<String, String> requestHeaders = copyHeaders(headers);
+    return execute(
+        url,
+        false,
+        () -> {
+          HttpPost request = new HttpPost(url);
+          request.setEntity(new StringEntity(body, StandardCharsets.UTF_8));
+          return setHeaders(request, requestHeaders);
+        });
+  }
+
+  /**
+   * Sends a GET request.
+   *
+   * @param url Request url
+   * @param headers Request headers, not modified
+   * @return Future of the response body, failed if the response status is not 2xx after retries
+   */
+  public static Future<String> get(String url, Map<String, String> headers) {
+    Map<String, String> requestHeaders = copyHeaders(headers);
+    return execute(url, true, () -> setHeaders(new HttpGet(url), requestHeaders));
+  }
+
+  /**
+   * Sends a POST request and waits for the response, for callers which can not be made
+   * asynchronous yet. The connection pool, limits and retries are shared with {@link #post}.
+   *
+   * @param url Request url
+   * @param body Request body
+   * @param headers Request headers, not modified
+   * @return Response body
+   * @throws IOException if the request failed
+   */
+  public static String sendPostRequest(String url, String body, Map<String, String> headers)
+      throws IOException {
+    return await(post(url, body, headers));
+  }
+
+  /**
+   * Runs a call which does its own blocking HTTP request on the shared HTTP thread pool instead of
+   * the calling (dispatcher) thread.
+   *
+   * @param call Blocking call
+   * @return Future of the call result
+   */
+  public static <T> Future<T> callBlocking(Callable<T> call) {
+    Promise<T> promise = Futures.promise();
+    blockingExecutor.execute(
+        () -> {
+          try {
+            promise.success(call.call());
+          } catch (Exception e) {
+            promise.failure(e);
+          }
+        });
+    return promise.future();
+  }
+
+  /**
+   * Waits for the result of a request, or of a future derived from it, for at most the time the
+   * request and its retries can take.
+   *
+   * @param future Future returned by this class, or mapped from one
+   * @return Result
+   * @throws IOException if the request failed or did not complete in time
+   */
+  public static <T> T await(Future<T> future) throws IOException {
+    long timeout =
+        (long) (2 * connectTimeout + socketTimeout) * (maxRetries + 1)
+            + (RETRY_BACK_OFF << maxRetries);
+    try {
+      return Await.result(future, Duration.create(timeout, TimeUnit.MILLISECONDS));
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Returns the metrics of every host: requests running and waiting, counts of requests, retries
+   * and failures, and the latency histogram (count of requests by latency upper bound in ms).
+   *
+   * @return Metrics by host
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    for (Host host : hosts.values()) {
+      metrics.put(host.name, host.getMetrics());
+    }
+    return metrics;
+  }
+
+  private static Future<String> execute(
+      String url, boolean idempotent, Supplier<HttpRequestBase> request) {
+    Promise<String> promise = Futures.promise();
+    Host host = hosts.computeIfAbsent(getHostName(url), Host::new);
+    host.submit(() -> send(host, idempotent, request, promise, 0));
+    return promise.future();
+  }
+
+  private static void send(
+      Host host,
+      boolean idempotent,
+      Supplier<HttpRequestBase> request,
+      Promise<String> promise,
+      int attempt) {
+    long startTime = System.currentTimeMillis();
+    host.requestCount.incrementAndGet();
+    try {
+      client.execute(
+          request.get(),
+          new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+              host.recordLatency(System.currentTimeMillis() - startTime);
+              int status = response.getStatusLine().getStatusCode();
+              String body;
+              try {
+                body =
+                    null == response.getEntity()
+                        ? null
+                        : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+              } catch (IOException e) {
+                fail(host, idempotent, request, promise, attempt, idempotent, e);
+                return;
+              }
+              if (status >= 200 && status < 300) {
+                host.release();
+                promise.success(body);
+              } else {
+                fail(
+                    host,
+                    idempotent,
+                    request,
+                    promise,
+                    attempt,
+                    status == 429 || (idempotent && status >= 500),
+                    new IOException("HTTP " + status + " from " + host.name + ": " + body));
+              }
+            }
+
+            @Override
+            public void failed(Exception e) {
+              host.recordLatency(System.currentTimeMillis() - startTime);
+              fail(host, idempotent, request, promise, attempt, idempotent || isNotSent(e), e);
+            }
+
+            @Override
+            public void cancelled() {
+              IOException e = new IOException("Cancelled");
+              fail(host, idempotent, request, promise, attempt, false, e);
+            }
+          });
+    } catch (Exception e) {
+      fail(host, idempotent, request, promise, attempt, false, e);
+    }
+  }
+
+  /**
+   * Returns whether a request failed before it was sent: it could not connect, or it timed out
+   * waiting for a pooled connection.
+   */
+  static boolean isNotSent(Throwable e) {
+    for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+      if (cause instanceof ConnectException
+          || cause instanceof ConnectTimeoutException
+          || cause instanceof UnknownHostException
+          || cause instanceof TimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void fail(
+      Host host,
+      boolean idempotent,
+      Supplier<HttpRequestBase> request,
+      Promise<String> promise,
+      int attempt,
+      boolean retriable,
+      Exception e) {
+    host.release();
+    if (retriable && attempt < maxRetries) {
+      host.retryCount.incrementAndGet();
+      dispatcher.schedule(
+          () -> host.submit(() -> send(host, idempotent, request, promise, attempt + 1)),
+          RETRY_BACK_OFF << attempt,
+          TimeUnit.MILLISECONDS);
+      return;
+    }
+    host.failureCount.incrementAndGet();
+    ProjectLogger.log(
+        "AsyncHttpUtil:fail: Request to " + host.name + " failed " + e.getMessage(),
+        LoggerEnum.ERROR.name());
+    promise.failure(e);
+  }
+
+  private static HttpRequestBase setHeaders(
+      HttpRequestBase request, Map<String, String> headers) {
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      request.setHeader(header.getKey(), header.getValue());
+    }
+    return request;
+  }
+
+  private static Map<String, String> copyHeaders(Map<String, String> headers) {
+    return null == headers ? new HashMap<>() : new HashMap<>(headers);
+  }
+
+  private static String getHostName(String url) {
+    try {
+      String host = URI.create(url).getHost();
+      return null == host ? url : host;
+    } catch (IllegalArgumentException e) {
+      return url;
+    }
+  }
+
+  /** Concurrency limit and metrics of one host. */
+  private static class Host {
+    private final String name;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running = 0;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLongArray latency = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+
+    Host(String name) {
+      this.name = name;
+    }
+
+    /** Runs the call now if the host is under its limit, else once a running request completes. */
+    void submit(Runnable call) {
+      synchronized (this) {
+        if (running >= maxPerHost) {
+          waiting.add(call);
+          return;
+        }
+        running++;
+      }
+      call.run();
+    }
+
+    /**
+     * Releases the slot of a completed request, handing it over to the next waiting request, which
+     * is sent on the dispatcher rather than on the thread of the completed request.
+     */
+    void release() {
+      Runnable next;
+      synchronized (this) {
+        next = waiting.poll();
+        if (null == next) {
+          running--;
+          return;
+        }
+      }
+      dispatcher.execute(next);
+    }
+
+    void recordLatency(long time) {
+      int bucket = 0;
+      while (bucket < LATENCY_BUCKETS.length && time > LATENCY_BUCKETS[bucket]) {
+        bucket++;
+      }
+      latency.incrementAndGet(bucket);
+    }
+
+    Map<String, Object> getMetrics() {
+      Map<String, Object> metrics = new HashMap<>();
+      synchronized (this) {
+        metrics.put("running", running);
+        metrics.put("waiting", waiting.size());
+      }
+      metrics.put("requests", requestCount.get());
+      metrics.put("retries", retryCount.get());
+      metrics.put("failures", failureCount.get());
+      Map<String, Long> histogram = new LinkedHashMap<>();
+      for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+        histogram.put(String.valueOf(LATENCY_BUCKETS[i]), latency.get(i));
+      }
+      histogram.put("inf", latency.get(LATENCY_BUCKETS.length));
+      metrics.put("latency", histogram);
+      return metrics;
+    }
+  }
+}
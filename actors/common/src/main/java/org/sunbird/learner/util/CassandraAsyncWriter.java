@@ -0,0 +1,174 @@
+package org.sunbird.learner.util;
+
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Update;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+
+/**
+ * Writes many records as separate asynchronous statements, each routed to the replicas of its own
+ * partition, with a bounded number of statements in flight. Used instead of {@link
+ * CassandraOperation#batchInsert}, whose logged batch spanning many partitions goes through the
+ * batch log of a single coordinator. A failed record does not fail the others.
+ *
+ * <p>Records can also be updated with lightweight transactions, a record whose condition does not
+ * hold is then reported as not written along with the failed ones.
+ */
+public final class CassandraAsyncWriter {
+
+  private static final String MAX_IN_FLIGHT_KEY = "sunbird_cassandra_async_max_in_flight";
+  private static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+  private static final int maxInFlight =
+      Math.max(1, ConfigUtil.getInt(MAX_IN_FLIGHT_KEY, DEFAULT_MAX_IN_FLIGHT));
+
+  private CassandraAsyncWriter() {}
+
+  /**
+   * Inserts or replaces the given records.
+   *
+   * @param keySpace Key space
+   * @param tableName Table
+   * @param records Records, each with all its primary key columns
+   * @return Records which could not be written
+   */
+  public static List<Map<String, Object>> upsert(
+      String keySpace, String tableName, List<Map<String, Object>> records) {
+    List<Statement> statements = new ArrayList<>(records.size());
+    for (Map<String, Object> record : records) {
+      Insert insert = QueryBuilder.insertInto(keySpace, tableName);
+      for (Map.Entry<String, Object> entry : record.entrySet()) {
+        insert.value(entry.getKey(), entry.getValue());
+      }
+      statements.add(insert);
+    }
+    return getFailedRecords(records, execute(getSession(keySpace), statements));
+  }
+
+  /**
+   * Updates the given columns of existing records, leaving the other columns as they are.
+   *
+   * @param keySpace Key space
+   * @param tableName Table
+   * @param records Records, each with its primary key columns and the columns to update
+   * @param keyColumns Primary key columns
+   * @return Records which could not be written
+   */
+  public static List<Map<String, Object>> update(
+      String keySpace,
+      String tableName,
+      List<Map<String, Object>> records,
+      Collection<String> keyColumns) {
+    List<Statement> statements = new ArrayList<>(records.size());
+    for (Map<String, Object> record : records) {
+      statements.add(getUpdate(keySpace, tableName, record, keyColumns));
+    }
+    return getFailedRecords(records, execute(getSession(keySpace), statements));
+  }
+
+  /**
+   * Updates the given columns of existing records with lightweight transactions, each of which only
+   * applies if the condition columns of its record still have the expected values.
+   *
+   * @param keySpace Key space
+   * @param tableName Table
+   * @param records Records, each with its primary key columns and the columns to update
+   * @param keyColumns Primary key columns
+   * @param conditions Expected values of the condition columns, one map per record
+   * @return Records which could not be written or whose condition did not hold
+   */
+  public static List<Map<String, Object>> updateIf(
+      String keySpace,
+      String tableName,
+      List<Map<String, Object>> records,
+      Collection<String> keyColumns,
+      List<Map<String, Object>> conditions) {
+    List<Statement> statements = new ArrayList<>(records.size());
+    for (int i = 0; i < records.size(); i++) {
+      Update update = getUpdate(keySpace, tableName, records.get(i), keyColumns);
+      for (Map.Entry<String, Object> entry : conditions.get(i).entrySet()) {
+        update.onlyIf(QueryBuilder.eq(entry.getKey(), entry.getValue()));
+      }
+      statements.add(update);
+    }
+    return getFailedRecords(records, execute(getSession(keySpace), statements));
+  }
+
+  private static Update getUpdate(
+      String keySpace,
+      String tableName,
+      Map<String, Object> record,
+      Collection<String> keyColumns) {
+    Update update = QueryBuilder.update(keySpace, tableName);
+    for (Map.Entry<String, Object> entry : record.entrySet()) {
+      if (keyColumns.contains(entry.getKey())) {
+        update.where(QueryBuilder.eq(entry.getKey(), entry.getValue()));
+      } else {
+        update.with(QueryBuilder.set(entry.getKey(), entry.getValue()));
+      }
+    }
+    return update;
+  }
+
+  /**
+   * Executes the statements with at most {@code maxInFlight} of them pending, and waits for all
+   * of them.
+   *
+   * @return Indexes of the statements which failed or, for conditional ones, were not applied
+   */
+  static List<Integer> execute(Session session, List<Statement> statements) {
+    List<Integer> failed = new ArrayList<>();
+    Deque<ResultSetFuture> pending = new ArrayDeque<>();
+    int completed = 0;
+    for (Statement statement : statements) {
+      if (pending.size() >= maxInFlight) {
+        await(pending.poll(), completed++, failed);
+      }
+      pending.add(session.executeAsync(statement));
+    }
+    while (!pending.isEmpty()) {
+      await(pending.poll(), completed++, failed);
+    }
+    return failed;
+  }
+
+  private static void await(ResultSetFuture future, int index, List<Integer> failed) {
+    try {
+      // always applied unless the statement is a lightweight transaction
+      if (!future.getUninterruptibly().wasApplied()) {
+        failed.add(index);
+      }
+    } catch (Exception e) {
+      ProjectLogger.log("CassandraAsyncWriter:await: Write failed " + e.getMessage(), e);
+      failed.add(index);
+    }
+  }
+
+  private static List<Map<String, Object>> getFailedRecords(
+      List<Map<String, Object>> records, List<Integer> failed) {
+    List<Map<String, Object>> failedRecords = new ArrayList<>(failed.size());
+    for (int index : failed) {
+      failedRecords.add(records.get(index));
+    }
+    return failedRecords;
+  }
+
+  private static Session getSession(String keySpace) {
+    return CassandraConnectionMngrFactory.getObject(
+            PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+        .getSession(keySpace);
+  }
+}
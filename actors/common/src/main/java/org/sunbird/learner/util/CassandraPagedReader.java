@@ -0,0 +1,138 @@
+package org.sunbird.learner.util;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.helper.CassandraConnectionMngrFactory;
+import org.sunbird.helper.ServiceFactory;
+
+/**
+ * Reads a Cassandra table page by page in partition token order, so that a complete table can be
+ * processed with a fixed heap footprint. Only the ids of a page are read through the raw session
+ * (token order queries are not supported by {@link CassandraOperation}); the records themselves
+ * are fetched with a single multi key query.
+ *
+ * <p>The token of the last record of every page is returned so that callers can persist it and
+ * resume the scan after a restart.
+ */
+public class CassandraPagedReader {
+
+  public static final long MIN_TOKEN = Long.MIN_VALUE;
+  public static final long MAX_TOKEN = Long.MAX_VALUE;
+
+  private static final String PAGE_QUERY =
+      "SELECT %1$s, token(%1$s) FROM %2$s.%3$s WHERE token(%1$s) > ? AND token(%1$s) <= ? LIMIT ?";
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private final String keySpace;
+  private final String tableName;
+  private final int pageSize;
+
+  public CassandraPagedReader(Util.DbInfo dbInfo, int pageSize) {
+    this(dbInfo.getKeySpace(), dbInfo.getTableName(), pageSize);
+  }
+
+  public CassandraPagedReader(String keySpace, String tableName, int pageSize) {
+    this.keySpace = keySpace;
+    this.tableName = tableName;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Reads the next page of records.
+   *
+   * @param fromToken Token after which the page starts (exclusive)
+   * @param toToken Token at which the scan ends (inclusive)
+   * @return Page of records, empty page once the range is exhausted
+   */
+  @SuppressWarnings("unchecked")
+  public Page readPage(long fromToken, long toToken) {
+    Session session =
+        CassandraConnectionMngrFactory.getObject(
+                PropertiesCache.getInstance().getProperty(JsonKey.SUNBIRD_CASSANDRA_MODE))
+            .getSession(keySpace);
+    SimpleStatement statement =
+        new SimpleStatement(
+            String.format(PAGE_QUERY, JsonKey.ID, keySpace, tableName),
+            fromToken,
+            toToken,
+            pageSize);
+    ResultSet resultSet = session.execute(statement);
+    List<Object> ids = new ArrayList<>();
+    long lastToken = fromToken;
+    for (Row row : resultSet) {
+      ids.add(row.getObject(0));
+      lastToken = row.getLong(1);
+    }
+    if (ids.isEmpty()) {
+      return new Page(Collections.emptyList(), toToken, true);
+    }
+    Response response =
+        cassandraOperation.getRecordsByProperty(keySpace, tableName, JsonKey.ID, ids);
+    List<Map<String, Object>> records = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    return new Page(
+        records == null ? Collections.emptyList() : records, lastToken, ids.size() < pageSize);
+  }
+
+  /**
+   * Splits a token range into the given number of contiguous sub ranges.
+   *
+   * @param fromToken Start of the range (exclusive)
+   * @param toToken End of the range (inclusive)
+   * @param count Number of sub ranges
+   * @return List of {fromToken, toToken} pairs
+   */
+  public static List<long[]> splitRange(long fromToken, long toToken, int count) {
+    List<long[]> ranges = new ArrayList<>();
+    BigInteger start = BigInteger.valueOf(fromToken);
+    BigInteger width = BigInteger.valueOf(toToken).subtract(start);
+    BigInteger parts = BigInteger.valueOf(Math.max(count, 1));
+    long previous = fromToken;
+    for (int i = 1; i <= parts.intValue(); i++) {
+      long end =
+          (i == parts.intValue())
+              ? toToken
+              : start.add(width.multiply(BigInteger.valueOf(i)).divide(parts)).longValue();
+      ranges.add(new long[] {previous, end});
+      previous = end;
+    }
+    return ranges;
+  }
+
+  /** One page of records read from the table. */
+  public static class Page {
+    private final List<Map<String, Object>> records;
+    private final long lastToken;
+    private final boolean last;
+
+    Page(List<Map<String, Object>> records, long lastToken, boolean last) {
+      this.records = records;
+      this.lastToken = lastToken;
+      this.last = last;
+    }
+
+    public List<Map<String, Object>> getRecords() {
+      return records;
+    }
+
+    /** @return Token of the last record read, the scan resumes after it */
+    public long getLastToken() {
+      return lastToken;
+    }
+
+    /** @return true if there are no more records in the range */
+    public boolean isLast() {
+      return last;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package org.sunbird.learner.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+
+/**
+ * Reads numeric settings, from the environment or else from the properties file, falling back to a
+ * default when the setting is missing or invalid.
+ */
+public final class ConfigUtil {
+
+  private ConfigUtil() {}
+
+  /**
+   * @param key Setting name
+   * @param defaultValue Value used when the setting is missing or not a number
+   * @return Setting value
+   */
+  public static int getInt(String key, int defaultValue) {
+    long value = getLong(key, defaultValue);
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      ProjectLogger.log(
+          "ConfigUtil:getInt: Value " + value + " out of range for " + key,
+          LoggerEnum.ERROR.name());
+      return defaultValue;
+    }
+    return (int) value;
+  }
+
+  /**
+   * @param key Setting name
+   * @param defaultValue Value used when the setting is missing or not a number
+   * @return Setting value
+   */
+  public static long getLong(String key, long defaultValue) {
+    String value = ProjectUtil.getConfigValue(key);
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        return Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        ProjectLogger.log(
+            "ConfigUtil:getLong: Invalid value " + value + " for " + key,
+            LoggerEnum.ERROR.name());
+      }
+    }
+    return defaultValue;
+  }
+}
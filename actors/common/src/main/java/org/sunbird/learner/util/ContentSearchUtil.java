@@ -2,10 +2,7 @@ package org.sunbird.learner.util;
 
 import akka.dispatch.ExecutionContexts;
 import akka.dispatch.Mapper;
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.request.BaseRequest;
+import akka.dispatch.Recover;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -18,8 +15,9 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.PropertiesCache;
-import org.sunbird.common.models.util.RestUtil;
 import scala.concurrent.Future;
 
 /** @author Mahesh Kumar Gangula */
@@ -36,53 +34,64 @@ public class ContentSearchUtil {
   }
 
   private static Map<String, String> getUpdatedHeaders(Map<String, String> headers) {
-    if (headers == null) {
-      headers = new HashMap<>();
+    Map<String, String> updatedHeaders = new HashMap<>();
+    if (headers != null) {
+      updatedHeaders.putAll(headers);
     }
-    headers.put(
+    updatedHeaders.put(
         HttpHeaders.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.SUNBIRD_AUTHORIZATION));
-    headers.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
-    return headers;
+    updatedHeaders.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+    return updatedHeaders;
   }
 
+  /**
+   * Searches content through the shared {@link AsyncHttpUtil} client.
+   *
+   * @param body Search query
+   * @param headers Request headers, not modified
+   * @return Future of the search result, null if the search failed
+   */
   public static Future<Map<String, Object>> searchContent(String body, Map<String, String> headers)
       throws Exception {
-    Unirest.clearDefaultHeaders();
-    BaseRequest request =
-        Unirest.post(contentSearchURL).headers(getUpdatedHeaders(headers)).body(body);
-    Future<HttpResponse<JsonNode>> response = RestUtil.executeAsync(request);
+    Future<String> response =
+        AsyncHttpUtil.post(contentSearchURL, body, getUpdatedHeaders(headers));
 
-    return response.map(
-        new Mapper<HttpResponse<JsonNode>, Map<String, Object>>() {
-          @Override
-          public Map<String, Object> apply(HttpResponse<JsonNode> response) {
-            try {
-              if (RestUtil.isSuccessful(response)) {
-                JSONObject result = response.getBody().getObject().getJSONObject("result");
-                Map<String, Object> resultMap = jsonToMap(result);
-                Object contents = resultMap.get(JsonKey.CONTENT);
-                resultMap.remove(JsonKey.CONTENT);
-                resultMap.put(JsonKey.CONTENTS, contents);
-                String resmsgId = RestUtil.getFromResponse(response, "params.resmsgid");
-                String apiId = RestUtil.getFromResponse(response, "id");
-                Map<String, Object> param = new HashMap<>();
-                param.put(JsonKey.RES_MSG_ID, resmsgId);
-                param.put(JsonKey.API_ID, apiId);
-                resultMap.put(JsonKey.PARAMS, param);
-                return resultMap;
-              } else {
-                String err = RestUtil.getFromResponse(response, "params.err");
-                String message = RestUtil.getFromResponse(response, "params.errmsg");
-                //    	    				throw new ProjectCommonException(err, message,
-                // ResponseCode.SERVER_ERROR.getResponseCode());
+    return response
+        .map(
+            new Mapper<String, Map<String, Object>>() {
+              @Override
+              public Map<String, Object> apply(String response) {
+                try {
+                  JSONObject responseObject = new JSONObject(response);
+                  JSONObject result = responseObject.getJSONObject("result");
+                  Map<String, Object> resultMap = jsonToMap(result);
+                  Object contents = resultMap.get(JsonKey.CONTENT);
+                  resultMap.remove(JsonKey.CONTENT);
+                  resultMap.put(JsonKey.CONTENTS, contents);
+                  Map<String, Object> param = new HashMap<>();
+                  param.put(
+                      JsonKey.RES_MSG_ID,
+                      responseObject.getJSONObject("params").optString("resmsgid", null));
+                  param.put(JsonKey.API_ID, responseObject.optString("id", null));
+                  resultMap.put(JsonKey.PARAMS, param);
+                  return resultMap;
+                } catch (Exception e) {
+                  return null;
+                }
+              }
+            },
+            ExecutionContexts.global())
+        .recover(
+            new Recover<Map<String, Object>>() {
+              @Override
+              public Map<String, Object> recover(Throwable failure) {
+                ProjectLogger.log(
+                    "ContentSearchUtil:searchContent: Search failed " + failure.getMessage(),
+                    LoggerEnum.ERROR.name());
                 return null;
               }
-            } catch (Exception e) {
-              return null;
-            }
-          }
-        },
-        ExecutionContexts.global());
+            },
+            ExecutionContexts.global());
   }
 
   public static Map<String, Object> jsonToMap(JSONObject object) throws JSONException {
@@ -0,0 +1,49 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Copies of the maps held in caches, which callers are free to modify. */
+public final class CopyUtil {
+
+  private CopyUtil() {}
+
+  /**
+   * Returns a copy of a map in which the nested maps and lists are copied too. Other values are
+   * shared, they are expected to be immutable.
+   *
+   * @param map Map to copy, can be null
+   * @return Copy, null if the map is null
+   */
+  public static Map<String, Object> deepCopy(Map<String, Object> map) {
+    if (null == map) {
+      return null;
+    }
+    Map<String, Object> copy = new HashMap<>();
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      copy.put(entry.getKey(), copyValue(entry.getValue()));
+    }
+    return copy;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object copyValue(Object value) {
+    if (value instanceof Map) {
+      Map<Object, Object> copy = new HashMap<>();
+      for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+        copy.put(entry.getKey(), copyValue(entry.getValue()));
+      }
+      return copy;
+    }
+    if (value instanceof List) {
+      List<Object> copy = new ArrayList<>();
+      for (Object item : (List<Object>) value) {
+        copy.add(copyValue(item));
+      }
+      return copy;
+    }
+    return value;
+  }
+}
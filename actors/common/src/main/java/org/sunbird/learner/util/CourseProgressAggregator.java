@@ -0,0 +1,432 @@
+package org.sunbird.learner.util;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.ProjectUtil.ProgressStatus;
+import org.sunbird.helper.ServiceFactory;
+
+/**
+ * Aggregates the course progress updates of the learner state messages. Updates are sharded by the
+ * user courses key onto partitions which have a single thread each, so the updates of one user
+ * course are never applied concurrently and no increment is lost. Updates of the same user course
+ * within the window are coalesced, and are then applied with one read and one write of the user
+ * course record and one ES partial update.
+ *
+ * <p>Coalescing is local to this JVM: updates of the same user course received by other nodes are
+ * applied by those nodes, concurrently with this one. The user course is therefore written with a
+ * lightweight transaction which only applies if the course progress is still the one read; a write
+ * which is not applied is read again and retried right away a few times, so that the progress added
+ * by another node in between is not overwritten.
+ *
+ * <p>Every partition holds at most {@code sunbird_course_progress_max_queue_size} updates waiting
+ * for its thread; once it is full, callers wait for the partition to catch up. Writes which fail
+ * are retried in the next windows, and dropped after the configured number of retries. The
+ * pending updates are applied before the JVM exits.
+ */
+public final class CourseProgressAggregator {
+
+  /** Time a user course was completed, set when its status first becomes completed. */
+  public static final String COMPLETED_ON = "completedOn";
+
+  private static final String PARTITIONS_KEY = "sunbird_course_progress_partitions";
+  private static final String WINDOW_KEY = "sunbird_course_progress_window";
+  private static final String MAX_RETRIES_KEY = "sunbird_course_progress_max_retries";
+  private static final String MAX_QUEUE_SIZE_KEY = "sunbird_course_progress_max_queue_size";
+  private static final int DEFAULT_PARTITIONS = 4;
+  /** Aggregation window in milliseconds. */
+  private static final int DEFAULT_WINDOW = 1000;
+
+  private static final int DEFAULT_MAX_RETRIES = 3;
+  private static final int DEFAULT_MAX_QUEUE_SIZE = 10000;
+  /** Times a write which is not applied is read again and retried before the next window. */
+  private static final int CONFLICT_RETRIES = 3;
+
+  private static final CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static final int window = ConfigUtil.getInt(WINDOW_KEY, DEFAULT_WINDOW);
+  private static final int maxRetries = ConfigUtil.getInt(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES);
+  private static final int maxQueueSize =
+      Math.max(1, ConfigUtil.getInt(MAX_QUEUE_SIZE_KEY, DEFAULT_MAX_QUEUE_SIZE));
+  private static final Partition[] partitions =
+      new Partition[Math.max(1, ConfigUtil.getInt(PARTITIONS_KEY, DEFAULT_PARTITIONS))];
+
+  private static final AtomicLong updateCount = new AtomicLong();
+  private static final AtomicLong coalescedCount = new AtomicLong();
+  private static final AtomicLong writtenCount = new AtomicLong();
+  private static final AtomicLong retriedCount = new AtomicLong();
+  private static final AtomicLong conflictCount = new AtomicLong();
+  private static final AtomicLong droppedCount = new AtomicLong();
+  private static final AtomicLong throttledCount = new AtomicLong();
+
+  static {
+    for (int i = 0; i < partitions.length; i++) {
+      partitions[i] = new Partition(i);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(CourseProgressAggregator::flush));
+    MetricsRegistry.register("courseProgress", CourseProgressAggregator::getMetrics);
+  }
+
+  private CourseProgressAggregator() {}
+
+  /**
+   * Queues a course progress update.
+   *
+   * @param key User courses primary key
+   * @param progress Number of contents completed by the update
+   * @param content Last read content of the update
+   * @param contentStatus Status of the last read content
+   */
+  public static void add(
+      String key, int progress, Map<String, Object> content, Integer contentStatus) {
+    updateCount.incrementAndGet();
+    Partition partition = partitions[Math.floorMod(key.hashCode(), partitions.length)];
+    if (!partition.permits.tryAcquire()) {
+      throttledCount.incrementAndGet();
+      partition.permits.acquireUninterruptibly();
+    }
+    try {
+      partition.executor.execute(
+          () -> {
+            partition.permits.release();
+            partition.add(key, progress, content, contentStatus);
+          });
+    } catch (RejectedExecutionException e) {
+      partition.permits.release();
+      droppedCount.incrementAndGet();
+      ProjectLogger.log(
+          "CourseProgressAggregator:add: Dropped update of user course " + key,
+          LoggerEnum.ERROR.name());
+    }
+  }
+
+  /**
+   * Applies the queued updates of all the partitions, retrying the failed ones until they are
+   * written or dropped, and waits for them to complete.
+   */
+  public static void flush() {
+    CountDownLatch latch = new CountDownLatch(partitions.length);
+    for (Partition partition : partitions) {
+      try {
+        partition.executor.execute(
+            () -> {
+              try {
+                partition.drain();
+              } finally {
+                latch.countDown();
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        latch.countDown();
+      }
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the count of updates received, coalesced into another update, written, retried in a
+   * later window, read again after a write which failed or was not applied, dropped, and of the
+   * callers which waited for a full partition.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("updates", updateCount.get());
+    metrics.put("coalesced", coalescedCount.get());
+    metrics.put("written", writtenCount.get());
+    metrics.put("retried", retriedCount.get());
+    metrics.put("conflicts", conflictCount.get());
+    metrics.put("dropped", droppedCount.get());
+    metrics.put("throttled", throttledCount.get());
+    return metrics;
+  }
+
+  /**
+   * Returns the content which was accessed last, on basis of the last access time.
+   *
+   * @param current Content
+   * @param next Content
+   * @return Content accessed last
+   */
+  public static Map<String, Object> getLatestContent(
+      Map<String, Object> current, Map<String, Object> next) {
+    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+    simpleDateFormat.setLenient(false);
+    if (current.get(JsonKey.LAST_ACCESS_TIME) == null) {
+      return next;
+    } else if (next.get(JsonKey.LAST_ACCESS_TIME) == null) {
+      return current;
+    }
+    try {
+      Date currentUpdatedTime =
+          simpleDateFormat.parse((String) current.get(JsonKey.LAST_ACCESS_TIME));
+      Date nextUpdatedTime = simpleDateFormat.parse((String) next.get(JsonKey.LAST_ACCESS_TIME));
+      if (currentUpdatedTime.after(nextUpdatedTime)) {
+        return current;
+      } else {
+        return next;
+      }
+    } catch (ParseException e) {
+      ProjectLogger.log(e.getMessage(), e);
+    }
+    return null;
+  }
+
+  /**
+   * Applies the updates, reading again and retrying the ones whose write was not applied.
+   *
+   * @return Updates which could not be written
+   */
+  private static Map<String, ProgressUpdate> apply(Map<String, ProgressUpdate> updates) {
+    Map<String, ProgressUpdate> failed = applyOnce(updates);
+    for (int i = 0; i < CONFLICT_RETRIES && !failed.isEmpty(); i++) {
+      conflictCount.addAndGet(failed.size());
+      failed = applyOnce(failed);
+    }
+    return failed;
+  }
+
+  /**
+   * Applies the updates, one conditional write per user course.
+   *
+   * @return Updates which could not be written or whose write was not applied
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, ProgressUpdate> applyOnce(Map<String, ProgressUpdate> updates) {
+    Util.DbInfo dbInfo = Util.dbInfoMap.get(JsonKey.LEARNER_COURSE_DB);
+    Response response =
+        cassandraOperation.getRecordsByPrimaryKeys(
+            dbInfo.getKeySpace(),
+            dbInfo.getTableName(),
+            new ArrayList<>(updates.keySet()),
+            JsonKey.ID);
+    List<Map<String, Object>> courseList =
+        (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+    // user courses which do not exist are not created
+    List<Map<String, Object>> updatedCourses = new ArrayList<>();
+    List<Map<String, Object>> conditions = new ArrayList<>();
+    if (null != courseList) {
+      Timestamp ts = new Timestamp(new Date().getTime());
+      for (Map<String, Object> course : courseList) {
+        ProgressUpdate update = updates.get(course.get(JsonKey.ID));
+        if (null != update) {
+          Map<String, Object> updateDb = getUpdatedCourse(course, update, ts);
+          updateDb.put(JsonKey.DATE_TIME, ts);
+          updatedCourses.add(updateDb);
+          // the write only applies if no other node changed the progress since it was read
+          Map<String, Object> condition = new HashMap<>();
+          condition.put(JsonKey.COURSE_PROGRESS, course.get(JsonKey.COURSE_PROGRESS));
+          conditions.add(condition);
+        }
+      }
+    }
+    Map<String, ProgressUpdate> failed = new LinkedHashMap<>();
+    for (Map<String, Object> updateDb :
+        CassandraAsyncWriter.updateIf(
+            dbInfo.getKeySpace(),
+            dbInfo.getTableName(),
+            updatedCourses,
+            Collections.singletonList(JsonKey.ID),
+            conditions)) {
+      String id = (String) updateDb.get(JsonKey.ID);
+      failed.put(id, updates.get(id));
+    }
+    for (Map<String, Object> updateDb : updatedCourses) {
+      if (failed.containsKey(updateDb.get(JsonKey.ID))) {
+        continue;
+      }
+      writtenCount.incrementAndGet();
+      // dates are timestamps in Cassandra but are mapped as formatted dates in ES
+      updateDb.put(
+          JsonKey.DATE_TIME, ProjectUtil.formatDate((Timestamp) updateDb.get(JsonKey.DATE_TIME)));
+      if (updateDb.containsKey(COMPLETED_ON)) {
+        updateDb.put(COMPLETED_ON, ProjectUtil.formatDate((Timestamp) updateDb.get(COMPLETED_ON)));
+      }
+      EsWriteBehindQueue.update(
+          ProjectUtil.EsIndex.sunbird.getIndexName(),
+          ProjectUtil.EsType.usercourses.getTypeName(),
+          (String) updateDb.get(JsonKey.ID),
+          updateDb);
+    }
+    return failed;
+  }
+
+  private static Map<String, Object> getUpdatedCourse(
+      Map<String, Object> course, ProgressUpdate update, Timestamp ts) {
+    Map<String, Object> updateDb = new HashMap<>();
+    Integer courseProgress = 0;
+    if (ProjectUtil.isNotNull(course.get(JsonKey.COURSE_PROGRESS))) {
+      courseProgress = (Integer) course.get(JsonKey.COURSE_PROGRESS);
+    }
+    courseProgress = courseProgress + update.progress;
+    // update status on basis of leaf node count and progress ---
+    if (ProjectUtil.isNotNull(course.get(JsonKey.LEAF_NODE_COUNT))) {
+      Integer leafNodeCount = (Integer) course.get(JsonKey.LEAF_NODE_COUNT);
+      if (0 == leafNodeCount || leafNodeCount > courseProgress) {
+        updateDb.put(JsonKey.STATUS, ProgressStatus.STARTED.getValue());
+      } else {
+        updateDb.put(JsonKey.STATUS, ProgressStatus.COMPLETED.getValue());
+        if (!Integer.valueOf(ProgressStatus.COMPLETED.getValue())
+            .equals(course.get(JsonKey.STATUS))) {
+          updateDb.put(COMPLETED_ON, ts);
+        }
+      }
+    } else {
+      updateDb.put(JsonKey.STATUS, ProgressStatus.STARTED.getValue());
+    }
+    updateDb.put(JsonKey.ID, course.get(JsonKey.ID));
+    updateDb.put(JsonKey.COURSE_PROGRESS, courseProgress);
+    updateDb.put(JsonKey.LAST_READ_CONTENTID, update.content.get(JsonKey.CONTENT_ID));
+    updateDb.put(JsonKey.LAST_READ_CONTENT_STATUS, update.contentStatus);
+    return updateDb;
+  }
+
+  /** Coalesced update of one user course. */
+  private static class ProgressUpdate {
+    private int progress;
+    private Map<String, Object> content;
+    private Integer contentStatus;
+    private int attempt = 0;
+
+    ProgressUpdate(int progress, Map<String, Object> content, Integer contentStatus) {
+      this.progress = progress;
+      this.content = content;
+      this.contentStatus = contentStatus;
+    }
+
+    void merge(int progress, Map<String, Object> content, Integer contentStatus) {
+      this.progress += progress;
+      Map<String, Object> latest = getLatestContent(this.content, content);
+      if (latest == content) {
+        this.content = content;
+        this.contentStatus = contentStatus;
+      }
+    }
+  }
+
+  /**
+   * Partition of the user courses. Pending updates are only accessed by the thread of the
+   * partition.
+   */
+  private static class Partition {
+    private final ScheduledExecutorService executor;
+    private final Semaphore permits = new Semaphore(maxQueueSize);
+    private Map<String, ProgressUpdate> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    Partition(int index) {
+      executor =
+          Executors.newSingleThreadScheduledExecutor(
+              ExecutorManager.newDaemonThreadFactory("course-progress-" + index));
+    }
+
+    void add(String key, int progress, Map<String, Object> content, Integer contentStatus) {
+      ProgressUpdate update = pending.get(key);
+      if (null == update) {
+        pending.put(key, new ProgressUpdate(progress, content, contentStatus));
+      } else {
+        update.merge(progress, content, contentStatus);
+        coalescedCount.incrementAndGet();
+      }
+      if (!flushScheduled) {
+        flushScheduled = true;
+        executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    void flush() {
+      flushScheduled = false;
+      if (pending.isEmpty()) {
+        return;
+      }
+      Map<String, ProgressUpdate> updates = pending;
+      pending = new LinkedHashMap<>();
+      Map<String, ProgressUpdate> failed;
+      try {
+        failed = apply(updates);
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "CourseProgressAggregator:flush: Unable to read "
+                + updates.size()
+                + " user courses "
+                + e.getMessage(),
+            e);
+        failed = updates;
+      }
+      if (!failed.isEmpty()) {
+        retry(failed);
+      }
+    }
+
+    /**
+     * Applies the pending updates until all of them are written or dropped. Every round either
+     * empties the pending updates or brings the failed ones one attempt closer to being dropped.
+     */
+    void drain() {
+      flush();
+      while (!pending.isEmpty()) {
+        try {
+          Thread.sleep(window);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        flush();
+      }
+    }
+
+    /**
+     * Merges the failed updates into the pending ones, so they are applied in the next window. The
+     * updates written in the same round are not given, so only the failed ones count an attempt.
+     */
+    private void retry(Map<String, ProgressUpdate> updates) {
+      for (Map.Entry<String, ProgressUpdate> entry : updates.entrySet()) {
+        ProgressUpdate update = entry.getValue();
+        if (++update.attempt > maxRetries) {
+          droppedCount.incrementAndGet();
+          ProjectLogger.log(
+              "CourseProgressAggregator:retry: Dropped update of user course " + entry.getKey(),
+              LoggerEnum.ERROR.name());
+          continue;
+        }
+        retriedCount.incrementAndGet();
+        ProgressUpdate newer = pending.get(entry.getKey());
+        if (null != newer) {
+          // the failed update is older, so the content of the newer one is kept
+          newer.progress += update.progress;
+          newer.attempt = Math.max(newer.attempt, update.attempt);
+        } else {
+          pending.put(entry.getKey(), update);
+        }
+      }
+      if (!pending.isEmpty() && !flushScheduled) {
+        flushScheduled = true;
+        executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 /** */
 package org.sunbird.learner.util;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,58 +16,233 @@ import org.sunbird.helper.ServiceFactory;
 /**
  * This class will handle the data cache.
  *
+ * <p>Every cached table is reloaded into a fresh map which is then published with a single
+ * reference swap, so readers always see either the old or the new snapshot and rows deleted from
+ * the table are dropped on the next refresh. Individual rows can be pushed into the live snapshot
+ * by the write paths (see {@link #updatePage}, {@link #updateSection} and {@link
+ * #updateConfigSetting}) without waiting for the next scheduled reload.
+ *
  * @author Amit Kumar
  */
 public class DataCacheHandler implements Runnable {
+
+  public static final String PAGE_CACHE = "page_management";
+  public static final String SECTION_CACHE = "page_section";
+  public static final String ROLE_CACHE = "role";
+  public static final String ORG_TYPE_CACHE = "org_type";
+  public static final String CONFIG_SETTINGS_CACHE = "system_settings";
+
+  /** Refresh interval (in minutes) used when no table specific interval is configured. */
+  private static final long DEFAULT_REFRESH_INTERVAL = 240;
+
+  private static final String REFRESH_INTERVAL_KEY_PREFIX = "sunbird_cache_refresh_interval_";
+  private static final Object REMOVED = new Object();
+
   /**
    * pageMap is the map of (orgId:pageName) and page Object (i.e map of string , object) sectionMap
    * is the map of section Id and section Object (i.e map of string , object)
    */
-  private static Map<String, Map<String, Object>> pageMap = new ConcurrentHashMap<>();
+  private static volatile Map<String, Map<String, Object>> pageMap = new ConcurrentHashMap<>();
+
+  private static volatile Map<String, Map<String, Object>> sectionMap = new ConcurrentHashMap<>();
+  private static volatile Map<String, Object> roleMap = new ConcurrentHashMap<>();
+  private static volatile Map<String, String> orgTypeMap = new ConcurrentHashMap<>();
+  private static volatile Map<String, String> configSettings = new ConcurrentHashMap<>();
+
+  /**
+   * Writes pushed while a snapshot of the table is being rebuilt. They are replayed on top of the
+   * new snapshot before it is published so that the reload does not undo them.
+   */
+  private static final Map<String, Map<String, Object>> pendingWrites = new ConcurrentHashMap<>();
+
+  private static final Map<String, Map<String, Object>> cacheStats = new ConcurrentHashMap<>();
+  private static final Map<String, Object> locks = new HashMap<>();
+
+  static {
+    locks.put(PAGE_CACHE, new Object());
+    locks.put(SECTION_CACHE, new Object());
+    locks.put(ROLE_CACHE, new Object());
+    locks.put(ORG_TYPE_CACHE, new Object());
+    locks.put(CONFIG_SETTINGS_CACHE, new Object());
+    MetricsRegistry.register("dataCache", () -> new HashMap<String, Object>(cacheStats));
+  }
 
-  private static Map<String, Map<String, Object>> sectionMap = new ConcurrentHashMap<>();
-  private static Map<String, Object> roleMap = new ConcurrentHashMap<>();
-  private static Map<String, String> orgTypeMap = new ConcurrentHashMap<>();
-  private static Map<String, String> configSettings = new ConcurrentHashMap<>();
   private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
   private static final String KEY_SPACE_NAME = "sunbird";
 
+  private final String cacheName;
+
+  /** Creates a handler which refreshes all the cached tables on every run. */
+  public DataCacheHandler() {
+    this(null);
+  }
+
+  /**
+   * Creates a handler which refreshes only the given cache on every run.
+   *
+   * @param cacheName One of the cache name constants declared in this class
+   */
+  public DataCacheHandler(String cacheName) {
+    this.cacheName = cacheName;
+  }
+
   @Override
   public void run() {
+    if (StringUtils.isNotBlank(cacheName)) {
+      refresh(cacheName);
+      return;
+    }
     ProjectLogger.log("DataCacheHandler:run: Cache refresh started.", LoggerEnum.INFO.name());
-    cache(pageMap, "page_management");
-    cache(sectionMap, "page_section");
-    roleCache(roleMap);
-    orgTypeCache(orgTypeMap);
-    cacheSystemConfig(configSettings);
+    refresh(PAGE_CACHE);
+    refresh(SECTION_CACHE);
+    refresh(ROLE_CACHE);
+    refresh(ORG_TYPE_CACHE);
+    refresh(CONFIG_SETTINGS_CACHE);
     ProjectLogger.log("DataCacheHandler:run: Cache refresh completed.", LoggerEnum.INFO.name());
   }
 
-  private void cacheSystemConfig(Map<String, String> configSettings) {
+  /**
+   * Reloads the given cache from its table and publishes the new snapshot.
+   *
+   * @param name Cache name
+   */
+  public void refresh(String name) {
+    long startTime = System.currentTimeMillis();
+    pendingWrites.put(name, new ConcurrentHashMap<>());
+    try {
+      int size;
+      switch (name) {
+        case PAGE_CACHE:
+          Map<String, Map<String, Object>> pages = cache(PAGE_CACHE);
+          if (pages == null) {
+            return;
+          }
+          synchronized (locks.get(name)) {
+            replayPendingWrites(name, pages);
+            pageMap = pages;
+          }
+          size = pages.size();
+          break;
+        case SECTION_CACHE:
+          Map<String, Map<String, Object>> sections = cache(JsonKey.PAGE_SECTION);
+          if (sections == null) {
+            return;
+          }
+          synchronized (locks.get(name)) {
+            replayPendingWrites(name, sections);
+            sectionMap = sections;
+          }
+          size = sections.size();
+          break;
+        case ROLE_CACHE:
+          Map<String, Object> roles = roleCache();
+          synchronized (locks.get(name)) {
+            replayPendingWrites(name, roles);
+            roleMap = roles;
+          }
+          size = roles.size();
+          break;
+        case ORG_TYPE_CACHE:
+          Map<String, String> orgTypes = orgTypeCache();
+          synchronized (locks.get(name)) {
+            replayPendingWrites(name, orgTypes);
+            orgTypeMap = orgTypes;
+          }
+          size = orgTypes.size();
+          break;
+        case CONFIG_SETTINGS_CACHE:
+          Map<String, String> settings = cacheSystemConfig();
+          synchronized (locks.get(name)) {
+            replayPendingWrites(name, settings);
+            configSettings = settings;
+          }
+          size = settings.size();
+          break;
+        default:
+          ProjectLogger.log(
+              "DataCacheHandler:refresh: Unknown cache name " + name, LoggerEnum.ERROR.name());
+          return;
+      }
+      long duration = System.currentTimeMillis() - startTime;
+      updateStats(name, size, duration);
+      ProjectLogger.log(
+          "DataCacheHandler:refresh: "
+              + name
+              + " cache refreshed with size "
+              + size
+              + " in "
+              + duration
+              + " ms",
+          LoggerEnum.INFO.name());
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "DataCacheHandler:refresh: Exception in refreshing " + name + " " + e.getMessage(), e);
+    } finally {
+      pendingWrites.remove(name);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void replayPendingWrites(String name, Map<String, V> snapshot) {
+    Map<String, Object> writes = pendingWrites.get(name);
+    if (writes == null) {
+      return;
+    }
+    for (Map.Entry<String, Object> entry : writes.entrySet()) {
+      if (entry.getValue() == REMOVED) {
+        snapshot.remove(entry.getKey());
+      } else {
+        snapshot.put(entry.getKey(), (V) entry.getValue());
+      }
+    }
+  }
+
+  private static void updateStats(String name, int size, long duration) {
+    Map<String, Object> stats = new HashMap<>();
+    Map<String, Object> previous = cacheStats.get(name);
+    long refreshCount = 1;
+    if (previous != null) {
+      refreshCount += (long) previous.get("refreshCount");
+    }
+    stats.put("refreshCount", refreshCount);
+    stats.put("size", size);
+    stats.put("refreshDuration", duration);
+    stats.put("lastRefreshTime", System.currentTimeMillis());
+    cacheStats.put(name, stats);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, String> cacheSystemConfig() {
+    Map<String, String> configSettings = new ConcurrentHashMap<>();
     Response response =
         cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.SYSTEM_SETTINGS_DB);
     List<Map<String, Object>> responseList =
         (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
     if (null != responseList && !responseList.isEmpty()) {
       for (Map<String, Object> resultMap : responseList) {
-        if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.PHONE_UNIQUE)
-            && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
-          configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
-        } else if (((String) resultMap.get(JsonKey.FIELD)).equalsIgnoreCase(JsonKey.EMAIL_UNIQUE)
-            && StringUtils.isBlank((String) resultMap.get(JsonKey.VALUE))) {
-          configSettings.put(((String) resultMap.get(JsonKey.FIELD)), String.valueOf(false));
-        } else {
-          configSettings.put(
-              ((String) resultMap.get(JsonKey.FIELD)), (String) resultMap.get(JsonKey.VALUE));
-        }
+        configSettings.put(
+            ((String) resultMap.get(JsonKey.FIELD)),
+            getConfigValue((String) resultMap.get(JsonKey.FIELD), resultMap.get(JsonKey.VALUE)));
       }
     } else {
       configSettings.put(JsonKey.PHONE_UNIQUE, String.valueOf(false));
       configSettings.put(JsonKey.EMAIL_UNIQUE, String.valueOf(false));
     }
+    return configSettings;
   }
 
-  private void orgTypeCache(Map<String, String> orgTypeMap) {
+  private static String getConfigValue(String field, Object value) {
+    if ((field.equalsIgnoreCase(JsonKey.PHONE_UNIQUE)
+            || field.equalsIgnoreCase(JsonKey.EMAIL_UNIQUE))
+        && StringUtils.isBlank((String) value)) {
+      return String.valueOf(false);
+    }
+    return (String) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, String> orgTypeCache() {
+    Map<String, String> orgTypeMap = new ConcurrentHashMap<>();
     Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ORG_TYPE_DB);
     List<Map<String, Object>> responseList =
         (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
@@ -77,9 +253,12 @@ public class DataCacheHandler implements Runnable {
             (String) resultMap.get(JsonKey.ID));
       }
     }
+    return orgTypeMap;
   }
 
-  private void roleCache(Map<String, Object> roleMap) {
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> roleCache() {
+    Map<String, Object> roleMap = new ConcurrentHashMap<>();
     Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, JsonKey.ROLE_GROUP);
     List<Map<String, Object>> responseList =
         (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
@@ -96,10 +275,12 @@ public class DataCacheHandler implements Runnable {
         roleMap.put((String) resultMap2.get(JsonKey.ID), resultMap2.get(JsonKey.ID));
       }
     }
+    return roleMap;
   }
 
   @SuppressWarnings("unchecked")
-  private void cache(Map<String, Map<String, Object>> map, String tableName) {
+  private Map<String, Map<String, Object>> cache(String tableName) {
+    Map<String, Map<String, Object>> map = new ConcurrentHashMap<>();
     try {
       Response response = cassandraOperation.getAllRecords(KEY_SPACE_NAME, tableName);
       List<Map<String, Object>> responseList =
@@ -109,20 +290,114 @@ public class DataCacheHandler implements Runnable {
           if (tableName.equalsIgnoreCase(JsonKey.PAGE_SECTION)) {
             map.put((String) resultMap.get(JsonKey.ID), resultMap);
           } else {
-            String orgId =
-                (((String) resultMap.get(JsonKey.ORGANISATION_ID)) == null
-                    ? "NA"
-                    : (String) resultMap.get(JsonKey.ORGANISATION_ID));
-            map.put(orgId + ":" + ((String) resultMap.get(JsonKey.PAGE_NAME)), resultMap);
+            map.put(getPageKey(resultMap), resultMap);
           }
         }
       }
       ProjectLogger.log("pagemap keyset " + map.keySet());
       ProjectLogger.log(tableName + " cache size: " + map.size(), LoggerEnum.INFO.name());
+      return map;
     } catch (Exception e) {
       ProjectLogger.log(
           "DataCacheHandler:cache: Exception in retrieving page section " + e.getMessage(), e);
     }
+    return null;
+  }
+
+  private static String getPageKey(Map<String, Object> page) {
+    String orgId =
+        page.get(JsonKey.ORGANISATION_ID) == null
+            ? "NA"
+            : (String) page.get(JsonKey.ORGANISATION_ID);
+    return orgId + ":" + ((String) page.get(JsonKey.PAGE_NAME));
+  }
+
+  /**
+   * Applies a single write to the live snapshot of a cache, recording it so that a reload running
+   * concurrently does not overwrite it with stale data.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static void write(String name, String key, Object value) {
+    synchronized (locks.get(name)) {
+      Map<String, Object> writes = pendingWrites.get(name);
+      if (writes != null) {
+        writes.put(key, value);
+      }
+      Map snapshot = getSnapshot(name);
+      if (value == REMOVED) {
+        snapshot.remove(key);
+      } else {
+        snapshot.put(key, value);
+      }
+    }
+  }
+
+  private static Map<String, ?> getSnapshot(String name) {
+    switch (name) {
+      case PAGE_CACHE:
+        return pageMap;
+      case SECTION_CACHE:
+        return sectionMap;
+      case ROLE_CACHE:
+        return roleMap;
+      case ORG_TYPE_CACHE:
+        return orgTypeMap;
+      default:
+        return configSettings;
+    }
+  }
+
+  /**
+   * Pushes a created or updated page into the page cache.
+   *
+   * @param page Page details as written to page_management
+   */
+  public static void updatePage(Map<String, Object> page) {
+    write(PAGE_CACHE, getPageKey(page), page);
+  }
+
+  /**
+   * Pushes a created or updated page section into the section cache.
+   *
+   * @param section Section details as written to page_section
+   */
+  public static void updateSection(Map<String, Object> section) {
+    write(SECTION_CACHE, (String) section.get(JsonKey.ID), section);
+  }
+
+  /**
+   * Pushes an updated system setting into the config settings cache.
+   *
+   * @param field Setting field name
+   * @param value Setting value
+   */
+  public static void updateConfigSetting(String field, String value) {
+    if (StringUtils.isBlank(field)) {
+      return;
+    }
+    String configValue = getConfigValue(field, value);
+    write(CONFIG_SETTINGS_CACHE, field, configValue == null ? REMOVED : configValue);
+  }
+
+  /**
+   * Returns the refresh interval (in minutes) of a cache. It can be overridden per cache with the
+   * sunbird_cache_refresh_interval_{cacheName} configuration.
+   *
+   * @param name Cache name
+   * @return Refresh interval in minutes
+   */
+  public static long getRefreshInterval(String name) {
+    return ConfigUtil.getLong(REFRESH_INTERVAL_KEY_PREFIX + name, DEFAULT_REFRESH_INTERVAL);
+  }
+
+  /**
+   * Returns refresh metrics (refresh count, size, last refresh duration and time) for every cache.
+   * They are also reported by the complete health check through {@link MetricsRegistry}.
+   *
+   * @return Map of cache name and its metrics
+   */
+  public static Map<String, Map<String, Object>> getCacheStats() {
+    return new HashMap<>(cacheStats);
   }
 
   /** @return the pageMap */
@@ -11,7 +11,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHeaders;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.sunbird.common.models.util.HttpUtil;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
@@ -39,24 +38,25 @@ public final class EkStepRequestUtil {
     String response = "";
     JSONObject jObject;
     try {
-    	  String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
-      headers.put(
+      String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
+      Map<String, String> requestHeaders = new HashMap<>(headers);
+      requestHeaders.put(
           JsonKey.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.EKSTEP_AUTHORIZATION));
-      headers.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
-      headers.remove(HttpHeaders.ACCEPT_ENCODING.toLowerCase());
-      headers.put(HttpHeaders.ACCEPT_ENCODING.toLowerCase(), "UTF-8");
-      if (StringUtils.isBlank(headers.get(JsonKey.AUTHORIZATION))) {
-        headers.put(
+      requestHeaders.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+      requestHeaders.remove(HttpHeaders.ACCEPT_ENCODING.toLowerCase());
+      requestHeaders.put(HttpHeaders.ACCEPT_ENCODING.toLowerCase(), "UTF-8");
+      if (StringUtils.isBlank(requestHeaders.get(JsonKey.AUTHORIZATION))) {
+        requestHeaders.put(
             JsonKey.AUTHORIZATION,
             PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_AUTHORIZATION));
       }
       ProjectLogger.log("making call for content search ==" + params, LoggerEnum.INFO.name());
       response =
-          HttpUtil.sendPostRequest(
+          AsyncHttpUtil.sendPostRequest(
               baseSearchUrl
                   + PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_CONTENT_SEARCH_URL),
               params,
-              headers);
+              requestHeaders);
       ProjectLogger.log("Content serach response is ==" + response, LoggerEnum.INFO.name());
       jObject = new JSONObject(response);
       String resmsgId = (String) jObject.getJSONObject("params").get("resmsgid");
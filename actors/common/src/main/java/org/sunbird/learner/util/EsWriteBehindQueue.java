@@ -0,0 +1,387 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+
+/**
+ * Write behind queue for ES index updates. Writes are held for a short window, writes of the same
+ * document within the window are coalesced into one, and the queue is then flushed with bulk
+ * requests. Complete documents are sent as bulk index requests; partial updates have no bulk API
+ * in {@link ElasticSearchUtil} so they are sent one per document, but still coalesced, and
+ * concurrently on a pool of {@code sunbird_es_write_behind_update_pool_size} threads.
+ *
+ * <p>Failed writes are retried with exponential back off. A document which is read to be modified
+ * and written back must be read with {@link #read(String, String, String)}, so that writes which
+ * are not flushed yet are not lost.
+ *
+ * <p>The queue holds at most {@code sunbird_es_write_behind_max_queue_size} documents. Once it is
+ * full, the writes of documents which are not queued are sent to ES by the caller, which slows the
+ * callers down to the rate ES accepts.
+ */
+public final class EsWriteBehindQueue {
+
+  private static final String WINDOW_KEY = "sunbird_es_write_behind_window";
+  private static final String BULK_SIZE_KEY = "sunbird_es_write_behind_bulk_size";
+  private static final String MAX_RETRIES_KEY = "sunbird_es_write_behind_max_retries";
+  private static final String MAX_QUEUE_SIZE_KEY = "sunbird_es_write_behind_max_queue_size";
+  private static final String UPDATE_POOL_SIZE_KEY = "sunbird_es_write_behind_update_pool_size";
+  /** Flush window in milliseconds. */
+  private static final int DEFAULT_WINDOW = 500;
+
+  private static final int DEFAULT_BULK_SIZE = 500;
+  private static final int DEFAULT_MAX_RETRIES = 5;
+  private static final int DEFAULT_MAX_QUEUE_SIZE = 10000;
+  private static final int DEFAULT_UPDATE_POOL_SIZE = 8;
+  /** Back off of the first retry in milliseconds, doubled on every retry. */
+  private static final long RETRY_BACK_OFF = 1000L;
+
+  private static final int bulkSize = ConfigUtil.getInt(BULK_SIZE_KEY, DEFAULT_BULK_SIZE);
+  private static final int maxRetries = ConfigUtil.getInt(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES);
+  private static final int maxQueueSize =
+      ConfigUtil.getInt(MAX_QUEUE_SIZE_KEY, DEFAULT_MAX_QUEUE_SIZE);
+  private static final ExecutorService updateExecutor =
+      ExecutorManager.newBoundedExecutor(
+          "es-write-behind-update",
+          ConfigUtil.getInt(UPDATE_POOL_SIZE_KEY, DEFAULT_UPDATE_POOL_SIZE),
+          bulkSize);
+  private static final Object lock = new Object();
+  private static final Map<String, PendingWrite> pending = new LinkedHashMap<>();
+  private static final Map<String, PendingWrite> inFlight = new HashMap<>();
+
+  private static final AtomicLong enqueuedCount = new AtomicLong();
+  private static final AtomicLong coalescedCount = new AtomicLong();
+  private static final AtomicLong writtenCount = new AtomicLong();
+  private static final AtomicLong requestCount = new AtomicLong();
+  private static final AtomicLong retriedCount = new AtomicLong();
+  private static final AtomicLong droppedCount = new AtomicLong();
+  private static final AtomicLong directCount = new AtomicLong();
+  private static volatile long lastFlushLag = 0;
+
+  static {
+    int window = ConfigUtil.getInt(WINDOW_KEY, DEFAULT_WINDOW);
+    ScheduledExecutorService flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            ExecutorManager.newDaemonThreadFactory("es-write-behind"));
+    flusher.scheduleWithFixedDelay(
+        EsWriteBehindQueue::flush, window, window, TimeUnit.MILLISECONDS);
+    Runtime.getRuntime().addShutdownHook(new Thread(EsWriteBehindQueue::flush));
+    MetricsRegistry.register("esWriteBehindQueue", EsWriteBehindQueue::getMetrics);
+  }
+
+  private EsWriteBehindQueue() {}
+
+  /**
+   * Queues a complete document, replacing any write of the document which is not flushed yet.
+   *
+   * @param index Index name
+   * @param type Type name
+   * @param identifier Document id
+   * @param data Document, which is not modified
+   * @return True if the write is queued or, when the queue is full, sent to ES successfully
+   */
+  public static boolean index(
+      String index, String type, String identifier, Map<String, Object> data) {
+    return enqueue(index, type, identifier, data, true);
+  }
+
+  /**
+   * Queues a partial update of a document, merged into any write of the document which is not
+   * flushed yet.
+   *
+   * @param index Index name
+   * @param type Type name
+   * @param identifier Document id
+   * @param data Fields to update, which are not modified
+   * @return True if the write is queued or, when the queue is full, sent to ES successfully
+   */
+  public static boolean update(
+      String index, String type, String identifier, Map<String, Object> data) {
+    return enqueue(index, type, identifier, data, false);
+  }
+
+  /**
+   * Reads a document from ES along with the writes of it which are not flushed yet.
+   *
+   * @param index Index name
+   * @param type Type name
+   * @param identifier Document id
+   * @return Document, empty if it does not exist
+   */
+  public static Map<String, Object> read(String index, String type, String identifier) {
+    String key = getKey(index, type, identifier);
+    List<PendingWrite> writes = new ArrayList<>();
+    synchronized (lock) {
+      // in flight write is older than the pending one, so it is applied first
+      if (inFlight.containsKey(key)) {
+        writes.add(inFlight.get(key).copy());
+      }
+      if (pending.containsKey(key)) {
+        writes.add(pending.get(key).copy());
+      }
+    }
+    Map<String, Object> document = null;
+    for (PendingWrite write : writes) {
+      if (write.full) {
+        document = write.data;
+      } else {
+        if (null == document) {
+          document = ElasticSearchUtil.getDataByIdentifier(index, type, identifier);
+        }
+        document.putAll(write.data);
+      }
+    }
+    if (null == document) {
+      document = ElasticSearchUtil.getDataByIdentifier(index, type, identifier);
+    }
+    return document;
+  }
+
+  private static boolean enqueue(
+      String index, String type, String identifier, Map<String, Object> data, boolean full) {
+    if (StringUtils.isBlank(identifier) || null == data) {
+      ProjectLogger.log(
+          "EsWriteBehindQueue:enqueue: Ignored write without identifier for type " + type,
+          LoggerEnum.ERROR.name());
+      return false;
+    }
+    String key = getKey(index, type, identifier);
+    synchronized (lock) {
+      PendingWrite write = pending.get(key);
+      if (null == write) {
+        // a write of a document in flight is queued even if the queue is full, so that it is not
+        // overwritten by the older write in flight if that one is retried
+        if (pending.size() < maxQueueSize || inFlight.containsKey(key)) {
+          enqueuedCount.incrementAndGet();
+          pending.put(key, new PendingWrite(index, type, identifier, data, full));
+          return true;
+        }
+      } else {
+        enqueuedCount.incrementAndGet();
+        coalescedCount.incrementAndGet();
+        if (full) {
+          write.data = new HashMap<>(data);
+          write.full = true;
+        } else {
+          write.data.putAll(data);
+        }
+        return true;
+      }
+    }
+    directCount.incrementAndGet();
+    requestCount.incrementAndGet();
+    boolean response = write(new PendingWrite(index, type, identifier, data, full));
+    if (!response) {
+      ProjectLogger.log(
+          "EsWriteBehindQueue:enqueue: Failed to write " + key + " with the queue full",
+          LoggerEnum.ERROR.name());
+    }
+    return response;
+  }
+
+  /** Sends a single write to ES. */
+  private static boolean write(PendingWrite write) {
+    if (write.full) {
+      return StringUtils.isNotBlank(
+          ElasticSearchUtil.createData(write.index, write.type, write.identifier, write.data));
+    }
+    return ElasticSearchUtil.updateData(write.index, write.type, write.identifier, write.data);
+  }
+
+  /** Sends the queued writes which are due to ES. */
+  static void flush() {
+    try {
+      List<PendingWrite> writes = takeDueWrites();
+      if (writes.isEmpty()) {
+        return;
+      }
+      Map<String, List<PendingWrite>> documents = new HashMap<>();
+      List<CompletableFuture<Void>> updates = new ArrayList<>();
+      for (PendingWrite write : writes) {
+        if (write.full && isBulkWritable(write)) {
+          documents.computeIfAbsent(write.index + "/" + write.type, k -> new ArrayList<>());
+          documents.get(write.index + "/" + write.type).add(write);
+        } else {
+          updates.add(CompletableFuture.runAsync(() -> flushSingle(write), updateExecutor));
+        }
+      }
+      for (List<PendingWrite> typeWrites : documents.values()) {
+        for (int i = 0; i < typeWrites.size(); i += bulkSize) {
+          flushBulk(typeWrites.subList(i, Math.min(i + bulkSize, typeWrites.size())));
+        }
+      }
+      // the next flush must not take a write of a document before this one completed it
+      CompletableFuture.allOf(updates.toArray(new CompletableFuture[0])).join();
+    } catch (Exception e) {
+      ProjectLogger.log("EsWriteBehindQueue:flush: Exception occurred " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The bulk API takes the document id from the id field, so a document whose id field is set to
+   * something else than its identifier is sent on its own.
+   */
+  private static boolean isBulkWritable(PendingWrite write) {
+    Object id = write.data.get(JsonKey.ID);
+    return null == id || write.identifier.equals(id);
+  }
+
+  private static void flushSingle(PendingWrite write) {
+    requestCount.incrementAndGet();
+    boolean response = false;
+    try {
+      response = write(write);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "EsWriteBehindQueue:flushSingle: Failed to write " + write.key + " " + e.getMessage(), e);
+    }
+    complete(write, response);
+  }
+
+  private static void flushBulk(List<PendingWrite> writes) {
+    List<Map<String, Object>> dataList = new ArrayList<>();
+    for (PendingWrite write : writes) {
+      // set the id fields as a single write does, on a copy so that a retried write is unchanged
+      Map<String, Object> document = new HashMap<>(write.data);
+      document.put(JsonKey.ID, write.identifier);
+      document.put(JsonKey.IDENTIFIER, write.identifier);
+      dataList.add(document);
+    }
+    requestCount.incrementAndGet();
+    boolean response =
+        ElasticSearchUtil.bulkInsertData(writes.get(0).index, writes.get(0).type, dataList);
+    for (PendingWrite write : writes) {
+      complete(write, response);
+    }
+  }
+
+  private static List<PendingWrite> takeDueWrites() {
+    long now = System.currentTimeMillis();
+    List<PendingWrite> writes = new ArrayList<>();
+    synchronized (lock) {
+      Iterator<PendingWrite> iterator = pending.values().iterator();
+      while (iterator.hasNext()) {
+        PendingWrite write = iterator.next();
+        if (write.retryTime <= now && !inFlight.containsKey(write.key)) {
+          iterator.remove();
+          inFlight.put(write.key, write);
+          writes.add(write);
+          lastFlushLag = now - write.enqueuedTime;
+        }
+      }
+    }
+    return writes;
+  }
+
+  private static void complete(PendingWrite write, boolean success) {
+    synchronized (lock) {
+      inFlight.remove(write.key);
+      if (success) {
+        writtenCount.incrementAndGet();
+        return;
+      }
+      write.retries++;
+      if (write.retries > maxRetries) {
+        droppedCount.incrementAndGet();
+        ProjectLogger.log(
+            "EsWriteBehindQueue:complete: Dropped write of "
+                + write.key
+                + " after "
+                + maxRetries
+                + " retries",
+            LoggerEnum.ERROR.name());
+        return;
+      }
+      retriedCount.incrementAndGet();
+      write.retryTime = System.currentTimeMillis() + (RETRY_BACK_OFF << (write.retries - 1));
+      PendingWrite newer = pending.get(write.key);
+      if (null == newer) {
+        pending.put(write.key, write);
+      } else if (!newer.full) {
+        // apply the newer partial update over the failed write
+        write.data.putAll(newer.data);
+        newer.data = write.data;
+        newer.full = write.full;
+        newer.retries = write.retries;
+        newer.retryTime = write.retryTime;
+        newer.enqueuedTime = write.enqueuedTime;
+      }
+    }
+  }
+
+  /**
+   * Returns the queue metrics: queue depth, age of the oldest queued write and lag of the last
+   * flush in milliseconds, and the counts of queued, coalesced, written, retried and dropped
+   * writes, of writes sent by the callers while the queue was full and of ES requests.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    long now = System.currentTimeMillis();
+    long oldest = now;
+    synchronized (lock) {
+      metrics.put("queueDepth", pending.size());
+      metrics.put("inFlight", inFlight.size());
+      for (PendingWrite write : pending.values()) {
+        oldest = Math.min(oldest, write.enqueuedTime);
+      }
+    }
+    metrics.put("lag", now - oldest);
+    metrics.put("lastFlushLag", lastFlushLag);
+    metrics.put("enqueued", enqueuedCount.get());
+    metrics.put("coalesced", coalescedCount.get());
+    metrics.put("written", writtenCount.get());
+    metrics.put("requests", requestCount.get());
+    metrics.put("retried", retriedCount.get());
+    metrics.put("dropped", droppedCount.get());
+    metrics.put("direct", directCount.get());
+    metrics.put("maxQueueSize", maxQueueSize);
+    return metrics;
+  }
+
+  private static String getKey(String index, String type, String identifier) {
+    return index + "/" + type + "/" + identifier;
+  }
+
+  /** A write of one document which is not flushed yet. */
+  private static class PendingWrite {
+    private final String key;
+    private final String index;
+    private final String type;
+    private final String identifier;
+    private Map<String, Object> data;
+    private boolean full;
+    private long enqueuedTime = System.currentTimeMillis();
+    private long retryTime = 0;
+    private int retries = 0;
+
+    PendingWrite(
+        String index, String type, String identifier, Map<String, Object> data, boolean full) {
+      this.key = getKey(index, type, identifier);
+      this.index = index;
+      this.type = type;
+      this.identifier = identifier;
+      this.data = new HashMap<>(data);
+      this.full = full;
+    }
+
+    PendingWrite copy() {
+      return new PendingWrite(index, type, identifier, data, full);
+    }
+  }
+}
@@ -1,7 +1,12 @@
 package org.sunbird.learner.util;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class will manage execute service thread.
@@ -30,4 +35,44 @@ public final class ExecutorManager {
   public static ScheduledExecutorService getExecutorService() {
     return service;
   }
+
+  /**
+   * Creates a pool of daemon threads with a bounded queue. When the queue is full the caller runs
+   * the task itself, which throttles the producer instead of queueing an unbounded number of tasks.
+   * Idle threads are released after a minute.
+   *
+   * @param name Prefix of the thread names
+   * @param poolSize Number of threads
+   * @param queueCapacity Number of tasks which can wait for a thread
+   * @return Executor
+   */
+  public static ThreadPoolExecutor newBoundedExecutor(
+      String name, int poolSize, int queueCapacity) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60L,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            newDaemonThreadFactory(name),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Creates a factory of daemon threads, so that background pools do not keep the JVM alive.
+   *
+   * @param name Prefix of the thread names
+   * @return Thread factory
+   */
+  public static ThreadFactory newDaemonThreadFactory(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
 }
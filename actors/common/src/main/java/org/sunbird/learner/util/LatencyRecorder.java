@@ -0,0 +1,78 @@
+package org.sunbird.learner.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the latencies of an operation and reports their percentiles. Percentiles are computed
+ * over the last recorded latencies, up to the sample size, so they follow the current load.
+ */
+public class LatencyRecorder {
+
+  private static final int DEFAULT_SAMPLE_SIZE = 1024;
+
+  private final long[] samples;
+  private int next = 0;
+  private long count = 0;
+  private long max = 0;
+
+  public LatencyRecorder() {
+    this(DEFAULT_SAMPLE_SIZE);
+  }
+
+  /** @param sampleSize Number of latest latencies the percentiles are computed over */
+  public LatencyRecorder(int sampleSize) {
+    samples = new long[sampleSize];
+  }
+
+  /**
+   * Records the latency of an operation which started at the given time.
+   *
+   * @param startTime Start time in milliseconds
+   */
+  public void recordSince(long startTime) {
+    record(System.currentTimeMillis() - startTime);
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param latency Latency in milliseconds
+   */
+  public synchronized void record(long latency) {
+    samples[next] = latency;
+    next = (next + 1) % samples.length;
+    count++;
+    max = Math.max(max, latency);
+  }
+
+  /**
+   * Returns the count of recorded latencies, the maximum latency and the 50th, 90th and 99th
+   * percentiles in milliseconds.
+   *
+   * @return Metrics
+   */
+  public Map<String, Object> getMetrics() {
+    long[] sorted;
+    Map<String, Object> metrics = new HashMap<>();
+    synchronized (this) {
+      sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+      metrics.put("count", count);
+      metrics.put("max", max);
+    }
+    Arrays.sort(sorted);
+    metrics.put("p50", getPercentile(sorted, 50));
+    metrics.put("p90", getPercentile(sorted, 90));
+    metrics.put("p99", getPercentile(sorted, 99));
+    return metrics;
+  }
+
+  private static long getPercentile(long[] sorted, int percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+}
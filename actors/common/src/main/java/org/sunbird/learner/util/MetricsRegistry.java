@@ -0,0 +1,49 @@
+package org.sunbird.learner.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.sunbird.common.models.util.ProjectLogger;
+
+/**
+ * Collects the metrics of the components of this node, by component name. Components register a
+ * supplier of their metrics when they are initialised, and the complete health check reports the
+ * metrics of all the registered components.
+ */
+public final class MetricsRegistry {
+
+  private static final Map<String, Supplier<Map<String, Object>>> suppliers =
+      new ConcurrentHashMap<>();
+
+  private MetricsRegistry() {}
+
+  /**
+   * Registers the metrics of a component, replacing the ones registered earlier under the name.
+   *
+   * @param name Component name
+   * @param supplier Supplier of the current metrics of the component
+   */
+  public static void register(String name, Supplier<Map<String, Object>> supplier) {
+    suppliers.put(name, supplier);
+  }
+
+  /**
+   * Returns the current metrics of every registered component. A component whose metrics cannot
+   * be read is left out.
+   *
+   * @return Metrics by component name
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new TreeMap<>();
+    for (Map.Entry<String, Supplier<Map<String, Object>>> entry : suppliers.entrySet()) {
+      try {
+        metrics.put(entry.getKey(), entry.getValue().get());
+      } catch (Exception e) {
+        ProjectLogger.log(
+            "MetricsRegistry:getMetrics: Failed to read metrics of " + entry.getKey(), e);
+      }
+    }
+    return metrics;
+  }
+}
@@ -0,0 +1,196 @@
+package org.sunbird.learner.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In process cache of the organisation lookups done on most user, bulk upload and enrolment
+ * requests: channel to root organisation id and organisation id to organisation details.
+ *
+ * <p>Entries expire after a TTL and the least recently used entries are evicted once a cache is
+ * full. Lookups which find nothing are cached too, for a shorter TTL. Organisation create and
+ * update paths must invalidate the entries they change.
+ *
+ * <p>The channel lookup reads ES, which is written asynchronously after the organisation is
+ * saved. So after an invalidation the lookups of the key are not cached for a settle time, and a
+ * lookup which was loading when any key of the cache was invalidated is not cached either.
+ *
+ * <p>The caches are local to each node, an invalidation does not reach the other nodes, which
+ * serve the old entries till they expire. The TTL is kept short for that reason.
+ */
+public final class OrgCache {
+
+  private static final String TTL_KEY = "sunbird_org_cache_ttl";
+  private static final String NEGATIVE_TTL_KEY = "sunbird_org_cache_negative_ttl";
+  private static final String SIZE_KEY = "sunbird_org_cache_size";
+  private static final String SETTLE_TIME_KEY = "sunbird_org_cache_settle_time";
+  /** TTL in seconds. */
+  private static final int DEFAULT_TTL = 60;
+  /** TTL in seconds of lookups which found nothing. */
+  private static final int DEFAULT_NEGATIVE_TTL = 30;
+
+  private static final int DEFAULT_SIZE = 10000;
+  /** Time in seconds after an invalidation during which the lookups of the key are not cached. */
+  private static final int DEFAULT_SETTLE_TIME = 5;
+
+  private static final Cache<String> rootOrgIdByChannel = new Cache<>("rootOrgIdByChannel");
+  private static final Cache<Map<String, Object>> orgById = new Cache<>("orgById");
+
+  static {
+    MetricsRegistry.register("orgCache", OrgCache::getMetrics);
+  }
+
+  private OrgCache() {}
+
+  /**
+   * Returns the root organisation id of a channel.
+   *
+   * @param channel Channel
+   * @param loader Function searching the root organisation id, returning null if there is none
+   * @return Root organisation id, null if there is none
+   */
+  public static String getRootOrgId(String channel, Function<String, String> loader) {
+    return rootOrgIdByChannel.get(channel, loader);
+  }
+
+  /**
+   * Returns the details of an organisation. The returned map is a deep copy which can be modified.
+   *
+   * @param orgId Organisation id
+   * @param loader Function reading the organisation, returning an empty map if there is none
+   * @return Organisation details, empty if the organisation does not exist
+   */
+  public static Map<String, Object> getOrg(
+      String orgId, Function<String, Map<String, Object>> loader) {
+    Map<String, Object> org = orgById.get(orgId, loader);
+    return null == org ? Collections.emptyMap() : CopyUtil.deepCopy(org);
+  }
+
+  /**
+   * Removes the cached details of an organisation and, when given, the cached lookup of its
+   * channel.
+   *
+   * @param orgId Organisation id
+   * @param channel Channel of the organisation, can be null
+   */
+  public static void invalidate(String orgId, String channel) {
+    if (StringUtils.isNotBlank(orgId)) {
+      orgById.invalidate(orgId);
+    }
+    if (StringUtils.isNotBlank(channel)) {
+      rootOrgIdByChannel.invalidate(channel);
+    }
+  }
+
+  /**
+   * Returns the hit and miss counts, hit rate, size and count of lookups not cached because of an
+   * invalidation of every cache.
+   *
+   * @return Metrics by cache name
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put(rootOrgIdByChannel.name, rootOrgIdByChannel.getMetrics());
+    metrics.put(orgById.name, orgById.getMetrics());
+    return metrics;
+  }
+
+  /** Bounded LRU cache with expiring entries. */
+  private static class Cache<V> {
+    private final String name;
+    private final long ttl = ConfigUtil.getInt(TTL_KEY, DEFAULT_TTL) * 1000L;
+    private final long negativeTtl =
+        ConfigUtil.getInt(NEGATIVE_TTL_KEY, DEFAULT_NEGATIVE_TTL) * 1000L;
+    private final long settleTime = ConfigUtil.getInt(SETTLE_TIME_KEY, DEFAULT_SETTLE_TIME) * 1000L;
+    private final int maxSize = ConfigUtil.getInt(SIZE_KEY, DEFAULT_SIZE);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    /** End of the settle time of the recently invalidated keys, guarded by the entries lock. */
+    private final Map<String, Long> settling = new HashMap<>();
+    /** Count of invalidations, guarded by the entries lock. */
+    private long invalidationCount = 0;
+    private final Map<String, Entry<V>> entries =
+        new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+            return size() > maxSize;
+          }
+        };
+
+    Cache(String name) {
+      this.name = name;
+    }
+
+    V get(String key, Function<String, V> loader) {
+      long now = System.currentTimeMillis();
+      long invalidations;
+      synchronized (entries) {
+        Entry<V> entry = entries.get(key);
+        if (null != entry && entry.expiryTime > now) {
+          hitCount.incrementAndGet();
+          return entry.value;
+        }
+        invalidations = invalidationCount;
+      }
+      missCount.incrementAndGet();
+      // loaded outside the lock, concurrent misses of a key may load it more than once
+      V value = loader.apply(key);
+      boolean empty = null == value || (value instanceof Map && ((Map) value).isEmpty());
+      synchronized (entries) {
+        Long settleEndTime = settling.get(key);
+        if (null != settleEndTime && settleEndTime <= System.currentTimeMillis()) {
+          settling.remove(key);
+          settleEndTime = null;
+        }
+        if (null == settleEndTime && invalidations == invalidationCount) {
+          entries.put(key, new Entry<>(value, now + (empty ? negativeTtl : ttl)));
+        } else {
+          skippedCount.incrementAndGet();
+        }
+      }
+      return value;
+    }
+
+    void invalidate(String key) {
+      long now = System.currentTimeMillis();
+      synchronized (entries) {
+        entries.remove(key);
+        invalidationCount++;
+        if (settleTime > 0) {
+          settling.values().removeIf(settleEndTime -> settleEndTime <= now);
+          settling.put(key, now + settleTime);
+        }
+      }
+    }
+
+    Map<String, Object> getMetrics() {
+      Map<String, Object> metrics = new HashMap<>();
+      long hits = hitCount.get();
+      long total = hits + missCount.get();
+      synchronized (entries) {
+        metrics.put("size", entries.size());
+      }
+      metrics.put("hits", hits);
+      metrics.put("misses", total - hits);
+      metrics.put("notCached", skippedCount.get());
+      metrics.put("hitRate", total > 0 ? (double) hits / total : 0);
+      return metrics;
+    }
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long expiryTime;
+
+    Entry(V value, long expiryTime) {
+      this.value = value;
+      this.expiryTime = expiryTime;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package org.sunbird.learner.util;
+
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Futures;
+import akka.dispatch.OnComplete;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.collections4.MapUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import scala.concurrent.Future;
+
+/**
+ * Cache of the content search results of page sections. Results are cached by the normalised
+ * search query (which includes the request filters) and the channel of the request.
+ *
+ * <p>A result is served from the cache for the TTL. After that it is still served for the stale
+ * TTL while it is refreshed in the background. Concurrent misses of the same query share a single
+ * content search call. The least recently used results are evicted once the cache is full. Failed
+ * searches are not cached.
+ *
+ * <p>The cache is cleared when a page or a section is created or updated through this node. The
+ * caches of the other nodes are not cleared, they serve results of the old sections for at most the
+ * TTL plus the stale TTL.
+ */
+public final class PageSectionCache {
+
+  private static final String TTL_KEY = "sunbird_page_section_cache_ttl";
+  private static final String STALE_TTL_KEY = "sunbird_page_section_cache_stale_ttl";
+  private static final String SIZE_KEY = "sunbird_page_section_cache_size";
+  /** TTL in seconds. */
+  private static final int DEFAULT_TTL = 60;
+  /** Time in seconds a result is served stale after its TTL while it is refreshed. */
+  private static final int DEFAULT_STALE_TTL = 300;
+
+  private static final int DEFAULT_SIZE = 1000;
+  private static final String CHANNEL_HEADER = "x-channel-id";
+
+  private static final long ttl = ConfigUtil.getInt(TTL_KEY, DEFAULT_TTL) * 1000L;
+  private static final long staleTtl = ConfigUtil.getInt(STALE_TTL_KEY, DEFAULT_STALE_TTL) * 1000L;
+  private static final int maxSize = ConfigUtil.getInt(SIZE_KEY, DEFAULT_SIZE);
+  private static final ObjectMapper mapper =
+      new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  private static final Map<String, CacheEntry> cache =
+      new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+          if (size() > maxSize) {
+            evictionCount.incrementAndGet();
+            return true;
+          }
+          return false;
+        }
+      };
+  private static final Map<String, Future<Map<String, Object>>> loading = new HashMap<>();
+
+  private static final AtomicLong hitCount = new AtomicLong();
+  private static final AtomicLong staleHitCount = new AtomicLong();
+  private static final AtomicLong missCount = new AtomicLong();
+  private static final AtomicLong coalescedCount = new AtomicLong();
+  private static final AtomicLong evictionCount = new AtomicLong();
+  private static final AtomicLong failedCount = new AtomicLong();
+
+  static {
+    MetricsRegistry.register("pageSectionCache", PageSectionCache::getMetrics);
+  }
+
+  private PageSectionCache() {}
+
+  /**
+   * Returns the content search result of the given query, from the cache if available.
+   *
+   * @param query Final search query of the section
+   * @param headers Request headers
+   * @return Search result, null if the search failed
+   */
+  public static Future<Map<String, Object>> searchContent(
+      String query, Map<String, String> headers) throws Exception {
+    String key = getKey(query, headers);
+    long now = System.currentTimeMillis();
+    synchronized (cache) {
+      CacheEntry entry = cache.get(key);
+      if (null != entry && now - entry.loadedTime <= ttl) {
+        hitCount.incrementAndGet();
+        return Futures.successful(entry.result);
+      }
+      if (null != entry && now - entry.loadedTime <= ttl + staleTtl) {
+        staleHitCount.incrementAndGet();
+        if (!loading.containsKey(key)) {
+          load(key, query, headers);
+        }
+        return Futures.successful(entry.result);
+      }
+      if (loading.containsKey(key)) {
+        coalescedCount.incrementAndGet();
+        return loading.get(key);
+      }
+      missCount.incrementAndGet();
+      return load(key, query, headers);
+    }
+  }
+
+  /** Starts the search of the given query, must be called holding the cache lock. */
+  private static Future<Map<String, Object>> load(
+      String key, String query, Map<String, String> headers) throws Exception {
+    Future<Map<String, Object>> result =
+        ContentSearchUtil.searchContent(query, null == headers ? null : new HashMap<>(headers));
+    loading.put(key, result);
+    result.onComplete(
+        new OnComplete<Map<String, Object>>() {
+          @Override
+          public void onComplete(Throwable failure, Map<String, Object> response) {
+            synchronized (cache) {
+              // not current if the cache was cleared while loading
+              boolean current = loading.get(key) == result;
+              if (current) {
+                loading.remove(key);
+              }
+              if (null == failure && MapUtils.isNotEmpty(response)) {
+                if (current) {
+                  cache.put(key, new CacheEntry(response));
+                }
+              } else {
+                failedCount.incrementAndGet();
+              }
+            }
+          }
+        },
+        ExecutionContexts.global());
+    return result;
+  }
+
+  /**
+   * Removes all the cached results, e.g. after the page sections are changed. Searches still
+   * loading are not cached once they complete, as they may have been sent before the change.
+   */
+  public static void clear() {
+    synchronized (cache) {
+      cache.clear();
+      loading.clear();
+    }
+  }
+
+  /**
+   * Returns the cache metrics: size, and the counts of hits, stale hits, misses, coalesced misses,
+   * evictions and failed searches.
+   *
+   * @return Metrics
+   */
+  public static Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    synchronized (cache) {
+      metrics.put("size", cache.size());
+      metrics.put("loading", loading.size());
+    }
+    metrics.put("hits", hitCount.get());
+    metrics.put("staleHits", staleHitCount.get());
+    metrics.put("misses", missCount.get());
+    metrics.put("coalesced", coalescedCount.get());
+    metrics.put("evictions", evictionCount.get());
+    metrics.put("failed", failedCount.get());
+    return metrics;
+  }
+
+  private static String getKey(String query, Map<String, String> headers) {
+    String normalisedQuery = query;
+    try {
+      normalisedQuery = mapper.writeValueAsString(mapper.readValue(query, Object.class));
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "PageSectionCache:getKey: Unable to normalise query " + query, LoggerEnum.INFO.name());
+    }
+    String channel = "";
+    if (null != headers) {
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        if (CHANNEL_HEADER.equalsIgnoreCase(header.getKey())) {
+          channel = header.getValue();
+        }
+      }
+    }
+    return channel + ":" + normalisedQuery;
+  }
+
+  private static class CacheEntry {
+    private final Map<String, Object> result;
+    private final long loadedTime = System.currentTimeMillis();
+
+    CacheEntry(Map<String, Object> result) {
+      this.result = result;
+    }
+  }
+}
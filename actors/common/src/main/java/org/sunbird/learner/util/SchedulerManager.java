@@ -1,15 +1,24 @@
 /** */
 package org.sunbird.learner.util;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.learner.actors.syncjobmanager.DistributedEsSync;
 
 /** @author Manzarul All the scheduler job will be handle by this class. */
 public class SchedulerManager {
 
-  private static final int PAGE_DATA_TTL = 4;
+  private static final List<String> CACHES =
+      Arrays.asList(
+          DataCacheHandler.PAGE_CACHE,
+          DataCacheHandler.SECTION_CACHE,
+          DataCacheHandler.ROLE_CACHE,
+          DataCacheHandler.ORG_TYPE_CACHE,
+          DataCacheHandler.CONFIG_SETTINGS_CACHE);
 
   /*
    * service ScheduledExecutorService object
@@ -18,9 +27,18 @@ public class SchedulerManager {
 
   /** all scheduler job will be configure here. */
   public static void schedule() {
-    service.scheduleWithFixedDelay(new DataCacheHandler(), 0, PAGE_DATA_TTL, TimeUnit.HOURS);
-    ProjectLogger.log(
-        "SchedulerManager:schedule: Started scheduler job for cache refresh.",
-        LoggerEnum.INFO.name());
+    for (String cache : CACHES) {
+      long interval = DataCacheHandler.getRefreshInterval(cache);
+      service.scheduleWithFixedDelay(new DataCacheHandler(cache), 0, interval, TimeUnit.MINUTES);
+      ProjectLogger.log(
+          "SchedulerManager:schedule: Started scheduler job for "
+              + cache
+              + " cache refresh with interval "
+              + interval
+              + " minutes.",
+          LoggerEnum.INFO.name());
+    }
+    // picks up the token ranges of distributed ES sync jobs which this node can process
+    service.scheduleWithFixedDelay(new DistributedEsSync(), 1, 1, TimeUnit.MINUTES);
   }
 }
@@ -0,0 +1,191 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.BadgingJsonKey;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.helper.ServiceFactory;
+
+/**
+ * Assembles the complete user profile (user record along with address, education, job profile,
+ * organisations, badges and skills). The reads are independent of each other so they are issued
+ * concurrently on a bounded executor, and the addresses referred by education and job profile
+ * records are fetched with a single multi key query. A failed read fails the returned stage, so
+ * that a partial profile is never taken for the complete one.
+ */
+public final class UserProfileAssembler {
+
+  private static final String POOL_SIZE_KEY = "sunbird_user_profile_read_pool_size";
+  private static final int DEFAULT_POOL_SIZE = 16;
+  private static final int QUEUE_CAPACITY = 1000;
+  private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static final ExecutorService executor =
+      ExecutorManager.newBoundedExecutor(
+          "user-profile-read",
+          ConfigUtil.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE),
+          QUEUE_CAPACITY);
+
+  private UserProfileAssembler() {}
+
+  /**
+   * Reads the user record and all its related details and prepares the user document as it is
+   * saved in ES.
+   *
+   * @param userId User id
+   * @return Completion stage of the user details, completed with null if the user does not exist
+   *     and completed exceptionally if any read failed
+   */
+  @SuppressWarnings("unchecked")
+  public static CompletionStage<Map<String, Object>> getUserDetails(String userId) {
+    Util.DbInfo userDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
+    CompletableFuture<List<Map<String, Object>>> userFuture =
+        supply(
+            () -> {
+              Response response =
+                  cassandraOperation.getRecordById(
+                      userDbInfo.getKeySpace(), userDbInfo.getTableName(), userId);
+              return (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+            });
+    CompletableFuture<Map<String, Object>> detailsFuture =
+        getUserRelatedDetails(userId).toCompletableFuture();
+    return userFuture.thenCombine(
+        detailsFuture,
+        (userList, details) -> {
+          if (CollectionUtils.isEmpty(userList)) {
+            ProjectLogger.log(
+                "UserProfileAssembler:getUserDetails: User data not available for userId : "
+                    + userId,
+                LoggerEnum.INFO.name());
+            return null;
+          }
+          Map<String, Object> userDetails = userList.get(0);
+          userDetails.putAll(details);
+          // save masked email and phone number
+          Util.addMaskEmailAndPhone(userDetails);
+          Util.checkProfileCompleteness(userDetails);
+          userDetails.remove(JsonKey.PASSWORD);
+          return Util.getUserDetailsFromRegistry(userDetails);
+        });
+  }
+
+  /**
+   * Reads address, education, job profile, organisations, badge assertions and skills of a user.
+   *
+   * @param userId User id
+   * @return Completion stage of a map keyed by the user document attribute names, completed
+   *     exceptionally if any read failed
+   */
+  public static CompletionStage<Map<String, Object>> getUserRelatedDetails(String userId) {
+    // the Util readers log and swallow failures, so the tables are read here directly
+    CompletableFuture<List<Map<String, Object>>> address =
+        supply(() -> getRecordsByUserId(JsonKey.ADDRESS_DB, Util.encryptData(userId)));
+    CompletableFuture<List<Map<String, Object>>> education =
+        supply(() -> getRecordsByUserId(JsonKey.EDUCATION_DB, userId));
+    CompletableFuture<List<Map<String, Object>>> jobProfile =
+        supply(() -> getRecordsByUserId(JsonKey.JOB_PROFILE_DB, userId));
+    CompletableFuture<List<Map<String, Object>>> organisations =
+        supply(() -> getOrganisations(userId));
+    CompletableFuture<List<Map<String, Object>>> badges =
+        supply(() -> getRecordsByUserId(BadgingJsonKey.USER_BADGE_ASSERTION_DB, userId));
+    CompletableFuture<List<Map<String, Object>>> skills =
+        supply(() -> getRecordsByUserId(JsonKey.USER_SKILL_DB, userId));
+    CompletableFuture<Void> profileAddress =
+        education.thenAcceptBothAsync(jobProfile, UserProfileAssembler::addAddress, executor);
+
+    return CompletableFuture.allOf(address, profileAddress, organisations, badges, skills)
+        .thenApply(
+            v -> {
+              Map<String, Object> details = new HashMap<>();
+              details.put(JsonKey.ADDRESS, address.join());
+              details.put(JsonKey.EDUCATION, education.join());
+              details.put(JsonKey.JOB_PROFILE, jobProfile.join());
+              details.put(JsonKey.ORGANISATIONS, organisations.join());
+              details.put(JsonKey.BADGE_ASSERTIONS, badges.join());
+              details.put(JsonKey.SKILLS, skills.join());
+              return details;
+            });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> getRecordsByUserId(String dbKey, String userId) {
+    Util.DbInfo dbInfo = Util.dbInfoMap.get(dbKey);
+    Response response =
+        cassandraOperation.getRecordsByIndexedProperty(
+            dbInfo.getKeySpace(), dbInfo.getTableName(), JsonKey.USER_ID, userId);
+    return (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> getOrganisations(String userId) {
+    Util.DbInfo orgUsrDbInfo = Util.dbInfoMap.get(JsonKey.USER_ORG_DB);
+    Map<String, Object> reqMap = new HashMap<>();
+    reqMap.put(JsonKey.USER_ID, userId);
+    reqMap.put(JsonKey.IS_DELETED, false);
+    Response response =
+        cassandraOperation.getRecordsByProperties(
+            orgUsrDbInfo.getKeySpace(), orgUsrDbInfo.getTableName(), reqMap);
+    return (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
+  }
+
+  /**
+   * Fetches the addresses referred by the given education and job profile records with one query
+   * and sets them on the records.
+   */
+  @SuppressWarnings("unchecked")
+  private static void addAddress(
+      List<Map<String, Object>> educationList, List<Map<String, Object>> jobProfileList) {
+    List<Map<String, Object>> records = new ArrayList<>(educationList);
+    records.addAll(jobProfileList);
+    List<String> addressIds = new ArrayList<>();
+    for (Map<String, Object> record : records) {
+      String addressId = (String) record.get(JsonKey.ADDRESS_ID);
+      if (StringUtils.isNotBlank(addressId) && !addressIds.contains(addressId)) {
+        addressIds.add(addressId);
+      }
+    }
+    if (addressIds.isEmpty()) {
+      return;
+    }
+    Map<String, Map<String, Object>> addressMap = new HashMap<>();
+    Util.DbInfo addrDbInfo = Util.dbInfoMap.get(JsonKey.ADDRESS_DB);
+    Response response =
+        cassandraOperation.getRecordsByPrimaryKeys(
+            addrDbInfo.getKeySpace(), addrDbInfo.getTableName(), addressIds, JsonKey.ID);
+    List<Map<String, Object>> addressList =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (CollectionUtils.isNotEmpty(addressList)) {
+      for (Map<String, Object> address : addressList) {
+        addressMap.put((String) address.get(JsonKey.ID), address);
+      }
+    }
+    for (Map<String, Object> record : records) {
+      Map<String, Object> address = addressMap.get(record.get(JsonKey.ADDRESS_ID));
+      if (address != null) {
+        record.put(JsonKey.ADDRESS, address);
+      }
+    }
+  }
+
+  private static CompletableFuture<List<Map<String, Object>>> supply(
+      Supplier<List<Map<String, Object>>> reader) {
+    // an exception of the reader fails the future, it is logged by the caller
+    return CompletableFuture.supplyAsync(
+        () -> {
+          List<Map<String, Object>> result = reader.get();
+          return result == null ? new ArrayList<>() : result;
+        },
+        executor);
+  }
+}
@@ -2,6 +2,7 @@ package org.sunbird.learner.util;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,16 @@ public final class UserUtility {
 
   private UserUtility() {}
 
+  /** @return Columns of the user table which hold encrypted data */
+  public static List<String> getUserKeysToEncrypt() {
+    return Collections.unmodifiableList(userKeyToEncrypt);
+  }
+
+  /** @return Columns of the address table which hold encrypted data */
+  public static List<String> getAddressKeysToEncrypt() {
+    return Collections.unmodifiableList(addressKeyToEncrypt);
+  }
+
   public static Map<String, Object> encryptUserData(Map<String, Object> userMap) throws Exception {
     EncryptionService service = ServiceFactory.getEncryptionServiceInstance(null);
     // Encrypt user basic info
@@ -1,6 +1,9 @@
 package org.sunbird.learner.util;
 
 import akka.actor.ActorRef;
+import akka.dispatch.ExecutionContexts;
+import akka.dispatch.Mapper;
+import akka.dispatch.Recover;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,6 +23,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -65,6 +69,7 @@ import org.sunbird.models.systemsetting.SystemSetting;
 import org.sunbird.models.user.User;
 import org.sunbird.notification.sms.provider.ISmsProvider;
 import org.sunbird.notification.utils.SMSFactory;
+import scala.concurrent.Future;
 
 /**
  * Utility class for actors
@@ -103,14 +108,7 @@ public final class Util {
     // EkStep HttpClient headers init
     headers.put("content-type", "application/json");
     headers.put("accept", "application/json");
-    new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                SchedulerManager.getInstance();
-              }
-            })
-        .start();
+    SchedulerManager.getInstance();
   }
 
   private Util() {}
@@ -612,33 +610,66 @@ public final class Util {
    * @param section String, Object>
    */
   public static void getContentData(Map<String, Object> section) {
-    String response = "";
-    JSONObject data;
-    JSONObject jObject;
     try {
-      String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
-      headers.put(
-          JsonKey.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.EKSTEP_AUTHORIZATION));
-      if (StringUtils.isBlank(headers.get(JsonKey.AUTHORIZATION))) {
-        headers.put(
-            JsonKey.AUTHORIZATION,
-            PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_AUTHORIZATION));
+      Object[] contents =
+          AsyncHttpUtil.await(getContentDataAsync((String) section.get(JsonKey.SEARCH_QUERY)));
+      if (null != contents) {
+        section.put(JsonKey.CONTENTS, contents);
       }
-      response =
-          HttpUtil.sendPostRequest(
-              baseSearchUrl
-                  + PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_CONTENT_SEARCH_URL),
-              (String) section.get(JsonKey.SEARCH_QUERY),
-              headers);
-      jObject = new JSONObject(response);
-      data = jObject.getJSONObject(JsonKey.RESULT);
-      JSONArray contentArray = data.getJSONArray(JsonKey.CONTENT);
-      section.put(JsonKey.CONTENTS, mapper.readValue(contentArray.toString(), Object[].class));
-    } catch (IOException | JSONException e) {
+    } catch (Exception e) {
       ProjectLogger.log(e.getMessage(), e);
     }
   }
 
+  /**
+   * This method will make a non blocking call to EKStep content search api.
+   *
+   * @param searchQuery Search query
+   * @return Future of the searched contents, null if the search failed
+   */
+  public static Future<Object[]> getContentDataAsync(String searchQuery) {
+    String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
+    Map<String, String> requestHeaders = new HashMap<>(headers);
+    requestHeaders.put(
+        JsonKey.AUTHORIZATION, JsonKey.BEARER + System.getenv(JsonKey.EKSTEP_AUTHORIZATION));
+    if (StringUtils.isBlank(requestHeaders.get(JsonKey.AUTHORIZATION))) {
+      requestHeaders.put(
+          JsonKey.AUTHORIZATION,
+          PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_AUTHORIZATION));
+    }
+    Future<String> response =
+        AsyncHttpUtil.post(
+            baseSearchUrl
+                + PropertiesCache.getInstance().getProperty(JsonKey.EKSTEP_CONTENT_SEARCH_URL),
+            searchQuery,
+            requestHeaders);
+    return response
+        .map(
+            new Mapper<String, Object[]>() {
+              @Override
+              public Object[] apply(String response) {
+                try {
+                  JSONObject data = new JSONObject(response).getJSONObject(JsonKey.RESULT);
+                  JSONArray contentArray = data.getJSONArray(JsonKey.CONTENT);
+                  return mapper.readValue(contentArray.toString(), Object[].class);
+                } catch (IOException | JSONException e) {
+                  ProjectLogger.log(e.getMessage(), e);
+                  return null;
+                }
+              }
+            },
+            ExecutionContexts.global())
+        .recover(
+            new Recover<Object[]>() {
+              @Override
+              public Object[] recover(Throwable failure) {
+                ProjectLogger.log(failure.getMessage(), failure);
+                return null;
+              }
+            },
+            ExecutionContexts.global());
+  }
+
   /**
    * if Object is null then it will return true else false.
    *
@@ -718,16 +749,12 @@ public final class Util {
    * @return Id of Root organization.
    */
   public static String getRootOrgIdFromChannel(String channel) {
-    Map<String, Object> filters = new HashMap<>();
-    filters.put(JsonKey.IS_ROOT_ORG, true);
-    if (StringUtils.isNotBlank(channel)) {
-      filters.put(JsonKey.CHANNEL, channel);
-    } else {
+    String rootOrgChannel = channel;
+    if (StringUtils.isBlank(rootOrgChannel)) {
       // If channel value is not coming in request then read the default channel value provided from
       // ENV.
-      if (StringUtils.isNotBlank(ProjectUtil.getConfigValue(JsonKey.SUNBIRD_DEFAULT_CHANNEL))) {
-        filters.put(JsonKey.CHANNEL, ProjectUtil.getConfigValue(JsonKey.SUNBIRD_DEFAULT_CHANNEL));
-      } else {
+      rootOrgChannel = ProjectUtil.getConfigValue(JsonKey.SUNBIRD_DEFAULT_CHANNEL);
+      if (StringUtils.isBlank(rootOrgChannel)) {
         throw new ProjectCommonException(
             ResponseCode.mandatoryParamsMissing.getErrorCode(),
             ProjectUtil.formatMessage(
@@ -735,14 +762,9 @@ public final class Util {
             ResponseCode.CLIENT_ERROR.getResponseCode());
       }
     }
-    Map<String, Object> esResult =
-        elasticSearchComplexSearch(
-            filters, EsIndex.sunbird.getIndexName(), EsType.organisation.getTypeName());
-    if (MapUtils.isNotEmpty(esResult)
-        && CollectionUtils.isNotEmpty((List) esResult.get(JsonKey.CONTENT))) {
-      Map<String, Object> esContent =
-          ((List<Map<String, Object>>) esResult.get(JsonKey.CONTENT)).get(0);
-      return (String) esContent.get(JsonKey.ID);
+    String rootOrgId = OrgCache.getRootOrgId(rootOrgChannel, Util::searchRootOrgId);
+    if (StringUtils.isNotBlank(rootOrgId)) {
+      return rootOrgId;
     } else {
       if (StringUtils.isNotBlank(channel)) {
         throw new ProjectCommonException(
@@ -760,6 +782,23 @@ public final class Util {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  private static String searchRootOrgId(String channel) {
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.IS_ROOT_ORG, true);
+    filters.put(JsonKey.CHANNEL, channel);
+    Map<String, Object> esResult =
+        elasticSearchComplexSearch(
+            filters, EsIndex.sunbird.getIndexName(), EsType.organisation.getTypeName());
+    if (MapUtils.isNotEmpty(esResult)
+        && CollectionUtils.isNotEmpty((List) esResult.get(JsonKey.CONTENT))) {
+      Map<String, Object> esContent =
+          ((List<Map<String, Object>>) esResult.get(JsonKey.CONTENT)).get(0);
+      return (String) esContent.get(JsonKey.ID);
+    }
+    return null;
+  }
+
   private static Map<String, Object> elasticSearchComplexSearch(
       Map<String, Object> filters, String index, String type) {
 
@@ -962,6 +1001,10 @@ public final class Util {
   }
 
   public static Map<String, Object> getOrgDetails(String identifier) {
+    return OrgCache.getOrg(identifier, Util::readOrgDetails);
+  }
+
+  private static Map<String, Object> readOrgDetails(String identifier) {
     DbInfo orgDbInfo = Util.dbInfoMap.get(JsonKey.ORG_DB);
     Response response =
         cassandraOperation.getRecordById(
@@ -1067,7 +1110,7 @@ public final class Util {
     }
   }
 
-  private static String encryptData(String value) {
+  static String encryptData(String value) {
     try {
       return encryptionService.encryptData(value);
     } catch (Exception e) {
@@ -1307,18 +1350,7 @@ public final class Util {
   }
 
   public static String getChannel(String rootOrgId) {
-    Util.DbInfo orgDbInfo = Util.dbInfoMap.get(JsonKey.ORG_DB);
-    String channel = null;
-    Response resultFrRootOrg =
-        cassandraOperation.getRecordById(
-            orgDbInfo.getKeySpace(), orgDbInfo.getTableName(), rootOrgId);
-    if (CollectionUtils.isNotEmpty(
-        (List<Map<String, Object>>) resultFrRootOrg.get(JsonKey.RESPONSE))) {
-      Map<String, Object> rootOrg =
-          ((List<Map<String, Object>>) resultFrRootOrg.get(JsonKey.RESPONSE)).get(0);
-      channel = (String) rootOrg.get(JsonKey.CHANNEL);
-    }
-    return channel;
+    return (String) getOrgDetails(rootOrgId).get(JsonKey.CHANNEL);
   }
 
   public static void upsertUserOrgData(Map<String, Object> userMap) {
@@ -1415,44 +1447,29 @@ public final class Util {
         });
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Reads the user details as saved in ES. The related records are read concurrently, see {@link
+   * UserProfileAssembler#getUserDetails(String)}.
+   *
+   * @param userId User id
+   * @return User details, null if the user does not exist
+   * @throws ProjectCommonException If the user details could not be read
+   */
   public static Map<String, Object> getUserDetails(String userId) {
     ProjectLogger.log("get user profile method call started user Id : " + userId);
-    Util.DbInfo userDbInfo = Util.dbInfoMap.get(JsonKey.USER_DB);
-    Response response = null;
-    List<Map<String, Object>> userList = null;
-    Map<String, Object> userDetails = null;
     try {
-      response =
-          cassandraOperation.getRecordById(
-              userDbInfo.getKeySpace(), userDbInfo.getTableName(), userId);
-      userList = (List<Map<String, Object>>) response.getResult().get(JsonKey.RESPONSE);
-      ProjectLogger.log(
-          "Util:getUserProfile: collecting user data to save for userId : " + userId,
-          LoggerEnum.INFO.name());
-    } catch (Exception e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
-
-    if (!(userList.isEmpty())) {
-      userDetails = userList.get(0);
-      userDetails.put(JsonKey.ADDRESS, getAddressDetails(userId, null));
-      userDetails.put(JsonKey.EDUCATION, getUserEducationDetails(userId));
-      userDetails.put(JsonKey.JOB_PROFILE, getJobProfileDetails(userId));
-      userDetails.put(JsonKey.ORGANISATIONS, getUserOrgDetails(userId));
-      userDetails.put(JsonKey.BADGE_ASSERTIONS, getUserBadge(userId));
-      userDetails.put(JsonKey.SKILLS, getUserSkills(userId));
-      // save masked email and phone number
-      addMaskEmailAndPhone(userDetails);
-      checkProfileCompleteness(userDetails);
-      userDetails.remove(JsonKey.PASSWORD);
-      userDetails = getUserDetailsFromRegistry(userDetails);
-    } else {
+      return UserProfileAssembler.getUserDetails(userId).toCompletableFuture().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof ProjectCommonException) {
+        throw (ProjectCommonException) e.getCause();
+      }
       ProjectLogger.log(
-          "Util:getUserProfile: User data not available to save in ES for userId : " + userId,
-          LoggerEnum.INFO.name());
+          "Util:getUserDetails: Failed to read user details of " + userId, e.getCause());
+      throw new ProjectCommonException(
+          ResponseCode.internalError.getErrorCode(),
+          ResponseCode.internalError.getErrorMessage(),
+          ResponseCode.SERVER_ERROR.getResponseCode());
     }
-    return userDetails;
   }
 
   public static void checkProfileCompleteness(Map<String, Object> userMap) {
@@ -10,12 +10,15 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -23,14 +26,17 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.sunbird.actor.core.BaseActor;
+import org.sunbird.common.ElasticSearchUtil;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.ActorOperations;
 import org.sunbird.common.models.util.HttpUtil;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.PropertiesCache;
+import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.dto.SearchDTO;
 
@@ -55,6 +61,10 @@ public abstract class BaseMetricsActor extends BaseActor {
   protected static final String FOLDERPATH = "/data/";
   protected static final String FILENAMESEPARATOR = "_";
   private static final String CHARSETS_UTF_8 = "UTF-8";
+  private static final String REPORT_PAGE_SIZE_KEY = "sunbird_report_page_size";
+  private static final int DEFAULT_REPORT_PAGE_SIZE = 1000;
+  /** Number of documents read from ES at a time while generating reports. */
+  protected static final int REPORT_PAGE_SIZE = getReportPageSize();
 
   protected Map<String, Object> addSnapshot(
       String keyName, String name, Object value, String timeUnit) {
@@ -117,6 +127,26 @@ public abstract class BaseMetricsActor extends BaseActor {
     }
   }
 
+  /**
+   * Returns the time the window of a day period moves to the next day, so the results of the
+   * period can change. Windows of other periods include the current day, and can change any time.
+   *
+   * @param period Period of the request
+   * @return Time in milliseconds, null if the results of the period can change any time
+   */
+  protected static Long getPeriodExpiryTime(String period) {
+    if ("5w".equalsIgnoreCase(period) || "fromBegining".equalsIgnoreCase(period)) {
+      return null;
+    }
+    long endTime = (Long) getStartAndEndDateForDay(period).get(END_TIME_MILLIS);
+    // The window ends at the last second of the previous day in IST (18:30 GMT), but the day is
+    // taken in GMT, so the window moves at the next midnight GMT, 5:30 hours after that day ends.
+    return (endTime / 1000 + 1) * 1000
+        + TimeUnit.DAYS.toMillis(1)
+        + TimeUnit.HOURS.toMillis(5)
+        + TimeUnit.MINUTES.toMillis(30);
+  }
+
   /**
    * This method will provide date week range. it will take request param as "xw" where x is a int.
    * Example if user pass "5w" ,it means this method will calculate 5 calendar week from now and
@@ -504,6 +534,88 @@ public abstract class BaseMetricsActor extends BaseActor {
     return searchDTO;
   }
 
+  /**
+   * Searches the documents matching the filters page by page, in the order of their ids, and
+   * passes every page to the consumer. A page is read with a range filter on the id from the last
+   * id of the previous page instead of an offset, so deep pages cost the same as the first one and
+   * are not limited by the ES result window.
+   *
+   * @param esType ES type to search
+   * @param filters Search filters, must not have an id filter
+   * @param fields Fields to read, the id is always read
+   * @param consumer Consumer of the pages
+   */
+  protected static void searchInPages(
+      String esType,
+      Map<String, Object> filters,
+      List<String> fields,
+      Consumer<List<Map<String, Object>>> consumer) {
+    searchInPages(esType, filters, Collections.emptyList(), fields, consumer);
+  }
+
+  /**
+   * Same as {@link #searchInPages(String, Map, List, Consumer)}, for the documents which also do
+   * not have any of the given fields.
+   *
+   * @param notExists Fields the documents must not have
+   */
+  @SuppressWarnings("unchecked")
+  protected static void searchInPages(
+      String esType,
+      Map<String, Object> filters,
+      List<String> notExists,
+      List<String> fields,
+      Consumer<List<Map<String, Object>>> consumer) {
+    List<String> pageFields = new ArrayList<>(fields);
+    if (!pageFields.contains(JsonKey.ID)) {
+      pageFields.add(JsonKey.ID);
+    }
+    String lastId = null;
+    while (true) {
+      Map<String, Object> pageFilters = new HashMap<>(filters);
+      if (null != lastId) {
+        Map<String, Object> idRange = new HashMap<>();
+        idRange.put(GT, lastId);
+        pageFilters.put(JsonKey.ID, idRange);
+      }
+      SearchDTO searchDTO = new SearchDTO();
+      searchDTO.getAdditionalProperties().put(JsonKey.FILTERS, pageFilters);
+      if (!notExists.isEmpty()) {
+        searchDTO.getAdditionalProperties().put(JsonKey.NOT_EXISTS, notExists);
+      }
+      searchDTO.setFields(pageFields);
+      searchDTO.setLimit(REPORT_PAGE_SIZE);
+      searchDTO.getSortBy().put(JsonKey.ID, "asc");
+      Map<String, Object> result =
+          ElasticSearchUtil.complexSearch(
+              searchDTO, ProjectUtil.EsIndex.sunbird.getIndexName(), esType);
+      List<Map<String, Object>> page =
+          null == result ? null : (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
+      if (null == page || page.isEmpty()) {
+        return;
+      }
+      lastId = (String) page.get(page.size() - 1).get(JsonKey.ID);
+      consumer.accept(page);
+      if (page.size() < REPORT_PAGE_SIZE) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Uploads a generated report and requests the mail of the report to the requester.
+   *
+   * @param requestId Report request id
+   * @param writer Writer of the report
+   */
+  protected void uploadReport(String requestId, ReportFileWriter writer) throws IOException {
+    ReportUploader.upload(requestId, writer.finish());
+    Request mailRequest = new Request();
+    mailRequest.setOperation(ActorOperations.SEND_MAIL.getValue());
+    mailRequest.getRequest().put(JsonKey.REQUEST_ID, requestId);
+    tellToAnother(mailRequest);
+  }
+
   protected void calculateCourseProgressPercentage(List<Map<String, Object>> esContent) {
     for (Map<String, Object> map : esContent) {
       Integer progress = (Integer) map.get(JsonKey.PROGRESS);
@@ -545,4 +657,18 @@ public abstract class BaseMetricsActor extends BaseActor {
         "BaseMetricsActor:getDateRange Number of days = " + noOfDays, LoggerEnum.INFO.name());
     return ProjectUtil.getDateRange(noOfDays);
   }
+
+  private static int getReportPageSize() {
+    String value = ProjectUtil.getConfigValue(REPORT_PAGE_SIZE_KEY);
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        ProjectLogger.log(
+            "BaseMetricsActor:getReportPageSize: Invalid value " + value,
+            LoggerEnum.ERROR.name());
+      }
+    }
+    return DEFAULT_REPORT_PAGE_SIZE;
+  }
 }
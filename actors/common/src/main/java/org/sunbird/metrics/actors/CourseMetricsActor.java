@@ -33,7 +33,9 @@ import org.sunbird.common.models.util.ProjectUtil.ReportTrackingStatus;
 import org.sunbird.common.models.util.datasecurity.DecryptionService;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CourseProgressAggregator;
 import org.sunbird.learner.util.Util;
 
 @ActorConfig(
@@ -223,6 +225,11 @@ public class CourseMetricsActor extends BaseMetricsActor {
       sender().tell(exception, self());
       return;
     }
+    Response cachedResponse = MetricsResponseCache.get(actorMessage, batchId, null);
+    if (null != cachedResponse) {
+      sender().tell(cachedResponse, self());
+      return;
+    }
     // get start and end time ---
     Map<String, String> dateRangeFilter = new HashMap<>();
 
@@ -379,6 +386,8 @@ public class CourseMetricsActor extends BaseMetricsActor {
 
       Response response = new Response();
       response.putAll(responseMap);
+      MetricsResponseCache.put(
+          actorMessage, batchId, null, response, getPeriodExpiryTime(periodStr));
       sender().tell(response, self());
       return;
     } else {
@@ -408,6 +417,8 @@ public class CourseMetricsActor extends BaseMetricsActor {
 
       Response response = new Response();
       response.putAll(responseMap);
+      MetricsResponseCache.put(
+          actorMessage, batchId, null, response, getPeriodExpiryTime(periodStr));
       sender().tell(response, self());
 
       return;
@@ -467,9 +478,14 @@ public class CourseMetricsActor extends BaseMetricsActor {
       ProjectLogger.log(
           "CourseMetricsActor:courseConsumptionMetrics: Root organisation hashtag id = " + channel,
           LoggerEnum.INFO.name());
-      String responseFormat = getCourseConsumptionData(periodStr, courseId, requestObject, channel);
-      Response response =
-          metricsResponseGenerator(responseFormat, periodStr, getViewData(courseId));
+      Response response = MetricsResponseCache.get(actorMessage, courseId, channel);
+      if (null == response) {
+        String responseFormat =
+            getCourseConsumptionData(periodStr, courseId, requestObject, channel);
+        response = metricsResponseGenerator(responseFormat, periodStr, getViewData(courseId));
+        MetricsResponseCache.put(
+            actorMessage, courseId, channel, response, getPeriodExpiryTime(periodStr));
+      }
       sender().tell(response, self());
     } catch (ProjectCommonException e) {
       ProjectLogger.log(
@@ -526,11 +542,24 @@ public class CourseMetricsActor extends BaseMetricsActor {
     Map<String, Object> dateRange = getStartAndEndDate(periodStr);
     Map<String, Object> filter = new HashMap<>();
     Map<String, Object> resultMap = new HashMap<>();
+    Long completedCount =
+        MetricsRollup.sum(
+            courseId,
+            MetricsRollup.COURSE_COMPLETIONS,
+            (Long) dateRange.get(START_TIME_MILLIS),
+            (Long) dateRange.get(END_TIME_MILLIS));
+    if (null != completedCount && 0 == completedCount) {
+      // Nobody completed the course in the period, no need to search users and their time spent.
+      // The count and the average time are otherwise both taken from the users found in ES.
+      resultMap.put("user_count", 0);
+      resultMap.put("avg_time_course_completed", 0);
+      return resultMap;
+    }
     filter.put(JsonKey.COURSE_ID, courseId);
     Map<String, String> dateRangeFilter = new HashMap<>();
     dateRangeFilter.put(GTE, (String) dateRange.get(STARTDATE));
     dateRangeFilter.put(LTE, (String) dateRange.get(ENDDATE));
-    filter.put(JsonKey.DATE_TIME, dateRangeFilter);
+    filter.put(CourseProgressAggregator.COMPLETED_ON, dateRangeFilter);
     filter.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.COMPLETED.getValue());
 
     List<String> coursefields = new ArrayList<>();
@@ -549,7 +578,23 @@ public class CourseMetricsActor extends BaseMetricsActor {
           ResponseCode.noDataForConsumption.getErrorMessage(),
           ResponseCode.CLIENT_ERROR.getResponseCode());
     }
-    List<Map<String, Object>> esContent = (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
+    List<Map<String, Object>> esContent =
+        new ArrayList<>((List<Map<String, Object>>) result.get(JsonKey.CONTENT));
+    // completions recorded before completedOn was set are found by their last update instead
+    filter.remove(CourseProgressAggregator.COMPLETED_ON);
+    filter.put(JsonKey.DATE_TIME, dateRangeFilter);
+    SearchDTO legacySearch = createESRequest(filter, null, coursefields);
+    legacySearch
+        .getAdditionalProperties()
+        .put(JsonKey.NOT_EXISTS, Collections.singletonList(CourseProgressAggregator.COMPLETED_ON));
+    Map<String, Object> legacyResult =
+        ElasticSearchUtil.complexSearch(
+            legacySearch,
+            ProjectUtil.EsIndex.sunbird.getIndexName(),
+            EsType.usercourses.getTypeName());
+    if (null != legacyResult && null != legacyResult.get(JsonKey.CONTENT)) {
+      esContent.addAll((List<Map<String, Object>>) legacyResult.get(JsonKey.CONTENT));
+    }
 
     List<String> userIds = new ArrayList<>();
     Double timeConsumed = 0D;
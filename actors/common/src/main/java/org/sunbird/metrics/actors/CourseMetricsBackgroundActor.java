@@ -2,8 +2,8 @@ package org.sunbird.metrics.actors;
 
 import static org.sunbird.common.models.util.ProjectUtil.isNotNull;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -13,7 +13,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.ElasticSearchUtil;
@@ -29,6 +28,7 @@ import org.sunbird.common.models.util.ProjectUtil.ReportTrackingStatus;
 import org.sunbird.common.models.util.datasecurity.DecryptionService;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.dto.SearchDTO;
 import org.sunbird.helper.ServiceFactory;
 import org.sunbird.learner.util.Util;
 
@@ -84,14 +84,11 @@ public class CourseMetricsBackgroundActor extends BaseMetricsActor {
 
     Map<String, Object> reportDbInfo = responseList.get(0);
 
-    List<List<Object>> finalList = null;
     String periodStr = (String) reportDbInfo.get(JsonKey.PERIOD);
     String batchId = (String) reportDbInfo.get(JsonKey.RESOURCE_ID);
     // get start and end time ---
     Map<String, String> dateRangeFilter = new HashMap<>();
 
-    Map<String, Object> requestMap = new HashMap<>();
-    requestMap.put(JsonKey.PERIOD, periodStr);
     Map<String, Object> filter = new HashMap<>();
     filter.put(JsonKey.BATCH_ID, batchId);
 
@@ -108,58 +105,16 @@ public class CourseMetricsBackgroundActor extends BaseMetricsActor {
     coursefields.add(JsonKey.BATCH_ID);
     coursefields.add(JsonKey.LEAF_NODE_COUNT);
 
-    Map<String, Object> result =
-        ElasticSearchUtil.complexSearch(
-            createESRequest(filter, null, coursefields),
-            ProjectUtil.EsIndex.sunbird.getIndexName(),
-            EsType.usercourses.getTypeName());
-    List<Map<String, Object>> userCoursesContent =
-        (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
-
-    if (!(userCoursesContent.isEmpty())) {
-      List<String> userIds = new ArrayList<>();
-
-      calculateCourseProgressPercentage(userCoursesContent);
-
-      for (Map<String, Object> entry : userCoursesContent) {
-        String userId = (String) entry.get(JsonKey.USER_ID);
-        userIds.add(userId);
-      }
-
-      Set<String> uniqueUserIds = new HashSet<>(userIds);
-      Map<String, Object> userfilter = new HashMap<>();
-      userfilter.put(JsonKey.USER_ID, uniqueUserIds.stream().collect(Collectors.toList()));
-      List<String> userfields = new ArrayList<>();
-      userfields.add(JsonKey.USER_ID);
-      userfields.add(JsonKey.USERNAME);
-      userfields.add(JsonKey.FIRST_NAME);
-      userfields.add(JsonKey.LOGIN_ID);
-      userfields.add(JsonKey.CREATED_DATE);
-      userfields.add(JsonKey.LANGUAGE);
-      userfields.add(JsonKey.SUBJECT);
-      userfields.add(JsonKey.GRADE);
-      userfields.add(JsonKey.GENDER);
-
-      Map<String, Object> userresult =
-          ElasticSearchUtil.complexSearch(
-              createESRequest(userfilter, null, userfields),
-              ProjectUtil.EsIndex.sunbird.getIndexName(),
-              EsType.user.getTypeName());
-      List<Map<String, Object>> useresContent =
-          (List<Map<String, Object>>) userresult.get(JsonKey.CONTENT);
-
-      Map<String, Map<String, Object>> userInfoCache = new HashMap<>();
-
-      // decrypt the user info get from the elastic search
-      useresContent = decryptionService.decryptData(useresContent);
-      for (Map<String, Object> map : useresContent) {
-        String userId = (String) map.get(JsonKey.USER_ID);
-        map.put("user", userId);
-        userInfoCache.put(userId, new HashMap<String, Object>(map));
-        map.remove(JsonKey.USER_ID);
-      }
+    Map<String, Object> requestDbInfo = new HashMap<>();
+    requestDbInfo.put(JsonKey.ID, requestId);
+    requestDbInfo.put(JsonKey.STATUS, ReportTrackingStatus.GENERATING_DATA.getValue());
+    requestDbInfo.put(JsonKey.UPDATED_DATE, format.format(new Date()));
+    cassandraOperation.updateRecord(
+        reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), requestDbInfo);
 
-      List<Object> columnNames =
+    try (ReportFileWriter writer =
+        new ReportFileWriter("File-" + requestId, (String) reportDbInfo.get(JsonKey.FORMAT))) {
+      writer.writeRow(
           Arrays.asList(
               JsonKey.LOGIN_ID,
               JsonKey.NAME,
@@ -167,10 +122,75 @@ public class CourseMetricsBackgroundActor extends BaseMetricsActor {
               JsonKey.LANGUAGE,
               JsonKey.SUBJECT,
               JsonKey.GRADE,
-              JsonKey.PROGRESS);
-      finalList = new ArrayList<>();
-      finalList.add(columnNames);
+              JsonKey.PROGRESS));
+      // the user courses are read page by page and every page is joined with its users and
+      // written before the next one is read
+      searchInPages(
+          EsType.usercourses.getTypeName(),
+          filter,
+          coursefields,
+          userCoursesContent -> writeRows(writer, userCoursesContent));
+      ProjectLogger.log(
+          "CourseMetricsBackgroundActor:courseProgressMetricsData: Generated "
+              + (writer.getRowCount() - 1)
+              + " rows for "
+              + requestId,
+          LoggerEnum.INFO.name());
+      uploadReport(requestId, writer);
+    } catch (IOException | UncheckedIOException e) {
+      ProjectLogger.log(
+          "CourseMetricsBackgroundActor:courseProgressMetricsData: Report generation failed", e);
+      requestDbInfo.put(JsonKey.STATUS, ReportTrackingStatus.FAILED.getValue());
+      requestDbInfo.put(JsonKey.UPDATED_DATE, format.format(new Date()));
+      cassandraOperation.updateRecord(
+          reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), requestDbInfo);
+    }
+  }
+
+  /**
+   * Joins a page of user courses with the details of their users and writes it to the report.
+   *
+   * @param writer Report writer
+   * @param userCoursesContent Page of user courses
+   */
+  @SuppressWarnings("unchecked")
+  private void writeRows(ReportFileWriter writer, List<Map<String, Object>> userCoursesContent) {
+    calculateCourseProgressPercentage(userCoursesContent);
+
+    Set<String> uniqueUserIds = new HashSet<>();
+    for (Map<String, Object> entry : userCoursesContent) {
+      uniqueUserIds.add((String) entry.get(JsonKey.USER_ID));
+    }
+    Map<String, Object> userfilter = new HashMap<>();
+    userfilter.put(JsonKey.USER_ID, new ArrayList<>(uniqueUserIds));
+    List<String> userfields = new ArrayList<>();
+    userfields.add(JsonKey.USER_ID);
+    userfields.add(JsonKey.USERNAME);
+    userfields.add(JsonKey.FIRST_NAME);
+    userfields.add(JsonKey.LOGIN_ID);
+    userfields.add(JsonKey.CREATED_DATE);
+    userfields.add(JsonKey.LANGUAGE);
+    userfields.add(JsonKey.SUBJECT);
+    userfields.add(JsonKey.GRADE);
+    userfields.add(JsonKey.GENDER);
+
+    SearchDTO searchDTO = createESRequest(userfilter, null, userfields);
+    searchDTO.setLimit(uniqueUserIds.size());
+    Map<String, Object> userresult =
+        ElasticSearchUtil.complexSearch(
+            searchDTO, ProjectUtil.EsIndex.sunbird.getIndexName(), EsType.user.getTypeName());
+    List<Map<String, Object>> useresContent =
+        (List<Map<String, Object>>) userresult.get(JsonKey.CONTENT);
+
+    Map<String, Map<String, Object>> userInfoCache = new HashMap<>();
 
+    // decrypt the user info get from the elastic search
+    useresContent = decryptionService.decryptData(useresContent);
+    for (Map<String, Object> map : useresContent) {
+      userInfoCache.put((String) map.get(JsonKey.USER_ID), map);
+    }
+
+    try {
       for (Map<String, Object> map : userCoursesContent) {
         List<Object> list = new ArrayList<>();
         Map<String, Object> userMap = userInfoCache.get(map.get(JsonKey.USER_ID));
@@ -191,29 +211,10 @@ public class CourseMetricsBackgroundActor extends BaseMetricsActor {
           list.add(null);
           list.add(map.get(JsonKey.PROGRESS));
         }
-        finalList.add(list);
+        writer.writeRow(list);
       }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
-
-    Map<String, Object> requestDbInfo = new HashMap<>();
-    requestDbInfo.put(JsonKey.ID, requestId);
-    requestDbInfo.put(JsonKey.STATUS, ReportTrackingStatus.GENERATING_DATA.getValue());
-    requestDbInfo.put(JsonKey.UPDATED_DATE, format.format(new Date()));
-
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      String data = mapper.writeValueAsString(finalList);
-      requestDbInfo.put(JsonKey.DATA, data);
-    } catch (JsonProcessingException e) {
-      ProjectLogger.log(e.getMessage(), e);
-    }
-    cassandraOperation.updateRecord(
-        reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), requestDbInfo);
-
-    Request backGroundRequest = new Request();
-    backGroundRequest.setOperation(ActorOperations.FILE_GENERATION_AND_UPLOAD.getValue());
-    backGroundRequest.getRequest().put(JsonKey.DATA, finalList);
-    backGroundRequest.getRequest().put(JsonKey.REQUEST_ID, requestId);
-    tellToAnother(backGroundRequest);
   }
 }
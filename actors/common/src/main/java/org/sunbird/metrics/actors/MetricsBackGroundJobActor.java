@@ -1,6 +1,5 @@
 package org.sunbird.metrics.actors;
 
-import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Collections;
@@ -16,13 +15,10 @@ import org.sunbird.cassandra.CassandraOperation;
 import org.sunbird.common.exception.ProjectCommonException;
 import org.sunbird.common.models.response.Response;
 import org.sunbird.common.models.util.ActorOperations;
-import org.sunbird.common.models.util.FileUtil;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.ProjectLogger;
 import org.sunbird.common.models.util.ProjectUtil;
 import org.sunbird.common.models.util.ProjectUtil.ReportTrackingStatus;
-import org.sunbird.common.models.util.azure.CloudService;
-import org.sunbird.common.models.util.azure.CloudServiceFactory;
 import org.sunbird.common.models.util.mail.SendMail;
 import org.sunbird.common.request.ExecutionContext;
 import org.sunbird.common.request.Request;
@@ -33,7 +29,7 @@ import org.sunbird.learner.util.Util;
 /** Created by arvind on 28/8/17. */
 @ActorConfig(
   tasks = {},
-  asyncTasks = {"fileGenerationAndUpload", "processData", "fileGenerationAndUpload"}
+  asyncTasks = {"fileGenerationAndUpload", "processData", "sendMail"}
 )
 public class MetricsBackGroundJobActor extends BaseActor {
 
@@ -135,6 +131,10 @@ public class MetricsBackGroundJobActor extends BaseActor {
     }
   }
 
+  /**
+   * Writes and uploads the report data of a request which was saved in report tracking before the
+   * reports were streamed to a file by their generators.
+   */
   @SuppressWarnings("unchecked")
   private void fileGenerationAndUpload(Request request) throws IOException {
     ProjectLogger.log("In fileGeneration and Upload");
@@ -157,64 +157,34 @@ public class MetricsBackGroundJobActor extends BaseActor {
     }
     Map<String, Object> reportDbInfo = responseList.get(0);
     String fileFormat = (String) reportDbInfo.get(JsonKey.FORMAT);
-    FileUtil fileUtil = FileUtil.getFileUtil(fileFormat);
-
-    Map<String, Object> dbReqMap = new HashMap<>();
-    dbReqMap.put(JsonKey.ID, requestId);
 
     List<List<Object>> finalList = (List<List<Object>>) map.get(JsonKey.DATA);
     String fileName = (String) map.get(JsonKey.FILE_NAME);
     if (StringUtils.isBlank(fileName)) {
       fileName = "File-" + requestId;
     }
-    File file = null;
-    try {
-      file = fileUtil.writeToFile(fileName, finalList);
-    } catch (Exception ex) {
-      ProjectLogger.log("PROCESS FAILED WHILE CONVERTING THE DATA TO FILE .", ex);
-      // update DB as status failed since unable to convert data to file
-      dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
-      dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.FAILED.getValue());
-      cassandraOperation.updateRecord(
-          reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
-      throw ex;
-    }
-
-    String storageUrl = null;
-    try {
-      // TODO : confirm the container name ...
-      storageUrl = processFileUpload(file, "testContainer");
-
-    } catch (Exception e) {
-      ProjectLogger.log(
-          "Error occurred while uploading file on storage for requset " + requestId, e);
-      increasetryCount(reportDbInfo);
-      if ((Integer) reportDbInfo.get(JsonKey.TRY_COUNT) > 3) {
-        dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.FAILED.getValue());
-        dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
-        cassandraOperation.updateRecord(
-            reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
-      } else {
-        dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.UPLOADING_FILE.getValue());
+    try (ReportFileWriter writer = new ReportFileWriter(fileName, fileFormat)) {
+      try {
+        if (null != finalList) {
+          for (List<Object> row : finalList) {
+            writer.writeRow(row);
+          }
+        }
+        writer.finish();
+      } catch (Exception ex) {
+        ProjectLogger.log("PROCESS FAILED WHILE CONVERTING THE DATA TO FILE .", ex);
+        // update DB as status failed since unable to convert data to file
+        Map<String, Object> dbReqMap = new HashMap<>();
+        dbReqMap.put(JsonKey.ID, requestId);
         dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
+        dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.FAILED.getValue());
         cassandraOperation.updateRecord(
             reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
+        throw ex;
       }
-      throw e;
-    } finally {
-      if (ProjectUtil.isNotNull(file)) {
-        file.delete();
-      }
+      ReportUploader.upload(requestId, writer.finish());
     }
 
-    reportDbInfo.put(JsonKey.FILE_URL, storageUrl);
-    dbReqMap.put(JsonKey.FILE_URL, storageUrl);
-    dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
-    dbReqMap.put(JsonKey.DATA, null);
-    dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.UPLOADING_FILE_SUCCESS.getValue());
-    cassandraOperation.updateRecord(
-        reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
-
     Request backGroundRequest = new Request();
     backGroundRequest.setOperation(ActorOperations.SEND_MAIL.getValue());
 
@@ -271,24 +241,4 @@ public class MetricsBackGroundJobActor extends BaseActor {
       return "";
     }
   }
-
-  private String processFileUpload(File file, String container) {
-
-    String storageUrl = null;
-    try {
-      CloudService service = (CloudService) CloudServiceFactory.get("Azure");
-      if (null == service) {
-        ProjectLogger.log("The cloud service is not available");
-        throw new ProjectCommonException(
-            ResponseCode.invalidRequestData.getErrorCode(),
-            ResponseCode.invalidRequestData.getErrorMessage(),
-            ResponseCode.CLIENT_ERROR.getResponseCode());
-      }
-      storageUrl = service.uploadFile(container, file);
-    } catch (Exception e) {
-      ProjectLogger.log("Exception Occurred while reading file in FileUploadServiceActor", e);
-      throw e;
-    }
-    return storageUrl;
-  }
 }
@@ -0,0 +1,120 @@
+package org.sunbird.metrics.actors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.request.Request;
+import org.sunbird.learner.util.ConfigUtil;
+import org.sunbird.learner.util.CopyUtil;
+
+/**
+ * Cache of dashboard responses by operation, resource, scope and period. The scope is the channel
+ * a response is computed for, when it depends on the requester and not only on the resource. A
+ * response is kept until the window of its period moves, and the least recently used responses
+ * are evicted once the cache is full. Responses are copied in and out of the cache, so callers can
+ * modify them.
+ *
+ * <p>A request having {@link #BYPASS} set in its context is always computed again, and refreshes
+ * the cached response.
+ */
+public final class MetricsResponseCache {
+
+  /** Request context flag to bypass the cache, set from the request header by the controller. */
+  public static final String BYPASS = "metricsCacheBypass";
+
+  private static final String SIZE_KEY = "sunbird_metrics_cache_size";
+  private static final int DEFAULT_SIZE = 1000;
+  private static final int maxSize = ConfigUtil.getInt(SIZE_KEY, DEFAULT_SIZE);
+
+  private static final Map<String, CachedResponse> cache =
+      new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+          return size() > maxSize;
+        }
+      };
+
+  private MetricsResponseCache() {}
+
+  /**
+   * Returns the cached response of a dashboard request.
+   *
+   * @param request Dashboard request having the period
+   * @param resourceId Org id, course id or batch id of the request
+   * @param scope Channel the response is computed for, null if it depends on the resource only
+   * @return Cached response, null if not cached, expired or bypassed
+   */
+  public static Response get(Request request, String resourceId, String scope) {
+    if (isBypass(request)) {
+      return null;
+    }
+    String key = getKey(request, resourceId, scope);
+    CachedResponse cachedResponse;
+    synchronized (cache) {
+      cachedResponse = cache.get(key);
+      if (null != cachedResponse && cachedResponse.expiryTime <= System.currentTimeMillis()) {
+        cache.remove(key);
+        cachedResponse = null;
+      }
+    }
+    if (null == cachedResponse) {
+      return null;
+    }
+    ProjectLogger.log(
+        "MetricsResponseCache:get: Serving cached response for " + key, LoggerEnum.INFO.name());
+    Response response = new Response();
+    response.putAll(CopyUtil.deepCopy(cachedResponse.result));
+    return response;
+  }
+
+  /**
+   * Caches the response of a dashboard request until the given time.
+   *
+   * @param request Dashboard request having the period
+   * @param resourceId Org id, course id or batch id of the request
+   * @param scope Channel the response is computed for, null if it depends on the resource only
+   * @param response Response to cache
+   * @param expiryTime Time in milliseconds the response expires at, null to not cache
+   */
+  public static void put(
+      Request request, String resourceId, String scope, Response response, Long expiryTime) {
+    if (null == expiryTime || expiryTime <= System.currentTimeMillis()) {
+      return;
+    }
+    CachedResponse cachedResponse =
+        new CachedResponse(CopyUtil.deepCopy(response.getResult()), expiryTime);
+    synchronized (cache) {
+      cache.put(getKey(request, resourceId, scope), cachedResponse);
+    }
+  }
+
+  private static boolean isBypass(Request request) {
+    Object bypass = null == request.getContext() ? null : request.getContext().get(BYPASS);
+    return Boolean.TRUE.equals(bypass) || "true".equalsIgnoreCase(String.valueOf(bypass));
+  }
+
+  private static String getKey(Request request, String resourceId, String scope) {
+    return request.getOperation()
+        + ":"
+        + resourceId
+        + ":"
+        + scope
+        + ":"
+        + request.getRequest().get(JsonKey.PERIOD);
+  }
+
+  private static class CachedResponse {
+    private final Map<String, Object> result;
+    private final long expiryTime;
+
+    private CachedResponse(Map<String, Object> result, long expiryTime) {
+      this.result = result;
+      this.expiryTime = expiryTime;
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package org.sunbird.metrics.actors;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.ProjectUtil.EsType;
+import org.sunbird.learner.util.CourseProgressAggregator;
+import org.sunbird.metrics.dao.MetricsRollupDao;
+import org.sunbird.metrics.dao.impl.MetricsRollupDaoImpl;
+
+/**
+ * Daily counters of the metrics shown on the dashboards, kept per course, batch and root org so a
+ * dashboard period is answered by summing a few pre-computed rows instead of searching ES.
+ *
+ * <p>Counters are computed per day (IST) by {@link #rollupDay(String)}. Every computed day is
+ * marked with a row of the {@link #COMPUTED} resource, so a period which is not fully computed is
+ * recognized and answered the old way. The resources counted on a day are recorded too, so that
+ * when the day is computed again the counters of the resources no longer counted are zeroed.
+ */
+public final class MetricsRollup {
+
+  /**
+   * Users who completed a course, by course id, on the day the course was completed. Completions
+   * recorded before the completion time was kept are counted on the day of their last update.
+   */
+  public static final String COURSE_COMPLETIONS = "courseCompletions";
+
+  private static final List<String> METRICS = Arrays.asList(COURSE_COMPLETIONS);
+  /** Resource of the rows marking the days a metric has been computed for. */
+  private static final String COMPUTED = "_computed";
+  private static final String DAY_FORMAT = "yyyy-MM-dd";
+  private static final String DATE_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+  private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("GMT+05:30");
+
+  private static MetricsRollupDao metricsRollupDao = new MetricsRollupDaoImpl();
+
+  private MetricsRollup() {}
+
+  /**
+   * Sums the daily counters of a resource over a period.
+   *
+   * @param resourceId Course id, batch id or root org id
+   * @param metric Metric name
+   * @param startTime Start of the period in milliseconds
+   * @param endTime End of the period in milliseconds
+   * @return Sum of the counters, null if any past day of the period is not computed yet
+   */
+  public static Long sum(String resourceId, String metric, long startTime, long endTime) {
+    List<String> days = getDays(startTime, Math.min(endTime, System.currentTimeMillis()));
+    Map<String, Long> computed = metricsRollupDao.read(COMPUTED, metric);
+    for (String day : days) {
+      if (!computed.containsKey(day)) {
+        return null;
+      }
+    }
+    Map<String, Long> counters = metricsRollupDao.read(resourceId, metric);
+    long sum = 0;
+    for (String day : days) {
+      Long value = counters.get(day);
+      if (null != value) {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the days of the given number of past days, up to yesterday, which are not computed for
+   * all metrics.
+   *
+   * @param days Number of past days
+   * @return Days in yyyy-MM-dd format
+   */
+  public static List<String> getMissingDays(int days) {
+    Calendar calendar = Calendar.getInstance(TIME_ZONE);
+    long endTime = calendar.getTimeInMillis();
+    calendar.add(Calendar.DATE, -days);
+    List<String> pastDays = getDays(calendar.getTimeInMillis(), endTime);
+    pastDays.remove(pastDays.size() - 1);
+    List<String> missingDays = new ArrayList<>();
+    for (String metric : METRICS) {
+      Map<String, Long> computed = metricsRollupDao.read(COMPUTED, metric);
+      for (String day : pastDays) {
+        if (!computed.containsKey(day) && !missingDays.contains(day)) {
+          missingDays.add(day);
+        }
+      }
+    }
+    return missingDays;
+  }
+
+  /** @return Today in yyyy-MM-dd format */
+  public static String today() {
+    return formatDay(System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the day before the given day.
+   *
+   * @param day Day in yyyy-MM-dd format
+   * @return Previous day in yyyy-MM-dd format
+   */
+  public static String previousDay(String day) {
+    return formatDay(parseDay(day) - 1);
+  }
+
+  /**
+   * Computes the counters of all metrics for a day and replaces the saved ones. A day still in
+   * progress can be computed again later to count what happened after.
+   *
+   * @param day Day in yyyy-MM-dd format
+   */
+  public static void rollupDay(String day) {
+    long startTime = parseDay(day);
+    Calendar calendar = Calendar.getInstance(TIME_ZONE);
+    calendar.setTimeInMillis(startTime);
+    calendar.add(Calendar.DATE, 1);
+    long endTime = calendar.getTimeInMillis() - 1;
+
+    Map<String, Object> filters = new HashMap<>();
+    filters.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.COMPLETED.getValue());
+    filters.put(
+        CourseProgressAggregator.COMPLETED_ON, getRange(startTime, endTime, DATE_TIME_FORMAT));
+    Map<String, Long> completions =
+        count(
+            EsType.usercourses.getTypeName(),
+            filters,
+            Collections.emptyList(),
+            JsonKey.COURSE_ID);
+    // completions recorded before completedOn was set are counted by their last update instead
+    filters = new HashMap<>();
+    filters.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.COMPLETED.getValue());
+    filters.put(JsonKey.DATE_TIME, getRange(startTime, endTime, DATE_TIME_FORMAT));
+    count(
+            EsType.usercourses.getTypeName(),
+            filters,
+            Collections.singletonList(CourseProgressAggregator.COMPLETED_ON),
+            JsonKey.COURSE_ID)
+        .forEach((courseId, count) -> completions.merge(courseId, count, Long::sum));
+    save(COURSE_COMPLETIONS, day, completions);
+    ProjectLogger.log(
+        "MetricsRollup:rollupDay: Computed metrics for " + day, LoggerEnum.INFO.name());
+  }
+
+  private static Map<String, Long> count(
+      String esType, Map<String, Object> filters, List<String> notExists, String groupBy) {
+    Map<String, Long> counters = new HashMap<>();
+    BaseMetricsActor.searchInPages(
+        esType,
+        filters,
+        notExists,
+        Arrays.asList(groupBy),
+        page -> {
+          for (Map<String, Object> doc : page) {
+            String resourceId = (String) doc.get(groupBy);
+            if (StringUtils.isNotBlank(resourceId)) {
+              counters.merge(resourceId, 1L, Long::sum);
+            }
+          }
+        });
+    return counters;
+  }
+
+  private static void save(String metric, String day, Map<String, Long> counters) {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (Map.Entry<String, Long> counter : counters.entrySet()) {
+      rows.add(createRow(counter.getKey(), metric, day, counter.getValue()));
+    }
+    // the day is replaced, so resources counted before but not any more are zeroed
+    for (String resourceId : metricsRollupDao.readResourceIds(metric, day)) {
+      if (!counters.containsKey(resourceId)) {
+        rows.add(createRow(resourceId, metric, day, 0L));
+      }
+    }
+    List<Map<String, Object>> failed = metricsRollupDao.saveAll(metric, day, rows);
+    if (!failed.isEmpty()) {
+      throw new IllegalStateException(
+          "Unable to save " + failed.size() + " " + metric + " counters of " + day);
+    }
+    // Marked only once all the counters of the day are saved.
+    Map<String, Long> marker = new HashMap<>();
+    marker.put(day, (long) counters.size());
+    if (!metricsRollupDao.save(COMPUTED, metric, marker).isEmpty()) {
+      throw new IllegalStateException("Unable to mark " + metric + " computed for " + day);
+    }
+  }
+
+  private static Map<String, Object> createRow(
+      String resourceId, String metric, String day, long value) {
+    Map<String, Object> row = new HashMap<>();
+    row.put(MetricsRollupDaoImpl.RESOURCE_ID, resourceId);
+    row.put(MetricsRollupDaoImpl.METRIC, metric);
+    row.put(MetricsRollupDaoImpl.DAY, day);
+    row.put(JsonKey.VALUE, value);
+    return row;
+  }
+
+  private static Map<String, Object> getRange(long startTime, long endTime, String format) {
+    return getRange(startTime, endTime, new SimpleDateFormat(format));
+  }
+
+  private static Map<String, Object> getRange(
+      long startTime, long endTime, SimpleDateFormat format) {
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    Map<String, Object> range = new HashMap<>();
+    range.put(BaseMetricsActor.GTE, format.format(new Date(startTime)));
+    range.put(BaseMetricsActor.LTE, format.format(new Date(endTime)));
+    return range;
+  }
+
+  private static List<String> getDays(long startTime, long endTime) {
+    List<String> days = new ArrayList<>();
+    Calendar calendar = Calendar.getInstance(TIME_ZONE);
+    calendar.setTimeInMillis(parseDay(formatDay(startTime)));
+    while (calendar.getTimeInMillis() <= endTime) {
+      days.add(formatDay(calendar.getTimeInMillis()));
+      calendar.add(Calendar.DATE, 1);
+    }
+    return days;
+  }
+
+  private static String formatDay(long time) {
+    SimpleDateFormat format = new SimpleDateFormat(DAY_FORMAT);
+    format.setTimeZone(TIME_ZONE);
+    return format.format(new Date(time));
+  }
+
+  private static long parseDay(String day) {
+    SimpleDateFormat format = new SimpleDateFormat(DAY_FORMAT);
+    format.setTimeZone(TIME_ZONE);
+    format.setLenient(false);
+    try {
+      return format.parse(day).getTime();
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid day " + day, e);
+    }
+  }
+}
@@ -454,10 +454,14 @@ public class OrganisationMetricsActor extends BaseMetricsActor {
         return;
       }
 
-      Map<String, Object> aggregationMap = getOrgCreationData(periodStr, orgId);
-      String responseFormat = orgCreationResponseGenerator(periodStr, aggregationMap);
-      Response response =
-          metricsResponseGenerator(responseFormat, periodStr, getViewData(orgId, orgName));
+      Response response = MetricsResponseCache.get(actorMessage, orgId, null);
+      if (null == response) {
+        Map<String, Object> aggregationMap = getOrgCreationData(periodStr, orgId);
+        String responseFormat = orgCreationResponseGenerator(periodStr, aggregationMap);
+        response = metricsResponseGenerator(responseFormat, periodStr, getViewData(orgId, orgName));
+        MetricsResponseCache.put(
+            actorMessage, orgId, null, response, getPeriodExpiryTime(periodStr));
+      }
       sender().tell(response, self());
     } catch (ProjectCommonException e) {
       ProjectLogger.log(
@@ -544,10 +548,15 @@ public class OrganisationMetricsActor extends BaseMetricsActor {
       ProjectLogger.log(
           "OrganisationMetricsActor:orgConsumptionMetrics: hash tag id = " + channel,
           LoggerEnum.INFO.name());
-      String responseFormat = getOrgConsumptionData(actorMessage, periodStr, orgHashId, channel);
-      ProjectLogger.log("Response" + responseFormat);
-      Response response =
-          metricsResponseGenerator(responseFormat, periodStr, getViewData(orgId, orgName));
+      Response response = MetricsResponseCache.get(actorMessage, orgId, channel);
+      if (null == response) {
+        String responseFormat =
+            getOrgConsumptionData(actorMessage, periodStr, orgHashId, channel);
+        ProjectLogger.log("Response" + responseFormat);
+        response = metricsResponseGenerator(responseFormat, periodStr, getViewData(orgId, orgName));
+        MetricsResponseCache.put(
+            actorMessage, orgId, channel, response, getPeriodExpiryTime(periodStr));
+      }
       sender().tell(response, self());
     } catch (ProjectCommonException e) {
       ProjectLogger.log(
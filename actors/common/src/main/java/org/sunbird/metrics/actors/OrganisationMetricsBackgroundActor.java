@@ -3,6 +3,7 @@ package org.sunbird.metrics.actors;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -10,6 +11,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.StringUtils;
 import org.sunbird.actor.router.ActorConfig;
 import org.sunbird.cassandra.CassandraOperation;
@@ -89,17 +91,6 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
       headers.add("contentCreationTimeSpent");
       headers.add("contentCreationTotalSessions");
       headers.add("contentCreationAvgTimePerSession");
-      List<List<Object>> csvRecords = new ArrayList<>();
-      csvRecords.add(headers);
-      for (String operation : OrganisationMetricsUtil.operationList) {
-        String requestStr = getRequestObject(operation, requestId);
-        
-        String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
-        String ekStepResponse = makePostRequest(baseSearchUrl, JsonKey.EKSTEP_CONTENT_SEARCH_URL, requestStr);
-        List<Map<String, Object>> ekstepData = getDataFromResponse(ekStepResponse, headers, orgId);
-        List<Map<String, Object>> userData = getUserDetailsFromES(ekstepData);
-        csvRecords.addAll(generateDataList(userData, headers));
-      }
       String period = (String) requestData.get(JsonKey.PERIOD);
       String fileName =
           "CreationReport"
@@ -110,16 +101,23 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
               + FILENAMESEPARATOR
               + period;
 
-      saveData(csvRecords, requestId, "Creation Report");
-      Request backGroundRequest = new Request();
-      backGroundRequest.setOperation(ActorOperations.FILE_GENERATION_AND_UPLOAD.getValue());
+      saveStatus(requestId, "Creation Report");
+      try (ReportFileWriter writer =
+          new ReportFileWriter(fileName, (String) requestData.get(JsonKey.FORMAT))) {
+        writer.writeRow(headers);
+        for (String operation : OrganisationMetricsUtil.operationList) {
+          String requestStr = getRequestObject(operation, requestId);
 
-      Map<String, Object> innerMap = new HashMap<>();
-      innerMap.put(JsonKey.REQUEST_ID, requestId);
-      innerMap.put(JsonKey.FILE_NAME, fileName);
-      innerMap.put(JsonKey.DATA, csvRecords);
-      backGroundRequest.setRequest(innerMap);
-      tellToAnother(backGroundRequest);
+          String baseSearchUrl = ProjectUtil.getConfigValue(JsonKey.SEARCH_SERVICE_API_BASE_URL);
+          String ekStepResponse =
+              makePostRequest(baseSearchUrl, JsonKey.EKSTEP_CONTENT_SEARCH_URL, requestStr);
+          List<Map<String, Object>> ekstepData =
+              getDataFromResponse(ekStepResponse, headers, orgId);
+          List<Map<String, Object>> userData = getUserDetailsFromES(ekstepData);
+          writeRows(writer, userData, headers);
+        }
+        uploadReport(requestId, writer);
+      }
     } catch (Exception e) {
       ProjectLogger.log("Some error occurs", e);
       throw new ProjectCommonException(
@@ -158,22 +156,6 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
       headers.add("totalTimeSpentOnConsumingContent");
       headers.add("totalPiecesOfContentConsumed");
       headers.add("avgTimeSpentPerVisit");
-      List<Map<String, Object>> consumptionData = new ArrayList<>();
-      List<Map<String, Object>> usersData = getUserDetailsUsingOrg(orgId);
-      for (Map<String, Object> userData : usersData) {
-        String request =
-            OrganisationMetricsUtil.getOrgMetricsRequest(
-                actorMessage, periodStr, orgHashId, (String) userData.get(JsonKey.ID), channel);
-        String analyticsBaseUrl = ProjectUtil.getConfigValue(JsonKey.ANALYTICS_API_BASE_URL);
-        String esResponse = makePostRequest(analyticsBaseUrl, JsonKey.EKSTEP_METRICS_API_URL, request);
-        Map<String, Object> ekstepData =
-            getConsumptionDataFromResponse(esResponse, userData, (List<String>) (Object) headers);
-        consumptionData.add(ekstepData);
-      }
-      List<List<Object>> csvRecords = new ArrayList<>();
-      csvRecords.add(headers);
-      csvRecords.addAll(generateDataList(consumptionData, headers));
-
       String fileName =
           "ConsumptionReport"
               + FILENAMESEPARATOR
@@ -182,16 +164,40 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
               + System.currentTimeMillis()
               + FILENAMESEPARATOR
               + periodStr;
-      saveData(csvRecords, requestId, "Consumption Report");
-      Request backGroundRequest = new Request();
-      backGroundRequest.setOperation(ActorOperations.FILE_GENERATION_AND_UPLOAD.getValue());
-
-      Map<String, Object> innerMap = new HashMap<>();
-      innerMap.put(JsonKey.REQUEST_ID, requestId);
-      innerMap.put(JsonKey.FILE_NAME, fileName);
-      innerMap.put(JsonKey.DATA, csvRecords);
-      backGroundRequest.setRequest(innerMap);
-      tellToAnother(backGroundRequest);
+      saveStatus(requestId, "Consumption Report");
+      String analyticsBaseUrl = ProjectUtil.getConfigValue(JsonKey.ANALYTICS_API_BASE_URL);
+      try (ReportFileWriter writer =
+          new ReportFileWriter(fileName, (String) requestData.get(JsonKey.FORMAT))) {
+        writer.writeRow(headers);
+        // users of the org are read page by page and the metrics of every page are written
+        // before the next page is read
+        searchUsersOfOrg(
+            orgId,
+            usersData -> {
+              List<Map<String, Object>> consumptionData = new ArrayList<>();
+              for (Map<String, Object> userData : usersData) {
+                String request =
+                    OrganisationMetricsUtil.getOrgMetricsRequest(
+                        actorMessage,
+                        periodStr,
+                        orgHashId,
+                        (String) userData.get(JsonKey.ID),
+                        channel);
+                String esResponse;
+                try {
+                  esResponse =
+                      makePostRequest(analyticsBaseUrl, JsonKey.EKSTEP_METRICS_API_URL, request);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+                consumptionData.add(
+                    getConsumptionDataFromResponse(
+                        esResponse, userData, (List<String>) (Object) headers));
+              }
+              writeRows(writer, consumptionData, headers);
+            });
+        uploadReport(requestId, writer);
+      }
     } catch (Exception e) {
       ProjectLogger.log("Some error occurs", e);
       throw new ProjectCommonException(
@@ -201,6 +207,17 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
     }
   }
 
+  private void writeRows(
+      ReportFileWriter writer, List<Map<String, Object>> data, List<Object> headers) {
+    try {
+      for (List<Object> row : generateDataList(data, headers)) {
+        writer.writeRow(row);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   private List<List<Object>> generateDataList(
       List<Map<String, Object>> aggregationMap, List<Object> headers) {
     List<List<Object>> result = new ArrayList<>();
@@ -443,39 +460,19 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
     return domainList;
   }
 
-  @SuppressWarnings("unchecked")
-  private List<Map<String, Object>> getUserDetailsUsingOrg(String orgId) {
+  private void searchUsersOfOrg(String orgId, Consumer<List<Map<String, Object>>> consumer) {
     List<String> coursefields = new ArrayList<>();
-    List<Map<String, Object>> userResult = new ArrayList<>();
     coursefields.add(JsonKey.USER_ID);
     coursefields.add(JsonKey.USER_NAME);
     coursefields.add(JsonKey.CREATED_DATE);
     Map<String, Object> filter = new HashMap<>();
     filter.put("organisations.organisationId", orgId);
-    try {
-      Map<String, Object> result =
-          ElasticSearchUtil.complexSearch(
-              createESRequest(filter, null, coursefields),
-              ProjectUtil.EsIndex.sunbird.getIndexName(),
-              EsType.user.getTypeName());
-      if (null != result && !result.isEmpty()) {
-        List<Map<String, Object>> resultList =
-            (List<Map<String, Object>>) result.get(JsonKey.CONTENT);
-        if (null != resultList && !resultList.isEmpty()) {
-          for (Map<String, Object> dataObject : resultList) {
-            userResult.add(dataObject);
-          }
-        }
-      }
-      // decrypt the userdata
-      userResult = decryptionService.decryptData(userResult);
-      return userResult;
-    } catch (Exception e) {
-      throw new ProjectCommonException(
-          ResponseCode.esError.getErrorCode(),
-          ResponseCode.esError.getErrorMessage(),
-          ResponseCode.SERVER_ERROR.getResponseCode());
-    }
+    searchInPages(
+        EsType.user.getTypeName(),
+        filter,
+        coursefields,
+        // decrypt the userdata
+        page -> consumer.accept(decryptionService.decryptData(page)));
   }
 
   @SuppressWarnings("unchecked")
@@ -499,13 +496,11 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
     return resultMap;
   }
 
-  private void saveData(List<List<Object>> data, String requestId, String type) {
+  private void saveStatus(String requestId, String type) {
     Map<String, Object> dbReqMap = new HashMap<>();
     SimpleDateFormat format = ProjectUtil.getDateFormatter();
     format.setLenient(false);
     dbReqMap.put(JsonKey.ID, requestId);
-    String dataStr = getJsonString(data);
-    dbReqMap.put(JsonKey.DATA, dataStr);
     dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.GENERATING_DATA.getValue());
     dbReqMap.put(JsonKey.UPDATED_DATE, format.format(new Date()));
     dbReqMap.put(JsonKey.TYPE, type);
@@ -525,18 +520,4 @@ public class OrganisationMetricsBackgroundActor extends BaseMetricsActor {
     }
     return responseList.get(0);
   }
-
-  private String getJsonString(Object requestObject) {
-    ObjectMapper mapper = new ObjectMapper();
-    String data = "";
-    try {
-      data = mapper.writeValueAsString(requestObject);
-    } catch (JsonProcessingException e) {
-      throw new ProjectCommonException(
-          ResponseCode.invalidJsonData.getErrorCode(),
-          ResponseCode.invalidJsonData.getErrorMessage(),
-          ResponseCode.SERVER_ERROR.getResponseCode());
-    }
-    return data;
-  }
 }
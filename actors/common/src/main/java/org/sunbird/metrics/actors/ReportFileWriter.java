@@ -0,0 +1,135 @@
+package org.sunbird.metrics.actors;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes the rows of a report to a temporary file as they are generated, so the report is never
+ * held in memory as a whole. Excel files are written with a streaming workbook which keeps only a
+ * window of rows in memory; CSV files are written directly.
+ */
+public class ReportFileWriter implements Closeable {
+
+  private static final String CSV = "csv";
+  /** Number of rows of an excel sheet kept in memory. */
+  private static final int ROW_WINDOW = 100;
+
+  private final File dir;
+  private final File file;
+  private Writer csvWriter;
+  private SXSSFWorkbook workbook;
+  private Sheet sheet;
+  private int rowCount = 0;
+  private boolean finished = false;
+
+  /**
+   * @param fileName File name without extension
+   * @param format Report format, CSV or excel (default)
+   */
+  public ReportFileWriter(String fileName, String format) throws IOException {
+    dir = Files.createTempDirectory("report").toFile();
+    if (CSV.equalsIgnoreCase(format)) {
+      file = new File(dir, fileName + ".csv");
+      csvWriter =
+          new BufferedWriter(
+              new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    } else {
+      file = new File(dir, fileName + ".xlsx");
+      workbook = new SXSSFWorkbook(ROW_WINDOW);
+      sheet = workbook.createSheet("Data");
+    }
+  }
+
+  /**
+   * Writes a row.
+   *
+   * @param values Row values, null values are written as empty cells
+   */
+  public void writeRow(List<?> values) throws IOException {
+    if (null != csvWriter) {
+      for (int i = 0; i < values.size(); i++) {
+        if (i > 0) {
+          csvWriter.write(',');
+        }
+        csvWriter.write(escapeCsv(values.get(i)));
+      }
+      csvWriter.write("\r\n");
+    } else {
+      Row row = sheet.createRow(rowCount);
+      for (int i = 0; i < values.size(); i++) {
+        Object value = values.get(i);
+        Cell cell = row.createCell(i);
+        if (value instanceof Number) {
+          cell.setCellValue(((Number) value).doubleValue());
+        } else if (null != value) {
+          cell.setCellValue(String.valueOf(value));
+        }
+      }
+    }
+    rowCount++;
+  }
+
+  /** @return Number of rows written, including the header */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Completes the file.
+   *
+   * @return Report file
+   */
+  public File finish() throws IOException {
+    if (!finished) {
+      finished = true;
+      if (null != csvWriter) {
+        csvWriter.close();
+      } else {
+        try (OutputStream out = new FileOutputStream(file)) {
+          workbook.write(out);
+        } finally {
+          workbook.dispose();
+        }
+      }
+    }
+    return file;
+  }
+
+  /** Deletes the report file. */
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      Files.deleteIfExists(file.toPath());
+      Files.deleteIfExists(dir.toPath());
+    }
+  }
+
+  private static String escapeCsv(Object value) {
+    if (null == value) {
+      return "";
+    }
+    String text = String.valueOf(value);
+    if (text.indexOf(',') < 0
+        && text.indexOf('"') < 0
+        && text.indexOf('\n') < 0
+        && text.indexOf('\r') < 0) {
+      return text;
+    }
+    return '"' + text.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,102 @@
+package org.sunbird.metrics.actors;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.models.util.ProjectUtil.ReportTrackingStatus;
+import org.sunbird.common.models.util.azure.CloudService;
+import org.sunbird.common.models.util.azure.CloudServiceFactory;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.Util;
+
+/**
+ * Uploads generated report files to the cloud storage and records the outcome in report tracking.
+ * A failed upload is marked for retry by the metrics report job, and marked as failed once it has
+ * been tried more than {@link #MAX_TRY_COUNT} times.
+ */
+public final class ReportUploader {
+
+  private static final int MAX_TRY_COUNT = 3;
+  // TODO : confirm the container name ...
+  private static final String CONTAINER = "testContainer";
+
+  private static CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static Util.DbInfo reportTrackingdbInfo = Util.dbInfoMap.get(JsonKey.REPORT_TRACKING_DB);
+
+  private ReportUploader() {}
+
+  /**
+   * Uploads a report file and updates the report tracking record.
+   *
+   * @param requestId Report request id
+   * @param file Report file
+   * @return Storage url of the file
+   * @throws ProjectCommonException if the report does not exist or the upload failed
+   */
+  @SuppressWarnings("unchecked")
+  public static String upload(String requestId, File file) {
+    SimpleDateFormat simpleDateFormat = ProjectUtil.getDateFormatter();
+    simpleDateFormat.setLenient(false);
+    Response response =
+        cassandraOperation.getRecordById(
+            reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), requestId);
+    List<Map<String, Object>> responseList =
+        (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    if (responseList.isEmpty()) {
+      ProjectLogger.log("Invalid data");
+      throw new ProjectCommonException(
+          ResponseCode.invalidRequestData.getErrorCode(),
+          ResponseCode.invalidRequestData.getErrorMessage(),
+          ResponseCode.CLIENT_ERROR.getResponseCode());
+    }
+    Map<String, Object> reportDbInfo = responseList.get(0);
+    Map<String, Object> dbReqMap = new HashMap<>();
+    dbReqMap.put(JsonKey.ID, requestId);
+
+    String storageUrl = null;
+    try {
+      CloudService service = (CloudService) CloudServiceFactory.get("Azure");
+      if (null == service) {
+        ProjectLogger.log("The cloud service is not available");
+        throw new ProjectCommonException(
+            ResponseCode.invalidRequestData.getErrorCode(),
+            ResponseCode.invalidRequestData.getErrorMessage(),
+            ResponseCode.CLIENT_ERROR.getResponseCode());
+      }
+      storageUrl = service.uploadFile(CONTAINER, file);
+    } catch (Exception e) {
+      ProjectLogger.log(
+          "Error occurred while uploading file on storage for requset " + requestId, e);
+      Integer tryCount = (Integer) reportDbInfo.get(JsonKey.TRY_COUNT);
+      tryCount = null == tryCount ? 0 : tryCount + 1;
+      dbReqMap.put(JsonKey.TRY_COUNT, tryCount);
+      if (tryCount > MAX_TRY_COUNT) {
+        dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.FAILED.getValue());
+      } else {
+        dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.UPLOADING_FILE.getValue());
+      }
+      dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
+      cassandraOperation.updateRecord(
+          reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
+      throw e;
+    }
+
+    dbReqMap.put(JsonKey.FILE_URL, storageUrl);
+    dbReqMap.put(JsonKey.UPDATED_DATE, simpleDateFormat.format(new Date()));
+    dbReqMap.put(JsonKey.DATA, null);
+    dbReqMap.put(JsonKey.STATUS, ReportTrackingStatus.UPLOADING_FILE_SUCCESS.getValue());
+    cassandraOperation.updateRecord(
+        reportTrackingdbInfo.getKeySpace(), reportTrackingdbInfo.getTableName(), dbReqMap);
+    return storageUrl;
+  }
+}
@@ -0,0 +1,40 @@
+package org.sunbird.metrics.dao;
+
+import java.util.List;
+import java.util.Map;
+
+/** Data access for the daily metrics rollup counters. */
+public interface MetricsRollupDao {
+
+  /**
+   * @param resourceId Id of the resource the counters belong to, e.g. course id or root org id
+   * @param metric Metric name
+   * @param counters Counter values by day, day in yyyy-MM-dd format
+   * @return Rows which could not be saved
+   */
+  List<Map<String, Object>> save(String resourceId, String metric, Map<String, Long> counters);
+
+  /**
+   * Saves the counters of one metric and day, and records their resources as counted that day.
+   *
+   * @param metric Metric name
+   * @param day Day in yyyy-MM-dd format
+   * @param rows Rollup rows of the metric and day, each having resourceId, metric, day and value
+   * @return Rows which could not be saved
+   */
+  List<Map<String, Object>> saveAll(String metric, String day, List<Map<String, Object>> rows);
+
+  /**
+   * @param resourceId Id of the resource the counters belong to
+   * @param metric Metric name
+   * @return Counter values by day, day in yyyy-MM-dd format
+   */
+  Map<String, Long> read(String resourceId, String metric);
+
+  /**
+   * @param metric Metric name
+   * @param day Day in yyyy-MM-dd format
+   * @return Ids of the resources counted for the metric on the day
+   */
+  List<String> readResourceIds(String metric, String day);
+}
@@ -0,0 +1,100 @@
+package org.sunbird.metrics.dao.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections.CollectionUtils;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.metrics.dao.MetricsRollupDao;
+
+public class MetricsRollupDaoImpl implements MetricsRollupDao {
+
+  private CassandraOperation cassandraOperation = ServiceFactory.getInstance();
+  private static final String KEYSPACE_NAME = "sunbird";
+  private static final String TABLE_NAME = "metrics_rollup";
+  private static final String DAY_TABLE_NAME = "metrics_rollup_day";
+  public static final String RESOURCE_ID = "resourceId";
+  public static final String METRIC = "metric";
+  public static final String DAY = "day";
+
+  @Override
+  public List<Map<String, Object>> save(
+      String resourceId, String metric, Map<String, Long> counters) {
+    List<Map<String, Object>> rows = new ArrayList<>();
+    for (Map.Entry<String, Long> counter : counters.entrySet()) {
+      Map<String, Object> row = new HashMap<>();
+      row.put(RESOURCE_ID, resourceId);
+      row.put(METRIC, metric);
+      row.put(DAY, counter.getKey());
+      row.put(JsonKey.VALUE, counter.getValue());
+      rows.add(row);
+    }
+    return CassandraAsyncWriter.upsert(KEYSPACE_NAME, TABLE_NAME, rows);
+  }
+
+  @Override
+  public List<Map<String, Object>> saveAll(
+      String metric, String day, List<Map<String, Object>> rows) {
+    // every row is a partition of its own, so the rows are written one by one, not batched
+    List<Map<String, Object>> dayRows = new ArrayList<>();
+    for (Map<String, Object> row : rows) {
+      Map<String, Object> dayRow = new HashMap<>();
+      dayRow.put(METRIC, metric);
+      dayRow.put(DAY, day);
+      dayRow.put(RESOURCE_ID, row.get(RESOURCE_ID));
+      dayRows.add(dayRow);
+    }
+    List<Map<String, Object>> failed = new ArrayList<>();
+    for (Map<String, Object> dayRow :
+        CassandraAsyncWriter.upsert(KEYSPACE_NAME, DAY_TABLE_NAME, dayRows)) {
+      // a counter whose resource is not recorded could not be zeroed later, so it is not saved
+      failed.add(rows.get(dayRows.indexOf(dayRow)));
+    }
+    List<Map<String, Object>> counterRows = new ArrayList<>(rows);
+    counterRows.removeAll(failed);
+    failed.addAll(CassandraAsyncWriter.upsert(KEYSPACE_NAME, TABLE_NAME, counterRows));
+    return failed;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Map<String, Long> read(String resourceId, String metric) {
+    Map<String, Object> partition = new HashMap<>();
+    partition.put(RESOURCE_ID, resourceId);
+    partition.put(METRIC, metric);
+    Response response =
+        cassandraOperation.getRecordsByProperties(KEYSPACE_NAME, TABLE_NAME, partition);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    Map<String, Long> counters = new HashMap<>();
+    if (CollectionUtils.isNotEmpty(list)) {
+      for (Map<String, Object> row : list) {
+        Object value = row.get(JsonKey.VALUE);
+        counters.put((String) row.get(DAY), null == value ? 0L : ((Number) value).longValue());
+      }
+    }
+    return counters;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<String> readResourceIds(String metric, String day) {
+    Map<String, Object> partition = new HashMap<>();
+    partition.put(METRIC, metric);
+    partition.put(DAY, day);
+    Response response =
+        cassandraOperation.getRecordsByProperties(KEYSPACE_NAME, DAY_TABLE_NAME, partition);
+    List<Map<String, Object>> list = (List<Map<String, Object>>) response.get(JsonKey.RESPONSE);
+    List<String> resourceIds = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(list)) {
+      for (Map<String, Object> row : list) {
+        resourceIds.add((String) row.get(RESOURCE_ID));
+      }
+    }
+    return resourceIds;
+  }
+}
@@ -2,13 +2,16 @@ package org.sunbird.util.lmaxdisruptor;
 
 import com.google.common.net.HttpHeaders;
 import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.ws.rs.core.MediaType;
-import org.sunbird.common.models.util.HttpUtil;
 import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.models.util.LoggerEnum;
 import org.sunbird.common.models.util.ProjectLogger;
@@ -21,32 +24,98 @@ import org.sunbird.common.request.TelemetryV3Request;
  * Dispatcher for telemetry data to Sunbird telemetry service. Sunbird telemetry service is
  * responsible for storing telemetry data in Sunbird and/or Ekstep platform based on configuration.
  *
+ * <p>The events journaled but not dispatched before the last stop are replayed when the consumer
+ * starts, before it receives any event.
+ *
  * @author Manzarul
  */
-public class SunbirdTelemetryEventConsumer implements EventHandler<Request> {
+public class SunbirdTelemetryEventConsumer implements EventHandler<Request>, LifecycleAware {
+
+  private static final Type EVENTS_TYPE = new TypeToken<List<Map<String, Object>>>() {}.getType();
+
+  private final Gson gson = new Gson();
+  private TelemetryBatchDispatcher dispatcher;
+  private TelemetryJournal journal;
+  private long journalOffset = -1;
+
+  @Override
+  public void onStart() {
+    start();
+  }
+
+  @Override
+  public void onShutdown() {
+    if (null != dispatcher) {
+      dispatcher.flush();
+      acknowledge();
+    }
+    if (null != journal) {
+      journal.close();
+      journal = null;
+    }
+  }
 
   @Override
   public void onEvent(Request request, long sequence, boolean endOfBatch) {
-    ProjectLogger.log("SunbirdTelemetryEventConsumer: onEvent called.", LoggerEnum.INFO.name());
+    List<Map<String, Object>> events = null;
     if (request != null) {
+      events = getTelemetryRequest(request).getEvents();
+    }
+    if (null == dispatcher) {
+      // not started by the event processor
+      start();
+    }
+    if (null != events && !events.isEmpty() && null != journal) {
       try {
-        String response =
-            HttpUtil.sendPostRequest(
-                getTelemetryUrl(), new Gson().toJson(getTelemetryRequest(request)), getHeaders());
-        ProjectLogger.log(
-            "SunbirdTelemetryEventConsumer:onEvent: Request process status = " + response,
-            LoggerEnum.INFO.name());
-      } catch (Exception e) {
+        journalOffset = journal.append(gson.toJson(events));
+      } catch (IOException e) {
         ProjectLogger.log(
-            "SunbirdTelemetryEventConsumer:onEvent: Generic exception occurred in sending telemetry request = "
-                + e.getMessage(),
+            "SunbirdTelemetryEventConsumer:onEvent: Unable to journal events " + e.getMessage(),
             e);
-        ProjectLogger.log(
-            "SunbirdTelemetryEventConsumer:onEvent: Failure request = "
-                + new Gson().toJson(getTelemetryRequest(request)),
-            LoggerEnum.INFO.name());
       }
     }
+    dispatcher.add(events, endOfBatch);
+    acknowledge();
+  }
+
+  /**
+   * Creates the dispatcher and replays the events of the journal which were not dispatched before
+   * the last stop.
+   */
+  private void start() {
+    if (null != dispatcher) {
+      return;
+    }
+    dispatcher = new TelemetryBatchDispatcher(getTelemetryUrl(), getHeaders());
+    try {
+      journal = new TelemetryJournal();
+      long offset =
+          journal.replay(record -> dispatcher.add(gson.fromJson(record, EVENTS_TYPE), false));
+      dispatcher.flush();
+      journal.acknowledge(offset);
+    } catch (IOException e) {
+      journal = null;
+      ProjectLogger.log(
+          "SunbirdTelemetryEventConsumer:start: Journal is disabled " + e.getMessage(), e);
+    }
+  }
+
+  /** Acknowledges the journaled events once the dispatcher has sent or spilled all of them. */
+  private void acknowledge() {
+    if (null != journal && journalOffset >= 0 && !dispatcher.hasPendingEvents()) {
+      journal.acknowledge(journalOffset);
+      journalOffset = -1;
+    }
+  }
+
+  /**
+   * Returns the counts of events received, sent, spilled to disk and dropped by this consumer.
+   *
+   * @return Metrics
+   */
+  public Map<String, Object> getMetrics() {
+    TelemetryBatchDispatcher batchDispatcher = dispatcher;
+    return null == batchDispatcher ? new HashMap<>() : batchDispatcher.getMetrics();
   }
 
   public Map<String, String> getHeaders() {
@@ -0,0 +1,315 @@
+package org.sunbird.util.lmaxdisruptor;
+
+import com.google.common.net.HttpHeaders;
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.common.request.TelemetryV3Request;
+
+/**
+ * Sends telemetry events to the telemetry service in batches. Events are accumulated until the
+ * batch size is reached, the batch is older than the batch interval or the ring buffer has no more
+ * events (end of batch), and are then sent as one {@link TelemetryV3Request}.
+ *
+ * <p>Batches which can not be sent are spilled to disk, up to a bounded size, and are sent again
+ * once the telemetry service accepts a request. Batches which do not fit in the spill directory are
+ * dropped. After a failed request, batches are spilled without trying the service till the retry
+ * interval has passed, so an unavailable service holds the consumer thread for at most one request
+ * timeout per interval. This class is not thread safe, it is used by the single consumer thread of
+ * the disruptor.
+ */
+public class TelemetryBatchDispatcher {
+
+  private static final String BATCH_SIZE_KEY = "sunbird_telemetry_batch_size";
+  private static final String BATCH_INTERVAL_KEY = "sunbird_telemetry_batch_interval";
+  private static final String GZIP_KEY = "sunbird_telemetry_gzip";
+  private static final String SPILL_DIR_KEY = "sunbird_telemetry_spill_dir";
+  private static final String SPILL_MAX_SIZE_KEY = "sunbird_telemetry_spill_max_size";
+  private static final String CONNECT_TIMEOUT_KEY = "sunbird_telemetry_connect_timeout";
+  private static final String READ_TIMEOUT_KEY = "sunbird_telemetry_read_timeout";
+  private static final String RETRY_INTERVAL_KEY = "sunbird_telemetry_retry_interval";
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  /** Batch interval in milliseconds. */
+  private static final int DEFAULT_BATCH_INTERVAL = 1000;
+  /** Spill directory size limit in megabytes. */
+  private static final int DEFAULT_SPILL_MAX_SIZE = 100;
+
+  /** Timeouts and retry interval in milliseconds. */
+  private static final int DEFAULT_CONNECT_TIMEOUT = 2000;
+
+  private static final int DEFAULT_READ_TIMEOUT = 5000;
+  private static final int DEFAULT_RETRY_INTERVAL = 5000;
+  private static final String SPILL_FILE_PREFIX = "telemetry-";
+  private static final String SPILL_FILE_SUFFIX = ".json";
+
+  private final Gson gson = new Gson();
+  private final String url;
+  private final Map<String, String> headers;
+  private final int batchSize =
+      TelemetryConfig.getInt(BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE, 1, Integer.MAX_VALUE);
+  private final long batchInterval =
+      TelemetryConfig.getInt(BATCH_INTERVAL_KEY, DEFAULT_BATCH_INTERVAL);
+  private final boolean gzip = Boolean.parseBoolean(ProjectUtil.getConfigValue(GZIP_KEY));
+  private final long spillMaxSize =
+      TelemetryConfig.getInt(SPILL_MAX_SIZE_KEY, DEFAULT_SPILL_MAX_SIZE) * 1024L * 1024L;
+  private final int connectTimeout =
+      TelemetryConfig.getInt(CONNECT_TIMEOUT_KEY, DEFAULT_CONNECT_TIMEOUT);
+  private final int readTimeout = TelemetryConfig.getInt(READ_TIMEOUT_KEY, DEFAULT_READ_TIMEOUT);
+  private final long retryInterval =
+      TelemetryConfig.getInt(RETRY_INTERVAL_KEY, DEFAULT_RETRY_INTERVAL);
+  private long retryTime = 0;
+  private final List<Map<String, Object>> events = new ArrayList<>();
+  private long batchStartTime = 0;
+  private File spillDir;
+  private long spillSize = -1;
+  private long spillSequence = 0;
+
+  private final AtomicLong eventsIn = new AtomicLong();
+  private final AtomicLong eventsOut = new AtomicLong();
+  private final AtomicLong eventsSpilled = new AtomicLong();
+  private final AtomicLong eventsDropped = new AtomicLong();
+
+  /**
+   * @param url Telemetry service url
+   * @param headers Request headers
+   */
+  public TelemetryBatchDispatcher(String url, Map<String, String> headers) {
+    this.url = url;
+    this.headers = new HashMap<>(headers);
+    if (gzip) {
+      this.headers.put(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+  }
+
+  /**
+   * Adds events to the current batch and sends the batch if it is complete.
+   *
+   * @param newEvents Events to add, can be null
+   * @param endOfBatch true if there are no more events available in the ring buffer
+   */
+  public void add(List<Map<String, Object>> newEvents, boolean endOfBatch) {
+    if (null != newEvents && !newEvents.isEmpty()) {
+      if (events.isEmpty()) {
+        batchStartTime = System.currentTimeMillis();
+      }
+      events.addAll(newEvents);
+      eventsIn.addAndGet(newEvents.size());
+    }
+    if (endOfBatch
+        || events.size() >= batchSize
+        || System.currentTimeMillis() - batchStartTime >= batchInterval) {
+      flush();
+    }
+  }
+
+  /** Sends the events of the current batch. */
+  public void flush() {
+    if (events.isEmpty()) {
+      return;
+    }
+    List<Map<String, Object>> batch = new ArrayList<>(events);
+    events.clear();
+    for (int i = 0; i < batch.size(); i += batchSize) {
+      List<Map<String, Object>> chunk = batch.subList(i, Math.min(i + batchSize, batch.size()));
+      TelemetryV3Request request = new TelemetryV3Request();
+      request.setEts(System.currentTimeMillis());
+      request.setEvents(new ArrayList<>(chunk));
+      String body = gson.toJson(request);
+      if (send(body)) {
+        eventsOut.addAndGet(chunk.size());
+        replaySpilled();
+      } else {
+        spill(body, chunk.size());
+      }
+    }
+  }
+
+  /** @return true if there are events which are not sent or spilled yet */
+  public boolean hasPendingEvents() {
+    return !events.isEmpty();
+  }
+
+  /**
+   * Returns the counts of events received, sent, spilled to disk and dropped.
+   *
+   * @return Metrics
+   */
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new HashMap<>();
+    metrics.put("eventsIn", eventsIn.get());
+    metrics.put("eventsOut", eventsOut.get());
+    metrics.put("eventsSpilled", eventsSpilled.get());
+    metrics.put("eventsDropped", eventsDropped.get());
+    return metrics;
+  }
+
+  /**
+   * Sends a request to the telemetry service, unless a request failed within the retry interval.
+   * The response is read fully and the connection is not disconnected, so that it is kept alive
+   * and reused by the next request.
+   */
+  private boolean send(String body) {
+    if (System.currentTimeMillis() < retryTime) {
+      return false;
+    }
+    if (post(body)) {
+      retryTime = 0;
+      return true;
+    }
+    retryTime = System.currentTimeMillis() + retryInterval;
+    return false;
+  }
+
+  private boolean post(String body) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(readTimeout);
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        connection.setRequestProperty(header.getKey(), header.getValue());
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      try (OutputStream out =
+          gzip
+              ? new GZIPOutputStream(connection.getOutputStream())
+              : connection.getOutputStream()) {
+        out.write(bytes);
+      }
+      int status = connection.getResponseCode();
+      drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+      if (status >= 200 && status < 300) {
+        return true;
+      }
+      ProjectLogger.log(
+          "TelemetryBatchDispatcher:send: Telemetry service responded with status " + status,
+          LoggerEnum.ERROR.name());
+    } catch (IOException e) {
+      ProjectLogger.log(
+          "TelemetryBatchDispatcher:send: Exception occurred in sending telemetry request = "
+              + e.getMessage(),
+          e);
+    }
+    return false;
+  }
+
+  /** Reads the rest of a response and closes it, which returns the connection to the pool. */
+  private static void drain(InputStream in) throws IOException {
+    if (null == in) {
+      return;
+    }
+    try (InputStream response = in) {
+      byte[] buffer = new byte[4096];
+      while (response.read(buffer) >= 0) {
+        // discard the response
+      }
+    }
+  }
+
+  private void spill(String body, int eventCount) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    try {
+      File dir = getSpillDir();
+      if (spillSize + bytes.length > spillMaxSize) {
+        eventsDropped.addAndGet(eventCount);
+        ProjectLogger.log(
+            "TelemetryBatchDispatcher:spill: Spill directory is full, dropped "
+                + eventCount
+                + " events",
+            LoggerEnum.ERROR.name());
+        return;
+      }
+      // event count is kept in the file name for the counters of replayed batches
+      String name =
+          SPILL_FILE_PREFIX
+              + System.currentTimeMillis()
+              + "-"
+              + (spillSequence++)
+              + "-"
+              + eventCount
+              + SPILL_FILE_SUFFIX;
+      Files.write(new File(dir, name).toPath(), bytes);
+      spillSize += bytes.length;
+      eventsSpilled.addAndGet(eventCount);
+    } catch (IOException e) {
+      eventsDropped.addAndGet(eventCount);
+      ProjectLogger.log(
+          "TelemetryBatchDispatcher:spill: Unable to spill " + eventCount + " events", e);
+    }
+  }
+
+  /** Sends the spilled batches, oldest first, till one of them fails. */
+  private void replaySpilled() {
+    if (spillSize == 0) {
+      return;
+    }
+    try {
+      File[] files = getSpillDir().listFiles((dir, name) -> name.startsWith(SPILL_FILE_PREFIX));
+      if (null == files) {
+        return;
+      }
+      Arrays.sort(files);
+      for (File file : files) {
+        long length = file.length();
+        String body = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        if (!send(body)) {
+          return;
+        }
+        Files.delete(file.toPath());
+        spillSize -= length;
+        eventsOut.addAndGet(getEventCount(file.getName()));
+      }
+      spillSize = 0;
+    } catch (IOException e) {
+      ProjectLogger.log("TelemetryBatchDispatcher:replaySpilled: Exception occurred", e);
+    }
+  }
+
+  private File getSpillDir() throws IOException {
+    if (null == spillDir) {
+      String path = ProjectUtil.getConfigValue(SPILL_DIR_KEY);
+      if (StringUtils.isBlank(path)) {
+        path = System.getProperty("java.io.tmpdir") + File.separator + "sunbird-telemetry";
+      }
+      File dir = new File(path);
+      Files.createDirectories(dir.toPath());
+      long size = 0;
+      File[] files = dir.listFiles((d, name) -> name.startsWith(SPILL_FILE_PREFIX));
+      if (null != files) {
+        for (File file : files) {
+          size += file.length();
+        }
+      }
+      spillDir = dir;
+      spillSize = size;
+    }
+    return spillDir;
+  }
+
+  private static long getEventCount(String fileName) {
+    try {
+      String name = fileName.substring(0, fileName.length() - SPILL_FILE_SUFFIX.length());
+      return Long.parseLong(name.substring(name.lastIndexOf('-') + 1));
+    } catch (RuntimeException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.sunbird.util.lmaxdisruptor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+
+/**
+ * Reads the numeric settings of the telemetry consumer, from the environment or else from the
+ * properties file, falling back to a default when the setting is missing or out of range.
+ */
+public final class TelemetryConfig {
+
+  private TelemetryConfig() {}
+
+  /**
+   * @param key Setting name
+   * @param defaultValue Value used when the setting is missing or invalid
+   * @param min Smallest valid value
+   * @param max Largest valid value
+   * @return Setting value
+   */
+  public static int getInt(String key, int defaultValue, int min, int max) {
+    String value = ProjectUtil.getConfigValue(key);
+    if (StringUtils.isNotBlank(value)) {
+      try {
+        long number = Long.parseLong(value.trim());
+        if (number >= min && number <= max) {
+          return (int) number;
+        }
+      } catch (NumberFormatException e) {
+        // logged below
+      }
+      ProjectLogger.log(
+          "TelemetryConfig:getInt: Invalid value "
+              + value
+              + " for "
+              + key
+              + ", expected "
+              + min
+              + " to "
+              + max,
+          LoggerEnum.ERROR.name());
+    }
+    return defaultValue;
+  }
+
+  /**
+   * @param key Setting name
+   * @param defaultValue Value used when the setting is missing or invalid
+   * @return Setting value, at least 0
+   */
+  public static int getInt(String key, int defaultValue) {
+    return getInt(key, defaultValue, 0, Integer.MAX_VALUE);
+  }
+}
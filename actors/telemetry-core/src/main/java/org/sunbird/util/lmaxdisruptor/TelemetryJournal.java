@@ -0,0 +1,256 @@
+package org.sunbird.util.lmaxdisruptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.StringUtils;
+import org.sunbird.common.models.util.LoggerEnum;
+import org.sunbird.common.models.util.ProjectLogger;
+import org.sunbird.common.models.util.ProjectUtil;
+
+/**
+ * Append only journal of telemetry records, kept in memory mapped segment files. A record is
+ * appended before it is dispatched and the journal offset is acknowledged once it is sent (or
+ * spilled), so the records which are not acknowledged when the process stops are replayed on the
+ * next start.
+ *
+ * <p>Every record is stored as a 4 byte length prefix followed by its UTF-8 bytes; a zero length
+ * marks the end of the written part of a segment. The bytes are written before the length prefix,
+ * so a partly written record is never read. Offsets are logical positions over all the segments,
+ * the name of a segment file is the offset of its first byte. Segments are rolled when full and
+ * deleted once all their records are acknowledged, or once they are older than the retention time.
+ * Only the segment being appended to stays mapped.
+ */
+public class TelemetryJournal {
+
+  private static final String DIR_KEY = "sunbird_telemetry_journal_dir";
+  private static final String SEGMENT_SIZE_KEY = "sunbird_telemetry_journal_segment_size";
+  private static final String RETENTION_KEY = "sunbird_telemetry_journal_retention";
+  /** Segment size in megabytes, at most 1024 so that the size in bytes fits in an int. */
+  private static final int DEFAULT_SEGMENT_SIZE = 64;
+
+  private static final int MAX_SEGMENT_SIZE = 1024;
+  /** Retention of segments in hours. */
+  private static final int DEFAULT_RETENTION = 24;
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String ACK_FILE = "ack.offset";
+  private static final int LENGTH_SIZE = 4;
+
+  private final File dir;
+  private final int segmentSize =
+      TelemetryConfig.getInt(SEGMENT_SIZE_KEY, DEFAULT_SEGMENT_SIZE, 1, MAX_SEGMENT_SIZE) << 20;
+  private final long retention =
+      TelemetryConfig.getInt(RETENTION_KEY, DEFAULT_RETENTION) * 3600000L;
+  private MappedByteBuffer ackBuffer;
+  private MappedByteBuffer segment;
+  private long segmentBaseOffset;
+  private long ackOffset;
+
+  /** Opens the journal in the configured directory. */
+  public TelemetryJournal() throws IOException {
+    this(getDir());
+  }
+
+  /**
+   * Opens the journal in the given directory.
+   *
+   * @param dir Journal directory, created when missing
+   */
+  public TelemetryJournal(File dir) throws IOException {
+    this.dir = dir;
+    Files.createDirectories(dir.toPath());
+    ackBuffer = map(new File(dir, ACK_FILE), Long.BYTES);
+    ackOffset = ackBuffer.getLong(0);
+  }
+
+  /**
+   * Reads the records which are not acknowledged, and positions the journal for appending after
+   * the last record. Must be called once before appending.
+   *
+   * @param consumer Consumer of the records, in the order they were appended
+   * @return Offset after the last record
+   */
+  public synchronized long replay(Consumer<String> consumer) throws IOException {
+    List<Long> baseOffsets = getSegmentBaseOffsets();
+    int replayed = 0;
+    for (int i = 0; i < baseOffsets.size(); i++) {
+      long baseOffset = baseOffsets.get(i);
+      boolean last = i == baseOffsets.size() - 1;
+      if (!last && baseOffsets.get(i + 1) <= ackOffset) {
+        // fully acknowledged
+        continue;
+      }
+      MappedByteBuffer buffer = map(getSegmentFile(baseOffset), segmentSize);
+      int position = 0;
+      while (position + LENGTH_SIZE <= segmentSize) {
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + LENGTH_SIZE + length > segmentSize) {
+          break;
+        }
+        if (baseOffset + position >= ackOffset) {
+          byte[] bytes = new byte[length];
+          buffer.position(position + LENGTH_SIZE);
+          buffer.get(bytes);
+          consumer.accept(new String(bytes, StandardCharsets.UTF_8));
+          replayed++;
+        }
+        position += LENGTH_SIZE + length;
+      }
+      if (last) {
+        segment = buffer;
+        segmentBaseOffset = baseOffset;
+        segment.position(position);
+      } else {
+        unmap(buffer);
+      }
+    }
+    if (null == segment) {
+      openSegment(Math.max(ackOffset, 0));
+    }
+    ProjectLogger.log(
+        "TelemetryJournal:replay: Replayed " + replayed + " records", LoggerEnum.INFO.name());
+    return segmentBaseOffset + segment.position();
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param record Record
+   * @return Offset after the record, to be acknowledged once the record is dispatched
+   */
+  public synchronized long append(String record) throws IOException {
+    byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+    if (LENGTH_SIZE + bytes.length > segmentSize) {
+      throw new IOException("Record of " + bytes.length + " bytes is larger than a segment");
+    }
+    if (segment.position() + LENGTH_SIZE + bytes.length > segmentSize) {
+      openSegment(segmentBaseOffset + segment.position());
+    }
+    int position = segment.position();
+    // length is written after the bytes, so a partly written record is never read
+    segment.position(position + LENGTH_SIZE);
+    segment.put(bytes);
+    segment.putInt(position, bytes.length);
+    return segmentBaseOffset + segment.position();
+  }
+
+  /**
+   * Acknowledges all the records before the given offset and deletes the segments which are fully
+   * acknowledged or older than the retention time.
+   *
+   * @param offset Offset returned by {@link #append(String)}
+   */
+  public synchronized void acknowledge(long offset) {
+    if (offset <= ackOffset) {
+      return;
+    }
+    ackOffset = offset;
+    ackBuffer.putLong(0, offset);
+    List<Long> baseOffsets = getSegmentBaseOffsets();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < baseOffsets.size() - 1; i++) {
+      File file = getSegmentFile(baseOffsets.get(i));
+      boolean acknowledged = baseOffsets.get(i + 1) <= ackOffset;
+      if (acknowledged || now - file.lastModified() > retention) {
+        if (!acknowledged) {
+          ProjectLogger.log(
+              "TelemetryJournal:acknowledge: Deleting expired segment " + file.getName(),
+              LoggerEnum.ERROR.name());
+        }
+        if (!file.delete()) {
+          ProjectLogger.log(
+              "TelemetryJournal:acknowledge: Unable to delete " + file.getName(),
+              LoggerEnum.ERROR.name());
+        }
+      }
+    }
+  }
+
+  /** Unmaps the segment and the acknowledged offset. The journal can not be used afterwards. */
+  public synchronized void close() {
+    if (null != segment) {
+      unmap(segment);
+      segment = null;
+    }
+    if (null != ackBuffer) {
+      unmap(ackBuffer);
+      ackBuffer = null;
+    }
+  }
+
+  private void openSegment(long baseOffset) throws IOException {
+    MappedByteBuffer previous = segment;
+    segment = map(getSegmentFile(baseOffset), segmentSize);
+    segmentBaseOffset = baseOffset;
+    segment.position(0);
+    if (null != previous) {
+      unmap(previous);
+    }
+  }
+
+  private static File getDir() {
+    String path = ProjectUtil.getConfigValue(DIR_KEY);
+    if (StringUtils.isBlank(path)) {
+      path = System.getProperty("java.io.tmpdir") + File.separator + "sunbird-telemetry-journal";
+    }
+    return new File(path);
+  }
+
+  private List<Long> getSegmentBaseOffsets() {
+    List<Long> baseOffsets = new ArrayList<>();
+    String[] names =
+        dir.list((d, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+    if (null != names) {
+      for (String name : names) {
+        baseOffsets.add(
+            Long.parseLong(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+      }
+    }
+    Long[] sorted = baseOffsets.toArray(new Long[0]);
+    Arrays.sort(sorted);
+    return Arrays.asList(sorted);
+  }
+
+  private File getSegmentFile(long baseOffset) {
+    return new File(dir, String.format("%s%020d%s", SEGMENT_PREFIX, baseOffset, SEGMENT_SUFFIX));
+  }
+
+  private static MappedByteBuffer map(File file, int size) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel()) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  /**
+   * Releases the mapping of a buffer now rather than when it is garbage collected, so that the
+   * file of a deleted segment does not keep its disk space. The buffer must not be used afterwards.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (null != cleaner) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // left to the garbage collector
+      ProjectLogger.log(
+          "TelemetryJournal:unmap: Unable to unmap segment " + e.getMessage(),
+          LoggerEnum.INFO.name());
+    }
+  }
+}
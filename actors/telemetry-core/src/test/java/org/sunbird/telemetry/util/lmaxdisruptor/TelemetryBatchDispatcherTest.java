@@ -0,0 +1,90 @@
+package org.sunbird.telemetry.util.lmaxdisruptor;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.util.lmaxdisruptor.TelemetryBatchDispatcher;
+
+public class TelemetryBatchDispatcherTest {
+
+  private HttpServer server;
+  private final AtomicInteger hits = new AtomicInteger();
+  private volatile int status = 200;
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          hits.incrementAndGet();
+          try (InputStream in = exchange.getRequestBody()) {
+            while (in.read() >= 0) {
+              // discard the request
+            }
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+    // spill files of the failed requests, in the default spill directory
+    File[] files =
+        new File(System.getProperty("java.io.tmpdir"), "sunbird-telemetry")
+            .listFiles((dir, name) -> name.startsWith("telemetry-"));
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  @Test
+  public void testEndOfBatchSendsEvents() {
+    TelemetryBatchDispatcher dispatcher = new TelemetryBatchDispatcher(getUrl(), new HashMap<>());
+
+    dispatcher.add(getEvents(), false);
+    dispatcher.add(getEvents(), true);
+
+    Assert.assertEquals(1, hits.get());
+    Assert.assertEquals(2L, dispatcher.getMetrics().get("eventsOut"));
+    Assert.assertFalse(dispatcher.hasPendingEvents());
+  }
+
+  @Test
+  public void testFailedRequestIsNotRetriedWithinRetryInterval() {
+    status = 500;
+    TelemetryBatchDispatcher dispatcher = new TelemetryBatchDispatcher(getUrl(), new HashMap<>());
+
+    dispatcher.add(getEvents(), true);
+    dispatcher.add(getEvents(), true);
+
+    Assert.assertEquals(1, hits.get());
+    Assert.assertEquals(0L, dispatcher.getMetrics().get("eventsOut"));
+  }
+
+  private String getUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + "/v1/telemetry";
+  }
+
+  private static List<Map<String, Object>> getEvents() {
+    Map<String, Object> event = new HashMap<>();
+    event.put("eid", "LOG");
+    return Collections.singletonList(event);
+  }
+}
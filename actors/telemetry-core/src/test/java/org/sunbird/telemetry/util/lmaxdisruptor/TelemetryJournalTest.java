@@ -0,0 +1,82 @@
+package org.sunbird.telemetry.util.lmaxdisruptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.sunbird.util.lmaxdisruptor.TelemetryJournal;
+
+public class TelemetryJournalTest {
+
+  private File dir;
+
+  @Before
+  public void createDir() throws IOException {
+    dir = Files.createTempDirectory("telemetry-journal").toFile();
+  }
+
+  @After
+  public void deleteDir() {
+    File[] files = dir.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  @Test
+  public void testUnacknowledgedRecordsAreReplayed() throws IOException {
+    TelemetryJournal journal = new TelemetryJournal(dir);
+    journal.replay(record -> Assert.fail("Unexpected record " + record));
+    long first = journal.append("first");
+    journal.append("second");
+    journal.acknowledge(first);
+    journal.close();
+
+    List<String> records = new ArrayList<>();
+    TelemetryJournal reopened = new TelemetryJournal(dir);
+    reopened.replay(records::add);
+    reopened.close();
+
+    Assert.assertEquals(Arrays.asList("second"), records);
+  }
+
+  @Test
+  public void testAppendContinuesAfterReplay() throws IOException {
+    TelemetryJournal journal = new TelemetryJournal(dir);
+    journal.replay(record -> {});
+    long offset = journal.append("first");
+    journal.close();
+
+    TelemetryJournal reopened = new TelemetryJournal(dir);
+    long end = reopened.replay(record -> {});
+    long next = reopened.append("second");
+    reopened.close();
+
+    Assert.assertEquals(offset, end);
+    Assert.assertTrue(next > end);
+  }
+
+  @Test
+  public void testAcknowledgedRecordsAreNotReplayed() throws IOException {
+    TelemetryJournal journal = new TelemetryJournal(dir);
+    journal.replay(record -> {});
+    journal.acknowledge(journal.append("first"));
+    journal.close();
+
+    List<String> records = new ArrayList<>();
+    TelemetryJournal reopened = new TelemetryJournal(dir);
+    reopened.replay(records::add);
+    reopened.close();
+
+    Assert.assertTrue(records.isEmpty());
+  }
+}
@@ -17,15 +17,7 @@ public class Application {
     Util.checkCassandraDbConnections(JsonKey.SUNBIRD);
     Util.checkCassandraDbConnections(JsonKey.SUNBIRD_PLUGIN);
     SchedulerManager.schedule();
-    // scheduler should start after few minutes so internally it is sleeping for 4 minute , so
-    // putting in seperate thread .
-    new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                org.sunbird.common.quartz.scheduler.SchedulerManager.getInstance();
-              }
-            })
-        .start();
+    // quartz jobs are registered in the background once Cassandra and ES are ready
+    org.sunbird.common.quartz.scheduler.SchedulerManager.getInstance();
   }
 }
@@ -0,0 +1,101 @@
+package org.sunbird.common.quartz.scheduler;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.models.util.ProjectUtil;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.EsWriteBehindQueue;
+import org.sunbird.telemetry.util.TelemetryUtil;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({
+  ServiceFactory.class,
+  CassandraAsyncWriter.class,
+  EsWriteBehindQueue.class,
+  TelemetryUtil.class
+})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class CoursePublishedUpdateTest {
+
+  private static final CassandraOperationImpl cassandraOperation =
+      Mockito.mock(CassandraOperationImpl.class);
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(cassandraOperation);
+    PowerMockito.mockStatic(CassandraAsyncWriter.class);
+    PowerMockito.mockStatic(EsWriteBehindQueue.class);
+    PowerMockito.mockStatic(TelemetryUtil.class);
+    Whitebox.setInternalState(
+        CoursePublishedUpdate.class, "cassandraOperation", cassandraOperation);
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testOnlyEnrolledParticipantsAreMarked() throws Exception {
+    when(CassandraAsyncWriter.upsert(Mockito.anyString(), Mockito.anyString(), Mockito.anyList()))
+        .thenAnswer(
+            invocation -> {
+              for (Map<String, Object> userCourse :
+                  (List<Map<String, Object>>) invocation.getArguments()[2]) {
+                if ("user2".equals(userCourse.get(JsonKey.USER_ID))) {
+                  return Collections.singletonList(userCourse);
+                }
+              }
+              return new ArrayList<>();
+            });
+
+    try {
+      Whitebox.invokeMethod(new CoursePublishedUpdate(), "addUserToUserCourseTable", getBatch());
+      Assert.fail("Expected the batch to fail");
+    } catch (IllegalStateException e) {
+      ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+      Mockito.verify(cassandraOperation)
+          .updateRecord(Mockito.anyString(), Mockito.anyString(), captor.capture());
+      Map<String, Boolean> participants =
+          (Map<String, Boolean>) captor.getValue().get(JsonKey.PARTICIPANT);
+      Assert.assertTrue(participants.get("user1"));
+      Assert.assertFalse(participants.get("user2"));
+      ArgumentCaptor<Map> docCaptor = ArgumentCaptor.forClass(Map.class);
+      PowerMockito.verifyStatic(Mockito.times(1));
+      EsWriteBehindQueue.index(
+          Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), docCaptor.capture());
+      // the document has its id fields set, so the queue sends it in bulk
+      Map<String, Object> doc = docCaptor.getValue();
+      Assert.assertEquals(doc.get(JsonKey.ID), doc.get(JsonKey.IDENTIFIER));
+    }
+  }
+
+  private static Map<String, Object> getBatch() {
+    Map<String, Boolean> participants = new HashMap<>();
+    participants.put("user1", false);
+    participants.put("user2", false);
+    Map<String, Object> batch = new HashMap<>();
+    batch.put(JsonKey.ID, "batch1");
+    batch.put(JsonKey.COURSE_ID, "course1");
+    batch.put(JsonKey.STATUS, ProjectUtil.ProgressStatus.NOT_STARTED.getValue());
+    batch.put(JsonKey.PARTICIPANT, participants);
+    batch.put(JsonKey.COURSE_ADDITIONAL_INFO, new HashMap<String, String>());
+    return batch;
+  }
+}
@@ -0,0 +1,94 @@
+package org.sunbird.common.quartz.scheduler;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+
+public class JobLeaderLeaseTest {
+
+  private static final long LEASE_TIMEOUT = 60000L;
+  private static final String NODE_ID = "node1";
+
+  private SyncCheckpointDao checkpointDao;
+  private JobLeaderLease leaderLease;
+
+  @Before
+  public void setUp() {
+    checkpointDao = Mockito.mock(SyncCheckpointDao.class);
+    leaderLease = new JobLeaderLease(checkpointDao, LEASE_TIMEOUT, NODE_ID);
+  }
+
+  @Test
+  public void testUnownedLeaseIsTaken() {
+    SyncCheckpoint lease = newLease(null, System.currentTimeMillis());
+    Mockito.when(checkpointDao.read(Mockito.anyString())).thenReturn(lease);
+    Mockito.when(checkpointDao.claim(lease, NODE_ID, 0)).thenReturn(true);
+
+    leaderLease.renew();
+
+    Assert.assertTrue(leaderLease.isLeader());
+    Assert.assertFalse(leaderLease.vetoJobExecution(null, null));
+  }
+
+  @Test
+  public void testMissingLeaseIsCreated() {
+    SyncCheckpoint lease = newLease(null, System.currentTimeMillis());
+    Mockito.when(checkpointDao.read(Mockito.anyString())).thenReturn(null, lease);
+    Mockito.when(checkpointDao.claim(lease, NODE_ID, 0)).thenReturn(true);
+
+    leaderLease.renew();
+
+    Mockito.verify(checkpointDao).insertIfNotExists(Mockito.any(SyncCheckpoint.class));
+    Assert.assertTrue(leaderLease.isLeader());
+  }
+
+  @Test
+  public void testLeaseRenewedByOtherNodeIsNotTaken() {
+    SyncCheckpoint lease = newLease("node2", System.currentTimeMillis());
+    Mockito.when(checkpointDao.read(Mockito.anyString())).thenReturn(lease);
+
+    leaderLease.renew();
+
+    Mockito.verify(checkpointDao, Mockito.never())
+        .claim(Mockito.any(SyncCheckpoint.class), Mockito.anyString(), Mockito.anyInt());
+    Assert.assertFalse(leaderLease.isLeader());
+    Assert.assertTrue(leaderLease.vetoJobExecution(null, null));
+  }
+
+  @Test
+  public void testExpiredLeaseOfOtherNodeIsTaken() {
+    SyncCheckpoint lease = newLease("node2", System.currentTimeMillis() - 2 * LEASE_TIMEOUT);
+    Mockito.when(checkpointDao.read(Mockito.anyString())).thenReturn(lease);
+    Mockito.when(checkpointDao.claim(lease, NODE_ID, 0)).thenReturn(true);
+
+    leaderLease.renew();
+
+    Assert.assertTrue(leaderLease.isLeader());
+  }
+
+  @Test
+  public void testLeaseIsLostWhenRenewalDoesNotApply() {
+    SyncCheckpoint lease = newLease(NODE_ID, System.currentTimeMillis());
+    Mockito.when(checkpointDao.read(Mockito.anyString())).thenReturn(lease);
+    Mockito.when(checkpointDao.claim(lease, NODE_ID, 0)).thenReturn(true, false);
+
+    leaderLease.renew();
+    Assert.assertTrue(leaderLease.isLeader());
+    leaderLease.renew();
+
+    Assert.assertFalse(leaderLease.isLeader());
+  }
+
+  private static SyncCheckpoint newLease(String owner, long lastUpdatedTime) {
+    SyncCheckpoint lease = new SyncCheckpoint();
+    lease.setId("quartzJobLeader");
+    lease.setOwner(owner);
+    lease.setStatus(
+        null == owner ? SyncCheckpoint.STATUS_PENDING : SyncCheckpoint.STATUS_IN_PROGRESS);
+    lease.setLastUpdatedTime(lastUpdatedTime);
+    return lease;
+  }
+}
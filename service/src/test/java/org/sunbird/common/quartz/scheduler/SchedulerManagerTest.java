@@ -0,0 +1,15 @@
+package org.sunbird.common.quartz.scheduler;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sunbird.learner.util.MetricsRegistry;
+
+public class SchedulerManagerTest {
+
+  @Test
+  public void testJobMetricsAreRegistered() {
+    SchedulerManager.getMetrics();
+
+    Assert.assertTrue(MetricsRegistry.getMetrics().containsKey("quartzJobs"));
+  }
+}
@@ -6,6 +6,7 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.testkit.javadsl.TestKit;
+import java.util.Map;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -29,6 +30,7 @@ public class HealthActorTest {
     Util.checkCassandraDbConnections(JsonKey.SUNBIRD);
   }
 
+  @SuppressWarnings("unchecked")
   @Test
   public void getHealthCheck() {
     TestKit probe = new TestKit(system);
@@ -39,6 +41,8 @@ public class HealthActorTest {
     subject.tell(reqObj, probe.getRef());
     Response res = probe.expectMsgClass(duration("200 second"), Response.class);
     Assert.assertTrue(null != res.get(JsonKey.RESPONSE));
+    Map<String, Object> health = (Map<String, Object>) res.get(JsonKey.RESPONSE);
+    Assert.assertTrue(((Map<String, Object>) health.get("metrics")).containsKey("healthProbes"));
   }
 
   @Test
@@ -32,6 +32,7 @@ import org.sunbird.common.models.util.JsonKey;
 import org.sunbird.common.request.Request;
 import org.sunbird.common.responsecode.ResponseCode;
 import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.MetricsRegistry;
 
 /** @author arvind */
 @RunWith(PowerMockRunner.class)
@@ -196,4 +197,11 @@ public class LearnerStateActorTest {
     Response res = probe.expectMsgClass(duration("10 second"), Response.class);
     Assert.assertNotNull(res);
   }
+
+  @Test
+  public void testMetricsAreRegistered() {
+    LearnerStateActor.getMetrics();
+
+    Assert.assertTrue(MetricsRegistry.getMetrics().containsKey("contentState"));
+  }
 }
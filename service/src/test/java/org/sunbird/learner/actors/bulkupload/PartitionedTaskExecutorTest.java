@@ -0,0 +1,75 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionedTaskExecutorTest {
+
+  @Test
+  public void testRowsWithoutKeyRunInOnePartitionInOrder() {
+    PartitionedTaskExecutor executor = new PartitionedTaskExecutor(4);
+    List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+    Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+    try {
+      executor.execute(
+          Arrays.asList(1, 2, 3, 4, 5, 6),
+          row -> null,
+          row -> {
+            threads.add(Thread.currentThread());
+            processed.add(row);
+          });
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals(1, threads.size());
+    Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), processed);
+  }
+
+  @Test
+  public void testRowsOfSameKeyRunInOrder() {
+    PartitionedTaskExecutor executor = new PartitionedTaskExecutor(4);
+    List<String> processed = Collections.synchronizedList(new ArrayList<>());
+    try {
+      executor.execute(
+          Arrays.asList("a1", "b1", "a2", "b2", "a3"),
+          row -> row.substring(0, 1),
+          processed::add);
+    } finally {
+      executor.shutdown();
+    }
+    List<String> aRows = new ArrayList<>();
+    for (String row : processed) {
+      if (row.startsWith("a")) {
+        aRows.add(row);
+      }
+    }
+    Assert.assertEquals(5, processed.size());
+    Assert.assertEquals(Arrays.asList("a1", "a2", "a3"), aRows);
+  }
+
+  @Test
+  public void testRowsSharingAnyIdentityGetSameConflictKey() {
+    // row 1 shares the name of row 0 and the email of row 2, row 3 is unrelated, row 4 has none
+    List<List<String>> rows =
+        Arrays.asList(
+            Arrays.asList("name:a"),
+            Arrays.asList("name:a", "email:b"),
+            Arrays.asList("email:b", "phone:c"),
+            Arrays.asList("name:d"),
+            Arrays.asList(""));
+
+    Map<List<String>, String> keys = PartitionedTaskExecutor.getConflictKeys(rows, row -> row);
+
+    Assert.assertEquals(keys.get(rows.get(0)), keys.get(rows.get(1)));
+    Assert.assertEquals(keys.get(rows.get(0)), keys.get(rows.get(2)));
+    Assert.assertNotEquals(keys.get(rows.get(0)), keys.get(rows.get(3)));
+    Assert.assertNull(keys.get(rows.get(4)));
+  }
+}
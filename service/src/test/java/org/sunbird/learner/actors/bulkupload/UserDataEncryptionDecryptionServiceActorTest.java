@@ -0,0 +1,47 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static akka.testkit.JavaTestKit.duration;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+import java.util.HashMap;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sunbird.common.exception.ProjectCommonException;
+import org.sunbird.common.models.util.ActorOperations;
+import org.sunbird.common.request.Request;
+import org.sunbird.common.responsecode.ResponseCode;
+import org.sunbird.learner.actors.syncjobmanager.CheckpointedScan;
+
+public class UserDataEncryptionDecryptionServiceActorTest {
+
+  private static ActorSystem system;
+  private static final Props props = Props.create(UserDataEncryptionDecryptionServiceActor.class);
+
+  @BeforeClass
+  public static void setUp() {
+    system = ActorSystem.create("system");
+  }
+
+  @Test
+  public void testRequestIsRejectedWhileMigrationIsRunning() {
+    Assert.assertTrue(CheckpointedScan.tryStart(UserDataMigration.SCAN_ID));
+    try {
+      TestKit probe = new TestKit(system);
+      ActorRef subject = system.actorOf(props);
+      Request request = new Request();
+      request.setRequest(new HashMap<>());
+      request.setOperation(ActorOperations.ENCRYPT_USER_DATA.getValue());
+      subject.tell(request, probe.getRef());
+
+      ProjectCommonException exception =
+          probe.expectMsgClass(duration("10 second"), ProjectCommonException.class);
+      Assert.assertEquals(ResponseCode.invalidRequestData.getErrorCode(), exception.getCode());
+    } finally {
+      CheckpointedScan.finish(UserDataMigration.SCAN_ID);
+    }
+  }
+}
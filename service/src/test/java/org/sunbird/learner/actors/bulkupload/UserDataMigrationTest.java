@@ -0,0 +1,196 @@
+package org.sunbird.learner.actors.bulkupload;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.CheckpointedScan;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.UserUtility;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ServiceFactory.class, CassandraAsyncWriter.class, UserUtility.class})
+@SuppressStaticInitializationFor("org.sunbird.learner.util.UserUtility")
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class UserDataMigrationTest {
+
+  private static final CassandraOperationImpl cassandraOperation =
+      Mockito.mock(CassandraOperationImpl.class);
+
+  private UserDataMigration migration;
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(cassandraOperation);
+    PowerMockito.mockStatic(UserUtility.class);
+    when(UserUtility.getUserKeysToEncrypt()).thenReturn(Collections.singletonList(JsonKey.EMAIL));
+    when(UserUtility.getAddressKeysToEncrypt())
+        .thenReturn(Collections.singletonList(JsonKey.CITY));
+    PowerMockito.mockStatic(CassandraAsyncWriter.class);
+    mockAddresses();
+    migration =
+        new UserDataMigration(
+            "testMigration",
+            user -> !"skipped".equals(user.get(JsonKey.ID)),
+            new UserDataMigration.UserTransformer() {
+              @Override
+              public void transformUser(Map<String, Object> user) {
+                user.put(JsonKey.EMAIL, "encrypted");
+              }
+
+              @Override
+              public void transformAddresses(List<Map<String, Object>> addresses) {
+                for (Map<String, Object> address : addresses) {
+                  address.put(JsonKey.CITY, "encrypted");
+                }
+              }
+            });
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testOnlyEncryptedColumnsAreUpdated() {
+    PowerMockito.when(
+            CassandraAsyncWriter.update(
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyList(),
+                Mockito.anyCollection()))
+        .thenReturn(new ArrayList<>());
+
+    CheckpointedScan.PageResult result =
+        migration.migratePage(Arrays.asList(getUser("user1"), getUser("skipped")));
+
+    Assert.assertEquals(1, result.getProcessed());
+    Assert.assertEquals(0, result.getFailed());
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    PowerMockito.verifyStatic(Mockito.times(2));
+    CassandraAsyncWriter.update(
+        Mockito.anyString(), Mockito.anyString(), captor.capture(), Mockito.anyCollection());
+    Map<String, Object> user = (Map<String, Object>) captor.getAllValues().get(0).get(0);
+    Assert.assertEquals(2, user.size());
+    Assert.assertEquals("encrypted", user.get(JsonKey.EMAIL));
+    Map<String, Object> address = (Map<String, Object>) captor.getAllValues().get(1).get(0);
+    Assert.assertEquals(2, address.size());
+    Assert.assertEquals("encrypted", address.get(JsonKey.CITY));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testAddressesOfFailedUserAreNotWritten() {
+    PowerMockito.when(
+            CassandraAsyncWriter.update(
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyList(),
+                Mockito.anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              // fail the user row of user1
+              List<Map<String, Object>> failed = new ArrayList<>();
+              for (Map<String, Object> record :
+                  (List<Map<String, Object>>) invocation.getArguments()[2]) {
+                if ("user1".equals(record.get(JsonKey.ID))) {
+                  failed.add(record);
+                }
+              }
+              return failed;
+            });
+
+    CheckpointedScan.PageResult result =
+        migration.migratePage(Arrays.asList(getUser("user1"), getUser("user2")));
+
+    Assert.assertEquals(2, result.getProcessed());
+    Assert.assertEquals(1, result.getFailed());
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    PowerMockito.verifyStatic(Mockito.times(2));
+    CassandraAsyncWriter.update(
+        Mockito.anyString(), Mockito.anyString(), captor.capture(), Mockito.anyCollection());
+    List<Map<String, Object>> addresses = captor.getAllValues().get(1);
+    Assert.assertEquals(1, addresses.size());
+    Assert.assertEquals("address_user2", addresses.get(0).get(JsonKey.ID));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testUserWithFailedAddressTransformIsSkipped() {
+    PowerMockito.when(
+            CassandraAsyncWriter.update(
+                Mockito.anyString(),
+                Mockito.anyString(),
+                Mockito.anyList(),
+                Mockito.anyCollection()))
+        .thenReturn(new ArrayList<>());
+    migration =
+        new UserDataMigration(
+            "testMigration",
+            user -> true,
+            new UserDataMigration.UserTransformer() {
+              @Override
+              public void transformUser(Map<String, Object> user) {}
+
+              @Override
+              public void transformAddresses(List<Map<String, Object>> addresses) {
+                if ("address_user1".equals(addresses.get(0).get(JsonKey.ID))) {
+                  throw new IllegalStateException("decryption failed");
+                }
+              }
+            });
+
+    CheckpointedScan.PageResult result =
+        migration.migratePage(Arrays.asList(getUser("user1"), getUser("user2")));
+
+    Assert.assertEquals(1, result.getProcessed());
+    Assert.assertEquals(1, result.getFailed());
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    PowerMockito.verifyStatic(Mockito.times(2));
+    CassandraAsyncWriter.update(
+        Mockito.anyString(), Mockito.anyString(), captor.capture(), Mockito.anyCollection());
+    List<Map<String, Object>> users = captor.getAllValues().get(0);
+    Assert.assertEquals(1, users.size());
+    Assert.assertEquals("user2", users.get(0).get(JsonKey.ID));
+  }
+
+  private static void mockAddresses() {
+    when(cassandraOperation.getRecordsByProperty(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyObject()))
+        .thenAnswer(
+            invocation -> {
+              Map<String, Object> address = new HashMap<>();
+              address.put(JsonKey.ID, "address_" + invocation.getArguments()[3]);
+              address.put(JsonKey.CITY, "city");
+              address.put(JsonKey.USER_ID, invocation.getArguments()[3]);
+              Response response = new Response();
+              response.put(JsonKey.RESPONSE, new ArrayList<>(Collections.singletonList(address)));
+              return response;
+            });
+  }
+
+  private static Map<String, Object> getUser(String id) {
+    Map<String, Object> user = new HashMap<>();
+    user.put(JsonKey.ID, id);
+    user.put(JsonKey.EMAIL, "user@test.com");
+    user.put(JsonKey.FIRST_NAME, "name");
+    return user;
+  }
+}
@@ -0,0 +1,157 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+import org.sunbird.learner.util.CassandraPagedReader;
+
+public class CheckpointedScanTest {
+
+  private CassandraPagedReader reader;
+  private SyncCheckpointDao checkpointDao;
+
+  @Before
+  public void setUp() {
+    reader = Mockito.mock(CassandraPagedReader.class);
+    checkpointDao = Mockito.mock(SyncCheckpointDao.class);
+  }
+
+  @Test
+  public void testRunCompletesAfterLastPage() {
+    mockPage(0L, 100L, 2, 10L, false);
+    mockPage(10L, 100L, 1, 100L, true);
+    SyncCheckpoint checkpoint = newCheckpoint();
+    List<Integer> pageSizes = new ArrayList<>();
+
+    new CheckpointedScan(reader, checkpointDao)
+        .run(
+            checkpoint,
+            records -> {
+              pageSizes.add(records.size());
+              return new CheckpointedScan.PageResult(records.size(), 1);
+            });
+
+    Assert.assertEquals(SyncCheckpoint.STATUS_COMPLETED, checkpoint.getStatus());
+    Assert.assertEquals(Long.valueOf(100L), checkpoint.getLastToken());
+    Assert.assertEquals(Long.valueOf(3L), checkpoint.getProcessedCount());
+    Assert.assertEquals(Long.valueOf(2L), checkpoint.getFailedCount());
+    Assert.assertEquals(2, pageSizes.size());
+    // once when started and once after every page
+    Mockito.verify(checkpointDao, Mockito.times(3)).upsert(checkpoint);
+  }
+
+  @Test
+  public void testRunFailsAndKeepsLastHandledToken() {
+    mockPage(0L, 100L, 2, 10L, false);
+    mockPage(10L, 100L, 2, 20L, false);
+    SyncCheckpoint checkpoint = newCheckpoint();
+    int[] pages = {0};
+
+    new CheckpointedScan(reader, checkpointDao)
+        .run(
+            checkpoint,
+            records -> {
+              if (pages[0]++ > 0) {
+                throw new IllegalStateException("page failed");
+              }
+              return new CheckpointedScan.PageResult(records.size(), 0);
+            });
+
+    Assert.assertEquals(SyncCheckpoint.STATUS_FAILED, checkpoint.getStatus());
+    Assert.assertEquals(Long.valueOf(10L), checkpoint.getLastToken());
+    Assert.assertEquals(Long.valueOf(2L), checkpoint.getProcessedCount());
+  }
+
+  @Test
+  public void testRunStopsWhenRangeIsNoLongerOwned() {
+    mockPage(0L, 100L, 2, 10L, false);
+    mockPage(10L, 100L, 2, 20L, false);
+    SyncCheckpoint checkpoint = newCheckpoint();
+    checkpoint.setOwner("node");
+    Mockito.when(checkpointDao.updateIfOwner(checkpoint)).thenReturn(true, false);
+    int[] pages = {0};
+
+    new CheckpointedScan(reader, checkpointDao)
+        .run(
+            checkpoint,
+            records -> {
+              pages[0]++;
+              return new CheckpointedScan.PageResult(records.size(), 0);
+            });
+
+    Assert.assertEquals(1, pages[0]);
+    Assert.assertEquals(SyncCheckpoint.STATUS_IN_PROGRESS, checkpoint.getStatus());
+    Mockito.verify(checkpointDao, Mockito.never()).upsert(checkpoint);
+    Mockito.verify(reader, Mockito.never()).readPage(10L, 100L);
+  }
+
+  @Test
+  public void testResumeOrCreateResumesIncompleteScan() {
+    SyncCheckpoint saved = newCheckpoint();
+    saved.setStatus(SyncCheckpoint.STATUS_FAILED);
+    saved.setLastToken(50L);
+    Mockito.when(checkpointDao.read("user")).thenReturn(saved);
+
+    Assert.assertSame(saved, CheckpointedScan.resumeOrCreate(checkpointDao, "user", "user", false));
+  }
+
+  @Test
+  public void testResumeOrCreateStartsNewScanOnRestart() {
+    SyncCheckpoint saved = newCheckpoint();
+    saved.setStatus(SyncCheckpoint.STATUS_FAILED);
+    saved.setLastToken(50L);
+    Mockito.when(checkpointDao.read("user")).thenReturn(saved);
+
+    SyncCheckpoint checkpoint =
+        CheckpointedScan.resumeOrCreate(checkpointDao, "user", "user", true);
+
+    Assert.assertNotSame(saved, checkpoint);
+    Assert.assertEquals(Long.valueOf(CassandraPagedReader.MIN_TOKEN), checkpoint.getLastToken());
+  }
+
+  @Test
+  public void testResumeOrCreateStartsNewScanAfterCompletion() {
+    SyncCheckpoint saved = newCheckpoint();
+    saved.setStatus(SyncCheckpoint.STATUS_COMPLETED);
+    Mockito.when(checkpointDao.read("user")).thenReturn(saved);
+
+    Assert.assertNotSame(
+        saved, CheckpointedScan.resumeOrCreate(checkpointDao, "user", "user", false));
+  }
+
+  @Test
+  public void testTryStartRejectsRunningScan() {
+    Assert.assertTrue(CheckpointedScan.tryStart("testScan"));
+    try {
+      Assert.assertFalse(CheckpointedScan.tryStart("testScan"));
+      Assert.assertTrue(CheckpointedScan.isRunning("testScan"));
+    } finally {
+      CheckpointedScan.finish("testScan");
+    }
+    Assert.assertFalse(CheckpointedScan.isRunning("testScan"));
+  }
+
+  private void mockPage(long fromToken, long toToken, int size, long lastToken, boolean last) {
+    List<Map<String, Object>> records = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      records.add(new HashMap<>(Collections.singletonMap("id", fromToken + "_" + i)));
+    }
+    CassandraPagedReader.Page page = Mockito.mock(CassandraPagedReader.Page.class);
+    Mockito.when(page.getRecords()).thenReturn(records);
+    Mockito.when(page.getLastToken()).thenReturn(lastToken);
+    Mockito.when(page.isLast()).thenReturn(last);
+    Mockito.when(reader.readPage(fromToken, toToken)).thenReturn(page);
+  }
+
+  private static SyncCheckpoint newCheckpoint() {
+    return EsStreamingSync.newCheckpoint("user", "user", 0L, 100L);
+  }
+}
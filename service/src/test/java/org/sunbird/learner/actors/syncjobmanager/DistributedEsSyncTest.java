@@ -0,0 +1,108 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.learner.actors.syncjobmanager.dao.SyncCheckpointDao;
+import org.sunbird.learner.actors.syncjobmanager.model.SyncCheckpoint;
+
+public class DistributedEsSyncTest {
+
+  private static final String JOB_ID = "user_1";
+  private static final long LEASE_TIMEOUT = 60000L;
+
+  private SyncCheckpointDao checkpointDao;
+  private List<SyncCheckpoint> checkpoints;
+
+  @Before
+  public void setUp() {
+    checkpointDao = Mockito.mock(SyncCheckpointDao.class);
+    Whitebox.setInternalState(DistributedEsSync.class, "checkpointDao", checkpointDao);
+    checkpoints = new ArrayList<>();
+    SyncCheckpoint job = newRange(JOB_ID, SyncCheckpoint.STATUS_IN_PROGRESS, null);
+    checkpoints.add(job);
+    Mockito.when(checkpointDao.readByObjectType(Mockito.anyString()))
+        .thenReturn(Collections.emptyList());
+    Mockito.when(checkpointDao.readByObjectType(JsonKey.USER))
+        .thenReturn(Collections.singletonList(job));
+    Mockito.when(checkpointDao.readByJobId(JOB_ID)).thenReturn(checkpoints);
+    Mockito.when(checkpointDao.read(JOB_ID)).thenReturn(job);
+  }
+
+  @Test
+  public void testPendingRangeIsClaimedWithoutRetry() {
+    checkpoints.add(newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_PENDING, null));
+
+    new DistributedEsSync().run();
+
+    Mockito.verify(checkpointDao)
+        .claim(Mockito.eq(checkpoints.get(1)), Mockito.anyString(), Mockito.eq(0));
+  }
+
+  @Test
+  public void testFailedRangeIsClaimedWithIncrementedRetry() {
+    checkpoints.add(newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_FAILED, 1));
+
+    new DistributedEsSync().run();
+
+    Mockito.verify(checkpointDao)
+        .claim(Mockito.eq(checkpoints.get(1)), Mockito.anyString(), Mockito.eq(2));
+  }
+
+  @Test
+  public void testRangeIsAbortedAfterMaxRetries() {
+    checkpoints.add(newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_FAILED, 3));
+
+    new DistributedEsSync().run();
+
+    Mockito.verify(checkpointDao, Mockito.never())
+        .claim(Mockito.any(SyncCheckpoint.class), Mockito.anyString(), Mockito.anyInt());
+    Assert.assertEquals(SyncCheckpoint.STATUS_ABORTED, checkpoints.get(1).getStatus());
+    // the only range is aborted, so the job ends as failed
+    ArgumentCaptor<SyncCheckpoint> captor = ArgumentCaptor.forClass(SyncCheckpoint.class);
+    Mockito.verify(checkpointDao, Mockito.times(2)).upsert(captor.capture());
+    Assert.assertEquals(JOB_ID, captor.getAllValues().get(1).getId());
+    Assert.assertEquals(SyncCheckpoint.STATUS_FAILED, captor.getAllValues().get(1).getStatus());
+  }
+
+  @Test
+  public void testRangeWithLiveLeaseIsNotClaimable() {
+    SyncCheckpoint range = newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_IN_PROGRESS, 0);
+    range.setOwner("otherNode");
+    range.setLastUpdatedTime(System.currentTimeMillis());
+
+    Assert.assertFalse(DistributedEsSync.isClaimable(range, LEASE_TIMEOUT));
+  }
+
+  @Test
+  public void testRangeWithExpiredLeaseIsClaimable() {
+    SyncCheckpoint range = newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_IN_PROGRESS, 0);
+    range.setOwner("otherNode");
+    range.setLastUpdatedTime(System.currentTimeMillis() - 2 * LEASE_TIMEOUT);
+
+    Assert.assertTrue(DistributedEsSync.isClaimable(range, LEASE_TIMEOUT));
+  }
+
+  @Test
+  public void testAbortedRangeIsNotClaimable() {
+    SyncCheckpoint range = newRange(JOB_ID + "_0", SyncCheckpoint.STATUS_ABORTED, 4);
+
+    Assert.assertFalse(DistributedEsSync.isClaimable(range, LEASE_TIMEOUT));
+  }
+
+  private static SyncCheckpoint newRange(String id, String status, Integer retryCount) {
+    SyncCheckpoint range = EsStreamingSync.newCheckpoint(id, JsonKey.USER, 0L, 100L);
+    range.setJobId(JOB_ID);
+    range.setStatus(status);
+    range.setRetryCount(retryCount);
+    range.setLastUpdatedTime(System.currentTimeMillis());
+    return range;
+  }
+}
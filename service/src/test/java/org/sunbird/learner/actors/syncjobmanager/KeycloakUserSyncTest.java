@@ -0,0 +1,124 @@
+package org.sunbird.learner.actors.syncjobmanager;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.actors.syncjobmanager.dao.KeycloakSyncStateDao;
+import org.sunbird.learner.util.CassandraAsyncWriter;
+import org.sunbird.learner.util.EsWriteBehindQueue;
+import org.sunbird.learner.util.UserUtility;
+import org.sunbird.services.sso.SSOManager;
+import org.sunbird.services.sso.SSOServiceFactory;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({
+  ServiceFactory.class,
+  SSOServiceFactory.class,
+  CassandraAsyncWriter.class,
+  EsWriteBehindQueue.class,
+  UserUtility.class
+})
+@SuppressStaticInitializationFor("org.sunbird.learner.util.UserUtility")
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class KeycloakUserSyncTest {
+
+  private SSOManager ssoManager;
+  private KeycloakSyncStateDao syncStateDao;
+  private KeycloakUserSync keycloakUserSync;
+  private ExecutorService executor;
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(Mockito.mock(CassandraOperationImpl.class));
+    ssoManager = Mockito.mock(SSOManager.class);
+    PowerMockito.mockStatic(SSOServiceFactory.class);
+    when(SSOServiceFactory.getInstance()).thenReturn(ssoManager);
+    PowerMockito.mockStatic(CassandraAsyncWriter.class);
+    PowerMockito.mockStatic(EsWriteBehindQueue.class);
+    PowerMockito.mockStatic(UserUtility.class);
+    syncStateDao = Mockito.mock(KeycloakSyncStateDao.class);
+    when(syncStateDao.saveHashes(Mockito.anyMap())).thenReturn(new ArrayList<>());
+    keycloakUserSync = new KeycloakUserSync();
+    Whitebox.setInternalState(keycloakUserSync, "syncStateDao", syncStateDao);
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void afterTest() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void testUnchangedUserIsSkipped() throws Exception {
+    Map<String, Object> unchanged = getUser("user1");
+    Map<String, String> hashes = new HashMap<>();
+    hashes.put("user1", Whitebox.invokeMethod(KeycloakUserSync.class, "getHash", unchanged));
+    when(syncStateDao.readHashes(Mockito.anyList())).thenReturn(hashes);
+    when(ssoManager.syncUserData(Mockito.anyMap())).thenReturn(JsonKey.SUCCESS);
+
+    CheckpointedScan.PageResult result =
+        keycloakUserSync.syncPage(Arrays.asList(unchanged, getUser("user2")), false, executor);
+
+    Assert.assertEquals(1, result.getProcessed());
+    Assert.assertEquals(0, result.getFailed());
+    Mockito.verify(ssoManager, Mockito.times(1)).syncUserData(Mockito.anyMap());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testUnsavedUpdateIsNotIndexed() {
+    when(syncStateDao.readHashes(Mockito.anyList())).thenReturn(new HashMap<>());
+    when(ssoManager.syncUserData(Mockito.anyMap())).thenReturn("FAILED");
+    when(ssoManager.isEmailVerified("user1")).thenReturn(true);
+    when(CassandraAsyncWriter.upsert(Mockito.anyString(), Mockito.anyString(), Mockito.anyList()))
+        .thenAnswer(invocation -> new ArrayList<>((List<Object>) invocation.getArguments()[2]));
+
+    CheckpointedScan.PageResult result =
+        keycloakUserSync.syncPage(Collections.singletonList(getUser("user1")), false, executor);
+
+    Assert.assertEquals(1, result.getFailed());
+    PowerMockito.verifyStatic(Mockito.never());
+    EsWriteBehindQueue.update(
+        Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+  }
+
+  @Test
+  public void testFullSyncIsSkippedWhileRunning() {
+    Assert.assertTrue(CheckpointedScan.tryStart(KeycloakUserSync.CHECKPOINT_ID));
+    try {
+      Assert.assertNull(keycloakUserSync.syncAll(true));
+    } finally {
+      CheckpointedScan.finish(KeycloakUserSync.CHECKPOINT_ID);
+    }
+  }
+
+  private static Map<String, Object> getUser(String id) {
+    Map<String, Object> user = new HashMap<>();
+    user.put(JsonKey.ID, id);
+    user.put(JsonKey.FIRST_NAME, "name");
+    return user;
+  }
+}
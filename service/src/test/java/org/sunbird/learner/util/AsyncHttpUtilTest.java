@@ -0,0 +1,101 @@
+package org.sunbird.learner.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncHttpUtilTest {
+
+  private HttpServer server;
+  private final AtomicInteger hits = new AtomicInteger();
+  private volatile int[] statuses;
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          int hit = hits.getAndIncrement();
+          int status = statuses[Math.min(hit, statuses.length - 1)];
+          byte[] body = ("status " + status).getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(status, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testPostReturnsBody() throws IOException {
+    statuses = new int[] {200};
+
+    String body =
+        AsyncHttpUtil.sendPostRequest(getUrl(), "{}", Collections.singletonMap("a", "b"));
+
+    Assert.assertEquals("status 200", body);
+  }
+
+  @Test
+  public void testPostIsNotRetriedOnServerError() {
+    statuses = new int[] {500};
+
+    try {
+      AsyncHttpUtil.sendPostRequest(getUrl(), "{}", null);
+      Assert.fail("Expected the request to fail");
+    } catch (IOException e) {
+      Assert.assertEquals(1, hits.get());
+    }
+  }
+
+  @Test
+  public void testPostIsRetriedOnTooManyRequests() throws IOException {
+    statuses = new int[] {429, 200};
+
+    String body = AsyncHttpUtil.sendPostRequest(getUrl(), "{}", null);
+
+    Assert.assertEquals("status 200", body);
+    Assert.assertEquals(2, hits.get());
+  }
+
+  @Test
+  public void testGetIsRetriedOnServerError() throws IOException {
+    statuses = new int[] {503, 200};
+
+    String body = AsyncHttpUtil.await(AsyncHttpUtil.get(getUrl(), null));
+
+    Assert.assertEquals("status 200", body);
+    Assert.assertEquals(2, hits.get());
+  }
+
+  @Test
+  public void testIsNotSent() {
+    Assert.assertTrue(AsyncHttpUtil.isNotSent(new IOException(new ConnectException())));
+    Assert.assertFalse(AsyncHttpUtil.isNotSent(new SocketTimeoutException()));
+  }
+
+  @Test
+  public void testMetricsAreRegistered() {
+    Assert.assertTrue(MetricsRegistry.getMetrics().containsKey("http"));
+  }
+
+  private String getUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + "/search";
+  }
+}
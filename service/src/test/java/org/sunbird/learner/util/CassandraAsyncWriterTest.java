@@ -0,0 +1,77 @@
+package org.sunbird.learner.util;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CassandraAsyncWriterTest {
+
+  @Test
+  public void testEveryStatementIsExecuted() {
+    Session session = mock(Session.class);
+    ResultSetFuture future = getFuture(true);
+    when(session.executeAsync(any(Statement.class))).thenReturn(future);
+
+    List<Integer> failed = CassandraAsyncWriter.execute(session, getStatements(100));
+
+    Assert.assertTrue(failed.isEmpty());
+    verify(session, times(100)).executeAsync(any(Statement.class));
+    verify(future, times(100)).getUninterruptibly();
+  }
+
+  @Test
+  public void testFailedStatementIsReported() {
+    Session session = mock(Session.class);
+    ResultSetFuture future = getFuture(true);
+    ResultSetFuture failedFuture = mock(ResultSetFuture.class);
+    when(failedFuture.getUninterruptibly()).thenThrow(new RuntimeException("timeout"));
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(future, failedFuture, future);
+
+    List<Integer> failed = CassandraAsyncWriter.execute(session, getStatements(3));
+
+    Assert.assertEquals(Collections.singletonList(1), failed);
+  }
+
+  @Test
+  public void testNotAppliedStatementIsReported() {
+    Session session = mock(Session.class);
+    ResultSetFuture future = getFuture(true);
+    ResultSetFuture notAppliedFuture = getFuture(false);
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(future, future, notAppliedFuture);
+
+    List<Integer> failed = CassandraAsyncWriter.execute(session, getStatements(3));
+
+    Assert.assertEquals(Collections.singletonList(2), failed);
+  }
+
+  private static ResultSetFuture getFuture(boolean applied) {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.wasApplied()).thenReturn(applied);
+    ResultSetFuture future = mock(ResultSetFuture.class);
+    when(future.getUninterruptibly()).thenReturn(resultSet);
+    return future;
+  }
+
+  private static List<Statement> getStatements(int count) {
+    List<Statement> statements = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      statements.add(new SimpleStatement("SELECT now() FROM system.local"));
+    }
+    return statements;
+  }
+}
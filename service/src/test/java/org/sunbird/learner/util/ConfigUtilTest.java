@@ -0,0 +1,17 @@
+package org.sunbird.learner.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConfigUtilTest {
+
+  @Test
+  public void testGetIntFallsBackToDefault() {
+    Assert.assertEquals(7, ConfigUtil.getInt("sunbird_test_missing_setting", 7));
+  }
+
+  @Test
+  public void testGetLongFallsBackToDefault() {
+    Assert.assertEquals(7L, ConfigUtil.getLong("sunbird_test_missing_setting", 7L));
+  }
+}
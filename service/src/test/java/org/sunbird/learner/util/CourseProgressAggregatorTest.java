@@ -0,0 +1,145 @@
+package org.sunbird.learner.util;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ServiceFactory.class, CassandraAsyncWriter.class, EsWriteBehindQueue.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class CourseProgressAggregatorTest {
+
+  private static final CassandraOperationImpl cassandraOperation =
+      Mockito.mock(CassandraOperationImpl.class);
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(cassandraOperation);
+    PowerMockito.mockStatic(CassandraAsyncWriter.class);
+    PowerMockito.mockStatic(EsWriteBehindQueue.class);
+  }
+
+  @Test
+  public void testUpdatesOfUserCourseAreCoalesced() {
+    mockCourse("coalescedCourse");
+    when(CassandraAsyncWriter.updateIf(
+            Mockito.anyString(),
+            Mockito.anyString(),
+            Mockito.anyList(),
+            Mockito.anyCollection(),
+            Mockito.anyList()))
+        .thenReturn(new ArrayList<>());
+
+    for (int i = 0; i < 3; i++) {
+      CourseProgressAggregator.add("coalescedCourse", 1, getContent(), 2);
+    }
+    CourseProgressAggregator.flush();
+
+    List<Map<String, Object>> written = getWrittenCourses();
+    Assert.assertEquals(1, written.size());
+    Assert.assertEquals(3, written.get(0).get(JsonKey.COURSE_PROGRESS));
+  }
+
+  @Test
+  public void testWriteWhichIsNotAppliedIsReadAgainAndRetried() {
+    mockCourse("conflictCourse");
+    Map<String, Object> failedCourse = new HashMap<>();
+    failedCourse.put(JsonKey.ID, "conflictCourse");
+    when(CassandraAsyncWriter.updateIf(
+            Mockito.anyString(),
+            Mockito.anyString(),
+            Mockito.anyList(),
+            Mockito.anyCollection(),
+            Mockito.anyList()))
+        .thenReturn(Collections.singletonList(failedCourse), new ArrayList<>());
+    long conflicts = (long) CourseProgressAggregator.getMetrics().get("conflicts");
+
+    CourseProgressAggregator.add("conflictCourse", 1, getContent(), 2);
+    CourseProgressAggregator.flush();
+
+    List<Map<String, Object>> written = getWrittenCourses();
+    Assert.assertEquals(2, written.size());
+    Assert.assertEquals(1, written.get(1).get(JsonKey.COURSE_PROGRESS));
+    Assert.assertEquals(conflicts + 1, CourseProgressAggregator.getMetrics().get("conflicts"));
+    // every write is conditional on the progress read
+    Assert.assertEquals(0, getConditions().get(1).get(JsonKey.COURSE_PROGRESS));
+  }
+
+  @Test
+  public void testMetricsAreRegistered() {
+    CourseProgressAggregator.getMetrics();
+
+    Assert.assertTrue(MetricsRegistry.getMetrics().containsKey("courseProgress"));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static List<Map<String, Object>> getWrittenCourses() {
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    PowerMockito.verifyStatic(Mockito.atLeastOnce());
+    CassandraAsyncWriter.updateIf(
+        Mockito.anyString(),
+        Mockito.anyString(),
+        captor.capture(),
+        Mockito.anyCollection(),
+        Mockito.anyList());
+    List<Map<String, Object>> written = new ArrayList<>();
+    for (List records : captor.getAllValues()) {
+      written.addAll(records);
+    }
+    return written;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static List<Map<String, Object>> getConditions() {
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    PowerMockito.verifyStatic(Mockito.atLeastOnce());
+    CassandraAsyncWriter.updateIf(
+        Mockito.anyString(),
+        Mockito.anyString(),
+        Mockito.anyList(),
+        Mockito.anyCollection(),
+        captor.capture());
+    List<Map<String, Object>> conditions = new ArrayList<>();
+    for (List records : captor.getAllValues()) {
+      conditions.addAll(records);
+    }
+    return conditions;
+  }
+
+  private static void mockCourse(String id) {
+    Map<String, Object> course = new HashMap<>();
+    course.put(JsonKey.ID, id);
+    course.put(JsonKey.COURSE_PROGRESS, 0);
+    course.put(JsonKey.LEAF_NODE_COUNT, 10);
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, new ArrayList<>(Collections.singletonList(course)));
+    when(cassandraOperation.getRecordsByPrimaryKeys(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyList(), Mockito.anyString()))
+        .thenReturn(response);
+  }
+
+  private static Map<String, Object> getContent() {
+    Map<String, Object> content = new HashMap<>();
+    content.put(JsonKey.CONTENT_ID, "content1");
+    return content;
+  }
+}
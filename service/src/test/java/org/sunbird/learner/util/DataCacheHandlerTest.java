@@ -0,0 +1,72 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.cassandra.CassandraOperation;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+
+public class DataCacheHandlerTest {
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testRefreshPublishesSnapshotAndStats() {
+    DataCacheHandler handler = newHandler("testField", "testValue");
+
+    handler.refresh(DataCacheHandler.CONFIG_SETTINGS_CACHE);
+
+    Assert.assertEquals("testValue", DataCacheHandler.getConfigSettings().get("testField"));
+    Map<String, Object> stats =
+        DataCacheHandler.getCacheStats().get(DataCacheHandler.CONFIG_SETTINGS_CACHE);
+    Assert.assertEquals(1, stats.get("size"));
+    Map<String, Object> metrics =
+        (Map<String, Object>) MetricsRegistry.getMetrics().get("dataCache");
+    Assert.assertTrue(metrics.containsKey(DataCacheHandler.CONFIG_SETTINGS_CACHE));
+  }
+
+  @Test
+  public void testRefreshKeepsUpdatePushedDuringReload() {
+    DataCacheHandler handler = newHandler("testField", "staleValue");
+    CassandraOperation cassandraOperation =
+        Whitebox.getInternalState(handler, "cassandraOperation");
+    Response response = cassandraOperation.getAllRecords("sunbird", JsonKey.SYSTEM_SETTINGS_DB);
+    Mockito.when(cassandraOperation.getAllRecords("sunbird", JsonKey.SYSTEM_SETTINGS_DB))
+        .thenAnswer(
+            invocation -> {
+              // a setting updated while the table is being read
+              DataCacheHandler.updateConfigSetting("testField", "newValue");
+              return response;
+            });
+
+    handler.refresh(DataCacheHandler.CONFIG_SETTINGS_CACHE);
+
+    Assert.assertEquals("newValue", DataCacheHandler.getConfigSettings().get("testField"));
+  }
+
+  @Test
+  public void testGetRefreshIntervalDefault() {
+    Assert.assertEquals(240, DataCacheHandler.getRefreshInterval("testCache"));
+  }
+
+  private static DataCacheHandler newHandler(String field, String value) {
+    Map<String, Object> setting = new HashMap<>();
+    setting.put(JsonKey.FIELD, field);
+    setting.put(JsonKey.VALUE, value);
+    List<Map<String, Object>> settings = new ArrayList<>();
+    settings.add(setting);
+    Response response = new Response();
+    response.put(JsonKey.RESPONSE, settings);
+    CassandraOperation cassandraOperation = Mockito.mock(CassandraOperation.class);
+    Mockito.when(cassandraOperation.getAllRecords("sunbird", JsonKey.SYSTEM_SETTINGS_DB))
+        .thenReturn(response);
+    DataCacheHandler handler = new DataCacheHandler(DataCacheHandler.CONFIG_SETTINGS_CACHE);
+    Whitebox.setInternalState(handler, "cassandraOperation", cassandraOperation);
+    return handler;
+  }
+}
@@ -0,0 +1,142 @@
+package org.sunbird.learner.util;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.common.ElasticSearchUtil;
+import org.sunbird.common.models.util.JsonKey;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ElasticSearchUtil.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class EsWriteBehindQueueTest {
+
+  private static final String INDEX = "testIndex";
+  private static final String TYPE = "testType";
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ElasticSearchUtil.class);
+    when(ElasticSearchUtil.createData(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn("created");
+    when(ElasticSearchUtil.updateData(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(true);
+    when(ElasticSearchUtil.bulkInsertData(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyList()))
+        .thenReturn(true);
+    when(ElasticSearchUtil.getDataByIdentifier(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(new HashMap<>());
+  }
+
+  @Test
+  public void testIndexSendsDocumentWithoutIdsInBulkWithoutModifyingIt() {
+    Map<String, Object> document = new HashMap<>();
+    document.put(JsonKey.NAME, "name");
+
+    Assert.assertTrue(EsWriteBehindQueue.index(INDEX, TYPE, "doc1", document));
+    EsWriteBehindQueue.flush();
+
+    Assert.assertEquals(1, document.size());
+    Map<String, Object> expected = new HashMap<>(document);
+    expected.put(JsonKey.ID, "doc1");
+    expected.put(JsonKey.IDENTIFIER, "doc1");
+    PowerMockito.verifyStatic();
+    ElasticSearchUtil.bulkInsertData(
+        Mockito.eq(INDEX), Mockito.eq(TYPE), Mockito.argThat(new ListContains(expected)));
+  }
+
+  @Test
+  public void testIndexSendsDocumentWithOtherIdOnItsOwn() {
+    Map<String, Object> document = new HashMap<>();
+    document.put(JsonKey.ID, "otherId");
+
+    Assert.assertTrue(EsWriteBehindQueue.index(INDEX, TYPE, "doc4", document));
+    EsWriteBehindQueue.flush();
+
+    PowerMockito.verifyStatic();
+    ElasticSearchUtil.createData(INDEX, TYPE, "doc4", document);
+  }
+
+  @Test
+  public void testUpdateIsSent() {
+    Map<String, Object> update = new HashMap<>();
+    update.put(JsonKey.NAME, "name");
+
+    Assert.assertTrue(EsWriteBehindQueue.update(INDEX, TYPE, "doc5", update));
+    EsWriteBehindQueue.flush();
+
+    PowerMockito.verifyStatic();
+    ElasticSearchUtil.updateData(INDEX, TYPE, "doc5", update);
+  }
+
+  @Test
+  public void testIndexSendsDocumentWithIdsInBulk() {
+    Map<String, Object> document = new HashMap<>();
+    document.put(JsonKey.ID, "doc2");
+    document.put(JsonKey.IDENTIFIER, "doc2");
+
+    Assert.assertTrue(EsWriteBehindQueue.index(INDEX, TYPE, "doc2", document));
+    EsWriteBehindQueue.flush();
+
+    PowerMockito.verifyStatic();
+    ElasticSearchUtil.bulkInsertData(
+        Mockito.eq(INDEX), Mockito.eq(TYPE), Mockito.argThat(new ListContains(document)));
+  }
+
+  @Test
+  public void testReadMergesQueuedUpdates() {
+    Map<String, Object> update = new HashMap<>();
+    update.put(JsonKey.NAME, "name");
+    Map<String, Object> otherUpdate = new HashMap<>();
+    otherUpdate.put(JsonKey.STATUS, 1);
+
+    Assert.assertTrue(EsWriteBehindQueue.update(INDEX, TYPE, "doc3", update));
+    Assert.assertTrue(EsWriteBehindQueue.update(INDEX, TYPE, "doc3", otherUpdate));
+    Map<String, Object> document = EsWriteBehindQueue.read(INDEX, TYPE, "doc3");
+    EsWriteBehindQueue.flush();
+
+    Assert.assertEquals("name", document.get(JsonKey.NAME));
+    Assert.assertEquals(1, document.get(JsonKey.STATUS));
+    Assert.assertEquals(1, update.size());
+  }
+
+  @Test
+  public void testWriteWithoutIdentifierIsRejected() {
+    Assert.assertFalse(EsWriteBehindQueue.update(INDEX, TYPE, null, new HashMap<>()));
+  }
+
+  @Test
+  public void testMetricsAreRegistered() {
+    EsWriteBehindQueue.flush();
+
+    Assert.assertTrue(MetricsRegistry.getMetrics().containsKey("esWriteBehindQueue"));
+  }
+
+  private static class ListContains extends ArgumentMatcher<List<Map<String, Object>>> {
+    private final Map<String, Object> document;
+
+    ListContains(Map<String, Object> document) {
+      this.document = document;
+    }
+
+    @Override
+    public boolean matches(Object argument) {
+      return argument instanceof List && ((List<?>) argument).contains(document);
+    }
+  }
+}
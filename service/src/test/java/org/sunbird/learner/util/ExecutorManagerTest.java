@@ -0,0 +1,49 @@
+package org.sunbird.learner.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExecutorManagerTest {
+
+  @Test
+  public void testNewBoundedExecutorUsesDaemonThreads() throws Exception {
+    ThreadPoolExecutor executor = ExecutorManager.newBoundedExecutor("test-pool", 1, 1);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    try {
+      executor.submit(() -> thread.set(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertTrue(thread.get().isDaemon());
+    Assert.assertTrue(thread.get().getName().startsWith("test-pool-"));
+  }
+
+  @Test
+  public void testNewBoundedExecutorRunsOnCallerWhenQueueIsFull() throws Exception {
+    ThreadPoolExecutor executor = ExecutorManager.newBoundedExecutor("test-pool", 1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    try {
+      // one task blocks the only thread and one fills the queue
+      executor.execute(() -> awaitQuietly(release));
+      executor.execute(() -> awaitQuietly(release));
+      executor.execute(() -> thread.set(Thread.currentThread()));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    Assert.assertSame(Thread.currentThread(), thread.get());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
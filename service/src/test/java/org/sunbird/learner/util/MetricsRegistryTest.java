@@ -0,0 +1,29 @@
+package org.sunbird.learner.util;
+
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+  @Test
+  public void testGetMetricsOfRegisteredComponent() {
+    MetricsRegistry.register("testComponent", () -> Collections.singletonMap("count", 1L));
+
+    Map<String, Object> metrics = MetricsRegistry.getMetrics();
+
+    Assert.assertEquals(Collections.singletonMap("count", 1L), metrics.get("testComponent"));
+  }
+
+  @Test
+  public void testGetMetricsSkipsFailingComponent() {
+    MetricsRegistry.register(
+        "testFailingComponent",
+        () -> {
+          throw new IllegalStateException("metrics not available");
+        });
+
+    Assert.assertFalse(MetricsRegistry.getMetrics().containsKey("testFailingComponent"));
+  }
+}
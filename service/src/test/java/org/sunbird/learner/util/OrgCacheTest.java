@@ -0,0 +1,77 @@
+package org.sunbird.learner.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OrgCacheTest {
+
+  @Test
+  public void testGetOrgIsCached() {
+    AtomicInteger loads = new AtomicInteger();
+
+    OrgCache.getOrg("cachedOrg", id -> newOrg(id, loads));
+    OrgCache.getOrg("cachedOrg", id -> newOrg(id, loads));
+
+    Assert.assertEquals(1, loads.get());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGetOrgReturnsDeepCopy() {
+    AtomicInteger loads = new AtomicInteger();
+
+    Map<String, Object> org = OrgCache.getOrg("copiedOrg", id -> newOrg(id, loads));
+    ((List<String>) org.get("tags")).add("changed");
+    Map<String, Object> cachedOrg = OrgCache.getOrg("copiedOrg", id -> newOrg(id, loads));
+
+    Assert.assertEquals(1, ((List<String>) cachedOrg.get("tags")).size());
+  }
+
+  @Test
+  public void testLookupAfterInvalidationIsNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+
+    OrgCache.invalidate(null, "settlingChannel");
+    OrgCache.getRootOrgId("settlingChannel", channel -> load("rootOrg", loads));
+    OrgCache.getRootOrgId("settlingChannel", channel -> load("rootOrg", loads));
+
+    Assert.assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testLookupRacingInvalidationIsNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+
+    OrgCache.getRootOrgId(
+        "racingChannel",
+        channel -> {
+          // another key is invalidated while the lookup is loading
+          OrgCache.invalidate(null, "otherChannel");
+          return load("oldRootOrg", loads);
+        });
+    String rootOrgId = OrgCache.getRootOrgId("racingChannel", channel -> load("rootOrg", loads));
+
+    Assert.assertEquals("rootOrg", rootOrgId);
+    Assert.assertEquals(2, loads.get());
+  }
+
+  private static String load(String value, AtomicInteger loads) {
+    loads.incrementAndGet();
+    return value;
+  }
+
+  private static Map<String, Object> newOrg(String id, AtomicInteger loads) {
+    loads.incrementAndGet();
+    Map<String, Object> org = new HashMap<>();
+    org.put("id", id);
+    List<String> tags = new ArrayList<>();
+    tags.add("tag");
+    org.put("tags", tags);
+    return org;
+  }
+}
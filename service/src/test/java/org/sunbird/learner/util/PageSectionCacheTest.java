@@ -0,0 +1,79 @@
+package org.sunbird.learner.util;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import akka.dispatch.Futures;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import scala.concurrent.Future;
+import scala.concurrent.Promise;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ContentSearchUtil.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class PageSectionCacheTest {
+
+  private static final String QUERY = "{\"request\":{\"filters\":{\"contentType\":[\"Course\"]}}}";
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ContentSearchUtil.class);
+    PageSectionCache.clear();
+  }
+
+  @Test
+  public void testConcurrentMissesShareSearch() throws Exception {
+    Promise<Map<String, Object>> promise = Futures.promise();
+    when(ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(promise.future());
+
+    Future<Map<String, Object>> first = PageSectionCache.searchContent(QUERY, null);
+    Future<Map<String, Object>> second = PageSectionCache.searchContent(QUERY, null);
+
+    Assert.assertSame(first, second);
+    PowerMockito.verifyStatic(Mockito.times(1));
+    ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap());
+  }
+
+  @Test
+  public void testClearDropsLoadingSearches() throws Exception {
+    Promise<Map<String, Object>> promise = Futures.promise();
+    when(ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(promise.future());
+
+    PageSectionCache.searchContent(QUERY, null);
+    PageSectionCache.clear();
+    PageSectionCache.searchContent(QUERY, null);
+
+    PowerMockito.verifyStatic(Mockito.times(2));
+    ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap());
+  }
+
+  @Test
+  public void testLoadedResultIsServedFromCache() throws Exception {
+    Map<String, Object> result = Collections.singletonMap("count", 1);
+    when(ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(Futures.successful(result));
+
+    PageSectionCache.searchContent(QUERY, null);
+    long deadline = System.currentTimeMillis() + 5000;
+    while ((int) PageSectionCache.getMetrics().get("size") == 0
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Future<Map<String, Object>> cached = PageSectionCache.searchContent(QUERY, null);
+
+    Assert.assertEquals(result, cached.value().get().get());
+    PowerMockito.verifyStatic(Mockito.times(1));
+    ContentSearchUtil.searchContent(Mockito.anyString(), Mockito.anyMap());
+  }
+}
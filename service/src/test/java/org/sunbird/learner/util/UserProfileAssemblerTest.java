@@ -0,0 +1,75 @@
+package org.sunbird.learner.util;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ServiceFactory.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class UserProfileAssemblerTest {
+
+  private static final CassandraOperationImpl cassandraOperation =
+      Mockito.mock(CassandraOperationImpl.class);
+
+  @Before
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(cassandraOperation);
+    Mockito.reset(cassandraOperation);
+    when(cassandraOperation.getRecordsByProperties(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(getResponse());
+  }
+
+  @Test
+  public void testUserRelatedDetailsAreRead() {
+    when(cassandraOperation.getRecordsByIndexedProperty(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(getResponse());
+
+    Map<String, Object> details =
+        UserProfileAssembler.getUserRelatedDetails("userId").toCompletableFuture().join();
+
+    Assert.assertTrue(details.containsKey(JsonKey.ADDRESS));
+    Assert.assertTrue(details.containsKey(JsonKey.ORGANISATIONS));
+    Assert.assertTrue(details.containsKey(JsonKey.SKILLS));
+  }
+
+  @Test(expected = CompletionException.class)
+  public void testFailedReadFailsUserRelatedDetails() {
+    when(cassandraOperation.getRecordsByIndexedProperty(
+            Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+        .thenThrow(new RuntimeException("read timed out"));
+
+    CompletionStage<Map<String, Object>> details =
+        UserProfileAssembler.getUserRelatedDetails("userId");
+
+    details.toCompletableFuture().join();
+  }
+
+  private static Response getResponse() {
+    Map<String, Object> result = new HashMap<>();
+    result.put(JsonKey.RESPONSE, new ArrayList<>());
+    Response response = new Response();
+    response.getResult().putAll(result);
+    return response;
+  }
+}
@@ -0,0 +1,84 @@
+package org.sunbird.metrics.actors;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+import org.sunbird.common.models.response.Response;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.common.request.Request;
+
+public class MetricsResponseCacheTest {
+
+  private static final long EXPIRY_TIME = System.currentTimeMillis() + 60000L;
+
+  @Test
+  public void testResponseIsCachedPerScope() {
+    Request request = getRequest("scopedMetrics");
+
+    MetricsResponseCache.put(request, "course1", "channel1", getResponse(), EXPIRY_TIME);
+
+    Assert.assertNotNull(MetricsResponseCache.get(request, "course1", "channel1"));
+    Assert.assertNull(MetricsResponseCache.get(request, "course1", "channel2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCachedResponseIsCopied() {
+    Request request = getRequest("copiedMetrics");
+    MetricsResponseCache.put(request, "course1", null, getResponse(), EXPIRY_TIME);
+
+    Response response = MetricsResponseCache.get(request, "course1", null);
+    ((List<Object>) ((Map<String, Object>) response.get(JsonKey.RESULT)).get(JsonKey.SERIES))
+        .add("changed");
+    Response cachedResponse = MetricsResponseCache.get(request, "course1", null);
+
+    Assert.assertTrue(
+        ((List<Object>) ((Map<String, Object>) cachedResponse.get(JsonKey.RESULT))
+                .get(JsonKey.SERIES))
+            .isEmpty());
+  }
+
+  @Test
+  public void testBypassIsNotServedFromCache() {
+    Request request = getRequest("bypassedMetrics");
+    MetricsResponseCache.put(request, "course1", null, getResponse(), EXPIRY_TIME);
+    request.getContext().put(MetricsResponseCache.BYPASS, true);
+
+    Assert.assertNull(MetricsResponseCache.get(request, "course1", null));
+  }
+
+  @Test
+  public void testDayPeriodExpiresWhenWindowMoves() {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    calendar.set(Calendar.HOUR_OF_DAY, 0);
+    calendar.set(Calendar.MINUTE, 0);
+    calendar.set(Calendar.SECOND, 0);
+    calendar.set(Calendar.MILLISECOND, 0);
+    calendar.add(Calendar.DATE, 1);
+
+    Assert.assertEquals(
+        Long.valueOf(calendar.getTimeInMillis()), BaseMetricsActor.getPeriodExpiryTime("7d"));
+    Assert.assertNull(BaseMetricsActor.getPeriodExpiryTime("5w"));
+  }
+
+  private static Request getRequest(String operation) {
+    Request request = new Request();
+    request.setOperation(operation);
+    request.setContext(new HashMap<>());
+    request.getRequest().put(JsonKey.PERIOD, "7d");
+    return request;
+  }
+
+  private static Response getResponse() {
+    Map<String, Object> result = new HashMap<>();
+    result.put(JsonKey.SERIES, new ArrayList<>());
+    Response response = new Response();
+    response.put(JsonKey.RESULT, result);
+    return response;
+  }
+}
@@ -0,0 +1,138 @@
+package org.sunbird.metrics.actors;
+
+import static org.powermock.api.mockito.PowerMockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.sunbird.cassandraimpl.CassandraOperationImpl;
+import org.sunbird.common.models.util.JsonKey;
+import org.sunbird.helper.ServiceFactory;
+import org.sunbird.learner.util.CourseProgressAggregator;
+import org.sunbird.metrics.dao.MetricsRollupDao;
+import org.sunbird.metrics.dao.impl.MetricsRollupDaoImpl;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ServiceFactory.class, BaseMetricsActor.class})
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*", "javax.security.*"})
+public class MetricsRollupTest {
+
+  private static final String DAY = "2018-03-01";
+
+  private MetricsRollupDao metricsRollupDao;
+  private final List<Map<String, Object>> completionFilters = new ArrayList<>();
+  private final List<List<String>> completionNotExists = new ArrayList<>();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void beforeTest() {
+    PowerMockito.mockStatic(ServiceFactory.class);
+    when(ServiceFactory.getInstance()).thenReturn(Mockito.mock(CassandraOperationImpl.class));
+    metricsRollupDao = Mockito.mock(MetricsRollupDao.class);
+    Whitebox.setInternalState(MetricsRollup.class, "metricsRollupDao", metricsRollupDao);
+    when(metricsRollupDao.readResourceIds(Mockito.anyString(), Mockito.anyString()))
+        .thenReturn(new ArrayList<>());
+    when(metricsRollupDao.save(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap()))
+        .thenReturn(new ArrayList<>());
+
+    PowerMockito.mockStatic(BaseMetricsActor.class);
+    PowerMockito.doAnswer(
+            invocation -> {
+              List<String> fields = (List<String>) invocation.getArguments()[3];
+              if (fields.contains(JsonKey.COURSE_ID)) {
+                completionFilters.add((Map<String, Object>) invocation.getArguments()[1]);
+                completionNotExists.add((List<String>) invocation.getArguments()[2]);
+                Map<String, Object> doc = new HashMap<>();
+                doc.put(JsonKey.COURSE_ID, "course1");
+                ((Consumer<List<Map<String, Object>>>) invocation.getArguments()[4])
+                    .accept(Collections.singletonList(doc));
+              }
+              return null;
+            })
+        .when(BaseMetricsActor.class);
+    BaseMetricsActor.searchInPages(
+        Mockito.anyString(),
+        Mockito.anyMap(),
+        Mockito.anyList(),
+        Mockito.anyList(),
+        Mockito.any(Consumer.class));
+  }
+
+  @Test
+  public void testCompletionsAreCountedByCompletionTime() {
+    mockSaveAll(new ArrayList<>());
+
+    MetricsRollup.rollupDay(DAY);
+
+    Assert.assertEquals(2, completionFilters.size());
+    Assert.assertTrue(completionFilters.get(0).containsKey(CourseProgressAggregator.COMPLETED_ON));
+    Assert.assertFalse(completionFilters.get(0).containsKey(JsonKey.DATE_TIME));
+    Assert.assertTrue(completionNotExists.get(0).isEmpty());
+  }
+
+  @Test
+  public void testCompletionsWithoutCompletionTimeAreCountedByLastUpdate() {
+    mockSaveAll(new ArrayList<>());
+
+    MetricsRollup.rollupDay(DAY);
+
+    Assert.assertTrue(completionFilters.get(1).containsKey(JsonKey.DATE_TIME));
+    Assert.assertEquals(
+        Collections.singletonList(CourseProgressAggregator.COMPLETED_ON),
+        completionNotExists.get(1));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testResourcesNoLongerCountedAreZeroed() {
+    when(metricsRollupDao.readResourceIds(MetricsRollup.COURSE_COMPLETIONS, DAY))
+        .thenReturn(Arrays.asList("course1", "course2"));
+    mockSaveAll(new ArrayList<>());
+
+    MetricsRollup.rollupDay(DAY);
+
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(metricsRollupDao)
+        .saveAll(Mockito.eq(MetricsRollup.COURSE_COMPLETIONS), Mockito.eq(DAY), captor.capture());
+    Map<String, Object> values = new HashMap<>();
+    for (Map<String, Object> row : (List<Map<String, Object>>) captor.getValue()) {
+      values.put((String) row.get(MetricsRollupDaoImpl.RESOURCE_ID), row.get(JsonKey.VALUE));
+    }
+    // counted once by completion time and once by last update
+    Assert.assertEquals(2L, values.get("course1"));
+    Assert.assertEquals(0L, values.get("course2"));
+  }
+
+  @Test
+  public void testDayIsNotMarkedComputedWhenCountersAreNotSaved() {
+    mockSaveAll(Collections.singletonList(new HashMap<>()));
+
+    try {
+      MetricsRollup.rollupDay(DAY);
+      Assert.fail("Expected the rollup to fail");
+    } catch (IllegalStateException e) {
+      Mockito.verify(metricsRollupDao, Mockito.never())
+          .save(Mockito.anyString(), Mockito.anyString(), Mockito.anyMap());
+    }
+  }
+
+  private void mockSaveAll(List<Map<String, Object>> failed) {
+    when(metricsRollupDao.saveAll(Mockito.anyString(), Mockito.anyString(), Mockito.anyList()))
+        .thenReturn(failed);
+  }
+}